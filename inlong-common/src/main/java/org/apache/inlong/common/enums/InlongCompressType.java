@@ -27,10 +27,13 @@ public enum InlongCompressType {
     NONE(0, "NONE", "The message compressed with nothing"),
     INLONG_GZ(1, "INLONG_GZ", "The message compressed with inlong gz"),
     INLONG_SNAPPY(2, "INLONG_SNAPPY", "The message compressed with inlong snappy"),
+    INLONG_ZSTD(3, "INLONG_ZSTD", "The message compressed with inlong zstd"),
+    INLONG_LZ4(4, "INLONG_LZ4", "The message compressed with inlong lz4"),
     UNKNOWN(99, "UNKNOWN", "Unknown compress type");
 
     public static final Set<String> allowedCompressTypes =
-            Sets.newHashSet(NONE.getName(), INLONG_GZ.getName(), INLONG_SNAPPY.getName());
+            Sets.newHashSet(NONE.getName(), INLONG_GZ.getName(), INLONG_SNAPPY.getName(),
+                    INLONG_ZSTD.getName(), INLONG_LZ4.getName());
 
     private final int id;
     private final String name;
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.common.metric;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MetricItemHandle, a pre-resolved reference to the metric item of one dimension tuple.
+ *
+ * The dimension key is computed once when the handle is created, so repeated lookups do not
+ * build dimension maps or key strings. The resolved item is re-fetched only after the owning
+ * {@link MetricItemSet} has been snapshotted, which keeps the snapshot swap semantics unchanged.
+ */
+public class MetricItemHandle<T extends MetricItem> {
+
+    private final MetricItemSet<T> itemSet;
+    private final String dimensionsKey;
+    private final Map<String, String> dimensions;
+    private volatile ResolvedItem<T> resolved;
+
+    /**
+     * Constructor
+     *
+     * @param itemSet     the owner metric item set
+     * @param dimensions  the dimension tuple
+     */
+    MetricItemHandle(MetricItemSet<T> itemSet, Map<String, String> dimensions) {
+        this.itemSet = itemSet;
+        this.dimensions = new HashMap<>(dimensions);
+        this.dimensionsKey = MetricUtils.getDimensionsKey(this.dimensions);
+    }
+
+    /**
+     * Get the metric item of the current snapshot period
+     *
+     * @return the metric item
+     */
+    public T getItem() {
+        int generation = itemSet.getGeneration();
+        ResolvedItem<T> current = this.resolved;
+        if (current != null && current.generation == generation) {
+            return current.item;
+        }
+        T item = itemSet.findMetricItem(dimensionsKey, dimensions);
+        this.resolved = new ResolvedItem<>(item, generation);
+        return item;
+    }
+
+    /**
+     * getDimensionsKey
+     */
+    public String getDimensionsKey() {
+        return dimensionsKey;
+    }
+
+    /**
+     * Resolved item together with the snapshot generation it belongs to
+     */
+    private static class ResolvedItem<T> {
+
+        private final T item;
+        private final int generation;
+
+        private ResolvedItem(T item, int generation) {
+            this.item = item;
+            this.generation = generation;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * MetricItemSet
@@ -29,7 +30,9 @@ public abstract class MetricItemSet<T extends MetricItem> implements MetricItemS
 
     protected String name;
 
-    protected Map<String, T> itemMap = new ConcurrentHashMap<>();
+    protected volatile Map<String, T> itemMap = new ConcurrentHashMap<>();
+
+    private final AtomicInteger generation = new AtomicInteger(0);
 
     /**
      * Constructor
@@ -54,7 +57,13 @@ public abstract class MetricItemSet<T extends MetricItem> implements MetricItemS
      * findMetricItem
      */
     public T findMetricItem(Map<String, String> dimensions) {
-        String key = MetricUtils.getDimensionsKey(dimensions);
+        return findMetricItem(MetricUtils.getDimensionsKey(dimensions), dimensions);
+    }
+
+    /**
+     * findMetricItem by a precomputed dimensions key
+     */
+    protected T findMetricItem(String key, Map<String, String> dimensions) {
         T currentItem = this.itemMap.get(key);
         if (currentItem != null) {
             return currentItem;
@@ -65,6 +74,21 @@ public abstract class MetricItemSet<T extends MetricItem> implements MetricItemS
         return (oldItem == null) ? currentItem : oldItem;
     }
 
+    /**
+     * Create a handle for the dimension tuple, the handle resolves the metric item
+     * without rebuilding the dimensions key and follows the snapshot swaps
+     */
+    public MetricItemHandle<T> createHandle(Map<String, String> dimensions) {
+        return new MetricItemHandle<>(this, dimensions);
+    }
+
+    /**
+     * Get the snapshot generation, it increases each time the item map is swapped
+     */
+    protected int getGeneration() {
+        return generation.get();
+    }
+
     /**
      * snapshot
      */
@@ -72,6 +96,7 @@ public abstract class MetricItemSet<T extends MetricItem> implements MetricItemS
     public List<MetricItem> snapshot() {
         Map<String, T> oldItemMap = itemMap;
         this.itemMap = new ConcurrentHashMap<>();
+        this.generation.incrementAndGet();
         MetricUtils.sleepOneInterval();
         List<MetricItem> result = new ArrayList<>(oldItemMap.size());
         result.addAll(oldItemMap.values());
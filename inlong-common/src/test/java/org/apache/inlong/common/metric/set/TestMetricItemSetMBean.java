@@ -18,7 +18,9 @@
 package org.apache.inlong.common.metric.set;
 
 import org.apache.inlong.common.metric.MetricItem;
+import org.apache.inlong.common.metric.MetricItemHandle;
 import org.apache.inlong.common.metric.MetricItemMBean;
+import org.apache.inlong.common.metric.MetricItemSet;
 import org.apache.inlong.common.metric.MetricItemSetMBean;
 import org.apache.inlong.common.metric.MetricRegister;
 import org.apache.inlong.common.metric.MetricUtils;
@@ -35,6 +37,8 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * 
@@ -159,4 +163,32 @@ public class TestMetricItemSetMBean {
             }
         }
     }
+
+    /**
+     * testMetricItemHandle
+     */
+    @Test
+    public void testMetricItemHandle() {
+        MetricItemSet<DataProxyMetricItem> handleSet = new MetricItemSet<DataProxyMetricItem>("handle_set") {
+
+            @Override
+            protected DataProxyMetricItem createItem() {
+                return new DataProxyMetricItem();
+            }
+        };
+        MetricItemHandle<DataProxyMetricItem> handle = handleSet.createHandle(dimSink);
+        assertEquals(MetricUtils.getDimensionsKey(dimSink), handle.getDimensionsKey());
+        DataProxyMetricItem item = handle.getItem();
+        item.sendCount.incrementAndGet();
+        assertSame(item, handle.getItem());
+        assertSame(item, handleSet.findMetricItem(dimSink));
+        // the handle follows the snapshot swap
+        List<MetricItem> items = handleSet.snapshot();
+        assertEquals(1, items.size());
+        assertSame(item, items.get(0));
+        DataProxyMetricItem newItem = handle.getItem();
+        assertNotSame(item, newItem);
+        assertSame(newItem, handleSet.findMetricItem(dimSink));
+        assertSame(newItem, handle.getItem());
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.benchmark;
+
+import org.apache.inlong.common.metric.MetricItemHandle;
+import org.apache.inlong.dataproxy.metrics.DataProxyMetricItem;
+import org.apache.inlong.dataproxy.metrics.DataProxyMetricItemSet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark of the per-event metric item lookup, compare the dimension map lookup
+ * with the cached tuple lookup and the pre-resolved metric handle.
+ */
+public class MetricItemLookupBenchmark {
+
+    private static final String CLUSTER_ID = "cluster";
+    private static final String SOURCE_ID = "source";
+    private static final String SINK_ID = "sink";
+    private static final long AUDIT_FORMAT_TIME = 1700000000000L;
+    private final int groupCount;
+    private final int lookupCount;
+    private final int roundCount;
+
+    /**
+     * Initial a metric item lookup benchmark
+     *
+     * @param groupCount    the group count of the dimension tuples
+     * @param lookupCount   the lookups of each round
+     * @param roundCount    the measured rounds, the first round is the warm up
+     */
+    public MetricItemLookupBenchmark(int groupCount, int lookupCount, int roundCount) {
+        this.groupCount = groupCount;
+        this.lookupCount = lookupCount;
+        this.roundCount = roundCount;
+    }
+
+    public static void main(String[] args) {
+        new MetricItemLookupBenchmark(50, 5000000, 5).start();
+    }
+
+    /**
+     * Start benchmark test
+     */
+    public void start() {
+        DataProxyMetricItemSet itemSet = new DataProxyMetricItemSet(CLUSTER_ID, "benchmark");
+        String[] groupIds = new String[groupCount];
+        List<MetricItemHandle<DataProxyMetricItem>> handles = new ArrayList<>(groupCount);
+        for (int i = 0; i < groupCount; i++) {
+            groupIds[i] = "group_" + i;
+            handles.add(itemSet.createHandle(buildDimensions(groupIds[i])));
+        }
+        for (int round = 0; round <= roundCount; round++) {
+            long startTime = System.nanoTime();
+            for (int i = 0; i < lookupCount; i++) {
+                itemSet.findMetricItem(buildDimensions(groupIds[i % groupCount])).sendCount.incrementAndGet();
+            }
+            long mapCost = System.nanoTime() - startTime;
+            startTime = System.nanoTime();
+            for (int i = 0; i < lookupCount; i++) {
+                itemSet.findMetricItem(CLUSTER_ID, SOURCE_ID, "", groupIds[i % groupCount],
+                        "stream", SINK_ID, "", AUDIT_FORMAT_TIME).sendCount.incrementAndGet();
+            }
+            long tupleCost = System.nanoTime() - startTime;
+            startTime = System.nanoTime();
+            for (int i = 0; i < lookupCount; i++) {
+                handles.get(i % groupCount).getItem().sendCount.incrementAndGet();
+            }
+            long handleCost = System.nanoTime() - startTime;
+            if (round == 0) {
+                continue;
+            }
+            System.out.println(new StringBuilder(512)
+                    .append("round=").append(round)
+                    .append(", groups=").append(groupCount)
+                    .append(", map lookup=").append(mapCost / lookupCount)
+                    .append("ns/op, tuple lookup=").append(tupleCost / lookupCount)
+                    .append("ns/op, handle=").append(handleCost / lookupCount)
+                    .append("ns/op").toString());
+        }
+    }
+
+    private Map<String, String> buildDimensions(String groupId) {
+        Map<String, String> dimensions = new HashMap<>();
+        dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, CLUSTER_ID);
+        dimensions.put(DataProxyMetricItem.KEY_SOURCE_ID, SOURCE_ID);
+        dimensions.put(DataProxyMetricItem.KEY_SOURCE_DATA_ID, "");
+        dimensions.put(DataProxyMetricItem.KEY_INLONG_GROUP_ID, groupId);
+        dimensions.put(DataProxyMetricItem.KEY_INLONG_STREAM_ID, "stream");
+        dimensions.put(DataProxyMetricItem.KEY_SINK_ID, SINK_ID);
+        dimensions.put(DataProxyMetricItem.KEY_SINK_DATA_ID, "");
+        dimensions.put(DataProxyMetricItem.KEY_MESSAGE_TIME, String.valueOf(AUDIT_FORMAT_TIME));
+        return dimensions;
+    }
+}
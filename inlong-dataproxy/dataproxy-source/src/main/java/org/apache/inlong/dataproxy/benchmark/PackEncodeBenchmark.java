@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.benchmark;
+
+import org.apache.inlong.common.enums.InlongCompressType;
+import org.apache.inlong.dataproxy.sink.common.DefaultEventHandler;
+import org.apache.inlong.dataproxy.sink.mq.BatchPackProfile;
+import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
+import org.apache.inlong.sdk.commons.protocol.ProxySdk.MapFieldEntry;
+import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessageObj;
+import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessageObjs;
+
+import com.google.protobuf.ByteString;
+import org.xerial.snappy.Snappy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Benchmark of the pack encoding in the mq sinks, compare the protobuf builder
+ * encoding with a fresh header map against {@link DefaultEventHandler}.
+ * The handler loads common.properties, so run it with the conf directory in the classpath.
+ */
+public class PackEncodeBenchmark {
+
+    private static final InlongCompressType[] COMPRESS_TYPES =
+            {InlongCompressType.NONE, InlongCompressType.INLONG_SNAPPY};
+    private final int eventCount;
+    private final int bodySize;
+    private final int warmupCount;
+    private final int roundCount;
+
+    /**
+     * Initial a pack encoding benchmark
+     *
+     * @param eventCount    the event count of each pack
+     * @param bodySize      the body size of each event
+     * @param warmupCount   the warm up rounds of each test case
+     * @param roundCount    the measured rounds of each test case
+     */
+    public PackEncodeBenchmark(int eventCount, int bodySize,
+            int warmupCount, int roundCount) {
+        this.eventCount = eventCount;
+        this.bodySize = bodySize;
+        this.warmupCount = warmupCount;
+        this.roundCount = roundCount;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // the BatchPackManager defaults, 256 events in a 320KB pack
+        new PackEncodeBenchmark(256, 1280, 2000, 5000).start();
+    }
+
+    /**
+     * Start benchmark test
+     *
+     * @throws Exception the exception
+     */
+    public void start() throws Exception {
+        BatchPackProfile profile = buildProfile();
+        DefaultEventHandler handler = new DefaultEventHandler();
+        for (InlongCompressType compressType : COMPRESS_TYPES) {
+            long checkSum = 0;
+            for (int i = 0; i < warmupCount; i++) {
+                checkSum += encodeByProtobuf(profile, compressType);
+                checkSum += encodeByHandler(handler, profile, compressType);
+            }
+            long startTime = System.nanoTime();
+            for (int i = 0; i < roundCount; i++) {
+                checkSum += encodeByProtobuf(profile, compressType);
+            }
+            long protobufCost = System.nanoTime() - startTime;
+            startTime = System.nanoTime();
+            for (int i = 0; i < roundCount; i++) {
+                checkSum += encodeByHandler(handler, profile, compressType);
+            }
+            long handlerCost = System.nanoTime() - startTime;
+            System.out.println(new StringBuilder(512)
+                    .append("compress=").append(compressType.getName())
+                    .append(", events=").append(eventCount)
+                    .append(", packSize=").append(profile.getSize())
+                    .append(", protobuf=").append(protobufCost / roundCount / 1000L)
+                    .append("us, handler=").append(handlerCost / roundCount / 1000L)
+                    .append("us per pack, checkSum=").append(checkSum).toString());
+        }
+    }
+
+    private BatchPackProfile buildProfile() {
+        BatchPackProfile profile = new BatchPackProfile("group.stream",
+                "group", "stream", System.currentTimeMillis());
+        byte[] body = new byte[bodySize];
+        for (int i = 0; i < bodySize; i++) {
+            body[i] = (byte) ('a' + i % 26);
+        }
+        for (int i = 0; i < eventCount; i++) {
+            ProxyEvent event = new ProxyEvent("group", "stream", body,
+                    System.currentTimeMillis(), "127.0.0.1");
+            event.getHeaders().put("key", "value-" + i);
+            profile.addEvent(event, Long.MAX_VALUE, Long.MAX_VALUE);
+        }
+        return profile;
+    }
+
+    private long encodeByHandler(DefaultEventHandler handler,
+            BatchPackProfile profile, InlongCompressType compressType) throws Exception {
+        Map<String, String> headers = handler.parseHeader(null, profile, "node1", compressType);
+        return headers.size() + handler.parseBody(null, profile, compressType).length;
+    }
+
+    private long encodeByProtobuf(BatchPackProfile profile,
+            InlongCompressType compressType) throws Exception {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("inlongGroupId", profile.getInlongGroupId());
+        headers.put("inlongStreamId", profile.getInlongStreamId());
+        headers.put("proxyName", "node1");
+        headers.put("packTime", String.valueOf(System.currentTimeMillis()));
+        headers.put("msgCount", String.valueOf(profile.getEvents().size()));
+        headers.put("srcLength", String.valueOf(profile.getSize()));
+        headers.put("compressType", compressType.getName());
+        MessageObjs.Builder objs = MessageObjs.newBuilder();
+        for (ProxyEvent event : profile.getEvents()) {
+            MessageObj.Builder builder = MessageObj.newBuilder();
+            builder.setMsgTime(event.getMsgTime());
+            builder.setSourceIp(event.getSourceIp());
+            event.getHeaders().forEach((key, value) -> {
+                builder.addParams(MapFieldEntry.newBuilder().setKey(key).setValue(value));
+            });
+            builder.setBody(ByteString.copyFrom(event.getBody()));
+            objs.addMsgs(builder.build());
+        }
+        byte[] payload = objs.build().toByteArray();
+        if (compressType == InlongCompressType.INLONG_SNAPPY) {
+            payload = Snappy.compress(payload);
+        }
+        return headers.size() + payload.length;
+    }
+}
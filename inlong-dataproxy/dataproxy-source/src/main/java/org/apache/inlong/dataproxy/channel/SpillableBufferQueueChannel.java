@@ -0,0 +1,482 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.channel;
+
+import org.apache.inlong.common.metric.MetricRegister;
+import org.apache.inlong.dataproxy.channel.SpillableTransaction.SpilledEvent;
+import org.apache.inlong.dataproxy.config.CommonConfigHolder;
+import org.apache.inlong.dataproxy.metrics.DataProxyMetricItemSet;
+import org.apache.inlong.dataproxy.utils.BufferQueue;
+import org.apache.inlong.dataproxy.utils.SpillFileLog;
+import org.apache.inlong.sdk.commons.protocol.EventConstants;
+import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
+
+import com.google.common.base.Preconditions;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.flume.ChannelException;
+import org.apache.flume.ChannelFullException;
+import org.apache.flume.Context;
+import org.apache.flume.Event;
+import org.apache.flume.FlumeException;
+import org.apache.flume.Transaction;
+import org.apache.flume.channel.AbstractChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SpillableBufferQueueChannel
+ *
+ * A memory buffer queue channel which spills the events to local disk when the memory
+ * permits run low, and replays the spilled events after the memory events are taken.
+ * Once spilling starts, the new events are spilled until the spill log is drained,
+ * so the events keep the put order. While spilling, the puts are rejected with
+ * ChannelFullException if the spill log is full.
+ */
+public class SpillableBufferQueueChannel extends AbstractChannel {
+
+    public static final Logger LOG = LoggerFactory.getLogger(SpillableBufferQueueChannel.class);
+
+    public static final String KEY_SPILL_DIR = "spillDir";
+    public static final String KEY_SPILL_SEGMENT_SIZE_MB = "spillSegmentSizeMb";
+    public static final int DEFAULT_SPILL_SEGMENT_SIZE_MB = 64;
+    public static final String KEY_MAX_SPILL_SIZE_MB = "maxSpillSizeMb";
+    public static final int DEFAULT_MAX_SPILL_SIZE_MB = 10 * 1024;
+    // start spilling when the idle rate of memory permits is lower than the value
+    public static final String KEY_SPILL_IDLE_PERCENT = "spillIdlePercent";
+    public static final int DEFAULT_SPILL_IDLE_PERCENT = 10;
+    // none, commit or interval
+    public static final String KEY_SPILL_FSYNC_POLICY = "spillFsyncPolicy";
+    public static final String FSYNC_POLICY_NONE = "none";
+    public static final String FSYNC_POLICY_COMMIT = "commit";
+    public static final String FSYNC_POLICY_INTERVAL = "interval";
+    public static final String KEY_SPILL_FSYNC_INTERVAL_MS = "spillFsyncIntervalMs";
+    public static final long DEFAULT_SPILL_FSYNC_INTERVAL_MS = 1000L;
+
+    private Context context;
+    private int maxBufferQueueCount;
+    private Semaphore countSemaphore;
+    private int maxBufferQueueSizeKb;
+    private BufferQueue<ProxyEvent> bufferQueue;
+    private ThreadLocal<SpillableTransaction> currentTransaction = new ThreadLocal<SpillableTransaction>();
+    protected Timer channelTimer;
+    private AtomicLong takeCounter = new AtomicLong(0);
+    private AtomicLong putCounter = new AtomicLong(0);
+    // spill fields
+    private File spillDir;
+    private long maxSpillSize;
+    private int spillIdlePercent;
+    private String fsyncPolicy;
+    private long fsyncIntervalMs;
+    private SpillFileLog spillLog;
+    private volatile boolean spilling = false;
+    // the count of the spilled events put but not committed or rolled back, guarded by spillStateLock
+    private int pendingSpillCnt = 0;
+    private final Object spillStateLock = new Object();
+    private final ConcurrentLinkedQueue<SpilledEvent> redeliveryQueue = new ConcurrentLinkedQueue<>();
+    private AtomicLong spillCounter = new AtomicLong(0);
+    private AtomicLong spillBytes = new AtomicLong(0);
+    private AtomicLong replayCounter = new AtomicLong(0);
+    private AtomicLong replayBytes = new AtomicLong(0);
+    private AtomicLong decodeFailCounter = new AtomicLong(0);
+    private DataProxyMetricItemSet metricItemSet;
+
+    /**
+     * Constructor
+     */
+    public SpillableBufferQueueChannel() {
+    }
+
+    /**
+     * put
+     *
+     * @param  event
+     * @throws ChannelException
+     */
+    @Override
+    public void put(Event event) throws ChannelException {
+        if (!(event instanceof ProxyEvent)) {
+            return;
+        }
+        putCounter.incrementAndGet();
+        SpillableTransaction transaction = currentTransaction.get();
+        Preconditions.checkState(transaction != null, "No transaction exists for this thread");
+        ProxyEvent profile = (ProxyEvent) event;
+        int eventSize = event.getBody().length;
+        if (!spilling && bufferQueue.getIdleRate() >= spillIdlePercent
+                && this.countSemaphore.tryAcquire()) {
+            if (this.bufferQueue.tryAcquire(eventSize)) {
+                transaction.doPut(profile);
+                return;
+            }
+            this.countSemaphore.release();
+        }
+        if (this.reserveSpillPut()) {
+            transaction.doSpillPut(profile);
+            return;
+        }
+        if (spilling) {
+            // the memory events would overtake the spilled ones, reject until the spill log is drained
+            throw new ChannelFullException("The spill log is full, channel = " + this.getName()
+                    + ", spillFileSize = " + spillLog.getFileSize());
+        }
+        // the spill log is full, wait for the memory permits
+        this.countSemaphore.acquireUninterruptibly();
+        this.bufferQueue.acquire(eventSize);
+        transaction.doPut(profile);
+    }
+
+    /**
+     * take
+     *
+     * @return Event
+     * @throws ChannelException
+     */
+    @Override
+    public Event take() throws ChannelException {
+        SpillableTransaction transaction = currentTransaction.get();
+        Preconditions.checkState(transaction != null, "No transaction exists for this thread");
+        ProxyEvent event = this.bufferQueue.pollRecord();
+        if (event != null) {
+            transaction.doTake(event);
+            takeCounter.incrementAndGet();
+            return event;
+        }
+        SpilledEvent spilledEvent = this.pollSpilledEvent();
+        if (spilledEvent != null) {
+            transaction.doSpillTake(spilledEvent);
+            takeCounter.incrementAndGet();
+            return spilledEvent.getEvent();
+        }
+        if (spilling) {
+            synchronized (spillStateLock) {
+                // the spilled events not committed yet are appended later, keep spilling until then
+                if (spilling && pendingSpillCnt == 0 && spillLog.isDrained()) {
+                    this.spilling = false;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * getTransaction
+     *
+     * @return new transaction
+     */
+    @Override
+    public Transaction getTransaction() {
+        SpillableTransaction newTransaction =
+                new SpillableTransaction(this.countSemaphore, this.bufferQueue, this);
+        this.currentTransaction.set(newTransaction);
+        return newTransaction;
+    }
+
+    /**
+     * start
+     */
+    @Override
+    public void start() {
+        try {
+            this.spillLog.open();
+        } catch (IOException e) {
+            throw new FlumeException("Open spill log failure, dir = " + spillDir, e);
+        }
+        this.spilling = !spillLog.isDrained();
+        this.metricItemSet = new DataProxyMetricItemSet(
+                CommonConfigHolder.getInstance().getClusterName(), this.getName());
+        MetricRegister.register(metricItemSet);
+        super.start();
+        try {
+            this.setReloadTimer();
+        } catch (Exception e) {
+            LOG.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * stop
+     */
+    @Override
+    public void stop() {
+        if (channelTimer != null) {
+            channelTimer.cancel();
+        }
+        this.spillLog.close();
+        if (metricItemSet != null) {
+            MetricRegister.unregister(metricItemSet);
+        }
+        super.stop();
+    }
+
+    /**
+     * setReloadTimer
+     */
+    protected void setReloadTimer() {
+        channelTimer = new Timer(true);
+        long reloadInterval = context.getLong(BufferQueueChannel.KEY_RELOADINTERVAL, 60000L);
+        TimerTask channelTask = new TimerTask() {
+
+            public void run() {
+                LOG.info("queueSize:{},availablePermits:{},maxBufferQueueCount:{},availablePermits:{},put:{},take:{},"
+                        + "spilling:{},spillUnreadSize:{},spillFileSize:{},spillSegments:{},spill:{},spillBytes:{},"
+                        + "replay:{},replayBytes:{},decodeFail:{},corruptedSize:{}",
+                        bufferQueue.size(),
+                        bufferQueue.availablePermits(),
+                        maxBufferQueueCount,
+                        countSemaphore.availablePermits(),
+                        putCounter.getAndSet(0),
+                        takeCounter.getAndSet(0),
+                        spilling,
+                        spillLog.getUnreadSize(),
+                        spillLog.getFileSize(),
+                        spillLog.getSegmentCount(),
+                        spillCounter.getAndSet(0),
+                        spillBytes.getAndSet(0),
+                        replayCounter.getAndSet(0),
+                        replayBytes.getAndSet(0),
+                        decodeFailCounter.getAndSet(0),
+                        spillLog.getCorruptedSize());
+            }
+        };
+        channelTimer.schedule(channelTask,
+                new Date(System.currentTimeMillis() + reloadInterval),
+                reloadInterval);
+        // persist the read offset, and fsync the spill log for interval policy
+        final boolean forceSync = FSYNC_POLICY_INTERVAL.equals(fsyncPolicy);
+        TimerTask checkpointTask = new TimerTask() {
+
+            public void run() {
+                try {
+                    spillLog.checkpoint(forceSync);
+                } catch (Throwable e) {
+                    LOG.error("Checkpoint spill log failure, dir = {}", spillDir, e);
+                }
+            }
+        };
+        channelTimer.schedule(checkpointTask, fsyncIntervalMs, fsyncIntervalMs);
+    }
+
+    /**
+     * configure
+     *
+     * @param context
+     */
+    @Override
+    public void configure(Context context) {
+        this.context = context;
+        this.maxBufferQueueCount = context.getInteger(BufferQueueChannel.KEY_MAX_BUFFERQUEUE_COUNT,
+                BufferQueueChannel.DEFAULT_MAX_BUFFERQUEUE_COUNT);
+        this.countSemaphore = new Semaphore(maxBufferQueueCount, true);
+        this.maxBufferQueueSizeKb = context.getInteger(BufferQueueChannel.KEY_MAX_BUFFERQUEUE_SIZE_KB,
+                BufferQueueChannel.DEFAULT_MAX_BUFFERQUEUE_SIZE_KB);
+        this.bufferQueue = new BufferQueue<>(maxBufferQueueSizeKb);
+        String dir = context.getString(KEY_SPILL_DIR);
+        if (StringUtils.isBlank(dir)) {
+            dir = "./spill/" + this.getName();
+        }
+        this.spillDir = new File(dir);
+        long segmentSize = context.getInteger(KEY_SPILL_SEGMENT_SIZE_MB, DEFAULT_SPILL_SEGMENT_SIZE_MB) * 1024L * 1024L;
+        this.maxSpillSize = context.getInteger(KEY_MAX_SPILL_SIZE_MB, DEFAULT_MAX_SPILL_SIZE_MB) * 1024L * 1024L;
+        this.spillIdlePercent = context.getInteger(KEY_SPILL_IDLE_PERCENT, DEFAULT_SPILL_IDLE_PERCENT);
+        this.fsyncPolicy = context.getString(KEY_SPILL_FSYNC_POLICY, FSYNC_POLICY_INTERVAL).trim().toLowerCase();
+        Preconditions.checkArgument(FSYNC_POLICY_NONE.equals(fsyncPolicy) || FSYNC_POLICY_COMMIT.equals(fsyncPolicy)
+                || FSYNC_POLICY_INTERVAL.equals(fsyncPolicy), "Unsupported spill fsync policy: %s", fsyncPolicy);
+        this.fsyncIntervalMs = Math.max(10L,
+                context.getLong(KEY_SPILL_FSYNC_INTERVAL_MS, DEFAULT_SPILL_FSYNC_INTERVAL_MS));
+        this.spillLog = new SpillFileLog(spillDir, segmentSize);
+    }
+
+    /**
+     * append the spilled events of a transaction to the spill log
+     *
+     * @param events  the spilled events
+     * @throws IOException  the exception while writing the spill log
+     */
+    void appendSpilledEvents(List<ProxyEvent> events) throws IOException {
+        List<byte[]> records = new ArrayList<>(events.size());
+        long totalSize = 0L;
+        for (ProxyEvent event : events) {
+            byte[] record = encodeEvent(event);
+            records.add(record);
+            totalSize += record.length;
+        }
+        spillLog.append(records, FSYNC_POLICY_COMMIT.equals(fsyncPolicy));
+        spillCounter.addAndGet(records.size());
+        spillBytes.addAndGet(totalSize);
+        for (int i = 0; i < events.size(); i++) {
+            ProxyEvent event = events.get(i);
+            metricItemSet.fillChannelSpillMetricItems(event.getInlongGroupId(),
+                    event.getInlongStreamId(), event.getMsgTime(), true, records.get(i).length);
+        }
+    }
+
+    /**
+     * release the spilled events put by a transaction, after they are appended or rolled back
+     *
+     * @param eventCnt  the count of spilled events
+     */
+    void releaseSpillPuts(int eventCnt) {
+        synchronized (spillStateLock) {
+            pendingSpillCnt -= eventCnt;
+        }
+    }
+
+    /**
+     * reserve a spilled event put if the spill log is not full
+     *
+     * @return true if the event is to be spilled
+     */
+    private boolean reserveSpillPut() {
+        synchronized (spillStateLock) {
+            if (spillLog.getFileSize() >= maxSpillSize) {
+                return false;
+            }
+            pendingSpillCnt++;
+            this.spilling = true;
+            return true;
+        }
+    }
+
+    /**
+     * commit a spilled event taken by a transaction
+     *
+     * @param spilledEvent  the spilled event
+     */
+    void commitSpilledEvent(SpilledEvent spilledEvent) {
+        spillLog.commitRead(spilledEvent.getOffset());
+        replayCounter.incrementAndGet();
+        replayBytes.addAndGet(spilledEvent.getSize());
+        ProxyEvent event = spilledEvent.getEvent();
+        metricItemSet.fillChannelSpillMetricItems(event.getInlongGroupId(),
+                event.getInlongStreamId(), event.getMsgTime(), false, spilledEvent.getSize());
+    }
+
+    /**
+     * redeliver a spilled event taken by a rolled back transaction
+     *
+     * @param spilledEvent  the spilled event
+     */
+    void redeliverSpilledEvent(SpilledEvent spilledEvent) {
+        redeliveryQueue.offer(spilledEvent);
+    }
+
+    private SpilledEvent pollSpilledEvent() {
+        SpilledEvent spilledEvent = redeliveryQueue.poll();
+        if (spilledEvent != null) {
+            return spilledEvent;
+        }
+        try {
+            SpillFileLog.LogRecord record;
+            while ((record = spillLog.read()) != null) {
+                try {
+                    return new SpilledEvent(record, decodeEvent(record.getPayload()));
+                } catch (Throwable e) {
+                    decodeFailCounter.incrementAndGet();
+                    spillLog.commitRead(record.getOffset());
+                    LOG.error("Decode spilled event failure, offset = {}", record.getOffset(), e);
+                }
+            }
+        } catch (IOException e) {
+            throw new ChannelException("Read spill log failure, dir = " + spillDir, e);
+        }
+        return null;
+    }
+
+    /**
+     * encode event to spill record
+     *
+     * @param event  the event
+     * @return the spill record
+     * @throws IOException  the exception while encoding
+     */
+    static byte[] encodeEvent(ProxyEvent event) throws IOException {
+        byte[] body = event.getBody();
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream(body.length + 256);
+        DataOutputStream out = new DataOutputStream(bytesOut);
+        Map<String, String> headers = event.getHeaders();
+        out.writeInt(headers.size());
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue() == null ? "" : entry.getValue());
+        }
+        out.writeInt(body.length);
+        out.write(body);
+        out.flush();
+        return bytesOut.toByteArray();
+    }
+
+    /**
+     * decode event from spill record
+     *
+     * @param record  the spill record
+     * @return the event
+     * @throws IOException  the exception while decoding
+     */
+    static ProxyEvent decodeEvent(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        int headerCount = in.readInt();
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 0; i < headerCount; i++) {
+            headers.put(in.readUTF(), in.readUTF());
+        }
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        ProxyEvent event = new ProxyEvent(headers.get(EventConstants.INLONG_GROUP_ID),
+                headers.get(EventConstants.INLONG_STREAM_ID), headers.get(EventConstants.HEADER_KEY_MSG_TIME),
+                headers.get(EventConstants.HEADER_KEY_SOURCE_IP), headers.get(EventConstants.HEADER_KEY_SOURCE_TIME),
+                headers, body);
+        String topic = headers.get(EventConstants.TOPIC);
+        if (StringUtils.isNotEmpty(topic)) {
+            event.setTopic(topic);
+        }
+        return event;
+    }
+
+    public boolean isSpilling() {
+        return spilling;
+    }
+
+    public long getSpillUnreadSize() {
+        return spillLog.getUnreadSize();
+    }
+
+    public long getSpillFileSize() {
+        return spillLog.getFileSize();
+    }
+
+    public DataProxyMetricItemSet getMetricItemSet() {
+        return metricItemSet;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.channel;
+
+import org.apache.inlong.dataproxy.utils.BufferQueue;
+import org.apache.inlong.dataproxy.utils.SpillFileLog;
+import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
+
+import org.apache.flume.ChannelException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * SpillableTransaction
+ */
+public class SpillableTransaction extends ProxyTransaction {
+
+    private final SpillableBufferQueueChannel channel;
+    private final List<ProxyEvent> spillPutList = new ArrayList<>();
+    private final List<SpilledEvent> spillTakeList = new ArrayList<>();
+
+    /**
+     * Constructor
+     *
+     * @param countSemaphore
+     * @param bufferQueue
+     * @param channel
+     */
+    public SpillableTransaction(Semaphore countSemaphore, BufferQueue<ProxyEvent> bufferQueue,
+            SpillableBufferQueueChannel channel) {
+        super(countSemaphore, bufferQueue);
+        this.channel = channel;
+    }
+
+    /**
+     * commit
+     */
+    @Override
+    public void commit() {
+        // write the spilled events before releasing memory, a failure rolls back the whole transaction
+        if (!spillPutList.isEmpty()) {
+            try {
+                channel.appendSpilledEvents(spillPutList);
+            } catch (Throwable e) {
+                throw new ChannelException("Append events to spill log failure", e);
+            }
+            channel.releaseSpillPuts(spillPutList.size());
+            this.spillPutList.clear();
+        }
+        super.commit();
+        for (SpilledEvent spilledEvent : spillTakeList) {
+            channel.commitSpilledEvent(spilledEvent);
+        }
+        this.spillTakeList.clear();
+    }
+
+    /**
+     * rollback
+     */
+    @Override
+    public void rollback() {
+        super.rollback();
+        for (SpilledEvent spilledEvent : spillTakeList) {
+            channel.redeliverSpilledEvent(spilledEvent);
+        }
+        this.spillTakeList.clear();
+        channel.releaseSpillPuts(spillPutList.size());
+        this.spillPutList.clear();
+    }
+
+    /**
+     * doSpillPut
+     *
+     * @param event
+     */
+    public void doSpillPut(ProxyEvent event) {
+        this.spillPutList.add(event);
+    }
+
+    /**
+     * doSpillTake
+     *
+     * @param spilledEvent
+     */
+    public void doSpillTake(SpilledEvent spilledEvent) {
+        this.spillTakeList.add(spilledEvent);
+    }
+
+    /**
+     * SpilledEvent, an event read from the spill log
+     */
+    public static class SpilledEvent {
+
+        private final long offset;
+        private final int size;
+        private final ProxyEvent event;
+
+        public SpilledEvent(SpillFileLog.LogRecord record, ProxyEvent event) {
+            this.offset = record.getOffset();
+            this.size = record.getPayload().length;
+            this.event = event;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public ProxyEvent getEvent() {
+            return event;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.apache.inlong.common.enums.InlongCompressType;
 import org.apache.inlong.dataproxy.sink.common.DefaultEventHandler;
 import org.apache.inlong.dataproxy.sink.mq.AllCacheClusterSelector;
 import org.apache.inlong.dataproxy.utils.AddressUtils;
+import org.apache.inlong.sdk.commons.utils.ZstdUtils;
 
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang3.StringUtils;
@@ -153,9 +154,15 @@ public class CommonConfigHolder {
     private static final String KEY_V1MSG_SENT_COMPRESS_TYPE = "compressType";
     private static final String KEY_V1MSG_SENT_COMPRESS_TYPEV2 = "proxy.v1msg.compress.type";
     private static final InlongCompressType VAL_DEF_V1MSG_COMPRESS_TYPE = InlongCompressType.INLONG_SNAPPY;
+    // directory of zstd dictionaries, file name is {groupId}.dict or {groupId}#{streamId}.dict
+    private static final String KEY_V1MSG_ZSTD_DICT_DIR = "proxy.v1msg." + ZstdUtils.KEY_ZSTD_DICT_DIR;
     // Same as KEY_MAX_RESPONSE_TIMEOUT_MS = "maxResponseTimeoutMs";
     private static final String KEY_MAX_RAS_TIMEOUT_MS = "maxRASTimeoutMs";
     private static final long VAL_DEF_MAX_RAS_TIMEOUT_MS = 10000L;
+    // max in-flight packs of a connection waiting for the sink response
+    private static final String KEY_MAX_RAS_INFLIGHT_PACKS = "proxy.v1msg.response.by.sink.max.inflight.packs";
+    private static final int VAL_DEF_MAX_RAS_INFLIGHT_PACKS = 256;
+    private static final int VAL_MIN_MAX_RAS_INFLIGHT_PACKS = 1;
 
     // max buffer queue size in KB
     @Deprecated
@@ -225,8 +232,10 @@ public class CommonConfigHolder {
     private String fileMetricSinkOutName = VAL_DEF_FILE_METRIC_SINK_OUTPUT_NAME;
     private String fileMetricEventOutName = VAL_DEF_FILE_METRIC_EVENT_OUTPUT_NAME;
     private InlongCompressType defV1MsgCompressType = VAL_DEF_V1MSG_COMPRESS_TYPE;
+    private String v1MsgZstdDictDir = "";
     private boolean defV1MsgResponseBySink = VAL_DEF_V1MSG_RESPONSE_BY_SINK;
     private long maxResAfterSaveTimeout = VAL_DEF_MAX_RAS_TIMEOUT_MS;
+    private int maxResAfterSaveInflightPacks = VAL_DEF_MAX_RAS_INFLIGHT_PACKS;
     private boolean enableWhiteList = VAL_DEF_ENABLE_WHITELIST;
     private int defBufferQueueSizeKB = VAL_DEF_BUFFERQUEUE_SIZE_KB;
     private String eventHandler = VAL_DEF_EVENT_HANDLER;
@@ -380,6 +389,10 @@ public class CommonConfigHolder {
         return maxResAfterSaveTimeout;
     }
 
+    public int getMaxResAfterSaveInflightPacks() {
+        return maxResAfterSaveInflightPacks;
+    }
+
     public int getDefBufferQueueSizeKB() {
         return defBufferQueueSizeKB;
     }
@@ -408,6 +421,10 @@ public class CommonConfigHolder {
         return defV1MsgCompressType;
     }
 
+    public String getV1MsgZstdDictDir() {
+        return v1MsgZstdDictDir;
+    }
+
     public String getFileMetricSourceOutName() {
         return fileMetricSourceOutName;
     }
@@ -466,6 +483,12 @@ public class CommonConfigHolder {
         if (StringUtils.isNotEmpty(tmpValue)) {
             this.maxResAfterSaveTimeout = NumberUtils.toLong(tmpValue.trim(), VAL_DEF_MAX_RAS_TIMEOUT_MS);
         }
+        // read max in-flight packs of response after save
+        tmpValue = this.props.get(KEY_MAX_RAS_INFLIGHT_PACKS);
+        if (StringUtils.isNotEmpty(tmpValue)) {
+            this.maxResAfterSaveInflightPacks = Math.max(VAL_MIN_MAX_RAS_INFLIGHT_PACKS,
+                    NumberUtils.toInt(tmpValue.trim(), VAL_DEF_MAX_RAS_INFLIGHT_PACKS));
+        }
         // read default buffer queue size
         tmpValue = compatGetValue(this.props,
                 KEY_DEF_BUFFERQUEUE_SIZE_KBV2, KEY_DEF_BUFFERQUEUE_SIZE_KB);
@@ -731,6 +754,12 @@ public class CommonConfigHolder {
             }
             this.defV1MsgCompressType = tmpCompType;
         }
+        // read and load zstd dictionaries
+        tmpValue = this.props.get(KEY_V1MSG_ZSTD_DICT_DIR);
+        if (StringUtils.isNotBlank(tmpValue)) {
+            this.v1MsgZstdDictDir = tmpValue.trim();
+            ZstdUtils.loadDictionariesOnce(v1MsgZstdDictDir);
+        }
     }
 
     private boolean loadConfigFile() {
@@ -810,8 +839,10 @@ public class CommonConfigHolder {
                 .append("fileMetricSinkOutName", fileMetricSinkOutName)
                 .append("fileMetricEventOutName", fileMetricEventOutName)
                 .append("defV1MsgCompressType", defV1MsgCompressType)
+                .append("v1MsgZstdDictDir", v1MsgZstdDictDir)
                 .append("defV1MsgResponseBySink", defV1MsgResponseBySink)
                 .append("maxResAfterSaveTimeout", maxResAfterSaveTimeout)
+                .append("maxResAfterSaveInflightPacks", maxResAfterSaveInflightPacks)
                 .append("enableWhiteList", enableWhiteList)
                 .append("defBufferQueueSizeKB", defBufferQueueSizeKB)
                 .append("eventHandler", eventHandler)
@@ -89,6 +89,7 @@ public class StatConstants {
     public static final java.lang.String EVENT_MSG_V0_POST_FAILURE = "msg.post.v0.failure";
     public static final java.lang.String EVENT_MSG_V1_POST_SUCCESS = "msg.post.v1.success";
     public static final java.lang.String EVENT_MSG_V1_POST_DROPPED = "msg.post.v1.dropped";
+    public static final java.lang.String EVENT_MSG_V1_RESPONSE_TIMEOUT = "msg.response.v1.timeout";
     // sink
     public static final java.lang.String EVENT_SINK_EVENT_V1_MALFORMED = "sink.event.v1.malformed";
     public static final java.lang.String EVENT_SINK_EVENT_TAKE_SUCCESS = "sink.event.take.success";
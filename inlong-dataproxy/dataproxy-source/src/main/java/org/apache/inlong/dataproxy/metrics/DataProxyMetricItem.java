@@ -66,6 +66,11 @@ public class DataProxyMetricItem extends MetricItem {
     public static final String M_SEND_PACK_COUNT = "sendPackCount";
     public static final String M_SEND_PACK_SIZE = "sendPackSize";
 
+    public static final String M_SPILL_COUNT = "spillCount";
+    public static final String M_SPILL_SIZE = "spillSize";
+    public static final String M_REPLAY_COUNT = "replayCount";
+    public static final String M_REPLAY_SIZE = "replaySize";
+
     @Dimension
     public String clusterId;
     @Dimension
@@ -119,6 +124,16 @@ public class DataProxyMetricItem extends MetricItem {
     public AtomicLong sendPackCount = new AtomicLong(0);
     @CountMetric
     public AtomicLong sendPackSize = new AtomicLong(0);
+    @CountMetric
+    // the events written to the channel spill log
+    public AtomicLong spillCount = new AtomicLong(0);
+    @CountMetric
+    public AtomicLong spillSize = new AtomicLong(0);
+    @CountMetric
+    // the spilled events taken from the channel spill log
+    public AtomicLong replayCount = new AtomicLong(0);
+    @CountMetric
+    public AtomicLong replaySize = new AtomicLong(0);
 
     /**
      * fillInlongId
@@ -315,4 +330,21 @@ public class DataProxyMetricItem extends MetricItem {
         return wholeDuration.get() / longSendSuccessCount;
     }
 
-}
\ No newline at end of file
+    /**
+     * get spillCount
+     *
+     * @return the spillCount
+     */
+    public long getSpillCount() {
+        return spillCount.get();
+    }
+
+    /**
+     * get replayCount
+     *
+     * @return the replayCount
+     */
+    public long getReplayCount() {
+        return replayCount.get();
+    }
+}
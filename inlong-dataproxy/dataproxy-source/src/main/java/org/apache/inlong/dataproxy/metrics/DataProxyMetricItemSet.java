@@ -18,6 +18,8 @@
 package org.apache.inlong.dataproxy.metrics;
 
 import org.apache.inlong.common.metric.MetricDomain;
+import org.apache.inlong.common.metric.MetricItem;
+import org.apache.inlong.common.metric.MetricItemHandle;
 import org.apache.inlong.common.metric.MetricItemSet;
 import org.apache.inlong.common.msg.AttributeConstants;
 import org.apache.inlong.dataproxy.config.CommonConfigHolder;
@@ -27,7 +29,10 @@ import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.flume.Event;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 
@@ -36,8 +41,15 @@ import java.util.Map;
 @MetricDomain(name = "DataProxy")
 public class DataProxyMetricItemSet extends MetricItemSet<DataProxyMetricItem> {
 
+    // lookup key reused by each thread, so that a cache hit does not allocate
+    private static final ThreadLocal<DimensionTuple> PROBE_TUPLE =
+            ThreadLocal.withInitial(DimensionTuple::new);
+
     private String clusterId = null;
     private String sourceDataId = null;
+    // metric handles of the current snapshot period
+    private final ConcurrentHashMap<DimensionTuple, MetricItemHandle<DataProxyMetricItem>> handleCache =
+            new ConcurrentHashMap<>();
 
     /**
      * Constructor
@@ -96,6 +108,30 @@ public class DataProxyMetricItemSet extends MetricItemSet<DataProxyMetricItem> {
         fillMetricItemsByEvent(event, false, false, isSuccess, size, sentTime);
     }
 
+    /**
+     * Fill channel metric items of the events spilled or replayed
+     *
+     * @param groupId    the inlong group id
+     * @param streamId   the inlong stream id
+     * @param msgTime    the message time
+     * @param isSpill    whether written to the spill log or taken from it
+     * @param size       the record size
+     */
+    public void fillChannelSpillMetricItems(String groupId, String streamId,
+            long msgTime, boolean isSpill, long size) {
+        long auditFormatTime =
+                msgTime - msgTime % CommonConfigHolder.getInstance().getAuditFormatInvlMs();
+        DataProxyMetricItem metricItem = findMetricItem(clusterId, null, null,
+                groupId, streamId, null, null, auditFormatTime);
+        if (isSpill) {
+            metricItem.spillCount.incrementAndGet();
+            metricItem.spillSize.addAndGet(size);
+        } else {
+            metricItem.replayCount.incrementAndGet();
+            metricItem.replaySize.addAndGet(size);
+        }
+    }
+
     /**
      * Fill metric items by event
      *
@@ -108,28 +144,22 @@ public class DataProxyMetricItemSet extends MetricItemSet<DataProxyMetricItem> {
     private void fillMetricItemsByEvent(Event event, boolean isSource,
             boolean isReadOp, boolean isSuccess,
             long size, long sendTime) {
-        Map<String, String> dimensions = new HashMap<>();
-        dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, clusterId);
-        dimensions.put(DataProxyMetricItem.KEY_INLONG_GROUP_ID,
-                event.getHeaders().get(AttributeConstants.GROUP_ID));
-        dimensions.put(DataProxyMetricItem.KEY_INLONG_STREAM_ID,
-                event.getHeaders().get(AttributeConstants.STREAM_ID));
         long dataTime = NumberUtils.toLong(
                 event.getHeaders().get(AttributeConstants.DATA_TIME));
         long msgCount = NumberUtils.toLong(
                 event.getHeaders().get(ConfigConstants.MSG_COUNTER_KEY));
         long auditFormatTime =
                 dataTime - dataTime % CommonConfigHolder.getInstance().getAuditFormatInvlMs();
-        dimensions.put(DataProxyMetricItem.KEY_MESSAGE_TIME, String.valueOf(auditFormatTime));
+        String groupId = event.getHeaders().get(AttributeConstants.GROUP_ID);
+        String streamId = event.getHeaders().get(AttributeConstants.STREAM_ID);
+        DataProxyMetricItem metricItem;
         if (isSource) {
-            dimensions.put(DataProxyMetricItem.KEY_SOURCE_ID, name);
-            dimensions.put(DataProxyMetricItem.KEY_SOURCE_DATA_ID, sourceDataId);
+            metricItem = findMetricItem(clusterId, name, sourceDataId,
+                    groupId, streamId, null, null, auditFormatTime);
         } else {
-            dimensions.put(DataProxyMetricItem.KEY_SINK_ID, name);
-            dimensions.put(DataProxyMetricItem.KEY_SINK_DATA_ID,
-                    event.getHeaders().get(ConfigConstants.TOPIC_KEY));
+            metricItem = findMetricItem(clusterId, null, null, groupId, streamId,
+                    name, event.getHeaders().get(ConfigConstants.TOPIC_KEY), auditFormatTime);
         }
-        DataProxyMetricItem metricItem = findMetricItem(dimensions);
         if (isReadOp) {
             if (isSuccess) {
                 metricItem.readSuccessCount.addAndGet(msgCount);
@@ -161,6 +191,60 @@ public class DataProxyMetricItemSet extends MetricItemSet<DataProxyMetricItem> {
         }
     }
 
+    /**
+     * Find metric item by the dimension values, the source part is omitted when sourceId is null
+     * and the sink part is omitted when sinkId is null.
+     *
+     * The metric handle of the dimension tuple is cached until the next snapshot, so a repeated
+     * lookup neither builds the dimension map nor the dimensions key.
+     *
+     * @param clusterId        the cluster id
+     * @param sourceId         the source id
+     * @param sourceDataId     the source data id
+     * @param groupId          the inlong group id
+     * @param streamId         the inlong stream id
+     * @param sinkId           the sink id
+     * @param sinkDataId       the sink data id
+     * @param auditFormatTime  the message time aligned to the audit interval
+     * @return the metric item of the current snapshot period
+     */
+    public DataProxyMetricItem findMetricItem(String clusterId, String sourceId, String sourceDataId,
+            String groupId, String streamId, String sinkId, String sinkDataId, long auditFormatTime) {
+        DimensionTuple probe = PROBE_TUPLE.get();
+        probe.set(clusterId, sourceId, sourceDataId, groupId, streamId, sinkId, sinkDataId, auditFormatTime);
+        MetricItemHandle<DataProxyMetricItem> handle = handleCache.get(probe);
+        if (handle == null) {
+            Map<String, String> dimensions = new HashMap<>();
+            dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, clusterId);
+            if (sourceId != null) {
+                dimensions.put(DataProxyMetricItem.KEY_SOURCE_ID, sourceId);
+                dimensions.put(DataProxyMetricItem.KEY_SOURCE_DATA_ID, sourceDataId);
+            }
+            dimensions.put(DataProxyMetricItem.KEY_INLONG_GROUP_ID, groupId);
+            dimensions.put(DataProxyMetricItem.KEY_INLONG_STREAM_ID, streamId);
+            if (sinkId != null) {
+                dimensions.put(DataProxyMetricItem.KEY_SINK_ID, sinkId);
+                dimensions.put(DataProxyMetricItem.KEY_SINK_DATA_ID, sinkDataId);
+            }
+            dimensions.put(DataProxyMetricItem.KEY_MESSAGE_TIME, String.valueOf(auditFormatTime));
+            MetricItemHandle<DataProxyMetricItem> newHandle = createHandle(dimensions);
+            handle = handleCache.putIfAbsent(probe.copy(), newHandle);
+            if (handle == null) {
+                handle = newHandle;
+            }
+        }
+        return handle.getItem();
+    }
+
+    /**
+     * snapshot, the cached handles are dropped so that the expired message times do not accumulate
+     */
+    @Override
+    public List<MetricItem> snapshot() {
+        handleCache.clear();
+        return super.snapshot();
+    }
+
     /**
      * createItem
      * 
@@ -171,4 +255,70 @@ public class DataProxyMetricItemSet extends MetricItemSet<DataProxyMetricItem> {
         return new DataProxyMetricItem();
     }
 
+    /**
+     * Dimension values of a metric item, used as the key of the handle cache
+     */
+    private static class DimensionTuple {
+
+        private String clusterId;
+        private String sourceId;
+        private String sourceDataId;
+        private String groupId;
+        private String streamId;
+        private String sinkId;
+        private String sinkDataId;
+        private long auditFormatTime;
+        private int hash;
+
+        private void set(String clusterId, String sourceId, String sourceDataId,
+                String groupId, String streamId, String sinkId, String sinkDataId, long auditFormatTime) {
+            this.clusterId = clusterId;
+            this.sourceId = sourceId;
+            this.sourceDataId = sourceDataId;
+            this.groupId = groupId;
+            this.streamId = streamId;
+            this.sinkId = sinkId;
+            this.sinkDataId = sinkDataId;
+            this.auditFormatTime = auditFormatTime;
+            int result = Objects.hashCode(clusterId);
+            result = 31 * result + Objects.hashCode(sourceId);
+            result = 31 * result + Objects.hashCode(sourceDataId);
+            result = 31 * result + Objects.hashCode(groupId);
+            result = 31 * result + Objects.hashCode(streamId);
+            result = 31 * result + Objects.hashCode(sinkId);
+            result = 31 * result + Objects.hashCode(sinkDataId);
+            this.hash = 31 * result + Long.hashCode(auditFormatTime);
+        }
+
+        private DimensionTuple copy() {
+            DimensionTuple tuple = new DimensionTuple();
+            tuple.set(clusterId, sourceId, sourceDataId, groupId, streamId, sinkId, sinkDataId, auditFormatTime);
+            return tuple;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DimensionTuple)) {
+                return false;
+            }
+            DimensionTuple that = (DimensionTuple) o;
+            return hash == that.hash
+                    && auditFormatTime == that.auditFormatTime
+                    && Objects.equals(groupId, that.groupId)
+                    && Objects.equals(streamId, that.streamId)
+                    && Objects.equals(sinkDataId, that.sinkDataId)
+                    && Objects.equals(sourceDataId, that.sourceDataId)
+                    && Objects.equals(sinkId, that.sinkId)
+                    && Objects.equals(sourceId, that.sourceId)
+                    && Objects.equals(clusterId, that.clusterId);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
@@ -49,6 +49,8 @@ import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_READ_FAI
 import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_READ_FAIL_SIZE;
 import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_READ_SUCCESS_COUNT;
 import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_READ_SUCCESS_SIZE;
+import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_REPLAY_COUNT;
+import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_REPLAY_SIZE;
 import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_SEND_COUNT;
 import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_SEND_FAIL_COUNT;
 import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_SEND_FAIL_SIZE;
@@ -56,6 +58,8 @@ import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_SEND_SIZ
 import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_SEND_SUCCESS_COUNT;
 import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_SEND_SUCCESS_SIZE;
 import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_SINK_DURATION;
+import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_SPILL_COUNT;
+import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_SPILL_SIZE;
 import static org.apache.inlong.dataproxy.metrics.DataProxyMetricItem.M_WHOLE_DURATION;
 
 /**
@@ -105,6 +109,11 @@ public class PrometheusMetricListener extends Collector implements MetricListene
         metricValueMap.put(M_SINK_DURATION, metricItem.sinkDuration);
         metricValueMap.put(M_NODE_DURATION, metricItem.nodeDuration);
         metricValueMap.put(M_WHOLE_DURATION, metricItem.wholeDuration);
+        // channel spill
+        metricValueMap.put(M_SPILL_COUNT, metricItem.spillCount);
+        metricValueMap.put(M_SPILL_SIZE, metricItem.spillSize);
+        metricValueMap.put(M_REPLAY_COUNT, metricItem.replayCount);
+        metricValueMap.put(M_REPLAY_SIZE, metricItem.replaySize);
 
         try {
             this.httpServer = new HTTPServer(CommonConfigHolder.getInstance().getPrometheusHttpPort());
@@ -189,6 +198,11 @@ public class PrometheusMetricListener extends Collector implements MetricListene
         totalCounter.addMetric(Arrays.asList(M_SINK_DURATION), metricItem.sinkDuration.get());
         totalCounter.addMetric(Arrays.asList(M_NODE_DURATION), metricItem.nodeDuration.get());
         totalCounter.addMetric(Arrays.asList(M_WHOLE_DURATION), metricItem.wholeDuration.get());
+        // channel spill
+        totalCounter.addMetric(Arrays.asList(M_SPILL_COUNT), metricItem.spillCount.get());
+        totalCounter.addMetric(Arrays.asList(M_SPILL_SIZE), metricItem.spillSize.get());
+        totalCounter.addMetric(Arrays.asList(M_REPLAY_COUNT), metricItem.replayCount.get());
+        totalCounter.addMetric(Arrays.asList(M_REPLAY_SIZE), metricItem.replaySize.get());
         List<MetricFamilySamples> mfs = new ArrayList<>();
         mfs.add(totalCounter);
 
@@ -216,6 +230,11 @@ public class PrometheusMetricListener extends Collector implements MetricListene
             addCounterMetricFamily(M_SINK_DURATION, itemValue, idCounter);
             addCounterMetricFamily(M_NODE_DURATION, itemValue, idCounter);
             addCounterMetricFamily(M_WHOLE_DURATION, itemValue, idCounter);
+            // channel spill
+            addCounterMetricFamily(M_SPILL_COUNT, itemValue, idCounter);
+            addCounterMetricFamily(M_SPILL_SIZE, itemValue, idCounter);
+            addCounterMetricFamily(M_REPLAY_COUNT, itemValue, idCounter);
+            addCounterMetricFamily(M_REPLAY_SIZE, itemValue, idCounter);
         }
         mfs.add(idCounter);
         return mfs;
@@ -23,19 +23,11 @@ import org.apache.inlong.dataproxy.config.pojo.IdTopicConfig;
 import org.apache.inlong.dataproxy.consts.ConfigConstants;
 import org.apache.inlong.dataproxy.sink.mq.BatchPackProfile;
 import org.apache.inlong.sdk.commons.protocol.EventConstants;
-import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
-import org.apache.inlong.sdk.commons.protocol.ProxySdk.MapFieldEntry;
-import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessageObj;
-import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessageObjs;
-import org.apache.inlong.sdk.commons.utils.GzipUtils;
-
-import com.google.protobuf.ByteString;
-import org.xerial.snappy.Snappy;
 
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * DefaultEventHandler
@@ -43,35 +35,57 @@ import java.util.Map;
  */
 public class DefaultEventHandler implements EventHandler {
 
+    // the header map reused between packs, each sink thread owns its handler
+    // and copies the headers into the mq message before the next pack
+    private final Map<String, String> headers = new HashMap<>();
+    private String lastGroupId;
+    private String lastStreamId;
+    private String lastNodeId;
+    private InlongCompressType lastCompressType;
+
     /**
      * parseHeader
+     *
+     * The returned map is reused by the next call, only the pack level
+     * fields are refreshed while the group, stream, node and compress type stay the same.
      */
     @Override
     public Map<String, String> parseHeader(IdTopicConfig idConfig, BatchPackProfile profile, String nodeId,
             InlongCompressType compressType) {
-        Map<String, String> headers = new HashMap<>();
-        // version int32 protocol version, the value is 1
-        headers.put(ConfigConstants.MSG_ENCODE_VER, MessageWrapType.INLONG_MSG_V1.getStrId());
-        headers.put(EventConstants.HEADER_KEY_VERSION, MessageWrapType.INLONG_MSG_V1.getStrId());
-        // inlongGroupId string inlongGroupId
-        headers.put(EventConstants.INLONG_GROUP_ID, profile.getInlongGroupId());
-        // inlongStreamId string inlongStreamId
-        headers.put(EventConstants.INLONG_STREAM_ID, profile.getInlongStreamId());
-        // proxyName string proxy node id, IP or conainer name
-        headers.put(EventConstants.HEADER_KEY_PROXY_NAME, nodeId);
+        if (!Objects.equals(lastGroupId, profile.getInlongGroupId())
+                || !Objects.equals(lastStreamId, profile.getInlongStreamId())
+                || !Objects.equals(lastNodeId, nodeId)
+                || lastCompressType != compressType) {
+            headers.clear();
+            // version int32 protocol version, the value is 1
+            headers.put(ConfigConstants.MSG_ENCODE_VER, MessageWrapType.INLONG_MSG_V1.getStrId());
+            headers.put(EventConstants.HEADER_KEY_VERSION, MessageWrapType.INLONG_MSG_V1.getStrId());
+            // inlongGroupId string inlongGroupId
+            headers.put(EventConstants.INLONG_GROUP_ID, profile.getInlongGroupId());
+            // inlongStreamId string inlongStreamId
+            headers.put(EventConstants.INLONG_STREAM_ID, profile.getInlongStreamId());
+            // proxyName string proxy node id, IP or conainer name
+            headers.put(EventConstants.HEADER_KEY_PROXY_NAME, nodeId);
+            // compressType int
+            // compress type of body data
+            // INLONG_NO_COMPRESS = 0,
+            // INLONG_GZ = 1,
+            // INLONG_SNAPPY = 2,
+            // INLONG_ZSTD = 3,
+            // INLONG_LZ4 = 4
+            headers.put(EventConstants.HEADER_KEY_COMPRESS_TYPE,
+                    String.valueOf(compressType.getName()));
+            lastGroupId = profile.getInlongGroupId();
+            lastStreamId = profile.getInlongStreamId();
+            lastNodeId = nodeId;
+            lastCompressType = compressType;
+        }
         // packTime int64 pack time, milliseconds
         headers.put(EventConstants.HEADER_KEY_PACK_TIME, String.valueOf(System.currentTimeMillis()));
         // msgCount int32 message count
         headers.put(EventConstants.HEADER_KEY_MSG_COUNT, String.valueOf(profile.getEvents().size()));
         // srcLength int32 total length of raw messages body
         headers.put(EventConstants.HEADER_KEY_SRC_LENGTH, String.valueOf(profile.getSize()));
-        // compressType int
-        // compress type of body data
-        // INLONG_NO_COMPRESS = 0,
-        // INLONG_GZ = 1,
-        // INLONG_SNAPPY = 2
-        headers.put(EventConstants.HEADER_KEY_COMPRESS_TYPE,
-                String.valueOf(compressType.getName()));
         // messageKey string partition hash key, optional
         return headers;
     }
@@ -82,35 +96,21 @@ public class DefaultEventHandler implements EventHandler {
     @Override
     public byte[] parseBody(IdTopicConfig idConfig, BatchPackProfile profile, InlongCompressType compressType)
             throws IOException {
-        List<ProxyEvent> events = profile.getEvents();
-        // encode
-        MessageObjs.Builder objs = MessageObjs.newBuilder();
-        for (ProxyEvent event : events) {
-            MessageObj.Builder builder = MessageObj.newBuilder();
-            builder.setMsgTime(event.getMsgTime());
-            builder.setSourceIp(event.getSourceIp());
-            event.getHeaders().forEach((key, value) -> {
-                builder.addParams(MapFieldEntry.newBuilder().setKey(key).setValue(value));
-            });
-            builder.setBody(ByteString.copyFrom(event.getBody()));
-            objs.addMsgs(builder.build());
-        }
-        byte[] srcBytes = objs.build().toByteArray();
-        // compress
-        byte[] compressBytes = null;
+        // encode the events directly into the payload without intermediate protobuf objects
+        MessageObjsEncoder encoder = MessageObjsEncoder.get();
         switch (compressType) {
             case INLONG_SNAPPY:
-                compressBytes = Snappy.compress(srcBytes);
-                break;
+                return encoder.encodeSnappy(profile.getEvents());
             case INLONG_GZ:
-                compressBytes = GzipUtils.compress(srcBytes);
-                break;
+                return encoder.encodeGzip(profile.getEvents());
+            case INLONG_ZSTD:
+                return encoder.encodeZstd(profile.getEvents(), profile.getInlongGroupId(), profile.getInlongStreamId());
+            case INLONG_LZ4:
+                return encoder.encodeLz4(profile.getEvents());
             case NONE:
             default:
-                compressBytes = srcBytes;
-                break;
+                return encoder.encode(profile.getEvents());
         }
-        return compressBytes;
     }
 
 }
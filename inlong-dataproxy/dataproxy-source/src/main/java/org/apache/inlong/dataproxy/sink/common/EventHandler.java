@@ -31,6 +31,9 @@ public interface EventHandler {
 
     /**
      * parseHeader
+     *
+     * The handler is used by one sink thread, the returned map may be reused
+     * by the next call, so the caller must consume it before then.
      */
     Map<String, String> parseHeader(IdTopicConfig idConfig, BatchPackProfile profile, String nodeId,
             InlongCompressType compressType) throws Exception;
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.sink.common;
+
+import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
+import org.apache.inlong.sdk.commons.utils.ZstdUtils;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.xerial.snappy.Snappy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * MessageObjsEncoder
+ *
+ * Writes the wire format of ProxySdk.MessageObjs directly from the events, the event
+ * bodies are written without being copied into intermediate protobuf objects.
+ * The encoder keeps reusable buffers, so an instance must be used by one thread.
+ */
+public class MessageObjsEncoder {
+
+    // MessageObjs fields
+    private static final int MSGS_FIELD_NUMBER = 1;
+    // MessageObj fields
+    private static final int MSG_TIME_FIELD_NUMBER = 1;
+    private static final int SOURCE_IP_FIELD_NUMBER = 2;
+    private static final int BODY_FIELD_NUMBER = 3;
+    private static final int PARAMS_FIELD_NUMBER = 4;
+    // MapFieldEntry fields
+    private static final int KEY_FIELD_NUMBER = 1;
+    private static final int VALUE_FIELD_NUMBER = 2;
+    // the reusable buffers larger than the value are released after use
+    private static final int MAX_RETAINED_BUFFER_SIZE = 8 * 1024 * 1024;
+    private static final int STREAM_BUFFER_SIZE = 8 * 1024;
+
+    private static final ThreadLocal<MessageObjsEncoder> LOCAL_ENCODER =
+            ThreadLocal.withInitial(MessageObjsEncoder::new);
+
+    private int[] msgSizes = new int[256];
+    private byte[] srcBuffer = new byte[0];
+    private byte[] compressBuffer = new byte[0];
+
+    /**
+     * get the encoder of the current thread
+     *
+     * @return the encoder
+     */
+    public static MessageObjsEncoder get() {
+        return LOCAL_ENCODER.get();
+    }
+
+    /**
+     * encode events without compression
+     *
+     * @param events  the events
+     * @return the MessageObjs serialization bytes
+     * @throws IOException  the exception while encoding
+     */
+    public byte[] encode(List<ProxyEvent> events) throws IOException {
+        int totalSize = computeSizes(events);
+        byte[] result = new byte[totalSize];
+        CodedOutputStream output = CodedOutputStream.newInstance(result);
+        writeTo(events, output);
+        output.checkNoSpaceLeft();
+        return result;
+    }
+
+    /**
+     * encode events and compress with snappy
+     *
+     * @param events  the events
+     * @return the compressed bytes
+     * @throws IOException  the exception while encoding
+     */
+    public byte[] encodeSnappy(List<ProxyEvent> events) throws IOException {
+        int totalSize = computeSizes(events);
+        byte[] src = srcBuffer.length >= totalSize ? srcBuffer : new byte[totalSize];
+        CodedOutputStream output = CodedOutputStream.newInstance(src, 0, totalSize);
+        writeTo(events, output);
+        output.checkNoSpaceLeft();
+        int maxCompressSize = Snappy.maxCompressedLength(totalSize);
+        byte[] dst = compressBuffer.length >= maxCompressSize ? compressBuffer : new byte[maxCompressSize];
+        int compressSize = Snappy.compress(src, 0, totalSize, dst, 0);
+        byte[] result = Arrays.copyOf(dst, compressSize);
+        if (src.length <= MAX_RETAINED_BUFFER_SIZE) {
+            srcBuffer = src;
+        }
+        if (dst.length <= MAX_RETAINED_BUFFER_SIZE) {
+            compressBuffer = dst;
+        }
+        return result;
+    }
+
+    /**
+     * encode events and compress with gzip, the encoded bytes are streamed into the compressor
+     *
+     * @param events  the events
+     * @return the compressed bytes
+     * @throws IOException  the exception while encoding
+     */
+    public byte[] encodeGzip(List<ProxyEvent> events) throws IOException {
+        int totalSize = computeSizes(events);
+        if (totalSize == 0) {
+            return new byte[0];
+        }
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream(Math.max(64, totalSize / 4));
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(bytesOut, STREAM_BUFFER_SIZE)) {
+            writeTo(events, gzipOut);
+        }
+        return bytesOut.toByteArray();
+    }
+
+    /**
+     * encode events and compress with zstd, the dictionary of the stream is used if registered
+     *
+     * @param events  the events
+     * @param inlongGroupId  the group id of events
+     * @param inlongStreamId  the stream id of events
+     * @return the compressed bytes
+     * @throws IOException  the exception while encoding
+     */
+    public byte[] encodeZstd(List<ProxyEvent> events,
+            String inlongGroupId, String inlongStreamId) throws IOException {
+        return ZstdUtils.compress(encode(events), inlongGroupId, inlongStreamId);
+    }
+
+    /**
+     * encode events and compress with lz4 frame format, the encoded bytes are streamed into the compressor
+     *
+     * @param events  the events
+     * @return the compressed bytes
+     * @throws IOException  the exception while encoding
+     */
+    public byte[] encodeLz4(List<ProxyEvent> events) throws IOException {
+        int totalSize = computeSizes(events);
+        if (totalSize == 0) {
+            return new byte[0];
+        }
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream(Math.max(64, totalSize / 2));
+        try (LZ4FrameOutputStream lz4Out =
+                new LZ4FrameOutputStream(bytesOut, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB)) {
+            writeTo(events, lz4Out);
+        }
+        return bytesOut.toByteArray();
+    }
+
+    private void writeTo(List<ProxyEvent> events, OutputStream out) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(out, STREAM_BUFFER_SIZE);
+        writeTo(events, output);
+        output.flush();
+    }
+
+    /**
+     * compute the size of each MessageObj and the total size of MessageObjs
+     */
+    private int computeSizes(List<ProxyEvent> events) {
+        if (msgSizes.length < events.size()) {
+            msgSizes = new int[Math.max(events.size(), msgSizes.length * 2)];
+        }
+        int totalSize = 0;
+        int index = 0;
+        for (ProxyEvent event : events) {
+            int msgSize = CodedOutputStream.computeInt64Size(MSG_TIME_FIELD_NUMBER, event.getMsgTime())
+                    + CodedOutputStream.computeStringSize(SOURCE_IP_FIELD_NUMBER, event.getSourceIp())
+                    + CodedOutputStream.computeByteArraySize(BODY_FIELD_NUMBER, event.getBody());
+            for (Map.Entry<String, String> entry : event.getHeaders().entrySet()) {
+                int entrySize = computeEntrySize(entry);
+                msgSize += CodedOutputStream.computeTagSize(PARAMS_FIELD_NUMBER)
+                        + CodedOutputStream.computeUInt32SizeNoTag(entrySize) + entrySize;
+            }
+            msgSizes[index++] = msgSize;
+            totalSize += CodedOutputStream.computeTagSize(MSGS_FIELD_NUMBER)
+                    + CodedOutputStream.computeUInt32SizeNoTag(msgSize) + msgSize;
+        }
+        return totalSize;
+    }
+
+    private void writeTo(List<ProxyEvent> events, CodedOutputStream output) throws IOException {
+        int index = 0;
+        for (ProxyEvent event : events) {
+            output.writeTag(MSGS_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(msgSizes[index++]);
+            output.writeInt64(MSG_TIME_FIELD_NUMBER, event.getMsgTime());
+            output.writeString(SOURCE_IP_FIELD_NUMBER, event.getSourceIp());
+            output.writeByteArray(BODY_FIELD_NUMBER, event.getBody());
+            for (Map.Entry<String, String> entry : event.getHeaders().entrySet()) {
+                output.writeTag(PARAMS_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                output.writeUInt32NoTag(computeEntrySize(entry));
+                output.writeString(KEY_FIELD_NUMBER, entry.getKey());
+                output.writeString(VALUE_FIELD_NUMBER, entry.getValue());
+            }
+        }
+    }
+
+    private static int computeEntrySize(Map.Entry<String, String> entry) {
+        return CodedOutputStream.computeStringSize(KEY_FIELD_NUMBER, entry.getKey())
+                + CodedOutputStream.computeStringSize(VALUE_FIELD_NUMBER, entry.getValue());
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.sink.mq;
+
+import org.apache.inlong.dataproxy.config.pojo.CacheClusterConfig;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.flume.Context;
+import org.apache.flume.conf.Configurable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AdaptiveCacheClusterSelector
+ *
+ * Connects to all the cache clusters like {@link AllCacheClusterSelector}, and routes each profile
+ * by the power of two choices: two healthy clusters are sampled and the one with the lower
+ * cost, the ack latency EWMA times the in-flight bytes, is used. A cluster whose error rate or
+ * ack latency degrades is ejected for a while, unless all the clusters are ejected.
+ */
+public class AdaptiveCacheClusterSelector implements CacheClusterSelector, Configurable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveCacheClusterSelector.class);
+
+    public static final String KEY_EWMA_ALPHA = "proxy.mq.cluster.adaptive.ewma.alpha";
+    public static final double VAL_DEF_EWMA_ALPHA = 0.2;
+    public static final String KEY_EJECT_ERROR_RATE = "proxy.mq.cluster.adaptive.eject.error.rate";
+    public static final double VAL_DEF_EJECT_ERROR_RATE = 0.5;
+    public static final String KEY_EJECT_LATENCY_FACTOR = "proxy.mq.cluster.adaptive.eject.latency.factor";
+    public static final double VAL_DEF_EJECT_LATENCY_FACTOR = 5.0;
+    public static final String KEY_EJECT_LATENCY_MIN_MS = "proxy.mq.cluster.adaptive.eject.latency.min.ms";
+    public static final long VAL_DEF_EJECT_LATENCY_MIN_MS = 200L;
+    public static final String KEY_EJECT_MIN_SAMPLES = "proxy.mq.cluster.adaptive.eject.min.samples";
+    public static final long VAL_DEF_EJECT_MIN_SAMPLES = 20L;
+    public static final String KEY_EJECT_DURATION_MS = "proxy.mq.cluster.adaptive.eject.duration.ms";
+    public static final long VAL_DEF_EJECT_DURATION_MS = 30000L;
+
+    private final ConcurrentHashMap<String, ClusterLoad> clusterLoads = new ConcurrentHashMap<>();
+    private double ewmaAlpha = VAL_DEF_EWMA_ALPHA;
+    private double ejectErrorRate = VAL_DEF_EJECT_ERROR_RATE;
+    private double ejectLatencyFactor = VAL_DEF_EJECT_LATENCY_FACTOR;
+    private long ejectLatencyMinMs = VAL_DEF_EJECT_LATENCY_MIN_MS;
+    private long ejectMinSamples = VAL_DEF_EJECT_MIN_SAMPLES;
+    private long ejectDurationMs = VAL_DEF_EJECT_DURATION_MS;
+
+    @Override
+    public void configure(Context context) {
+        double alpha = NumberUtils.toDouble(context.getString(KEY_EWMA_ALPHA), VAL_DEF_EWMA_ALPHA);
+        this.ewmaAlpha = (alpha > 0 && alpha <= 1) ? alpha : VAL_DEF_EWMA_ALPHA;
+        this.ejectErrorRate = NumberUtils.toDouble(
+                context.getString(KEY_EJECT_ERROR_RATE), VAL_DEF_EJECT_ERROR_RATE);
+        this.ejectLatencyFactor = NumberUtils.toDouble(
+                context.getString(KEY_EJECT_LATENCY_FACTOR), VAL_DEF_EJECT_LATENCY_FACTOR);
+        this.ejectLatencyMinMs = NumberUtils.toLong(
+                context.getString(KEY_EJECT_LATENCY_MIN_MS), VAL_DEF_EJECT_LATENCY_MIN_MS);
+        this.ejectMinSamples = NumberUtils.toLong(
+                context.getString(KEY_EJECT_MIN_SAMPLES), VAL_DEF_EJECT_MIN_SAMPLES);
+        this.ejectDurationMs = NumberUtils.toLong(
+                context.getString(KEY_EJECT_DURATION_MS), VAL_DEF_EJECT_DURATION_MS);
+        logger.info("Configured AdaptiveCacheClusterSelector, ewmaAlpha={}, ejectErrorRate={},"
+                + " ejectLatencyFactor={}, ejectLatencyMinMs={}, ejectMinSamples={}, ejectDurationMs={}",
+                ewmaAlpha, ejectErrorRate, ejectLatencyFactor, ejectLatencyMinMs, ejectMinSamples, ejectDurationMs);
+    }
+
+    /**
+     * select all the clusters, and drop the load records of the removed ones
+     *
+     * @param allClusterList  all the cache clusters
+     * @return  all the cache clusters
+     */
+    @Override
+    public List<CacheClusterConfig> select(List<CacheClusterConfig> allClusterList) {
+        Set<String> clusterNames = new HashSet<>();
+        for (CacheClusterConfig config : allClusterList) {
+            if (config != null) {
+                clusterNames.add(config.getClusterName());
+            }
+        }
+        clusterLoads.keySet().retainAll(clusterNames);
+        return allClusterList;
+    }
+
+    @Override
+    public String selectSendCluster(List<String> clusterNames, PackProfile profile) {
+        int clusterCnt = clusterNames.size();
+        if (clusterCnt == 0) {
+            return null;
+        }
+        if (clusterCnt == 1) {
+            return clusterNames.get(0);
+        }
+        long curTime = System.currentTimeMillis();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // sample two distinct clusters
+        int firstIndex = random.nextInt(clusterCnt);
+        int secondIndex = random.nextInt(clusterCnt - 1);
+        if (secondIndex >= firstIndex) {
+            secondIndex++;
+        }
+        String first = clusterNames.get(firstIndex);
+        String second = clusterNames.get(secondIndex);
+        ClusterLoad firstLoad = getClusterLoad(first);
+        ClusterLoad secondLoad = getClusterLoad(second);
+        boolean firstEjected = firstLoad.isEjected(curTime);
+        boolean secondEjected = secondLoad.isEjected(curTime);
+        if (!firstEjected && !secondEjected) {
+            long profileSize = profile.getSize();
+            return (firstLoad.getCost(profileSize) <= secondLoad.getCost(profileSize)) ? first : second;
+        }
+        if (!firstEjected) {
+            return first;
+        }
+        if (!secondEjected) {
+            return second;
+        }
+        // both samples are ejected, look for any healthy cluster
+        for (int i = 1; i < clusterCnt; i++) {
+            String clusterName = clusterNames.get((firstIndex + i) % clusterCnt);
+            if (!getClusterLoad(clusterName).isEjected(curTime)) {
+                return clusterName;
+            }
+        }
+        return first;
+    }
+
+    @Override
+    public void onSendStarted(String clusterName, PackProfile profile) {
+        ClusterLoad load = getClusterLoad(clusterName);
+        load.inFlightCount.incrementAndGet();
+        load.inFlightBytes.addAndGet(profile.getSize());
+    }
+
+    @Override
+    public void onSendFinished(String clusterName, PackProfile profile, long sendTime, boolean success) {
+        ClusterLoad load = clusterLoads.get(clusterName);
+        if (load == null) {
+            return;
+        }
+        load.inFlightCount.decrementAndGet();
+        load.inFlightBytes.addAndGet(-profile.getSize());
+        long curTime = System.currentTimeMillis();
+        long latencyMs = (sendTime > 0) ? Math.max(0L, curTime - sendTime) : -1L;
+        load.update(latencyMs, success, ewmaAlpha);
+        if (load.isEjected(curTime) || load.getSamples() < ejectMinSamples) {
+            return;
+        }
+        if (load.getErrorRate() >= ejectErrorRate) {
+            eject(clusterName, load, curTime, "error rate");
+        } else if (load.getLatencyMs() >= ejectLatencyMinMs
+                && load.getLatencyMs() >= ejectLatencyFactor * getBestLatencyMs(curTime)) {
+            eject(clusterName, load, curTime, "ack latency");
+        }
+    }
+
+    /**
+     * get the load record of the cluster
+     *
+     * @param clusterName  the cluster name
+     * @return the load record
+     */
+    public ClusterLoad getClusterLoad(String clusterName) {
+        ClusterLoad load = clusterLoads.get(clusterName);
+        if (load == null) {
+            load = new ClusterLoad();
+            ClusterLoad oldLoad = clusterLoads.putIfAbsent(clusterName, load);
+            if (oldLoad != null) {
+                load = oldLoad;
+            }
+        }
+        return load;
+    }
+
+    private double getBestLatencyMs(long curTime) {
+        double bestLatency = Double.MAX_VALUE;
+        for (ClusterLoad load : clusterLoads.values()) {
+            if (load.getSamples() > 0 && !load.isEjected(curTime)) {
+                bestLatency = Math.min(bestLatency, load.getLatencyMs());
+            }
+        }
+        return bestLatency;
+    }
+
+    private void eject(String clusterName, ClusterLoad load, long curTime, String reason) {
+        // keep at least one cluster available
+        for (ClusterLoad other : clusterLoads.values()) {
+            if (other != load && !other.isEjected(curTime)) {
+                load.eject(curTime + ejectDurationMs);
+                logger.warn("Ejected cache cluster {} for {} ms by {}, {}",
+                        clusterName, ejectDurationMs, reason, load);
+                return;
+            }
+        }
+    }
+
+    /**
+     * ClusterLoad, the send statistics of one cache cluster
+     */
+    public static class ClusterLoad {
+
+        private final AtomicLong inFlightCount = new AtomicLong(0);
+        private final AtomicLong inFlightBytes = new AtomicLong(0);
+        private double latencyMs = 0;
+        private double errorRate = 0;
+        private long samples = 0;
+        private volatile long ejectUntil = 0;
+
+        private synchronized void update(long latency, boolean success, double alpha) {
+            if (latency >= 0) {
+                latencyMs = (samples == 0) ? latency : (latencyMs + alpha * (latency - latencyMs));
+            }
+            errorRate = errorRate + alpha * ((success ? 0 : 1) - errorRate);
+            samples++;
+        }
+
+        private synchronized void eject(long untilTime) {
+            // readmitted with a clean error history once the ejection expires
+            this.ejectUntil = untilTime;
+            this.errorRate = 0;
+            this.samples = 0;
+        }
+
+        private double getCost(long profileSize) {
+            return (getLatencyMs() + 1) * (inFlightBytes.get() + profileSize + 1);
+        }
+
+        public boolean isEjected(long curTime) {
+            return ejectUntil > curTime;
+        }
+
+        public long getInFlightCount() {
+            return inFlightCount.get();
+        }
+
+        public long getInFlightBytes() {
+            return inFlightBytes.get();
+        }
+
+        public synchronized double getLatencyMs() {
+            return latencyMs;
+        }
+
+        public synchronized double getErrorRate() {
+            return errorRate;
+        }
+
+        public synchronized long getSamples() {
+            return samples;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "ClusterLoad{inFlightCount=" + inFlightCount.get()
+                    + ", inFlightBytes=" + inFlightBytes.get()
+                    + ", latencyMs=" + latencyMs
+                    + ", errorRate=" + errorRate
+                    + ", ejectUntil=" + ejectUntil + "}";
+        }
+    }
+}
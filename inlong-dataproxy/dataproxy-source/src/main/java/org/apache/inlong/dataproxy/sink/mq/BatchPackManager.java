@@ -28,16 +28,20 @@ import org.apache.flume.event.SimpleEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * BatchPackManager
+ *
+ * The manager is only accessed by the sink runner thread of its sink, so the packs
+ * are kept in a thread confined map keyed by (uid, dispatch minute). All the packs
+ * share the same dispatch timeout, so they expire in creation order, the timeout
+ * queue keeps the packs in creation order and only the expired head is checked.
  */
 public class BatchPackManager {
 
@@ -55,11 +59,20 @@ public class BatchPackManager {
     private final long maxPackCount;
     private final long maxPackSize;
     private final MessageQueueZoneSink mqZoneSink;
-    private final ConcurrentHashMap<String, PackProfile> profileCache = new ConcurrentHashMap<>();
+    private final Map<PackKey, PackEntry> profileCache = new HashMap<>();
+    // the packs in creation order
+    private final ArrayDeque<PackEntry> timeoutQueue = new ArrayDeque<>();
+    // reused to look up the profile cache without allocation
+    private final PackKey lookupKey = new PackKey(null, 0L);
     // flag that manager need to output overtime data.
     private final AtomicBoolean needOutputOvertimeData = new AtomicBoolean(false);
     private final AtomicLong inCounter = new AtomicLong(0);
     private final AtomicLong outCounter = new AtomicLong(0);
+    // dispatch statistics
+    private final AtomicLong fullPackCounter = new AtomicLong(0);
+    private final AtomicLong timeoutPackCounter = new AtomicLong(0);
+    private final AtomicLong fillPermilleSum = new AtomicLong(0);
+    private final AtomicLong dispatchDelaySum = new AtomicLong(0);
 
     /**
      * Constructor
@@ -82,24 +95,16 @@ public class BatchPackManager {
         // parse
         String eventUid = event.getUid();
         long dispatchTime = event.getMsgTime() - event.getMsgTime() % MINUTE_MS;
-        String dispatchKey = eventUid + "." + dispatchTime;
         // find dispatch profile
-        PackProfile dispatchProfile = this.profileCache.get(dispatchKey);
-        if (dispatchProfile == null) {
-            dispatchProfile = new BatchPackProfile(eventUid, event.getInlongGroupId(),
-                    event.getInlongStreamId(), dispatchTime);
-            this.profileCache.put(dispatchKey, dispatchProfile);
+        PackEntry entry = this.profileCache.get(lookupKey.reset(eventUid, dispatchTime));
+        if (entry == null) {
+            entry = this.createEntry(new PackKey(eventUid, dispatchTime), event);
         }
         // add event
-        if (!dispatchProfile.addEvent(event, maxPackCount, maxPackSize)) {
-            BatchPackProfile newDispatchProfile = new BatchPackProfile(eventUid, event.getInlongGroupId(),
-                    event.getInlongStreamId(), dispatchTime);
-            PackProfile oldDispatchProfile = this.profileCache.put(dispatchKey, newDispatchProfile);
-            if (oldDispatchProfile != null) {
-                this.mqZoneSink.acquireAndOfferDispatchedRecord(oldDispatchProfile);
-            }
-            this.outCounter.addAndGet(dispatchProfile.getCount());
-            newDispatchProfile.addEvent(event, maxPackCount, maxPackSize);
+        if (!entry.profile.addEvent(event, maxPackCount, maxPackSize)) {
+            this.dispatch(entry, false);
+            entry = this.createEntry(entry.key, event);
+            entry.profile.addEvent(event, maxPackCount, maxPackSize);
         }
         this.inCounter.incrementAndGet();
     }
@@ -121,8 +126,7 @@ public class BatchPackManager {
         for (ProxyEvent event : packEvent.getEvents()) {
             if (!dispatchProfile.addEvent(event, maxPackCount, maxPackSize)) {
                 // dispatch profile is full
-                this.outCounter.addAndGet(dispatchProfile.getCount());
-                this.mqZoneSink.acquireAndOfferDispatchedRecord(dispatchProfile);
+                this.offerDispatchedRecord(dispatchProfile, false);
                 dispatchProfile = new BatchPackProfile(eventUid, event.getInlongGroupId(), event.getInlongStreamId(),
                         dispatchTime);
                 dispatchProfile.setCallback(callback);
@@ -132,8 +136,7 @@ public class BatchPackManager {
         }
         // last dispatch profile
         if (dispatchProfile.getEvents().size() > 0) {
-            this.outCounter.addAndGet(dispatchProfile.getCount());
-            this.mqZoneSink.acquireAndOfferDispatchedRecord(dispatchProfile);
+            this.offerDispatchedRecord(dispatchProfile, false);
         }
     }
 
@@ -160,40 +163,76 @@ public class BatchPackManager {
      * 
      */
     public void outputOvertimeData() {
+        long createThreshold = System.currentTimeMillis() - dispatchTimeout;
+        PackEntry entry = timeoutQueue.peekFirst();
+        if (entry != null && (entry.profile == null || entry.profile.isTimeout(createThreshold))) {
+            int profileSize = profileCache.size();
+            int dispatchSize = this.mqZoneSink.getDispatchQueueSize();
+            int timeoutCount = 0;
+            while ((entry = timeoutQueue.peekFirst()) != null) {
+                if (entry.profile != null) {
+                    if (!entry.profile.isTimeout(createThreshold)) {
+                        break;
+                    }
+                    this.dispatch(entry, true);
+                    timeoutCount++;
+                }
+                timeoutQueue.pollFirst();
+            }
+            if (timeoutCount > 0 && logger.isDebugEnabled()) {
+                logger.debug("{} output {} overtime packs, profileCacheSize: before={}, after={},"
+                        + " dispatchQueueSize: before={}, after={}",
+                        mqZoneSink.getName(), timeoutCount, profileSize, profileCache.size(),
+                        dispatchSize, this.mqZoneSink.getDispatchQueueSize());
+            }
+        }
         if (!needOutputOvertimeData.getAndSet(false)) {
             return;
         }
-        int profileSize = profileCache.size();
-        int dispatchSize = this.mqZoneSink.getDispatchQueueSize();
-        long currentTime = System.currentTimeMillis();
-        long createThreshold = currentTime - dispatchTimeout;
-        List<String> removeKeys = new ArrayList<>();
-        long eventCount = 0;
-        for (Entry<String, PackProfile> entry : this.profileCache.entrySet()) {
-            PackProfile dispatchProfile = entry.getValue();
-            eventCount += dispatchProfile.getCount();
-            if (!dispatchProfile.isTimeout(createThreshold)) {
-                continue;
-            }
-            removeKeys.add(entry.getKey());
-        }
-        // output
-        removeKeys.forEach((key) -> {
-            PackProfile dispatchProfile = this.profileCache.remove(key);
-            if (dispatchProfile != null) {
-                this.mqZoneSink.acquireAndOfferDispatchedRecord(dispatchProfile);
-                this.outCounter.addAndGet(dispatchProfile.getCount());
-            }
-        });
         long hisInCnt = inCounter.getAndSet(0);
         long hisOutCnt = outCounter.getAndSet(0);
-        if (!removeKeys.isEmpty()) {
-            logger.info("{} output overtime data, profileCacheSize: before={}, after={},"
-                    + " dispatchQueueSize: before={}, after={}, eventCount: {},"
-                    + " inCounter: {}, outCounter: {}",
-                    mqZoneSink.getName(), profileSize, profileCache.size(), dispatchSize,
-                    this.mqZoneSink.getDispatchQueueSize(), eventCount, hisInCnt, hisOutCnt);
+        long hisFullCnt = fullPackCounter.getAndSet(0);
+        long hisTimeoutCnt = timeoutPackCounter.getAndSet(0);
+        long hisFillSum = fillPermilleSum.getAndSet(0);
+        long hisDelaySum = dispatchDelaySum.getAndSet(0);
+        long packCnt = hisFullCnt + hisTimeoutCnt;
+        if (packCnt > 0) {
+            logger.info("{} output packs, profileCacheSize: {}, dispatchQueueSize: {},"
+                    + " inCounter: {}, outCounter: {}, fullPacks: {}, timeoutPacks: {},"
+                    + " avgFillRatio: {}%, avgDispatchDelayMs: {}",
+                    mqZoneSink.getName(), profileCache.size(), this.mqZoneSink.getDispatchQueueSize(),
+                    hisInCnt, hisOutCnt, hisFullCnt, hisTimeoutCnt,
+                    hisFillSum / packCnt / 10.0, hisDelaySum / packCnt);
+        }
+    }
+
+    private PackEntry createEntry(PackKey key, ProxyEvent event) {
+        PackEntry entry = new PackEntry(key, new BatchPackProfile(key.uid,
+                event.getInlongGroupId(), event.getInlongStreamId(), key.dispatchTime));
+        this.profileCache.put(key, entry);
+        this.timeoutQueue.addLast(entry);
+        return entry;
+    }
+
+    private void dispatch(PackEntry entry, boolean isTimeout) {
+        PackProfile profile = entry.profile;
+        // release the profile, the entry is removed from the timeout queue when it reaches the head
+        entry.profile = null;
+        this.profileCache.remove(entry.key);
+        this.offerDispatchedRecord(profile, isTimeout);
+    }
+
+    private void offerDispatchedRecord(PackProfile profile, boolean isTimeout) {
+        if (isTimeout) {
+            this.timeoutPackCounter.incrementAndGet();
+        } else {
+            this.fullPackCounter.incrementAndGet();
         }
+        this.fillPermilleSum.addAndGet(Math.max(profile.getCount() * 1000 / maxPackCount,
+                profile.getSize() * 1000 / maxPackSize));
+        this.dispatchDelaySum.addAndGet(System.currentTimeMillis() - profile.getCreateTime());
+        this.outCounter.addAndGet(profile.getCount());
+        this.mqZoneSink.acquireAndOfferDispatchedRecord(profile);
     }
 
     /**
@@ -223,10 +262,71 @@ public class BatchPackManager {
         return maxPackSize;
     }
 
+    /**
+     * get the count of packs waiting for dispatch
+     *
+     * @return the pack count
+     */
+    public int getCachedPackCount() {
+        return profileCache.size();
+    }
+
     /**
      * setNeedOutputOvertimeData
      */
     public void setNeedOutputOvertimeData() {
         this.needOutputOvertimeData.getAndSet(true);
     }
+
+    /**
+     * PackKey, the (uid, dispatch minute) of a pack
+     */
+    private static final class PackKey {
+
+        private String uid;
+        private long dispatchTime;
+        private int hashCode;
+
+        PackKey(String uid, long dispatchTime) {
+            this.reset(uid, dispatchTime);
+        }
+
+        PackKey reset(String uid, long dispatchTime) {
+            this.uid = uid;
+            this.dispatchTime = dispatchTime;
+            this.hashCode = 31 * (uid == null ? 0 : uid.hashCode()) + Long.hashCode(dispatchTime);
+            return this;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PackKey)) {
+                return false;
+            }
+            PackKey that = (PackKey) o;
+            return dispatchTime == that.dispatchTime && Objects.equals(uid, that.uid);
+        }
+    }
+
+    /**
+     * PackEntry, the pack waiting for dispatch
+     */
+    private static final class PackEntry {
+
+        private final PackKey key;
+        private BatchPackProfile profile;
+
+        PackEntry(PackKey key, BatchPackProfile profile) {
+            this.key = key;
+            this.profile = profile;
+        }
+    }
 }
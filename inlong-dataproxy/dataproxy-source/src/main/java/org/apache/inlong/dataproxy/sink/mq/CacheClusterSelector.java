@@ -30,4 +30,35 @@ public interface CacheClusterSelector {
      * select
      */
     List<CacheClusterConfig> select(List<CacheClusterConfig> allClusterList);
+
+    /**
+     * select the cluster to send the profile to
+     *
+     * @param clusterNames  the clusters in use
+     * @param profile       the profile to send
+     * @return the selected cluster name, or null to use the round-robin dispatch
+     */
+    default String selectSendCluster(List<String> clusterNames, PackProfile profile) {
+        return null;
+    }
+
+    /**
+     * notified before the profile is handed to the cluster producer
+     *
+     * @param clusterName  the cluster name
+     * @param profile      the profile to send
+     */
+    default void onSendStarted(String clusterName, PackProfile profile) {
+    }
+
+    /**
+     * notified once the cluster has acked or failed the profile
+     *
+     * @param clusterName  the cluster name
+     * @param profile      the profile sent
+     * @param sendTime     the time the request was issued to the MQ, 0 if it failed before that
+     * @param success      whether the cluster acked the profile
+     */
+    default void onSendFinished(String clusterName, PackProfile profile, long sendTime, boolean success) {
+    }
 }
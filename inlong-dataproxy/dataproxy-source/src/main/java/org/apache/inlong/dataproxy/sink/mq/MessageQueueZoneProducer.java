@@ -157,7 +157,12 @@ public class MessageQueueZoneProducer {
                 sleepSomeTime(100);
                 continue;
             }
-            clusterName = tmpClusters.get(Math.abs(clusterIndex.getAndIncrement()) % tmpClusters.size());
+            clusterName = (cacheClusterSelector == null)
+                    ? null
+                    : cacheClusterSelector.selectSendCluster(tmpClusters, profile);
+            if (clusterName == null) {
+                clusterName = tmpClusters.get(Math.abs(clusterIndex.getAndIncrement()) % tmpClusters.size());
+            }
             if (clusterName == null) {
                 context.fileMetricIncSumStats(StatConstants.EVENT_SINK_CLUSTER_UNMATCHED);
                 sleepSomeTime(100);
@@ -169,7 +174,16 @@ public class MessageQueueZoneProducer {
                 sleepSomeTime(100);
                 continue;
             }
-            return clusterProducer.send(profile);
+            if (cacheClusterSelector == null) {
+                return clusterProducer.send(profile);
+            }
+            cacheClusterSelector.onSendStarted(clusterName, profile);
+            if (clusterProducer.send(profile)) {
+                return true;
+            }
+            // the profile failed before reaching the MQ, no callback will follow
+            cacheClusterSelector.onSendFinished(clusterName, profile, 0, false);
+            return false;
         } while (true);
     }
 
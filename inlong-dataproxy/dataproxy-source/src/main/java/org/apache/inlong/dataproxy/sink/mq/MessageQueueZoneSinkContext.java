@@ -50,6 +50,8 @@ public class MessageQueueZoneSinkContext extends SinkContext {
     private final Context producerContext;
     //
     private final InlongCompressType compressType;
+    // selector notified of the send results
+    private volatile CacheClusterSelector cacheClusterSelector;
 
     /**
      * Constructor
@@ -132,6 +134,9 @@ public class MessageQueueZoneSinkContext extends SinkContext {
      */
     public void addSendResultMetric(PackProfile currentRecord, String mqName, String topic, boolean result,
             long sendTime) {
+        if (result && sendTime > 0 && cacheClusterSelector != null) {
+            cacheClusterSelector.onSendFinished(mqName, currentRecord, sendTime, true);
+        }
         if (currentRecord instanceof SimplePackProfile) {
             if (result) {
                 AuditUtils.addOutputSuccess(((SimplePackProfile) currentRecord).getEvent());
@@ -139,21 +144,15 @@ public class MessageQueueZoneSinkContext extends SinkContext {
             return;
         }
         BatchPackProfile batchProfile = (BatchPackProfile) currentRecord;
-        Map<String, String> dimensions = new HashMap<>();
-        dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, this.getProxyClusterId());
-        dimensions.put(DataProxyMetricItem.KEY_SOURCE_ID, "-");
-        dimensions.put(DataProxyMetricItem.KEY_SOURCE_DATA_ID, "-");
-        // metric
-        fillInlongId(batchProfile, dimensions);
-        dimensions.put(DataProxyMetricItem.KEY_SINK_ID, mqName);
-        dimensions.put(DataProxyMetricItem.KEY_SINK_DATA_ID, topic);
+        final String inlongGroupId = getMetricInlongGroupId(batchProfile);
+        final String inlongStreamId = getMetricInlongStreamId(batchProfile);
         final long currentTime = System.currentTimeMillis();
         batchProfile.getEvents().forEach(event -> {
             long msgTime = event.getMsgTime();
             long auditFormatTime =
                     msgTime - msgTime % CommonConfigHolder.getInstance().getAuditFormatInvlMs();
-            dimensions.put(DataProxyMetricItem.KEY_MESSAGE_TIME, String.valueOf(auditFormatTime));
-            DataProxyMetricItem metricItem = this.getMetricItemSet().findMetricItem(dimensions);
+            DataProxyMetricItem metricItem = this.getMetricItemSet().findMetricItem(this.getProxyClusterId(),
+                    "-", "-", inlongGroupId, inlongStreamId, mqName, topic, auditFormatTime);
             if (result) {
                 metricItem.sendSuccessCount.addAndGet(1);
                 metricItem.sendSuccessSize.addAndGet(event.getBody().length);
@@ -177,19 +176,12 @@ public class MessageQueueZoneSinkContext extends SinkContext {
      * addSendMetric
      */
     public void addSendMetric(PackProfile currentRecord, String mqName, String topic, int sendPackSize) {
-        Map<String, String> dimensions = new HashMap<>();
-        dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, this.getProxyClusterId());
-        dimensions.put(DataProxyMetricItem.KEY_SOURCE_ID, "-");
-        dimensions.put(DataProxyMetricItem.KEY_SOURCE_DATA_ID, "-");
-        // metric
-        fillInlongId(currentRecord, dimensions);
-        dimensions.put(DataProxyMetricItem.KEY_SINK_ID, mqName);
-        dimensions.put(DataProxyMetricItem.KEY_SINK_DATA_ID, topic);
         long msgTime = currentRecord.getDispatchTime();
         long auditFormatTime =
                 msgTime - msgTime % CommonConfigHolder.getInstance().getAuditFormatInvlMs();
-        dimensions.put(DataProxyMetricItem.KEY_MESSAGE_TIME, String.valueOf(auditFormatTime));
-        DataProxyMetricItem metricItem = this.getMetricItemSet().findMetricItem(dimensions);
+        DataProxyMetricItem metricItem = this.getMetricItemSet().findMetricItem(this.getProxyClusterId(),
+                "-", "-", getMetricInlongGroupId(currentRecord), getMetricInlongStreamId(currentRecord),
+                mqName, topic, auditFormatTime);
         long count = currentRecord.getCount();
         long size = currentRecord.getSize();
         metricItem.sendCount.addAndGet(count);
@@ -223,12 +215,24 @@ public class MessageQueueZoneSinkContext extends SinkContext {
      * fillInlongId
      */
     public static void fillInlongId(PackProfile currentRecord, Map<String, String> dimensions) {
+        dimensions.put(DataProxyMetricItem.KEY_INLONG_GROUP_ID, getMetricInlongGroupId(currentRecord));
+        dimensions.put(DataProxyMetricItem.KEY_INLONG_STREAM_ID, getMetricInlongStreamId(currentRecord));
+    }
+
+    /**
+     * get the inlong group id used as metric dimension
+     */
+    private static String getMetricInlongGroupId(PackProfile currentRecord) {
         String inlongGroupId = currentRecord.getInlongGroupId();
-        inlongGroupId = (StringUtils.isBlank(inlongGroupId)) ? "-" : inlongGroupId;
+        return (StringUtils.isBlank(inlongGroupId)) ? "-" : inlongGroupId;
+    }
+
+    /**
+     * get the inlong stream id used as metric dimension
+     */
+    private static String getMetricInlongStreamId(PackProfile currentRecord) {
         String inlongStreamId = currentRecord.getInlongStreamId();
-        inlongStreamId = (StringUtils.isBlank(inlongStreamId)) ? "-" : inlongStreamId;
-        dimensions.put(DataProxyMetricItem.KEY_INLONG_GROUP_ID, inlongGroupId);
-        dimensions.put(DataProxyMetricItem.KEY_INLONG_STREAM_ID, inlongStreamId);
+        return (StringUtils.isBlank(inlongStreamId)) ? "-" : inlongStreamId;
     }
 
     /**
@@ -237,6 +241,10 @@ public class MessageQueueZoneSinkContext extends SinkContext {
     public void processSendFail(PackProfile currentRecord,
             String mqName, String topic, long sendTime,
             DataProxyErrCode errCode, String errMsg) {
+        // the failures before sending are reported by the zone producer
+        if (sendTime > 0 && cacheClusterSelector != null) {
+            cacheClusterSelector.onSendFinished(mqName, currentRecord, sendTime, false);
+        }
         if (currentRecord.isResend()) {
             this.mqZoneSink.offerDispatchRecord(currentRecord);
             fileMetricIncSumStats(StatConstants.EVENT_SINK_FAILRETRY);
@@ -261,7 +269,8 @@ public class MessageQueueZoneSinkContext extends SinkContext {
                 configurable.configure(new Context(CommonConfigHolder.getInstance().getProperties()));
             }
             if (selectorObject instanceof CacheClusterSelector) {
-                return (CacheClusterSelector) selectorObject;
+                this.cacheClusterSelector = (CacheClusterSelector) selectorObject;
+                return this.cacheClusterSelector;
             }
         } catch (Throwable t) {
             logger.error("Fail to init CacheClusterSelector,selectorClass:{},error:{}",
@@ -91,6 +91,15 @@ public abstract class PackProfile {
         return dispatchTime;
     }
 
+    /**
+     * get createTime
+     *
+     * @return the createTime
+     */
+    public long getCreateTime() {
+        return createTime;
+    }
+
     /**
      * get count
      *
@@ -475,13 +475,21 @@ public abstract class BaseSource
      * @param event
      */
     public void addMetric(boolean result, long size, Event event) {
-        Map<String, String> dimensions = new HashMap<>();
-        dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, CommonConfigHolder.getInstance().getClusterName());
-        dimensions.put(DataProxyMetricItem.KEY_SOURCE_ID, this.cachedSrcName);
-        dimensions.put(DataProxyMetricItem.KEY_SOURCE_DATA_ID, getStrPort());
-        DataProxyMetricItem.fillInlongId(event, dimensions);
-        DataProxyMetricItem.fillAuditFormatTime(event, dimensions);
-        DataProxyMetricItem metricItem = metricItemSet.findMetricItem(dimensions);
+        DataProxyMetricItem metricItem;
+        if (event == null) {
+            Map<String, String> dimensions = new HashMap<>();
+            dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, CommonConfigHolder.getInstance().getClusterName());
+            dimensions.put(DataProxyMetricItem.KEY_SOURCE_ID, this.cachedSrcName);
+            dimensions.put(DataProxyMetricItem.KEY_SOURCE_DATA_ID, getStrPort());
+            DataProxyMetricItem.fillAuditFormatTime(null, dimensions);
+            metricItem = metricItemSet.findMetricItem(dimensions);
+        } else {
+            long msgTime = AuditUtils.getLogTime(event);
+            long auditFormatTime = msgTime - msgTime % CommonConfigHolder.getInstance().getAuditFormatInvlMs();
+            metricItem = metricItemSet.findMetricItem(CommonConfigHolder.getInstance().getClusterName(),
+                    this.cachedSrcName, getStrPort(), DataProxyMetricItem.getInlongGroupId(event.getHeaders()),
+                    DataProxyMetricItem.getInlongStreamId(event.getHeaders()), null, null, auditFormatTime);
+        }
         if (result) {
             metricItem.readSuccessCount.incrementAndGet();
             metricItem.readSuccessSize.addAndGet(size);
@@ -30,6 +30,7 @@ import org.apache.inlong.dataproxy.exception.PkgParseException;
 import org.apache.inlong.dataproxy.source.v0msg.AbsV0MsgCodec;
 import org.apache.inlong.dataproxy.source.v0msg.CodecBinMsg;
 import org.apache.inlong.dataproxy.source.v0msg.CodecTextMsg;
+import org.apache.inlong.dataproxy.source.v1msg.InflightPackLimiter;
 import org.apache.inlong.dataproxy.source.v1msg.InlongTcpSourceCallback;
 import org.apache.inlong.dataproxy.utils.AddressUtils;
 import org.apache.inlong.sdk.commons.protocol.EventUtils;
@@ -54,7 +55,6 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 import static org.apache.inlong.dataproxy.source.ServerMessageFactory.INLONG_LENGTH_FIELD_LENGTH;
 import static org.apache.inlong.dataproxy.source.v0msg.MsgFieldConsts.BIN_HB_ATTRLEN_SIZE;
@@ -84,6 +84,8 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
 
     private static final ConfigManager configManager = ConfigManager.getInstance();
     private final BaseSource source;
+    // the in-flight packs waiting for the sink response, only used in the event loop
+    private InflightPackLimiter inflightLimiter;
 
     /**
      * Constructor
@@ -376,7 +378,7 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
     }
 
     /**
-     * processAndWaitingSave
+     * processAndWaitingSave, the pack is responded by the sink callback or the response timer
      * @param ctx
      * @param packObject
      * @param events
@@ -386,33 +388,31 @@ public class ServerMessageHandler extends ChannelInboundHandlerAdapter {
             ProxySdk.MessagePack packObject,
             List<ProxyEvent> events) throws Exception {
         ProxySdk.MessagePackHeader header = packObject.getHeader();
-        InlongTcpSourceCallback callback = new InlongTcpSourceCallback(ctx, header);
+        if (inflightLimiter == null) {
+            inflightLimiter = new InflightPackLimiter(ctx.channel(),
+                    CommonConfigHolder.getInstance().getMaxResAfterSaveInflightPacks());
+        }
+        inflightLimiter.acquire();
+        InlongTcpSourceCallback callback = new InlongTcpSourceCallback(ctx, header, inflightLimiter);
         String inlongGroupId = header.getInlongGroupId();
         String inlongStreamId = header.getInlongStreamId();
         ProxyPackEvent packEvent = new ProxyPackEvent(inlongGroupId, inlongStreamId, events, callback);
         // put to channel
         try {
+            callback.startResponseTimer(CommonConfigHolder.getInstance().getMaxResAfterSaveTimeout(),
+                    () -> source.fileMetricIncSumStats(StatConstants.EVENT_MSG_V1_RESPONSE_TIMEOUT));
             source.getCachedChProcessor().processEvent(packEvent);
             events.forEach(event -> {
                 source.addMetric(true, event.getBody().length, event);
                 source.fileMetricIncSumStats(StatConstants.EVENT_MSG_V1_POST_SUCCESS);
             });
-            boolean awaitResult = callback.getLatch().await(
-                    CommonConfigHolder.getInstance().getMaxResAfterSaveTimeout(), TimeUnit.MILLISECONDS);
-            if (!awaitResult) {
-                if (!callback.getHasResponsed().getAndSet(true)) {
-                    this.responsePackage(ctx, ProxySdk.ResultCode.ERR_REJECT, packObject);
-                }
-            }
         } catch (Throwable ex) {
             logger.error("Process Controller Event error can't write event to channel.", ex);
             events.forEach(event -> {
                 source.addMetric(false, event.getBody().length, event);
                 source.fileMetricIncSumStats(StatConstants.EVENT_MSG_V1_POST_DROPPED);
             });
-            if (!callback.getHasResponsed().getAndSet(true)) {
-                this.responsePackage(ctx, ProxySdk.ResultCode.ERR_REJECT, packObject);
-            }
+            callback.callback(ProxySdk.ResultCode.ERR_REJECT);
         }
     }
 
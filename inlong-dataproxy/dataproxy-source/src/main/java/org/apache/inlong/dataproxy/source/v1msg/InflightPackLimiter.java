@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.source.v1msg;
+
+import io.netty.channel.Channel;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limit the in-flight packs of a connection waiting for the sink response.
+ *
+ * The channel stops reading when the in-flight packs reach the max value, and resumes
+ * reading when they drop to half of it. The auto-read flag is only changed in the event
+ * loop of the channel, so the pause and the resume are always applied in order.
+ */
+public class InflightPackLimiter {
+
+    private final Channel channel;
+    private final int maxInflightPacks;
+    private final int resumeInflightPacks;
+    private final AtomicInteger inflightPacks = new AtomicInteger(0);
+    private final Runnable resumeTask = this::resumeRead;
+
+    /**
+     * Constructor
+     *
+     * @param channel the channel
+     * @param maxInflightPacks the max in-flight pack count
+     */
+    public InflightPackLimiter(Channel channel, int maxInflightPacks) {
+        this.channel = channel;
+        this.maxInflightPacks = Math.max(1, maxInflightPacks);
+        this.resumeInflightPacks = this.maxInflightPacks / 2;
+    }
+
+    /**
+     * Acquire an in-flight pack, called in the event loop of the channel
+     */
+    public void acquire() {
+        if (inflightPacks.incrementAndGet() >= maxInflightPacks
+                && channel.config().isAutoRead()) {
+            channel.config().setAutoRead(false);
+        }
+    }
+
+    /**
+     * Release an in-flight pack, called by the response thread
+     */
+    public void release() {
+        if (inflightPacks.decrementAndGet() == resumeInflightPacks) {
+            if (channel.eventLoop().inEventLoop()) {
+                resumeRead();
+            } else {
+                channel.eventLoop().execute(resumeTask);
+            }
+        }
+    }
+
+    /**
+     * get in-flight pack count
+     *
+     * @return the in-flight pack count
+     */
+    public int getInflightPacks() {
+        return inflightPacks.get();
+    }
+
+    private void resumeRead() {
+        if (inflightPacks.get() <= resumeInflightPacks
+                && !channel.config().isAutoRead()) {
+            channel.config().setAutoRead(true);
+        }
+    }
+}
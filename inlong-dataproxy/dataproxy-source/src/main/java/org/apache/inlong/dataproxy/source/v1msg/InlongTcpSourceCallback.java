@@ -27,24 +27,35 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * InlongTcpEventCallback
+ *
+ * Response the pack to the client when the sink saves the pack or the response timer expires,
+ * whichever is first. The response is written by the calling thread, the event loop of the
+ * channel is not blocked while waiting for the sink.
  */
 public class InlongTcpSourceCallback implements SourceCallback {
 
     private static final Logger logger = LoggerFactory.getLogger(InlongTcpSourceCallback.class);
     // log print count
     private static final LogCounter logCounter = new LogCounter(10, 100000, 30 * 1000);
+    // the timer wheel shared by all the waiting packs
+    private static final HashedWheelTimer RESPONSE_TIMER = new HashedWheelTimer(
+            new DefaultThreadFactory("v1msg-response-timer", true), 10, TimeUnit.MILLISECONDS, 1024);
     private final ChannelHandlerContext ctx;
     private final MessagePackHeader header;
-    private final CountDownLatch latch;
+    private final InflightPackLimiter inflightLimiter;
     private final AtomicBoolean hasResponsed = new AtomicBoolean(false);
+    private volatile Timeout responseTimeout;
 
     /**
      * Constructor
@@ -53,9 +64,21 @@ public class InlongTcpSourceCallback implements SourceCallback {
      * @param header the message pack header
      */
     public InlongTcpSourceCallback(ChannelHandlerContext ctx, MessagePackHeader header) {
+        this(ctx, header, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param ctx the channel context
+     * @param header the message pack header
+     * @param inflightLimiter the in-flight pack limiter of the channel, acquired by the caller
+     */
+    public InlongTcpSourceCallback(ChannelHandlerContext ctx,
+            MessagePackHeader header, InflightPackLimiter inflightLimiter) {
         this.ctx = ctx;
         this.header = header;
-        this.latch = new CountDownLatch(1);
+        this.inflightLimiter = inflightLimiter;
     }
 
     /**
@@ -67,10 +90,44 @@ public class InlongTcpSourceCallback implements SourceCallback {
     public void callback(ResultCode resultCode) {
         // If DataProxy have sent timeout response to SDK, DataProxy do not send success response to SDK again when
         // event is success to save.
-        if (this.hasResponsed.getAndSet(true)) {
+        if (response(resultCode)) {
+            Timeout timeout = this.responseTimeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+    }
+
+    /**
+     * Start the response timer, response ERR_REJECT if the sink does not save the pack in time
+     *
+     * @param timeoutMs the max waiting time
+     * @param timeoutListener the listener called after the timeout response, may be null
+     */
+    public void startResponseTimer(long timeoutMs, Runnable timeoutListener) {
+        if (this.hasResponsed.get()) {
             return;
         }
-        // response
+        this.responseTimeout = RESPONSE_TIMER.newTimeout(timeout -> {
+            if (response(ResultCode.ERR_REJECT) && timeoutListener != null) {
+                timeoutListener.run();
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * get hasResponsed
+     *
+     * @return the hasResponsed
+     */
+    public AtomicBoolean getHasResponsed() {
+        return hasResponsed;
+    }
+
+    private boolean response(ResultCode resultCode) {
+        if (this.hasResponsed.getAndSet(true)) {
+            return false;
+        }
         try {
             ResponseInfo.Builder builder = ResponseInfo.newBuilder();
             builder.setResult(resultCode);
@@ -82,7 +139,7 @@ public class InlongTcpSourceCallback implements SourceCallback {
             ByteBuf buffer = Unpooled.wrappedBuffer(responseBytes);
             Channel remoteChannel = ctx.channel();
             if (remoteChannel.isWritable()) {
-                remoteChannel.write(buffer);
+                remoteChannel.writeAndFlush(buffer);
             } else {
                 if (logCounter.shouldPrint()) {
                     logger.warn("the send buffer2 is full, so disconnect it!"
@@ -96,27 +153,10 @@ public class InlongTcpSourceCallback implements SourceCallback {
                 logger.error("Send response failure", e);
             }
         } finally {
-            // notice TCP session
-            this.latch.countDown();
+            if (inflightLimiter != null) {
+                inflightLimiter.release();
+            }
         }
+        return true;
     }
-
-    /**
-     * get hasResponsed
-     *
-     * @return the hasResponsed
-     */
-    public AtomicBoolean getHasResponsed() {
-        return hasResponsed;
-    }
-
-    /**
-     * get latch
-     *
-     * @return the latch
-     */
-    public CountDownLatch getLatch() {
-        return latch;
-    }
-
 }
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.utils;
+
+import org.apache.inlong.sdk.commons.utils.SegmentedFileLog;
+
+import java.io.File;
+
+/**
+ * SpillFileLog
+ *
+ * The segmented file log of the spill channel, the segments are named "{startOffset}.spill"
+ * and the read offset is kept in "spill.checkpoint". The spill channel checks the spilled size
+ * itself, so the disk budget is not limited here, and the directory is not locked.
+ */
+public class SpillFileLog extends SegmentedFileLog {
+
+    public static final String SPILL_LOG_NAME = "spill";
+    public static final String SEGMENT_SUFFIX = "." + SPILL_LOG_NAME;
+    public static final String CHECKPOINT_FILE = SPILL_LOG_NAME + ".checkpoint";
+
+    /**
+     * Constructor
+     *
+     * @param logDir  the directory of segment files
+     * @param maxSegmentSize  the max size of a segment file
+     */
+    public SpillFileLog(File logDir, long maxSegmentSize) {
+        super(logDir, SPILL_LOG_NAME, maxSegmentSize, UNLIMITED_DISK_SIZE, false);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.channel;
+
+import org.apache.inlong.common.metric.MetricItem;
+import org.apache.inlong.dataproxy.metrics.DataProxyMetricItem;
+import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
+
+import org.apache.flume.ChannelFullException;
+import org.apache.flume.Context;
+import org.apache.flume.Event;
+import org.apache.flume.Transaction;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test for {@link SpillableBufferQueueChannel}
+ */
+public class SpillableBufferQueueChannelTest {
+
+    private static final int BODY_SIZE = 4 * 1024;
+
+    private File spillDir;
+    private SpillableBufferQueueChannel channel;
+
+    @Before
+    public void setUp() throws IOException {
+        spillDir = Files.createTempDirectory("spill-channel-test").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        if (channel != null) {
+            channel.stop();
+        }
+        File[] files = spillDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        spillDir.delete();
+    }
+
+    @Test
+    public void testSpillTrigger() {
+        // the memory holds 10KB, spill when the idle rate is below 50%
+        startChannel(10, 50, 1);
+        putEvents(0, 2);
+        Assert.assertFalse(channel.isSpilling());
+        Assert.assertEquals(0L, channel.getSpillUnreadSize());
+        putEvents(2, 1);
+        Assert.assertTrue(channel.isSpilling());
+        Assert.assertTrue(channel.getSpillUnreadSize() > 0);
+    }
+
+    @Test
+    public void testOrderAcrossSpillBoundary() {
+        startChannel(10, 50, 1);
+        putEvents(0, 4);
+        Assert.assertTrue(channel.isSpilling());
+        // the memory is released, but the new events are still spilled behind the spilled ones
+        Assert.assertEquals("event-0", takeEvent(true));
+        putEvents(4, 2);
+        for (int i = 1; i < 6; i++) {
+            Assert.assertEquals("event-" + i, takeEvent(true));
+        }
+        Assert.assertNull(takeEvent(true));
+        // the spilled and replayed events are counted by the metric items
+        long spillCount = 0;
+        long replayCount = 0;
+        for (MetricItem item : channel.getMetricItemSet().snapshot()) {
+            spillCount += ((DataProxyMetricItem) item).getSpillCount();
+            replayCount += ((DataProxyMetricItem) item).getReplayCount();
+        }
+        Assert.assertEquals(4L, spillCount);
+        Assert.assertEquals(4L, replayCount);
+        // the spill log is drained, the new events go to memory
+        Assert.assertFalse(channel.isSpilling());
+        putEvents(6, 1);
+        Assert.assertFalse(channel.isSpilling());
+        Assert.assertEquals("event-6", takeEvent(true));
+    }
+
+    @Test
+    public void testRedeliverAfterTakeRollback() {
+        // always spill
+        startChannel(10, 101, 1);
+        putEvents(0, 3);
+        Assert.assertEquals("event-0", takeEvent(false));
+        Assert.assertEquals("event-0", takeEvent(true));
+        Assert.assertEquals("event-1", takeEvent(true));
+        Assert.assertEquals("event-2", takeEvent(true));
+        Assert.assertNull(takeEvent(true));
+    }
+
+    @Test
+    public void testRejectWhenSpillLogFull() {
+        startChannel(10, 101, 1);
+        byte[] body = new byte[512 * 1024];
+        putEvent(new ProxyEvent("group", "stream", body, 0L, "127.0.0.1"));
+        putEvent(new ProxyEvent("group", "stream", body, 0L, "127.0.0.1"));
+        Assert.assertTrue(channel.getSpillFileSize() >= 1024 * 1024);
+        // the memory is free, but the event can not overtake the spilled ones
+        Transaction tx = channel.getTransaction();
+        tx.begin();
+        try {
+            channel.put(newEvent(2));
+            Assert.fail("The event is put while the spill log is full");
+        } catch (ChannelFullException e) {
+            // expected
+        } finally {
+            tx.rollback();
+            tx.close();
+        }
+    }
+
+    @Test
+    public void testKeepSpillingWithUncommittedPut() throws Exception {
+        startChannel(10, 101, 1);
+        Transaction putTx = channel.getTransaction();
+        putTx.begin();
+        channel.put(newEvent(0));
+        Assert.assertTrue(channel.isSpilling());
+        // take in another thread before the spilled put is committed
+        final AtomicReference<Event> taken = new AtomicReference<>();
+        Thread taker = new Thread(() -> {
+            Transaction takeTx = channel.getTransaction();
+            takeTx.begin();
+            taken.set(channel.take());
+            takeTx.commit();
+            takeTx.close();
+        });
+        taker.start();
+        taker.join();
+        Assert.assertNull(taken.get());
+        Assert.assertTrue(channel.isSpilling());
+        putTx.commit();
+        putTx.close();
+        Assert.assertEquals("event-0", takeEvent(true));
+    }
+
+    private void startChannel(int bufferSizeKb, int spillIdlePercent, int maxSpillSizeMb) {
+        Context context = new Context();
+        context.put(BufferQueueChannel.KEY_MAX_BUFFERQUEUE_SIZE_KB, String.valueOf(bufferSizeKb));
+        context.put(SpillableBufferQueueChannel.KEY_SPILL_DIR, spillDir.getAbsolutePath());
+        context.put(SpillableBufferQueueChannel.KEY_SPILL_IDLE_PERCENT, String.valueOf(spillIdlePercent));
+        context.put(SpillableBufferQueueChannel.KEY_MAX_SPILL_SIZE_MB, String.valueOf(maxSpillSizeMb));
+        channel = new SpillableBufferQueueChannel();
+        channel.setName("spill-channel");
+        channel.configure(context);
+        channel.start();
+    }
+
+    private ProxyEvent newEvent(int index) {
+        byte[] body = Arrays.copyOf(("event-" + index).getBytes(StandardCharsets.UTF_8), BODY_SIZE);
+        return new ProxyEvent("group", "stream", body, 0L, "127.0.0.1");
+    }
+
+    private void putEvents(int start, int count) {
+        for (int i = start; i < start + count; i++) {
+            putEvent(newEvent(i));
+        }
+    }
+
+    private void putEvent(ProxyEvent event) {
+        Transaction tx = channel.getTransaction();
+        tx.begin();
+        channel.put(event);
+        tx.commit();
+        tx.close();
+    }
+
+    private String takeEvent(boolean commit) {
+        Transaction tx = channel.getTransaction();
+        tx.begin();
+        Event event = channel.take();
+        if (commit) {
+            tx.commit();
+        } else {
+            tx.rollback();
+        }
+        tx.close();
+        if (event == null) {
+            return null;
+        }
+        return new String(event.getBody(), StandardCharsets.UTF_8).trim().replace("\u0000", "");
+    }
+}
@@ -40,6 +40,7 @@ public class TestCommonConfigHolder {
         Assert.assertTrue(CommonConfigHolder.getInstance().getDefTopics().contains("test2"));
         Assert.assertTrue(CommonConfigHolder.getInstance().isSendRetryAfterFailure());
         Assert.assertEquals(2, CommonConfigHolder.getInstance().getMaxRetriesAfterFailure());
+        Assert.assertEquals(256, CommonConfigHolder.getInstance().getMaxResAfterSaveInflightPacks());
     }
 
 }
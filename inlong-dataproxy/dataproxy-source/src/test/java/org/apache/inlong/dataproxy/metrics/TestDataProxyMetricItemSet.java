@@ -32,11 +32,14 @@ import javax.management.ObjectInstance;
 import javax.management.ObjectName;
 
 import java.lang.management.ManagementFactory;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * 
@@ -168,4 +171,38 @@ public class TestDataProxyMetricItemSet {
             Set<ObjectInstance> mbeans = mbs.queryMBeans(objName, null);
         }
     }
+
+    /**
+     * testFindMetricItemByTuple
+     */
+    @Test
+    public void testFindMetricItemByTuple() {
+        DataProxyMetricItemSet tupleSet = new DataProxyMetricItemSet(CLUSTER_ID, SOURCE_ID, SOURCE_DATA_ID);
+        DataProxyMetricItem item = tupleSet.findMetricItem(CLUSTER_ID, SOURCE_ID, SOURCE_DATA_ID,
+                INLONG_GROUP_ID1, INLONG_STREAM_ID, null, null, 1000L);
+        item.readSuccessCount.incrementAndGet();
+        // the same tuple resolves to the same item, and matches the map based lookup
+        Map<String, String> dimensions = new HashMap<>();
+        dimensions.put(DataProxyMetricItem.KEY_CLUSTER_ID, CLUSTER_ID);
+        dimensions.put(DataProxyMetricItem.KEY_SOURCE_ID, SOURCE_ID);
+        dimensions.put(DataProxyMetricItem.KEY_SOURCE_DATA_ID, SOURCE_DATA_ID);
+        dimensions.put(DataProxyMetricItem.KEY_INLONG_GROUP_ID, INLONG_GROUP_ID1);
+        dimensions.put(DataProxyMetricItem.KEY_INLONG_STREAM_ID, INLONG_STREAM_ID);
+        dimensions.put(DataProxyMetricItem.KEY_MESSAGE_TIME, "1000");
+        assertSame(item, tupleSet.findMetricItem(CLUSTER_ID, SOURCE_ID, SOURCE_DATA_ID,
+                INLONG_GROUP_ID1, INLONG_STREAM_ID, null, null, 1000L));
+        assertSame(item, tupleSet.findMetricItem(dimensions));
+        // sink tuple with the same group and stream is a different item
+        DataProxyMetricItem sinkItem = tupleSet.findMetricItem(CLUSTER_ID, null, null,
+                INLONG_GROUP_ID1, INLONG_STREAM_ID, SINK_ID, SINK_DATA_ID, 1000L);
+        assertNotSame(item, sinkItem);
+        // the snapshot swaps the items, and the next lookup resolves a new item
+        List<MetricItem> items = tupleSet.snapshot();
+        assertEquals(2, items.size());
+        DataProxyMetricItem newItem = tupleSet.findMetricItem(CLUSTER_ID, SOURCE_ID, SOURCE_DATA_ID,
+                INLONG_GROUP_ID1, INLONG_STREAM_ID, null, null, 1000L);
+        assertNotSame(item, newItem);
+        assertEquals(1, item.readSuccessCount.get());
+        assertEquals(0, newItem.readSuccessCount.get());
+    }
 }
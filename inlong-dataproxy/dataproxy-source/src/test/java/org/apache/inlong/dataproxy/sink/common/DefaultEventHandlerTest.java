@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.sink.common;
+
+import org.apache.inlong.common.enums.InlongCompressType;
+import org.apache.inlong.dataproxy.sink.mq.BatchPackProfile;
+import org.apache.inlong.sdk.commons.protocol.EventConstants;
+import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Test for {@link DefaultEventHandler}
+ */
+public class DefaultEventHandlerTest {
+
+    @Test
+    public void testParseHeaderReuse() {
+        DefaultEventHandler handler = new DefaultEventHandler();
+        Map<String, String> headers = handler.parseHeader(null,
+                buildProfile("group1", "stream1", 2), "node1", InlongCompressType.INLONG_SNAPPY);
+        Map<String, String> firstHeaders = new HashMap<>(headers);
+        Assert.assertEquals("group1", firstHeaders.get(EventConstants.INLONG_GROUP_ID));
+        Assert.assertEquals("stream1", firstHeaders.get(EventConstants.INLONG_STREAM_ID));
+        Assert.assertEquals("node1", firstHeaders.get(EventConstants.HEADER_KEY_PROXY_NAME));
+        Assert.assertEquals("2", firstHeaders.get(EventConstants.HEADER_KEY_MSG_COUNT));
+        Assert.assertEquals(InlongCompressType.INLONG_SNAPPY.getName(),
+                firstHeaders.get(EventConstants.HEADER_KEY_COMPRESS_TYPE));
+        // the same stream reuses the map and refreshes the pack level fields
+        Map<String, String> sameHeaders = handler.parseHeader(null,
+                buildProfile("group1", "stream1", 3), "node1", InlongCompressType.INLONG_SNAPPY);
+        Assert.assertSame(headers, sameHeaders);
+        Assert.assertEquals(firstHeaders.size(), sameHeaders.size());
+        Assert.assertEquals("3", sameHeaders.get(EventConstants.HEADER_KEY_MSG_COUNT));
+        Assert.assertEquals("group1", sameHeaders.get(EventConstants.INLONG_GROUP_ID));
+        // another stream or compress type rebuilds the fixed fields
+        Map<String, String> otherHeaders = handler.parseHeader(null,
+                buildProfile("group2", "stream2", 1), "node1", InlongCompressType.INLONG_GZ);
+        Assert.assertEquals(firstHeaders.size(), otherHeaders.size());
+        Assert.assertEquals("group2", otherHeaders.get(EventConstants.INLONG_GROUP_ID));
+        Assert.assertEquals("stream2", otherHeaders.get(EventConstants.INLONG_STREAM_ID));
+        Assert.assertEquals(InlongCompressType.INLONG_GZ.getName(),
+                otherHeaders.get(EventConstants.HEADER_KEY_COMPRESS_TYPE));
+        Assert.assertEquals("1", otherHeaders.get(EventConstants.HEADER_KEY_MSG_COUNT));
+    }
+
+    private BatchPackProfile buildProfile(String groupId, String streamId, int eventCount) {
+        BatchPackProfile profile = new BatchPackProfile(groupId + "." + streamId,
+                groupId, streamId, System.currentTimeMillis());
+        for (int i = 0; i < eventCount; i++) {
+            profile.addEvent(new ProxyEvent(groupId, streamId, ("body-" + i).getBytes(),
+                    System.currentTimeMillis(), "127.0.0.1"), 100, 1024 * 1024);
+        }
+        return profile;
+    }
+}
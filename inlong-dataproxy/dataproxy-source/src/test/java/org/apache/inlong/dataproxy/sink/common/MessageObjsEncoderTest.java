@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.sink.common;
+
+import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
+import org.apache.inlong.sdk.commons.protocol.ProxySdk.MapFieldEntry;
+import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessageObj;
+import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessageObjs;
+import org.apache.inlong.sdk.commons.utils.GzipUtils;
+import org.apache.inlong.sdk.commons.utils.Lz4Utils;
+import org.apache.inlong.sdk.commons.utils.ZstdUtils;
+
+import com.google.protobuf.ByteString;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xerial.snappy.Snappy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test for {@link MessageObjsEncoder}
+ */
+public class MessageObjsEncoderTest {
+
+    @Test
+    public void testEncodeSameAsProtobuf() throws Exception {
+        MessageObjsEncoder encoder = MessageObjsEncoder.get();
+        for (int count : new int[]{1, 10, 300}) {
+            List<ProxyEvent> events = buildEvents(count);
+            byte[] expected = buildByProtobuf(events);
+            Assert.assertArrayEquals(expected, encoder.encode(events));
+            Assert.assertArrayEquals(expected, Snappy.uncompress(encoder.encodeSnappy(events)));
+            Assert.assertArrayEquals(expected, GzipUtils.decompress(encoder.encodeGzip(events)));
+            Assert.assertArrayEquals(expected,
+                    ZstdUtils.decompress(encoder.encodeZstd(events, "group", "stream")));
+            Assert.assertArrayEquals(expected, Lz4Utils.decompress(encoder.encodeLz4(events)));
+        }
+        MessageObjs objs = MessageObjs.parseFrom(encoder.encode(buildEvents(3)));
+        Assert.assertEquals(3, objs.getMsgsCount());
+        Assert.assertEquals("body-2", objs.getMsgs(2).getBody().toStringUtf8());
+    }
+
+    private List<ProxyEvent> buildEvents(int count) {
+        List<ProxyEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ProxyEvent event = new ProxyEvent("group", "stream", ("body-" + i).getBytes(),
+                    System.currentTimeMillis(), "127.0.0.1");
+            event.getHeaders().put("key-" + i, "中文-" + i);
+            events.add(event);
+        }
+        return events;
+    }
+
+    private byte[] buildByProtobuf(List<ProxyEvent> events) {
+        MessageObjs.Builder objs = MessageObjs.newBuilder();
+        for (ProxyEvent event : events) {
+            MessageObj.Builder builder = MessageObj.newBuilder();
+            builder.setMsgTime(event.getMsgTime());
+            builder.setSourceIp(event.getSourceIp());
+            event.getHeaders().forEach((key, value) -> {
+                builder.addParams(MapFieldEntry.newBuilder().setKey(key).setValue(value));
+            });
+            builder.setBody(ByteString.copyFrom(event.getBody()));
+            objs.addMsgs(builder.build());
+        }
+        return objs.build().toByteArray();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.sink.mq;
+
+import org.apache.flume.Context;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test for {@link AdaptiveCacheClusterSelector}
+ */
+public class AdaptiveCacheClusterSelectorTest {
+
+    private static final List<String> CLUSTERS = Arrays.asList("pulsar1", "pulsar2");
+
+    private static AdaptiveCacheClusterSelector createSelector() {
+        Context context = new Context();
+        context.put(AdaptiveCacheClusterSelector.KEY_EJECT_MIN_SAMPLES, "5");
+        context.put(AdaptiveCacheClusterSelector.KEY_EJECT_DURATION_MS, "60000");
+        AdaptiveCacheClusterSelector selector = new AdaptiveCacheClusterSelector();
+        selector.configure(context);
+        return selector;
+    }
+
+    private static PackProfile mockProfile(long size) {
+        PackProfile profile = Mockito.mock(PackProfile.class);
+        Mockito.when(profile.getSize()).thenReturn(size);
+        return profile;
+    }
+
+    private static void sendAndAck(AdaptiveCacheClusterSelector selector, String clusterName,
+            long latencyMs, boolean success) {
+        PackProfile profile = mockProfile(100);
+        selector.onSendStarted(clusterName, profile);
+        selector.onSendFinished(clusterName, profile, System.currentTimeMillis() - latencyMs, success);
+    }
+
+    @Test
+    public void testPreferLowLatencyAndLoad() {
+        AdaptiveCacheClusterSelector selector = createSelector();
+        for (int i = 0; i < 3; i++) {
+            sendAndAck(selector, "pulsar1", 10, true);
+            sendAndAck(selector, "pulsar2", 40, true);
+        }
+        PackProfile profile = mockProfile(100);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("pulsar1", selector.selectSendCluster(CLUSTERS, profile));
+        }
+        // the in-flight bytes outweigh the latency
+        PackProfile bigProfile = mockProfile(10000);
+        selector.onSendStarted("pulsar1", bigProfile);
+        Assert.assertEquals("pulsar2", selector.selectSendCluster(CLUSTERS, profile));
+        Assert.assertEquals(10000, selector.getClusterLoad("pulsar1").getInFlightBytes());
+        selector.onSendFinished("pulsar1", bigProfile, 0, false);
+        Assert.assertEquals(0, selector.getClusterLoad("pulsar1").getInFlightBytes());
+        Assert.assertEquals(0, selector.getClusterLoad("pulsar1").getInFlightCount());
+    }
+
+    @Test
+    public void testEjectDegradedCluster() {
+        AdaptiveCacheClusterSelector selector = createSelector();
+        for (int i = 0; i < 10; i++) {
+            sendAndAck(selector, "pulsar1", 10, true);
+            sendAndAck(selector, "pulsar2", 10, false);
+        }
+        long curTime = System.currentTimeMillis();
+        Assert.assertFalse(selector.getClusterLoad("pulsar1").isEjected(curTime));
+        Assert.assertTrue(selector.getClusterLoad("pulsar2").isEjected(curTime));
+        PackProfile profile = mockProfile(100);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("pulsar1", selector.selectSendCluster(CLUSTERS, profile));
+        }
+        // the last healthy cluster is never ejected
+        for (int i = 0; i < 10; i++) {
+            sendAndAck(selector, "pulsar1", 10, false);
+        }
+        Assert.assertFalse(selector.getClusterLoad("pulsar1").isEjected(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void testEjectSlowCluster() {
+        AdaptiveCacheClusterSelector selector = createSelector();
+        for (int i = 0; i < 10; i++) {
+            sendAndAck(selector, "pulsar1", 10, true);
+            sendAndAck(selector, "pulsar2", 2000, true);
+        }
+        Assert.assertTrue(selector.getClusterLoad("pulsar2").isEjected(System.currentTimeMillis()));
+    }
+}
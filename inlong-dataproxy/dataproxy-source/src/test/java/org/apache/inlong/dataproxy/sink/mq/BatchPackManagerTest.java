@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.sink.mq;
+
+import org.apache.inlong.sdk.commons.protocol.ProxyEvent;
+
+import org.apache.flume.Context;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test for {@link BatchPackManager}
+ */
+public class BatchPackManagerTest {
+
+    @Test
+    public void testFullAndTimeoutDispatch() throws Exception {
+        List<PackProfile> dispatched = new ArrayList<>();
+        MessageQueueZoneSink sink = Mockito.mock(MessageQueueZoneSink.class);
+        Mockito.doAnswer(invocation -> dispatched.add(invocation.getArgument(0)))
+                .when(sink).acquireAndOfferDispatchedRecord(Mockito.any());
+        Context context = new Context();
+        context.put(BatchPackManager.KEY_DISPATCH_TIMEOUT, "50");
+        context.put(BatchPackManager.KEY_DISPATCH_MAX_PACKCOUNT, "100");
+        BatchPackManager manager = new BatchPackManager(sink, context);
+        long msgTime = System.currentTimeMillis();
+        for (int i = 0; i < 250; i++) {
+            manager.addEvent(new ProxyEvent("group", "stream1", "body".getBytes(), msgTime, "127.0.0.1"));
+        }
+        // another stream and another minute
+        manager.addEvent(new ProxyEvent("group", "stream2", "body".getBytes(), msgTime, "127.0.0.1"));
+        manager.addEvent(new ProxyEvent("group", "stream1", "body".getBytes(),
+                msgTime + BatchPackManager.MINUTE_MS, "127.0.0.1"));
+        Assert.assertEquals(2, dispatched.size());
+        Assert.assertEquals(100, dispatched.get(0).getCount());
+        Assert.assertEquals(3, manager.getCachedPackCount());
+        // not timeout yet
+        manager.outputOvertimeData();
+        Assert.assertEquals(2, dispatched.size());
+        Thread.sleep(100);
+        manager.setNeedOutputOvertimeData();
+        manager.outputOvertimeData();
+        Assert.assertEquals(5, dispatched.size());
+        Assert.assertEquals(50, dispatched.get(2).getCount());
+        Assert.assertEquals(0, manager.getCachedPackCount());
+    }
+}
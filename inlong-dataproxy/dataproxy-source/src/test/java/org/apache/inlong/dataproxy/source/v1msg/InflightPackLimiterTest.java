@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.source.v1msg;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link InflightPackLimiter}
+ */
+public class InflightPackLimiterTest {
+
+    @Test
+    public void testPauseAndResume() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        InflightPackLimiter limiter = new InflightPackLimiter(channel, 4);
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire();
+        }
+        Assert.assertTrue(channel.config().isAutoRead());
+        limiter.acquire();
+        Assert.assertFalse(channel.config().isAutoRead());
+        Assert.assertEquals(4, limiter.getInflightPacks());
+        // resume when the in-flight packs drop to half
+        limiter.release();
+        Assert.assertFalse(channel.config().isAutoRead());
+        limiter.release();
+        channel.runPendingTasks();
+        Assert.assertTrue(channel.config().isAutoRead());
+        Assert.assertEquals(2, limiter.getInflightPacks());
+        channel.finish();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.dataproxy.utils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test for {@link SpillFileLog}
+ */
+public class SpillFileLogTest {
+
+    private File logDir;
+
+    @Before
+    public void setUp() throws IOException {
+        logDir = Files.createTempDirectory("spill-test").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = logDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        logDir.delete();
+    }
+
+    @Test
+    public void testAppendReadAndRoll() throws IOException {
+        SpillFileLog spillLog = new SpillFileLog(logDir, 64);
+        spillLog.open();
+        // the spill channel checks its own size and does not lock the directory
+        Assert.assertFalse(new File(logDir, SpillFileLog.SPILL_LOG_NAME + ".lock").exists());
+        spillLog.append(buildRecords(0, 10), false);
+        Assert.assertTrue(spillLog.getSegmentCount() > 1);
+        for (int i = 0; i < 10; i++) {
+            SpillFileLog.LogRecord record = spillLog.read();
+            Assert.assertNotNull(record);
+            Assert.assertEquals("record-" + i, new String(record.getPayload(), StandardCharsets.UTF_8));
+            spillLog.commitRead(record.getOffset());
+        }
+        Assert.assertNull(spillLog.read());
+        Assert.assertTrue(spillLog.isDrained());
+        // the consumed segments are deleted except the active one
+        spillLog.checkpoint(true);
+        Assert.assertEquals(1, spillLog.getSegmentCount());
+        spillLog.close();
+    }
+
+    @Test
+    public void testReplayUncommittedAfterRestart() throws IOException {
+        SpillFileLog spillLog = new SpillFileLog(logDir, 1024);
+        spillLog.open();
+        spillLog.append(buildRecords(0, 5), true);
+        SpillFileLog.LogRecord first = spillLog.read();
+        spillLog.commitRead(first.getOffset());
+        // read but not committed
+        spillLog.read();
+        spillLog.close();
+
+        spillLog = new SpillFileLog(logDir, 1024);
+        spillLog.open();
+        SpillFileLog.LogRecord record = spillLog.read();
+        Assert.assertEquals("record-1", new String(record.getPayload(), StandardCharsets.UTF_8));
+        Assert.assertEquals(3 * (SpillFileLog.RECORD_HEADER_SIZE + 8), spillLog.getUnreadSize());
+        spillLog.close();
+    }
+
+    @Test
+    public void testTruncateTornTail() throws IOException {
+        SpillFileLog spillLog = new SpillFileLog(logDir, 1024);
+        spillLog.open();
+        spillLog.append(buildRecords(0, 3), true);
+        spillLog.close();
+        // simulate a crash while writing the last record
+        File segment = new File(logDir, String.format("%020d%s", 0, SpillFileLog.SEGMENT_SUFFIX));
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        spillLog = new SpillFileLog(logDir, 1024);
+        spillLog.open();
+        Assert.assertNotNull(spillLog.read());
+        Assert.assertNotNull(spillLog.read());
+        Assert.assertNull(spillLog.read());
+        // append after the valid records
+        spillLog.append(Collections.singletonList("record-x".getBytes(StandardCharsets.UTF_8)), false);
+        Assert.assertEquals("record-x", new String(spillLog.read().getPayload(), StandardCharsets.UTF_8));
+        spillLog.close();
+    }
+
+    @Test
+    public void testSkipCorruptedRecord() throws IOException {
+        SpillFileLog spillLog = new SpillFileLog(logDir, 1024);
+        spillLog.open();
+        spillLog.append(buildRecords(0, 3), true);
+        File segment = new File(logDir, String.format("%020d%s", 0, SpillFileLog.SEGMENT_SUFFIX));
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(SpillFileLog.RECORD_HEADER_SIZE + 8 + SpillFileLog.RECORD_HEADER_SIZE);
+            file.write('X');
+        }
+        Assert.assertNotNull(spillLog.read());
+        Assert.assertNull(spillLog.read());
+        Assert.assertEquals(2 * (SpillFileLog.RECORD_HEADER_SIZE + 8), spillLog.getCorruptedSize());
+        spillLog.close();
+    }
+
+    private List<byte[]> buildRecords(int start, int count) {
+        List<byte[]> records = new ArrayList<>();
+        for (int i = start; i < start + count; i++) {
+            records.add(("record-" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        return records;
+    }
+}
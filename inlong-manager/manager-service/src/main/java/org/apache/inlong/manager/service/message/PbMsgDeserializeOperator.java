@@ -34,12 +34,17 @@ import org.apache.inlong.sdk.commons.protocol.ProxySdk.INLONG_COMPRESSED_TYPE;
 import org.apache.inlong.sdk.commons.protocol.ProxySdk.MapFieldEntry;
 import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessageObj;
 import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessageObjs;
+import org.apache.inlong.sdk.commons.utils.Lz4Utils;
+import org.apache.inlong.sdk.commons.utils.ZstdUtils;
 import org.apache.inlong.sort.configuration.Constants;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -53,6 +58,15 @@ public class PbMsgDeserializeOperator implements DeserializeOperator {
     @Autowired
     public DataTypeOperatorFactory dataTypeOperatorFactory;
 
+    // directory of zstd dictionaries, must hold the same files as the DataProxy
+    @Value("${" + ZstdUtils.KEY_ZSTD_DICT_DIR + ":}")
+    private String zstdDictDir;
+
+    @PostConstruct
+    public void init() {
+        ZstdUtils.loadDictionariesOnce(zstdDictDir);
+    }
+
     @Override
     public boolean accept(MessageWrapType type) {
         return MessageWrapType.INLONG_MSG_V1.equals(type);
@@ -72,6 +86,12 @@ public class PbMsgDeserializeOperator implements DeserializeOperator {
             case INLONG_COMPRESSED_TYPE.INLONG_SNAPPY_VALUE:
                 values = Utils.snappyDecompress(msgBytes, 0, msgBytes.length);
                 break;
+            case INLONG_COMPRESSED_TYPE.INLONG_ZSTD_VALUE:
+                values = ZstdUtils.decompress(msgBytes);
+                break;
+            case INLONG_COMPRESSED_TYPE.INLONG_LZ4_VALUE:
+                values = Lz4Utils.decompress(msgBytes);
+                break;
             default:
                 throw new IllegalArgumentException("Unknown compress type:" + compressType);
         }
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.benchmark;
+
+import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.common.SdkConsts;
+import org.apache.inlong.sdk.dataproxy.sender.MsgSendCallback;
+import org.apache.inlong.sdk.dataproxy.sender.http.HttpEventInfo;
+import org.apache.inlong.sdk.dataproxy.sender.http.HttpMsgSenderConfig;
+import org.apache.inlong.sdk.dataproxy.sender.http.InLongHttpMsgSender;
+import org.apache.inlong.sdk.dataproxy.utils.ProxyUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark of the asynchronous HTTP report, measure the events per second
+ *  acknowledged by a local report endpoint with the per-event report workers
+ *  and with the pipelined batch dispatcher.
+ */
+public class HttpRptBenchmark {
+
+    private static final String GROUP_ID = "bench_group";
+    private static final String STREAM_ID = "bench_stream";
+    private static final byte[] RPT_RESPONSE = "{\"code\":0,\"msg\":\"Ok\"}".getBytes(StandardCharsets.UTF_8);
+    private final int eventCount;
+    private final int bodySize;
+    private final int serverThreads;
+
+    /**
+     * Initial an HTTP report benchmark
+     *
+     * @param eventCount     the events reported by each test case
+     * @param bodySize       the body size of each event
+     * @param serverThreads  the handler threads of the local report endpoint
+     */
+    public HttpRptBenchmark(int eventCount, int bodySize, int serverThreads) {
+        this.eventCount = eventCount;
+        this.bodySize = bodySize;
+        this.serverThreads = serverThreads;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new HttpRptBenchmark(200000, 256, 8).start();
+    }
+
+    /**
+     * Start benchmark test
+     *
+     * @throws Exception the exception
+     */
+    public void start() throws Exception {
+        final AtomicLong rptReqCnt = new AtomicLong(0L);
+        ExecutorService serverExecutor = Executors.newFixedThreadPool(serverThreads);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext(SdkConsts.DATAPROXY_REPORT_METHOD, exchange -> {
+            rptReqCnt.incrementAndGet();
+            replyReport(exchange);
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        File metaDir = Files.createTempDirectory("http-rpt-benchmark").toFile();
+        try {
+            writeLocalProxyConfig(metaDir, server.getAddress().getPort());
+            for (boolean enablePipeline : new boolean[]{false, true}) {
+                // warm up
+                runCase(metaDir, enablePipeline, Math.max(1, eventCount / 10));
+                rptReqCnt.set(0L);
+                long costMs = runCase(metaDir, enablePipeline, eventCount);
+                System.out.println(new StringBuilder(512)
+                        .append(enablePipeline ? "pipelined" : "per-event")
+                        .append(": events=").append(eventCount)
+                        .append(", requests=").append(rptReqCnt.get())
+                        .append(", throughput=").append(eventCount * 1000L / Math.max(costMs, 1L))
+                        .append(" events/s").toString());
+            }
+        } finally {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+            deleteDir(metaDir);
+        }
+    }
+
+    private long runCase(File metaDir, boolean enablePipeline, int count) throws Exception {
+        HttpMsgSenderConfig httpConfig = new HttpMsgSenderConfig("http://127.0.0.1:8083", GROUP_ID);
+        httpConfig.setOnlyUseLocalProxyConfig(true);
+        httpConfig.setMetaStoreBasePath(metaDir.getAbsolutePath());
+        httpConfig.setEnableHttpPipeline(enablePipeline);
+        InLongHttpMsgSender sender = new InLongHttpMsgSender(httpConfig);
+        ProcessResult procResult = new ProcessResult();
+        if (!sender.start(procResult)) {
+            sender.close();
+            throw new IllegalStateException("Start http sender failure: " + procResult);
+        }
+        final CountDownLatch ackLatch = new CountDownLatch(count);
+        final AtomicLong failCnt = new AtomicLong(0L);
+        MsgSendCallback callback = new MsgSendCallback() {
+
+            @Override
+            public void onMessageAck(ProcessResult result) {
+                if (!result.isSuccess()) {
+                    failCnt.incrementAndGet();
+                }
+                ackLatch.countDown();
+            }
+
+            @Override
+            public void onException(Throwable ex) {
+                failCnt.incrementAndGet();
+                ackLatch.countDown();
+            }
+        };
+        char[] bodyChars = new char[bodySize];
+        Arrays.fill(bodyChars, 'a');
+        String body = new String(bodyChars);
+        long dtMs = System.currentTimeMillis();
+        try {
+            long startTime = System.currentTimeMillis();
+            for (int i = 0; i < count; i++) {
+                HttpEventInfo eventInfo = new HttpEventInfo(GROUP_ID, STREAM_ID, dtMs, body);
+                while (!sender.asyncSendMessage(eventInfo, callback, procResult)) {
+                    // wait for the cache permits released by the acks
+                    ProxyUtils.sleepSomeTime(1L);
+                }
+            }
+            if (!ackLatch.await(5, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("Wait the acks timeout, left " + ackLatch.getCount());
+            }
+            if (failCnt.get() > 0) {
+                System.out.println("failed events=" + failCnt.get());
+            }
+            return System.currentTimeMillis() - startTime;
+        } finally {
+            sender.close();
+        }
+    }
+
+    private void replyReport(HttpExchange exchange) {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) >= 0) {
+                // drain the request body
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, RPT_RESPONSE.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(RPT_RESPONSE);
+            }
+        } catch (Throwable ex) {
+            exchange.close();
+        }
+    }
+
+    private void writeLocalProxyConfig(File metaDir, int port) throws Exception {
+        File configFile = new File(metaDir.getAbsolutePath() + SdkConsts.META_STORE_SUB_DIR
+                + GROUP_ID + SdkConsts.LOCAL_DP_CONFIG_FILE_SUFFIX);
+        if (!configFile.getParentFile().mkdirs() && !configFile.getParentFile().isDirectory()) {
+            throw new IllegalStateException("Create meta directory failure: " + configFile.getParent());
+        }
+        String proxyList = "{\"clusterId\":1,\"load\":0,\"isIntranet\":1,\"isSwitch\":0,"
+                + "\"nodeList\":[{\"id\":1,\"ip\":\"127.0.0.1\",\"port\":" + port + "}]}";
+        Files.write(configFile.toPath(), proxyList.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteDir(file);
+            }
+        }
+        dir.delete();
+    }
+}
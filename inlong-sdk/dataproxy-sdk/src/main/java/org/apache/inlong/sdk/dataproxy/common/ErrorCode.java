@@ -89,6 +89,7 @@ public enum ErrorCode {
     CONNECTION_WRITE_EXCEPTION(114, "Connection write exception"),
     DUPLICATED_MESSAGE_ID(115, "Duplicated message id"),
     SEND_WAIT_INTERRUPT(116, "Send wait interrupted"),
+    INF_REQ_SLOTS_REACH_CONN_LIMIT(117, "In-flight Request slots reach connection limit"),
     //
     SEND_WAIT_TIMEOUT(121, "Send wait timeout"),
     SEND_ON_EXCEPTION(122, "Send on exception"),
@@ -90,6 +90,9 @@ public class SdkConsts {
     public static final int DEFAULT_RECEIVE_BUFFER_SIZE = 16 * 1024 * 1024; // 16M
     // max inflight msg count per connection
     public static final int MAX_INFLIGHT_MSG_COUNT_PER_CONNECTION = 4000;
+    // in-flight request timeout sweep interval
+    public static final long VAL_MIN_INFLIGHT_SWEEP_INTERVAL_MS = 100L;
+    public static final long VAL_MAX_INFLIGHT_SWEEP_INTERVAL_MS = 1000L;
 
     // data compress enable size
     public static final int VAL_DEF_COMPRESS_ENABLE_SIZE = 120;
@@ -103,6 +106,25 @@ public class SdkConsts {
     // sync message timeout check duration ms
     public static final long VAL_DEF_SYNC_TIMEOUT_CHK_DUR_MS = 3 * 60 * 1000L;
     public static final long VAL_MIN_SYNC_TIMEOUT_CHK_DUR_MS = 10 * 1000L;
+    // TCP async report linger batch setting
+    public static final long VAL_DEF_TCP_LINGER_BATCH_MS = 5L;
+    public static final long VAL_MIN_TCP_LINGER_BATCH_MS = 1L;
+    public static final long VAL_MAX_TCP_LINGER_BATCH_MS = 1000L;
+    public static final int VAL_DEF_TCP_LINGER_BATCH_MAX_BYTES = 256 * 1024;
+    public static final int VAL_MIN_TCP_LINGER_BATCH_MAX_BYTES = 1024;
+    public static final int VAL_DEF_TCP_LINGER_BATCH_MAX_COUNT = 1000;
+    public static final int VAL_MIN_TCP_LINGER_BATCH_MAX_COUNT = 1;
+    // TCP report local spool setting
+    public static final String VAL_DEF_TCP_LOCAL_SPOOL_DIR = "./spool";
+    public static final long VAL_DEF_TCP_SPOOL_SEGMENT_BYTES = 64 * 1024 * 1024L;
+    public static final long VAL_MIN_TCP_SPOOL_SEGMENT_BYTES = 1024 * 1024L;
+    public static final long VAL_MAX_TCP_SPOOL_SEGMENT_BYTES = 1024 * 1024 * 1024L;
+    public static final long VAL_DEF_TCP_SPOOL_MAX_DISK_BYTES = 2 * 1024 * 1024 * 1024L;
+    public static final long VAL_MIN_TCP_SPOOL_MAX_DISK_BYTES = 16 * 1024 * 1024L;
+    public static final long VAL_DEF_TCP_SPOOL_REPLAY_INTVL_MS = 1000L;
+    public static final long VAL_MIN_TCP_SPOOL_REPLAY_INTVL_MS = 100L;
+    public static final long VAL_MAX_TCP_SPOOL_REPLAY_INTVL_MS = 60 * 1000L;
+    public static final int VAL_DEF_TCP_SPOOL_REPLAY_WINDOW = 64;
 
     // HTTP sdk close wait period ms
     public static final long VAL_DEF_HTTP_SDK_CLOSE_WAIT_MS = 20000L;
@@ -122,6 +144,18 @@ public class SdkConsts {
     public static final int VAL_DEF_HTTP_ASYNC_WORKER_IDLE_WAIT_MS = 300;
     public static final int VAL_MAX_HTTP_ASYNC_WORKER_IDLE_WAIT_MS = 3000;
     public static final int VAL_MIN_HTTP_ASYNC_WORKER_IDLE_WAIT_MS = 10;
+    // HTTP async pipelined report setting
+    public static final int VAL_DEF_HTTP_PIPELINE_CONNS_PER_NODE = 2;
+    public static final int VAL_MIN_HTTP_PIPELINE_CONNS_PER_NODE = 1;
+    public static final int VAL_MAX_HTTP_PIPELINE_CONNS_PER_NODE = 16;
+    public static final int VAL_DEF_HTTP_PIPELINE_DEPTH = 16;
+    public static final int VAL_MIN_HTTP_PIPELINE_DEPTH = 1;
+    public static final int VAL_MAX_HTTP_PIPELINE_DEPTH = 256;
+    public static final int VAL_DEF_HTTP_BATCH_MAX_MSG_CNT = 500;
+    public static final int VAL_MIN_HTTP_BATCH_MAX_MSG_CNT = 1;
+    public static final int VAL_DEF_HTTP_BATCH_MAX_BYTES = 512 * 1024;
+    public static final int VAL_MIN_HTTP_BATCH_MAX_BYTES = 1024;
+    public static final int VAL_MAX_HTTP_RESPONSE_BYTES = 64 * 1024;
 
     public static final int LOAD_THRESHOLD = 0;
 
@@ -50,6 +50,8 @@ public class MetricDataHolder implements Runnable {
     private final MetricInfoUnit[] metricUnits = new MetricInfoUnit[2];
     // Last snapshot time
     private volatile long lstReportTime;
+    // current disk size of the local spool
+    private volatile long spoolFileSize;
     private final ScheduledExecutorService outputExecutor =
             Executors.newScheduledThreadPool(1);
 
@@ -232,6 +234,62 @@ public class MetricDataHolder implements Runnable {
         }
     }
 
+    public void addSpoolAppendMetric(boolean success, int msgCnt, int bodySize) {
+        if (!this.metricConfig.isEnableMetric()) {
+            return;
+        }
+        MetricInfoUnit selectedUnit = metricUnits[itemIndex];
+        selectedUnit.refCnt.incrementAndGet();
+        try {
+            selectedUnit.spoolInfo.addSpoolInfo(success, msgCnt, bodySize);
+        } finally {
+            selectedUnit.refCnt.decrementAndGet();
+        }
+    }
+
+    public void addSpoolReplayMetric(boolean success, int msgCnt) {
+        if (!this.metricConfig.isEnableMetric()) {
+            return;
+        }
+        MetricInfoUnit selectedUnit = metricUnits[itemIndex];
+        selectedUnit.refCnt.incrementAndGet();
+        try {
+            selectedUnit.spoolInfo.addReplayInfo(success, msgCnt);
+        } finally {
+            selectedUnit.refCnt.decrementAndGet();
+        }
+    }
+
+    public void addSpoolDiscardMetric(int msgCnt) {
+        if (!this.metricConfig.isEnableMetric()) {
+            return;
+        }
+        MetricInfoUnit selectedUnit = metricUnits[itemIndex];
+        selectedUnit.refCnt.incrementAndGet();
+        try {
+            selectedUnit.spoolInfo.addDiscardInfo(msgCnt);
+        } finally {
+            selectedUnit.refCnt.decrementAndGet();
+        }
+    }
+
+    public void addSpoolCorruptMetric() {
+        if (!this.metricConfig.isEnableMetric()) {
+            return;
+        }
+        MetricInfoUnit selectedUnit = metricUnits[itemIndex];
+        selectedUnit.refCnt.incrementAndGet();
+        try {
+            selectedUnit.spoolInfo.addCorruptInfo();
+        } finally {
+            selectedUnit.refCnt.decrementAndGet();
+        }
+    }
+
+    public void setSpoolFileSize(long spoolFileSize) {
+        this.spoolFileSize = spoolFileSize;
+    }
+
     private void outputMetricData(boolean forceOutput, long reportTime, int readIndex) {
         if (!this.metricConfig.isEnableMetric()) {
             return;
@@ -280,6 +338,7 @@ public class MetricDataHolder implements Runnable {
 
         protected final AtomicLong refCnt = new AtomicLong();
         protected final MetaSyncInfo metaSyncInfo = new MetaSyncInfo();
+        protected final SpoolInfo spoolInfo = new SpoolInfo();
         protected final ConcurrentHashMap<String, TrafficInfo> trafficMap = new ConcurrentHashMap<>();
         protected final ConcurrentHashMap<Integer, LongAdder> errCodeMap = new ConcurrentHashMap<>();
 
@@ -447,6 +506,8 @@ public class MetricDataHolder implements Runnable {
             }
             strBuff.append("},");
             metaSyncInfo.getAndResetValue(strBuff);
+            strBuff.append(",");
+            spoolInfo.getAndResetValue(strBuff);
             trafficMap.clear();
             errCodeMap.clear();
         }
@@ -475,6 +536,7 @@ public class MetricDataHolder implements Runnable {
                 .append(",\"afPs\":").append(factoryAvailQuota.getF1())
                 .append(",\"aPc\":").append(senderAvailQuota.getF0())
                 .append(",\"aPs\":").append(senderAvailQuota.getF1())
+                .append(",\"spS\":").append(spoolFileSize)
                 .append("},\"c\":{\"aC\":").append(sender.getConfigure().getAliveConnections())
                 .append(",\"gBf\":").append(sender.isGenByFactory())
                 .append(",\"ifCc\":").append(sender.getFactoryPkgCntPermits())
@@ -496,7 +558,8 @@ public class MetricDataHolder implements Runnable {
                     .append(",\"rB\":").append(tcpConfig.getRcvBufferSize())
                     .append(",\"cOt\":").append(tcpConfig.getConnectTimeoutMs())
                     .append(",\"rOt\":").append(tcpConfig.getRequestTimeoutMs())
-                    .append(",\"syOt\":").append(tcpConfig.getMaxAllowedSyncMsgTimeoutCnt());
+                    .append(",\"syOt\":").append(tcpConfig.getMaxAllowedSyncMsgTimeoutCnt())
+                    .append(",\"spl\":").append(tcpConfig.isEnableLocalSpool());
         } else {
             HttpMsgSenderConfig httpConfig = (HttpMsgSenderConfig) sender.getConfigure();
             strBuff.append(",\"iHs\":").append(httpConfig.isRptDataByHttps())
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.metric;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class SpoolInfo {
+
+    // wPs: packages appended to the local spool
+    private final LongAdder spoolPkgCnt = new LongAdder();
+    // wMs
+    private final LongAdder spoolMsgCnt = new LongAdder();
+    // wBs
+    private final LongAdder spoolBodySize = new LongAdder();
+    // wPf: packages failed to append, disk budget exhausted or write failure
+    private final LongAdder spoolFailPkgCnt = new LongAdder();
+    // rPs: packages replayed and acknowledged
+    private final LongAdder replayPkgCnt = new LongAdder();
+    // rMs
+    private final LongAdder replayMsgCnt = new LongAdder();
+    // rPf: replay attempts failed, the package will be replayed again
+    private final LongAdder replayFailPkgCnt = new LongAdder();
+    // dPs: packages rejected permanently in replay and discarded
+    private final LongAdder discardPkgCnt = new LongAdder();
+    // dMs
+    private final LongAdder discardMsgCnt = new LongAdder();
+    // cPs: corrupted packages skipped in replay
+    private final LongAdder corruptPkgCnt = new LongAdder();
+
+    public SpoolInfo() {
+    }
+
+    public void addSpoolInfo(boolean success, int msgCnt, int bodySize) {
+        if (success) {
+            spoolPkgCnt.increment();
+            spoolMsgCnt.add(msgCnt);
+            spoolBodySize.add(bodySize);
+        } else {
+            spoolFailPkgCnt.increment();
+        }
+    }
+
+    public void addReplayInfo(boolean success, int msgCnt) {
+        if (success) {
+            replayPkgCnt.increment();
+            replayMsgCnt.add(msgCnt);
+        } else {
+            replayFailPkgCnt.increment();
+        }
+    }
+
+    public void addDiscardInfo(int msgCnt) {
+        discardPkgCnt.increment();
+        discardMsgCnt.add(msgCnt);
+    }
+
+    public void addCorruptInfo() {
+        corruptPkgCnt.increment();
+    }
+
+    public void getAndResetValue(StringBuilder strBuff) {
+        strBuff.append("\"sp\":{\"wPs\":").append(spoolPkgCnt.sumThenReset())
+                .append(",\"wMs\":").append(spoolMsgCnt.sumThenReset())
+                .append(",\"wBs\":").append(spoolBodySize.sumThenReset())
+                .append(",\"wPf\":").append(spoolFailPkgCnt.sumThenReset())
+                .append(",\"rPs\":").append(replayPkgCnt.sumThenReset())
+                .append(",\"rMs\":").append(replayMsgCnt.sumThenReset())
+                .append(",\"rPf\":").append(replayFailPkgCnt.sumThenReset())
+                .append(",\"dPs\":").append(discardPkgCnt.sumThenReset())
+                .append(",\"dMs\":").append(discardMsgCnt.sumThenReset())
+                .append(",\"cPs\":").append(corruptPkgCnt.sumThenReset())
+                .append("}");
+    }
+
+    public void clear() {
+        spoolPkgCnt.reset();
+        spoolMsgCnt.reset();
+        spoolBodySize.reset();
+        spoolFailPkgCnt.reset();
+        replayPkgCnt.reset();
+        replayMsgCnt.reset();
+        replayFailPkgCnt.reset();
+        discardPkgCnt.reset();
+        discardMsgCnt.reset();
+        corruptPkgCnt.reset();
+    }
+}
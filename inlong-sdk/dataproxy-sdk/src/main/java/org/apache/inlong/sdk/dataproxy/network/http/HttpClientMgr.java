@@ -49,13 +49,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -76,6 +81,7 @@ public class HttpClientMgr implements ClientMgr {
     private final BaseSender sender;
     private final HttpMsgSenderConfig httpConfig;
     private CloseableHttpClient httpClient;
+    private final HttpPipelineClient pipelineClient;
     private final LinkedBlockingQueue<HttpAsyncObj> messageCache;
     private final ExecutorService workerServices = Executors.newCachedThreadPool();
     private volatile boolean existSend = false;
@@ -93,6 +99,11 @@ public class HttpClientMgr implements ClientMgr {
         this.sender = sender;
         this.httpConfig = httpConfig;
         this.messageCache = new LinkedBlockingQueue<>(httpConfig.getMaxInFlightReqCnt());
+        if (httpConfig.isEnableHttpPipeline()) {
+            this.pipelineClient = new HttpPipelineClient(this, httpConfig, sender.getSenderId());
+        } else {
+            this.pipelineClient = null;
+        }
     }
 
     @Override
@@ -104,9 +115,17 @@ public class HttpClientMgr implements ClientMgr {
             return false;
         }
         this.httpClient = (CloseableHttpClient) procResult.getRetData();
-        // build async report workers
-        for (int i = 0; i < httpConfig.getHttpAsyncRptWorkerNum(); i++) {
-            workerServices.execute(new HttpAsyncReportWorker(i));
+        if (pipelineClient != null) {
+            // build pipelined report client and its dispatcher
+            if (!pipelineClient.start(procResult)) {
+                return false;
+            }
+            workerServices.execute(new HttpPipelineDispatcher());
+        } else {
+            // build async report workers
+            for (int i = 0; i < httpConfig.getHttpAsyncRptWorkerNum(); i++) {
+                workerServices.execute(new HttpAsyncReportWorker(i));
+            }
         }
         logger.info("ClientMgr({}) started!", this.sender.getSenderId());
         return procResult.setSuccess();
@@ -173,6 +192,21 @@ public class HttpClientMgr implements ClientMgr {
             }
         }
         workerServices.shutdown();
+        if (pipelineClient != null) {
+            // wait the pipelined requests acknowledged
+            try {
+                workerServices.awaitTermination(httpConfig.getHttpCloseWaitPeriodMs(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long startTime = System.currentTimeMillis();
+            while (pipelineClient.getInflightReqCnt() > 0
+                    && !httpConfig.isDiscardHttpCacheWhenClosing()
+                    && System.currentTimeMillis() - startTime < httpConfig.getHttpCloseWaitPeriodMs()) {
+                ProxyUtils.sleepSomeTime(100L);
+            }
+            pipelineClient.stop();
+        }
         if (httpClient != null) {
             try {
                 httpClient.close();
@@ -186,6 +220,9 @@ public class HttpClientMgr implements ClientMgr {
 
     @Override
     public int getInflightMsgCnt() {
+        if (pipelineClient != null) {
+            return this.messageCache.size() + pipelineClient.getInflightReqCnt();
+        }
         return this.messageCache.size();
     }
 
@@ -353,37 +390,11 @@ public class HttpClientMgr implements ClientMgr {
             response = httpClient.execute(httpPost);
             String returnStr = EntityUtils.toString(response.getEntity());
             int returnCode = response.getStatusLine().getStatusCode();
-            if (HttpStatus.SC_OK != returnCode) {
-                if (sendMsgExptCnt.shouldPrint()) {
-                    logger.warn("ClientMgr({}) report event failure, errCode={}, returnStr={}",
-                            this.sender.getSenderId(), returnCode, returnStr);
-                }
-                if (response.getStatusLine().getStatusCode() >= 500) {
-                    this.connFailNodeMap.put(hostInfo.getReferenceName(), System.currentTimeMillis());
-                }
-                return procResult.setFailResult(ErrorCode.RMT_RETURN_FAILURE,
-                        response.getStatusLine().getStatusCode() + ":" + returnStr);
-            }
-            if (StringUtils.isBlank(returnStr)) {
-                return procResult.setFailResult(ErrorCode.RMT_RETURN_BLANK_CONTENT);
-            }
             if (logger.isDebugEnabled()) {
-                logger.debug("success to report event, url={}, result={}",
-                        rmtRptUrl, returnStr);
-            }
-            JsonObject jsonResponse = JsonParser.parseString(returnStr).getAsJsonObject();
-            JsonElement codeElement = jsonResponse.get("code");
-            JsonElement msgElement = jsonResponse.get("msg");
-            if (codeElement != null) {
-                int errCode = codeElement.getAsInt();
-                if (errCode == DataProxyErrCode.SUCCESS.getErrCode()) {
-                    return procResult.setSuccess();
-                } else {
-                    return procResult.setFailResult(ErrorCode.DP_RETURN_FAILURE,
-                            errCode + ":" + (msgElement != null ? msgElement.getAsString() : ""));
-                }
+                logger.debug("report event to url={}, returnCode={}, result={}",
+                        rmtRptUrl, returnCode, returnStr);
             }
-            return procResult.setFailResult(ErrorCode.DP_RETURN_UNKNOWN_ERROR, returnStr);
+            return parseRptResponse(hostInfo, returnCode, returnStr, procResult);
         } catch (Throwable ex) {
             if (sendMsgExptCnt.shouldPrint()) {
                 logger.warn("ClientMgr({}) report event exception, url={}",
@@ -407,30 +418,84 @@ public class HttpClientMgr implements ClientMgr {
         }
     }
 
+    /**
+     * freeze the node after a connection failure
+     */
+    void markNodeFailure(HostInfo hostInfo) {
+        this.connFailNodeMap.put(hostInfo.getReferenceName(), System.currentTimeMillis());
+    }
+
+    /**
+     * notify the result of a pipelined batch to the callbacks of the merged events
+     */
+    void completeBatch(HttpRptBatch batch, ProcessResult procResult) {
+        long curTime = System.currentTimeMillis();
+        for (HttpAsyncObj asyncObj : batch.getAsyncObjs()) {
+            boolean isSucc = procResult.isSuccess();
+            try {
+                asyncObj.getCallback().onMessageAck(procResult);
+            } catch (Throwable ex) {
+                isSucc = false;
+                if (asyncSendExptCnt.shouldPrint()) {
+                    logger.error("HttpAsync({}) callback event exception", this.sender.getSenderId(), ex);
+                }
+            } finally {
+                sender.releaseCachePermits(asyncObj.getHttpEvent().getBodySize());
+                if (isSucc) {
+                    sender.getMetricHolder().addCallbackSucMetric(asyncObj.getHttpEvent().getGroupId(),
+                            asyncObj.getHttpEvent().getStreamId(), asyncObj.getHttpEvent().getMsgCnt(),
+                            (curTime - asyncObj.getRptMs()), (System.currentTimeMillis() - curTime));
+                } else {
+                    sender.getMetricHolder().addCallbackFailMetric(procResult.getErrCode(),
+                            asyncObj.getHttpEvent().getGroupId(), asyncObj.getHttpEvent().getStreamId(),
+                            asyncObj.getHttpEvent().getMsgCnt(), (System.currentTimeMillis() - curTime));
+                }
+            }
+        }
+    }
+
+    /**
+     * parse the response of report request
+     */
+    boolean parseRptResponse(HostInfo hostInfo, int returnCode, String returnStr, ProcessResult procResult) {
+        if (HttpStatus.SC_OK != returnCode) {
+            if (sendMsgExptCnt.shouldPrint()) {
+                logger.warn("ClientMgr({}) report event failure, errCode={}, returnStr={}",
+                        this.sender.getSenderId(), returnCode, returnStr);
+            }
+            if (returnCode >= 500) {
+                this.connFailNodeMap.put(hostInfo.getReferenceName(), System.currentTimeMillis());
+            }
+            return procResult.setFailResult(ErrorCode.RMT_RETURN_FAILURE, returnCode + ":" + returnStr);
+        }
+        if (StringUtils.isBlank(returnStr)) {
+            return procResult.setFailResult(ErrorCode.RMT_RETURN_BLANK_CONTENT);
+        }
+        JsonObject jsonResponse = JsonParser.parseString(returnStr).getAsJsonObject();
+        JsonElement codeElement = jsonResponse.get("code");
+        JsonElement msgElement = jsonResponse.get("msg");
+        if (codeElement != null) {
+            int errCode = codeElement.getAsInt();
+            if (errCode == DataProxyErrCode.SUCCESS.getErrCode()) {
+                return procResult.setSuccess();
+            } else {
+                return procResult.setFailResult(ErrorCode.DP_RETURN_FAILURE,
+                        errCode + ":" + (msgElement != null ? msgElement.getAsString() : ""));
+            }
+        }
+        return procResult.setFailResult(ErrorCode.DP_RETURN_UNKNOWN_ERROR, returnStr);
+    }
+
     private boolean buildFormUrlPost(
             String rmtRptUrl, HttpEventInfo httpEvent, ProcessResult procResult) {
-        ArrayList<BasicNameValuePair> contents = new ArrayList<>();
         try {
             HttpPost httpPost = new HttpPost(rmtRptUrl);
             httpPost.setHeader(HttpHeaders.CONNECTION,
                     HttpHeaderValues.CLOSE.toString());
             httpPost.setHeader(HttpHeaders.CONTENT_TYPE,
                     HttpHeaderValues.APPLICATION_X_WWW_FORM_URLENCODED.toString());
-            contents.add(new BasicNameValuePair(AttributeConstants.GROUP_ID,
-                    httpEvent.getGroupId()));
-            contents.add(new BasicNameValuePair(AttributeConstants.STREAM_ID,
-                    httpEvent.getStreamId()));
-            contents.add(new BasicNameValuePair(AttributeConstants.DATA_TIME,
-                    String.valueOf(httpEvent.getDtMs())));
-            contents.add(new BasicNameValuePair(SdkConsts.KEY_HTTP_FIELD_BODY,
-                    StringUtils.join(httpEvent.getBodyList(), httpConfig.getHttpEventsSeparator())));
-            contents.add(new BasicNameValuePair(AttributeConstants.MESSAGE_COUNT,
-                    String.valueOf(httpEvent.getMsgCnt())));
-            if (!httpConfig.isSepEventByLF()) {
-                contents.add(new BasicNameValuePair(SdkConsts.KEY_HTTP_FIELD_DELIMITER,
-                        httpConfig.getHttpEventsSeparator()));
-            }
-            String encodedContents = URLEncodedUtils.format(contents, StandardCharsets.UTF_8);
+            String encodedContents = buildFormContent(httpEvent.getGroupId(), httpEvent.getStreamId(),
+                    httpEvent.getDtMs(), httpEvent.getBodyList(), httpEvent.getMsgCnt());
             httpPost.setEntity(new StringEntity(encodedContents));
             if (logger.isDebugEnabled()) {
                 logger.debug("begin to post request to {}, encoded content is: {}",
@@ -439,13 +504,32 @@ public class HttpClientMgr implements ClientMgr {
             return procResult.setSuccess(httpPost);
         } catch (Throwable ex) {
             if (sendMsgExptCnt.shouldPrint()) {
-                logger.warn("ClientMgr({}) build form-url content failure, content={}",
-                        this.sender.getSenderId(), contents, ex);
+                logger.warn("ClientMgr({}) build form-url content failure, groupId={}, streamId={}",
+                        this.sender.getSenderId(), httpEvent.getGroupId(), httpEvent.getStreamId(), ex);
             }
             return procResult.setFailResult(ErrorCode.BUILD_FORM_CONTENT_EXCEPTION, ex.getMessage());
         }
     }
 
+    /**
+     * build the form-url encoded content of report request
+     */
+    String buildFormContent(String groupId,
+            String streamId, long dtMs, List<String> bodyList, int msgCnt) {
+        ArrayList<BasicNameValuePair> contents = new ArrayList<>();
+        contents.add(new BasicNameValuePair(AttributeConstants.GROUP_ID, groupId));
+        contents.add(new BasicNameValuePair(AttributeConstants.STREAM_ID, streamId));
+        contents.add(new BasicNameValuePair(AttributeConstants.DATA_TIME, String.valueOf(dtMs)));
+        contents.add(new BasicNameValuePair(SdkConsts.KEY_HTTP_FIELD_BODY,
+                StringUtils.join(bodyList, httpConfig.getHttpEventsSeparator())));
+        contents.add(new BasicNameValuePair(AttributeConstants.MESSAGE_COUNT, String.valueOf(msgCnt)));
+        if (!httpConfig.isSepEventByLF()) {
+            contents.add(new BasicNameValuePair(SdkConsts.KEY_HTTP_FIELD_DELIMITER,
+                    httpConfig.getHttpEventsSeparator()));
+        }
+        return URLEncodedUtils.format(contents, StandardCharsets.UTF_8);
+    }
+
     /**
      * check cache runner
      */
@@ -506,4 +590,157 @@ public class HttpClientMgr implements ClientMgr {
             logger.info("HttpAsyncReportWorker({}) stopped", this.workerId);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * pipelined report dispatcher
+     *
+     * Drains the queued events, merges the events of the same stream into batches
+     *  and sends the batches in order over the pipelined connections. The events are
+     *  not lingered, the batches grow with the backlog of the queue.
+     */
+    private class HttpPipelineDispatcher implements Runnable {
+
+        private final String dispatcherId = sender.getSenderId() + "-pipeline";
+        private final Map<String, HttpRptBatch> openBatches = new LinkedHashMap<>();
+        private final ArrayDeque<HttpRptBatch> readyBatches = new ArrayDeque<>();
+        private final List<HttpAsyncObj> drainedObjs = new ArrayList<>();
+        private long lastCheckTime = System.currentTimeMillis();
+
+        @Override
+        public void run() {
+            logger.info("HttpPipelineDispatcher({}) started", dispatcherId);
+            while (!shutDown.get() || !messageCache.isEmpty() || !readyBatches.isEmpty()) {
+                if (existSend) {
+                    break;
+                }
+                try {
+                    if (readyBatches.isEmpty()) {
+                        HttpAsyncObj asyncObj = messageCache.poll(
+                                httpConfig.getHttpAsyncWorkerIdleWaitMs(), TimeUnit.MILLISECONDS);
+                        if (asyncObj != null) {
+                            addToBatch(asyncObj);
+                            messageCache.drainTo(drainedObjs);
+                            for (HttpAsyncObj drainedObj : drainedObjs) {
+                                addToBatch(drainedObj);
+                            }
+                            drainedObjs.clear();
+                            readyBatches.addAll(openBatches.values());
+                            openBatches.clear();
+                        }
+                    }
+                    // send the batches in order until no connection can accept more
+                    boolean blocked = false;
+                    while (!readyBatches.isEmpty()) {
+                        if (!dispatchBatch(readyBatches.peekFirst())) {
+                            blocked = true;
+                            break;
+                        }
+                        readyBatches.pollFirst();
+                    }
+                    long curTime = System.currentTimeMillis();
+                    if (curTime - lastCheckTime >= SdkConsts.VAL_MIN_INFLIGHT_SWEEP_INTERVAL_MS) {
+                        pipelineClient.checkTimeouts();
+                        pipelineClient.removeInactiveNodes(usingNodeMaps.keySet());
+                        lastCheckTime = curTime;
+                    }
+                    if (blocked) {
+                        expireReadyBatches(curTime);
+                        ProxyUtils.sleepSomeTime(1L);
+                    }
+                } catch (InterruptedException e) {
+                    break;
+                } catch (Throwable ex) {
+                    if (asyncSendExptCnt.shouldPrint()) {
+                        logger.error("HttpPipelineDispatcher({}) dispatch event exception", dispatcherId, ex);
+                    }
+                }
+            }
+            // notify the batches not sent
+            for (HttpRptBatch batch : openBatches.values()) {
+                completeBatch(batch, new ProcessResult(ErrorCode.SDK_CLOSED));
+            }
+            openBatches.clear();
+            for (HttpRptBatch batch : readyBatches) {
+                completeBatch(batch, new ProcessResult(ErrorCode.SDK_CLOSED));
+            }
+            readyBatches.clear();
+            logger.info("HttpPipelineDispatcher({}) stopped", dispatcherId);
+        }
+
+        /**
+         * fail the queued batches waiting longer than the socket timeout,
+         *  so that they are not retried forever while no connection accepts them
+         */
+        private void expireReadyBatches(long curTime) {
+            Iterator<HttpRptBatch> iterator = readyBatches.iterator();
+            while (iterator.hasNext()) {
+                HttpRptBatch batch = iterator.next();
+                if (curTime - batch.getFirstRptMs() >= httpConfig.getHttpSocketTimeoutMs()) {
+                    iterator.remove();
+                    completeBatch(batch, new ProcessResult(ErrorCode.SEND_WAIT_TIMEOUT));
+                }
+            }
+        }
+
+        private void addToBatch(HttpAsyncObj asyncObj) {
+            HttpEventInfo httpEvent = asyncObj.getHttpEvent();
+            sender.getMetricHolder().addAsyncHttpSucGetMetric(
+                    httpEvent.getGroupId(), httpEvent.getStreamId(), httpEvent.getMsgCnt());
+            String batchKey = httpEvent.getGroupId() + "#" + httpEvent.getStreamId();
+            HttpRptBatch batch = openBatches.get(batchKey);
+            if (batch == null || !batch.canAppend(httpEvent,
+                    httpConfig.getHttpBatchMaxMsgCnt(), getBatchMaxBytes())) {
+                if (batch != null) {
+                    readyBatches.addLast(batch);
+                }
+                batch = new HttpRptBatch(httpEvent);
+                openBatches.put(batchKey, batch);
+            }
+            batch.append(asyncObj);
+        }
+
+        private int getBatchMaxBytes() {
+            int allowedLen = sender.getAllowedPkgLength();
+            if (allowedLen < 0) {
+                return httpConfig.getHttpBatchMaxBytes();
+            }
+            return Math.max(1, Math.min(httpConfig.getHttpBatchMaxBytes(),
+                    allowedLen - SdkConsts.RESERVED_ATTRIBUTE_LENGTH));
+        }
+
+        /**
+         * dispatch the batch to an active node in round-robin
+         *
+         * @return false if no connection can accept the batch now
+         */
+        private boolean dispatchBatch(HttpRptBatch batch) {
+            List<String> curNodes = activeNodes;
+            int curNodeSize = curNodes.size();
+            if (curNodeSize == 0) {
+                completeBatch(batch, new ProcessResult(ErrorCode.EMPTY_ACTIVE_NODE_SET));
+                return true;
+            }
+            HostInfo hostInfo;
+            Long lstFailTime;
+            HostInfo back1thNode = null;
+            long nodeSelectTime = System.currentTimeMillis();
+            int startPos = reqSendIndex.getAndIncrement();
+            for (int index = 0; index < curNodeSize; index++) {
+                hostInfo = usingNodeMaps.get(curNodes.get(Math.abs(startPos++) % curNodeSize));
+                if (hostInfo == null) {
+                    continue;
+                }
+                lstFailTime = connFailNodeMap.get(hostInfo.getReferenceName());
+                if (lstFailTime != null
+                        && nodeSelectTime - lstFailTime <= httpConfig.getHttpNodeReuseWaitIfFailMs()) {
+                    back1thNode = hostInfo;
+                    continue;
+                }
+                if (pipelineClient.trySend(hostInfo, batch)) {
+                    return true;
+                }
+            }
+            return back1thNode != null && pipelineClient.trySend(back1thNode, batch);
+        }
+    }
+}
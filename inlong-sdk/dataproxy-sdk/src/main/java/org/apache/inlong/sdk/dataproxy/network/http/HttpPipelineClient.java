@@ -0,0 +1,410 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.network.http;
+
+import org.apache.inlong.sdk.dataproxy.common.ErrorCode;
+import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.common.SdkConsts;
+import org.apache.inlong.sdk.dataproxy.config.HostInfo;
+import org.apache.inlong.sdk.dataproxy.sender.http.HttpMsgSenderConfig;
+import org.apache.inlong.sdk.dataproxy.utils.EventLoopUtil;
+import org.apache.inlong.sdk.dataproxy.utils.LogCounter;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLParameters;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP Pipeline Client class
+ *
+ * Used to keep persistent HTTP/1.1 connections to each proxy node and pipeline the report
+ *  requests on them: a request is written without waiting for the responses of the previous
+ *  ones, and the responses are matched to the requests in the sending order. When a connection
+ *  breaks or its oldest request times out, all the requests pending on it are failed.
+ */
+class HttpPipelineClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpPipelineClient.class);
+    private static final LogCounter connExptCnt = new LogCounter(10, 100000, 60 * 1000L);
+
+    private final HttpClientMgr clientMgr;
+    private final HttpMsgSenderConfig httpConfig;
+    private final String senderId;
+    private final ConcurrentHashMap<String, PipelinedConn[]> nodeConns = new ConcurrentHashMap<>();
+    private final AtomicInteger inflightReqCnt = new AtomicInteger(0);
+    private Bootstrap bootstrap;
+    private SslContext sslContext;
+
+    public HttpPipelineClient(HttpClientMgr clientMgr, HttpMsgSenderConfig httpConfig, String senderId) {
+        this.clientMgr = clientMgr;
+        this.httpConfig = httpConfig;
+        this.senderId = senderId;
+    }
+
+    public boolean start(ProcessResult procResult) {
+        try {
+            if (httpConfig.isRptDataByHttps()) {
+                this.sslContext = SslContextBuilder.forClient()
+                        .protocols(httpConfig.getTlsVersion()).build();
+            }
+            EventLoopGroup eventLoopGroup = EventLoopUtil.newEventLoopGroup(
+                    httpConfig.getHttpAsyncRptWorkerNum(), false,
+                    new DefaultThreadFactory("http-pipeline-" + senderId, true));
+            Bootstrap tmpBootstrap = new Bootstrap();
+            tmpBootstrap.group(eventLoopGroup);
+            tmpBootstrap.option(ChannelOption.TCP_NODELAY, true);
+            tmpBootstrap.option(ChannelOption.SO_KEEPALIVE, true);
+            tmpBootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, httpConfig.getHttpConTimeoutMs());
+            tmpBootstrap.channel(EventLoopUtil.getClientSocketChannelClass(eventLoopGroup));
+            this.bootstrap = tmpBootstrap;
+            return procResult.setSuccess();
+        } catch (Throwable ex) {
+            logger.error("ClientMgr({}) build http pipeline client exception", senderId, ex);
+            return procResult.setFailResult(ErrorCode.HTTP_BUILD_CLIENT_EXCEPTION, ex.getMessage());
+        }
+    }
+
+    public void stop() {
+        for (PipelinedConn[] conns : nodeConns.values()) {
+            for (PipelinedConn conn : conns) {
+                closeConn(conn, ErrorCode.SDK_CLOSED);
+            }
+        }
+        nodeConns.clear();
+        if (bootstrap != null) {
+            bootstrap.config().group().shutdownGracefully();
+        }
+    }
+
+    /**
+     * Send the batch over a connection of the node which has free pipeline slots
+     *
+     * @param hostInfo the proxy node
+     * @param batch    the batch need to send
+     * @return false if no connection of the node can accept the request now
+     */
+    public boolean trySend(HostInfo hostInfo, HttpRptBatch batch) {
+        PipelinedConn[] conns = nodeConns.computeIfAbsent(
+                hostInfo.getReferenceName(), k -> buildNodeConns(hostInfo));
+        // select the connection with the fewest pending requests
+        int minPending = httpConfig.getHttpPipelineDepth();
+        PipelinedConn target = null;
+        for (PipelinedConn conn : conns) {
+            Channel channel = conn.channel;
+            if (channel == null || !channel.isActive()) {
+                if (!conn.connecting) {
+                    connect(conn);
+                }
+                continue;
+            }
+            if (!channel.isWritable()) {
+                continue;
+            }
+            int pendingCnt = conn.getPendingCnt();
+            if (pendingCnt < minPending) {
+                minPending = pendingCnt;
+                target = conn;
+            }
+        }
+        if (target == null) {
+            return false;
+        }
+        final PipelinedConn sendConn = target;
+        FullHttpRequest request = buildRequest(hostInfo, batch);
+        Channel channel;
+        synchronized (sendConn) {
+            channel = sendConn.channel;
+            if (channel == null || sendConn.pending.size() >= httpConfig.getHttpPipelineDepth()) {
+                request.release();
+                return false;
+            }
+            batch.setSendInfo(hostInfo, System.currentTimeMillis());
+            sendConn.pending.addLast(batch);
+        }
+        inflightReqCnt.incrementAndGet();
+        channel.writeAndFlush(request).addListener((ChannelFutureListener) future -> {
+            if (!future.isSuccess()) {
+                failPending(sendConn, future.channel(), ErrorCode.CONNECTION_WRITE_EXCEPTION);
+                future.channel().close();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Fail the requests on the connections whose oldest request is timed out
+     */
+    public void checkTimeouts() {
+        long curTime = System.currentTimeMillis();
+        for (PipelinedConn[] conns : nodeConns.values()) {
+            for (PipelinedConn conn : conns) {
+                Channel channel;
+                synchronized (conn) {
+                    HttpRptBatch headBatch = conn.pending.peekFirst();
+                    if (headBatch == null
+                            || curTime - headBatch.getSendTime() < httpConfig.getHttpSocketTimeoutMs()) {
+                        continue;
+                    }
+                    channel = conn.channel;
+                }
+                if (connExptCnt.shouldPrint()) {
+                    logger.warn("ClientMgr({}) pipelined request to {} timeout, close the connection",
+                            senderId, conn.hostInfo.getReferenceName());
+                }
+                failPending(conn, channel, ErrorCode.SEND_WAIT_TIMEOUT);
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Close the connections of the nodes not in use
+     *
+     * @param activeNodes the nodes in use
+     */
+    public void removeInactiveNodes(Set<String> activeNodes) {
+        for (Map.Entry<String, PipelinedConn[]> entry : nodeConns.entrySet()) {
+            if (activeNodes.contains(entry.getKey())) {
+                continue;
+            }
+            PipelinedConn[] conns = entry.getValue();
+            boolean idle = true;
+            for (PipelinedConn conn : conns) {
+                if (conn.getPendingCnt() > 0) {
+                    idle = false;
+                    break;
+                }
+            }
+            if (!idle || !nodeConns.remove(entry.getKey(), conns)) {
+                continue;
+            }
+            for (PipelinedConn conn : conns) {
+                closeConn(conn, ErrorCode.CONNECTION_UNAVAILABLE);
+            }
+        }
+    }
+
+    public int getInflightReqCnt() {
+        return inflightReqCnt.get();
+    }
+
+    private PipelinedConn[] buildNodeConns(HostInfo hostInfo) {
+        PipelinedConn[] conns = new PipelinedConn[httpConfig.getHttpPipelineConnsPerNode()];
+        for (int i = 0; i < conns.length; i++) {
+            conns[i] = new PipelinedConn(hostInfo);
+        }
+        return conns;
+    }
+
+    private void connect(PipelinedConn conn) {
+        conn.connecting = true;
+        try {
+            bootstrap.clone().handler(new PipelineInitializer(conn))
+                    .connect(conn.hostInfo.getHostName(), conn.hostInfo.getPortNumber())
+                    .addListener((ChannelFutureListener) future -> {
+                        if (future.isSuccess()) {
+                            conn.channel = future.channel();
+                        } else {
+                            clientMgr.markNodeFailure(conn.hostInfo);
+                            if (connExptCnt.shouldPrint()) {
+                                logger.warn("ClientMgr({}) connect to {} failure", senderId,
+                                        conn.hostInfo.getReferenceName(), future.cause());
+                            }
+                        }
+                        conn.connecting = false;
+                    });
+        } catch (Throwable ex) {
+            conn.connecting = false;
+            if (connExptCnt.shouldPrint()) {
+                logger.warn("ClientMgr({}) connect to {} exception", senderId,
+                        conn.hostInfo.getReferenceName(), ex);
+            }
+        }
+    }
+
+    private FullHttpRequest buildRequest(HostInfo hostInfo, HttpRptBatch batch) {
+        String content = clientMgr.buildFormContent(batch.getGroupId(),
+                batch.getStreamId(), batch.getDtMs(), batch.getBodyList(), batch.getMsgCnt());
+        ByteBuf contentBuf = Unpooled.copiedBuffer(content, StandardCharsets.UTF_8);
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+                HttpMethod.POST, SdkConsts.DATAPROXY_REPORT_METHOD, contentBuf);
+        request.headers().set(HttpHeaderNames.HOST, hostInfo.getReferenceName());
+        request.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+        request.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_X_WWW_FORM_URLENCODED);
+        request.headers().set(HttpHeaderNames.CONTENT_LENGTH, contentBuf.readableBytes());
+        return request;
+    }
+
+    private void closeConn(PipelinedConn conn, ErrorCode errCode) {
+        Channel channel = conn.channel;
+        failPending(conn, channel, errCode);
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void failPending(PipelinedConn conn, Channel channel, ErrorCode errCode) {
+        List<HttpRptBatch> failedBatches;
+        synchronized (conn) {
+            if (channel != null && conn.channel != channel) {
+                return;
+            }
+            conn.channel = null;
+            if (conn.pending.isEmpty()) {
+                return;
+            }
+            failedBatches = new ArrayList<>(conn.pending);
+            conn.pending.clear();
+        }
+        inflightReqCnt.addAndGet(-failedBatches.size());
+        for (HttpRptBatch batch : failedBatches) {
+            clientMgr.completeBatch(batch, new ProcessResult(errCode));
+        }
+    }
+
+    private void onResponse(PipelinedConn conn, Channel channel, FullHttpResponse response) {
+        HttpRptBatch batch;
+        synchronized (conn) {
+            // the pending requests of a failed connection have been notified
+            if (conn.channel != channel) {
+                return;
+            }
+            batch = conn.pending.pollFirst();
+        }
+        if (batch == null) {
+            return;
+        }
+        inflightReqCnt.decrementAndGet();
+        ProcessResult procResult = new ProcessResult();
+        try {
+            clientMgr.parseRptResponse(batch.getHostInfo(), response.status().code(),
+                    response.content().toString(StandardCharsets.UTF_8), procResult);
+        } catch (Throwable ex) {
+            procResult.setFailResult(ErrorCode.DP_RETURN_UNKNOWN_ERROR, ex.getMessage());
+        }
+        clientMgr.completeBatch(batch, procResult);
+    }
+
+    /**
+     * A persistent connection and the requests pending on it in the sending order
+     */
+    private static class PipelinedConn {
+
+        private final HostInfo hostInfo;
+        private final ArrayDeque<HttpRptBatch> pending = new ArrayDeque<>();
+        private volatile Channel channel;
+        private volatile boolean connecting = false;
+
+        PipelinedConn(HostInfo hostInfo) {
+            this.hostInfo = hostInfo;
+        }
+
+        synchronized int getPendingCnt() {
+            return pending.size();
+        }
+    }
+
+    private class PipelineInitializer extends ChannelInitializer<SocketChannel> {
+
+        private final PipelinedConn conn;
+
+        PipelineInitializer(PipelinedConn conn) {
+            this.conn = conn;
+        }
+
+        @Override
+        protected void initChannel(SocketChannel ch) {
+            if (sslContext != null) {
+                SslHandler sslHandler = sslContext.newHandler(ch.alloc(),
+                        conn.hostInfo.getHostName(), conn.hostInfo.getPortNumber());
+                SSLParameters sslParameters = sslHandler.engine().getSSLParameters();
+                sslParameters.setEndpointIdentificationAlgorithm("HTTPS");
+                sslHandler.engine().setSSLParameters(sslParameters);
+                ch.pipeline().addLast("ssl", sslHandler);
+            }
+            ch.pipeline().addLast("codec", new HttpClientCodec());
+            ch.pipeline().addLast("aggregator", new HttpObjectAggregator(SdkConsts.VAL_MAX_HTTP_RESPONSE_BYTES));
+            ch.pipeline().addLast("handler", new PipelineHandler(conn));
+        }
+    }
+
+    private class PipelineHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+        private final PipelinedConn conn;
+
+        PipelineHandler(PipelinedConn conn) {
+            this.conn = conn;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+            onResponse(conn, ctx.channel(), response);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            failPending(conn, ctx.channel(), ErrorCode.CONNECTION_BREAK);
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            if (connExptCnt.shouldPrint()) {
+                logger.warn("ClientMgr({}) pipelined connection to {} exception",
+                        senderId, conn.hostInfo.getReferenceName(), cause);
+            }
+            ctx.close();
+        }
+    }
+}
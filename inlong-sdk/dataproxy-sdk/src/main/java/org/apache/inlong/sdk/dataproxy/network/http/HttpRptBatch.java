@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.network.http;
+
+import org.apache.inlong.sdk.dataproxy.config.HostInfo;
+import org.apache.inlong.sdk.dataproxy.sender.http.HttpEventInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HTTP Report Batch class
+ *
+ * Used to merge the queued events of the same groupId, streamId and data time
+ *  into one report request.
+ */
+class HttpRptBatch {
+
+    private final String groupId;
+    private final String streamId;
+    private final long dtMs;
+    private final List<HttpAsyncObj> asyncObjs = new ArrayList<>();
+    private final List<String> bodyList = new ArrayList<>();
+    private int msgCnt = 0;
+    private int bodySize = 0;
+    // the report time of the earliest event in the batch
+    private long firstRptMs = 0L;
+    private HostInfo hostInfo;
+    private long sendTime;
+
+    public HttpRptBatch(HttpEventInfo headEvent) {
+        this.groupId = headEvent.getGroupId();
+        this.streamId = headEvent.getStreamId();
+        this.dtMs = headEvent.getDtMs();
+    }
+
+    public boolean canAppend(HttpEventInfo httpEvent, int maxMsgCnt, int maxBytes) {
+        if (asyncObjs.isEmpty()) {
+            return true;
+        }
+        return groupId.equals(httpEvent.getGroupId())
+                && streamId.equals(httpEvent.getStreamId())
+                && dtMs == httpEvent.getDtMs()
+                && msgCnt + httpEvent.getMsgCnt() <= maxMsgCnt
+                && bodySize + httpEvent.getBodySize() <= maxBytes;
+    }
+
+    public void append(HttpAsyncObj asyncObj) {
+        if (asyncObjs.isEmpty()) {
+            firstRptMs = asyncObj.getRptMs();
+        }
+        asyncObjs.add(asyncObj);
+        bodyList.addAll(asyncObj.getHttpEvent().getBodyList());
+        msgCnt += asyncObj.getHttpEvent().getMsgCnt();
+        bodySize += asyncObj.getHttpEvent().getBodySize();
+    }
+
+    public void setSendInfo(HostInfo hostInfo, long sendTime) {
+        this.hostInfo = hostInfo;
+        this.sendTime = sendTime;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
+    public long getDtMs() {
+        return dtMs;
+    }
+
+    public List<HttpAsyncObj> getAsyncObjs() {
+        return asyncObjs;
+    }
+
+    public List<String> getBodyList() {
+        return bodyList;
+    }
+
+    public int getMsgCnt() {
+        return msgCnt;
+    }
+
+    public int getBodySize() {
+        return bodySize;
+    }
+
+    public long getFirstRptMs() {
+        return firstRptMs;
+    }
+
+    public HostInfo getHostInfo() {
+        return hostInfo;
+    }
+
+    public long getSendTime() {
+        return sendTime;
+    }
+}
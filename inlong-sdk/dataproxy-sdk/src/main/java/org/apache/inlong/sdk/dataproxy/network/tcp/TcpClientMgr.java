@@ -19,6 +19,7 @@ package org.apache.inlong.sdk.dataproxy.network.tcp;
 
 import org.apache.inlong.sdk.dataproxy.common.ErrorCode;
 import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.common.SdkConsts;
 import org.apache.inlong.sdk.dataproxy.config.HostInfo;
 import org.apache.inlong.sdk.dataproxy.network.ClientMgr;
 import org.apache.inlong.sdk.dataproxy.network.SequentialID;
@@ -32,6 +33,7 @@ import org.apache.inlong.sdk.dataproxy.utils.LogCounter;
 import org.apache.inlong.sdk.dataproxy.utils.ProxyUtils;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.util.HashedWheelTimer;
@@ -88,13 +90,11 @@ public class TcpClientMgr implements ClientMgr {
     private final MaintThread maintThread;
     private final AtomicBoolean started = new AtomicBoolean(false);
     private final AtomicLong channelTermGen = new AtomicLong(0);
-    // request cache
-    private final ConcurrentHashMap<Integer, TcpCallFuture> reqObjects =
-            new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<Integer, Timeout> reqTimeouts =
-            new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, ConcurrentHashMap<Integer, Boolean>> channelMsgIdMap =
+    // in-flight request rings of channels
+    private final ConcurrentHashMap<String, TcpInFlightRing> channelRings =
             new ConcurrentHashMap<>();
+    private final int ringInflightCnt;
+    private final long sweepIntervalMs;
     // node select index
     private final AtomicInteger reqSendIndex = new AtomicInteger(0);
 
@@ -108,6 +108,10 @@ public class TcpClientMgr implements ClientMgr {
         // Initialize the bootstrap
         this.bootstrap = buildBootstrap(selfDefineFactory);
         this.maintThread = new MaintThread();
+        this.ringInflightCnt = Math.max(tcpConfig.getMaxMsgInFlightPerConn(),
+                SdkConsts.MAX_INFLIGHT_MSG_COUNT_PER_CONNECTION);
+        this.sweepIntervalMs = Math.min(SdkConsts.VAL_MAX_INFLIGHT_SWEEP_INTERVAL_MS,
+                Math.max(SdkConsts.VAL_MIN_INFLIGHT_SWEEP_INTERVAL_MS, tcpConfig.getRequestTimeoutMs() / 10));
     }
 
     @Override
@@ -118,6 +122,8 @@ public class TcpClientMgr implements ClientMgr {
         if (timerRefCnt.incrementAndGet() == 1) {
             timerObj = new HashedWheelTimer();
         }
+        // start in-flight request timeout sweep
+        timerObj.newTimeout(new InFlightSweepTask(), sweepIntervalMs, TimeUnit.MILLISECONDS);
         // start hb thread
         this.maintThread.start();
         logger.info("ClientMgr({}) started", senderId);
@@ -135,9 +141,7 @@ public class TcpClientMgr implements ClientMgr {
         this.bootstrap.config().group().shutdownGracefully();
         this.maintThread.shutDown();
         long startTime = System.currentTimeMillis();
-        if (!this.reqTimeouts.isEmpty()) {
-            notifyInflightMsgClosed();
-        }
+        notifyInflightMsgClosed();
         this.activeNodes.clear();
         logger.info("ClientMgr({}) stopped, release cost {} ms!",
                 senderId, System.currentTimeMillis() - startTime);
@@ -145,7 +149,11 @@ public class TcpClientMgr implements ClientMgr {
 
     @Override
     public int getInflightMsgCnt() {
-        return this.reqTimeouts.size();
+        int inflightCnt = 0;
+        for (TcpInFlightRing inflightRing : channelRings.values()) {
+            inflightCnt += inflightRing.getInflightCnt();
+        }
+        return inflightCnt;
     }
 
     @Override
@@ -243,54 +251,43 @@ public class TcpClientMgr implements ClientMgr {
         long clientTerm = client.getChanTermId();
         if (sendQos == SendQos.NO_ACK) {
             // process no ack report
+            encObject.setMessageIdInfo(getNextMsgId());
             if (client.write(clientTerm, encObject, procResult)) {
                 client.decInFlightMsgCnt(clientTerm);
             }
             return procResult.isSuccess();
         }
+        // register the request in the channel's in-flight ring
+        TcpInFlightRing inflightRing = getInFlightRing(client, clientTerm, procResult);
+        if (inflightRing == null) {
+            return false;
+        }
+        encObject.setMessageIdInfo(inflightRing.getNextMsgId());
         TcpCallFuture newFuture = new TcpCallFuture(encObject,
-                client.getClientAddr(), clientTerm, client.getChanStr(), callback);
-        TcpCallFuture curFuture = reqObjects.putIfAbsent(encObject.getMessageId(), newFuture);
-        if (curFuture != null) {
+                client.getClientAddr(), clientTerm, inflightRing.getChanStr(), callback);
+        if (!inflightRing.register(newFuture)) {
             if (sendExceptCnt.shouldPrint()) {
-                logger.warn("ClientMgr({}) found message id {} has existed.",
-                        senderId, encObject.getMessageId());
-            }
-            return procResult.setFailResult(ErrorCode.DUPLICATED_MESSAGE_ID);
-        }
-        // build channel -- messageId map
-        ConcurrentHashMap<Integer, Boolean> msgIdMap = channelMsgIdMap.get(client.getChanStr());
-        if (msgIdMap == null) {
-            ConcurrentHashMap<Integer, Boolean> tmpMsgIdMap = new ConcurrentHashMap<>();
-            msgIdMap = channelMsgIdMap.putIfAbsent(client.getChanStr(), tmpMsgIdMap);
-            if (msgIdMap == null) {
-                msgIdMap = tmpMsgIdMap;
+                logger.warn("ClientMgr({}) found in-flight slots of {} are full, capacity={}",
+                        senderId, inflightRing.getChanStr(), inflightRing.getCapacity());
             }
+            return procResult.setFailResult(ErrorCode.INF_REQ_SLOTS_REACH_CONN_LIMIT);
         }
-        msgIdMap.put(encObject.getMessageId(), newFuture.isAsyncCall());
         // send message
         if (newFuture.isAsyncCall()) {
             // process async report
-            reqTimeouts.put(encObject.getMessageId(),
-                    timerObj.newTimeout(new TimeoutTask(encObject.getMessageId()),
-                            tcpConfig.getRequestTimeoutMs(), TimeUnit.MILLISECONDS));
             if (!client.write(clientTerm, encObject, procResult)) {
-                Timeout timeout = reqTimeouts.remove(newFuture.getMessageId());
-                if (timeout != null) {
-                    timeout.cancel();
-                }
-                rmvMsgStubInfo(newFuture.getMessageId());
+                inflightRing.remove(newFuture.getMessageId());
             }
             return procResult.isSuccess();
         } else {
             // process sync report
             if (!client.write(clientTerm, encObject, procResult)) {
-                rmvMsgStubInfo(newFuture.getMessageId());
+                inflightRing.remove(newFuture.getMessageId());
                 return false;
             }
             boolean retValue = newFuture.get(procResult,
                     tcpConfig.getRequestTimeoutMs(), TimeUnit.MILLISECONDS);
-            if (rmvMsgStubInfo(newFuture.getMessageId())) {
+            if (inflightRing.remove(newFuture.getMessageId()) != null) {
                 if (procResult.getErrCode() == ErrorCode.SEND_WAIT_TIMEOUT.getErrCode()) {
                     client.setBusy(clientTerm);
                 }
@@ -300,17 +297,24 @@ public class TcpClientMgr implements ClientMgr {
         }
     }
 
-    private boolean rmvMsgStubInfo(int messageId) {
-        TcpCallFuture curFuture = reqObjects.remove(messageId);
-        if (curFuture == null) {
-            return false;
+    private TcpInFlightRing getInFlightRing(
+            TcpNettyClient client, long clientTerm, ProcessResult procResult) {
+        Channel channel = client.getChannel();
+        String chanStr = client.getChanStr();
+        if (channel == null || chanStr.isEmpty()) {
+            procResult.setFailResult(ErrorCode.CONNECTION_UNAVAILABLE);
+            return null;
         }
-        ConcurrentHashMap<Integer, Boolean> msgIdMap =
-                channelMsgIdMap.get(curFuture.getChanStr());
-        if (msgIdMap != null) {
-            msgIdMap.remove(curFuture.getMessageId());
+        TcpInFlightRing inflightRing = channelRings.get(chanStr);
+        if (inflightRing == null) {
+            TcpInFlightRing tmpRing = new TcpInFlightRing(
+                    client, channel, chanStr, clientTerm, ringInflightCnt);
+            inflightRing = channelRings.putIfAbsent(chanStr, tmpRing);
+            if (inflightRing == null) {
+                inflightRing = tmpRing;
+            }
         }
-        return true;
+        return inflightRing;
     }
 
     public boolean getClientByRoundRobin(ProcessResult procResult) {
@@ -372,19 +376,15 @@ public class TcpClientMgr implements ClientMgr {
     }
 
     public void feedbackMsgResponse(String channelStr, DecodeObject decObject) {
-        Timeout timeoutTask = this.reqTimeouts.remove(decObject.getMessageId());
-        if (timeoutTask != null) {
-            timeoutTask.cancel();
+        TcpInFlightRing inflightRing = channelRings.get(channelStr);
+        if (inflightRing == null) {
+            return;
         }
-        TcpCallFuture callFuture = this.reqObjects.remove(decObject.getMessageId());
+        TcpCallFuture callFuture = inflightRing.remove(decObject.getMessageId());
         if (callFuture == null) {
             return;
         }
         long curTime = System.currentTimeMillis();
-        ConcurrentHashMap<Integer, Boolean> inflightMsgIds = channelMsgIdMap.get(channelStr);
-        if (inflightMsgIds != null) {
-            inflightMsgIds.remove(decObject.getMessageId());
-        }
         try {
             callFuture.onMessageAck(decObject.getSendResult());
         } catch (Throwable ex) {
@@ -393,7 +393,7 @@ public class TcpClientMgr implements ClientMgr {
                         senderId, ex);
             }
         } finally {
-            this.descInflightMsgCnt(callFuture);
+            inflightRing.getClient().decInFlightMsgCnt(inflightRing.getChanTerm());
             this.releaseAsyncCachedPermits(callFuture);
             if (decObject.getSendResult().isSuccess()) {
                 baseSender.getMetricHolder().addCallbackSucMetric(callFuture.getGroupId(),
@@ -408,102 +408,20 @@ public class TcpClientMgr implements ClientMgr {
     }
 
     public void setChannelFrozen(String channelStr) {
-        Map<Integer, Boolean> inflightMsgIds = channelMsgIdMap.get(channelStr);
-        if (inflightMsgIds == null) {
+        TcpInFlightRing inflightRing = channelRings.get(channelStr);
+        if (inflightRing == null || inflightRing.getInflightCnt() <= 0) {
             return;
         }
-        TcpCallFuture callFuture;
-        TcpNettyClient nettyTcpClient;
-        for (Integer messageId : inflightMsgIds.keySet()) {
-            if (messageId == null) {
-                continue;
-            }
-            callFuture = this.reqObjects.get(messageId);
-            if (callFuture == null) {
-                continue;
-            }
-            // find and process in using clients
-            nettyTcpClient = usingClientMaps.get(callFuture.getClientAddr());
-            if (nettyTcpClient != null
-                    && nettyTcpClient.getChanTermId() == callFuture.getChanTerm()) {
-                nettyTcpClient.setFrozen(callFuture.getChanTerm());
-                return;
-            }
-            // find and process in deleting clients
-            nettyTcpClient = deletingClientMaps.get(callFuture.getClientAddr());
-            if (nettyTcpClient != null
-                    && nettyTcpClient.getChanTermId() == callFuture.getChanTerm()) {
-                nettyTcpClient.setFrozen(callFuture.getChanTerm());
-                return;
-            }
-            break;
-        }
+        inflightRing.getClient().setFrozen(inflightRing.getChanTerm());
     }
 
     public void notifyChannelDisconnected(String channelStr) {
-        Map<Integer, Boolean> inflightMsgIds =
-                channelMsgIdMap.remove(channelStr);
-        if (inflightMsgIds == null || inflightMsgIds.isEmpty()) {
+        TcpInFlightRing inflightRing = channelRings.remove(channelStr);
+        if (inflightRing == null) {
             return;
         }
-        Timeout timeoutTask;
-        TcpNettyClient nettyTcpClient;
-        long curTime;
-        for (Integer messageId : inflightMsgIds.keySet()) {
-            if (messageId == null) {
-                continue;
-            }
-            timeoutTask = this.reqTimeouts.remove(messageId);
-            if (timeoutTask != null) {
-                timeoutTask.cancel();
-            }
-            TcpCallFuture callFuture = this.reqObjects.remove(messageId);
-            if (callFuture == null) {
-                continue;
-            }
-            curTime = System.currentTimeMillis();
-            // find and process in using clients
-            nettyTcpClient = usingClientMaps.get(callFuture.getClientAddr());
-            if (nettyTcpClient != null
-                    && nettyTcpClient.getChanTermId() == callFuture.getChanTerm()) {
-                try {
-                    nettyTcpClient.getChannel().eventLoop().execute(
-                            () -> callFuture.onMessageAck(new ProcessResult(ErrorCode.CONNECTION_BREAK)));
-                } catch (Throwable ex) {
-                    if (callbackExceptCnt.shouldPrint()) {
-                        logger.info("ClientMgr({}) disconnected, callback exception!",
-                                senderId, ex);
-                    }
-                } finally {
-                    nettyTcpClient.decInFlightMsgCnt(callFuture.getChanTerm());
-                    this.releaseAsyncCachedPermits(callFuture);
-                    baseSender.getMetricHolder().addCallbackFailMetric(ErrorCode.CONNECTION_BREAK.getErrCode(),
-                            callFuture.getGroupId(), callFuture.getStreamId(), callFuture.getMsgCnt(),
-                            (System.currentTimeMillis() - curTime));
-                }
-                return;
-            }
-            // find and process in deleting clients
-            nettyTcpClient = deletingClientMaps.get(callFuture.getClientAddr());
-            if (nettyTcpClient != null
-                    && nettyTcpClient.getChanTermId() == callFuture.getChanTerm()) {
-                try {
-                    nettyTcpClient.getChannel().eventLoop().execute(
-                            () -> callFuture.onMessageAck(new ProcessResult(ErrorCode.CONNECTION_BREAK)));
-                } catch (Throwable ex) {
-                    if (callbackExceptCnt.shouldPrint()) {
-                        logger.info("ClientMgr({}) disconnected, callback2 exception!",
-                                senderId, ex);
-                    }
-                } finally {
-                    nettyTcpClient.decInFlightMsgCnt(callFuture.getChanTerm());
-                    this.releaseAsyncCachedPermits(callFuture);
-                    baseSender.getMetricHolder().addCallbackFailMetric(ErrorCode.CONNECTION_BREAK.getErrCode(),
-                            callFuture.getGroupId(), callFuture.getStreamId(), callFuture.getMsgCnt(),
-                            (System.currentTimeMillis() - curTime));
-                }
-            }
-        }
+        inflightRing.drain(callFuture -> notifyInflightMsgFailure(
+                inflightRing, callFuture, ErrorCode.CONNECTION_BREAK, "disconnected"));
     }
 
     public String getSenderId() {
@@ -514,20 +432,6 @@ public class TcpClientMgr implements ClientMgr {
         return messageIdGen.getNextInt();
     }
 
-    private void descInflightMsgCnt(TcpCallFuture callFuture) {
-        TcpNettyClient nettyTcpClient = usingClientMaps.get(callFuture.getClientAddr());
-        if (nettyTcpClient != null
-                && nettyTcpClient.getChanTermId() == callFuture.getChanTerm()) {
-            nettyTcpClient.decInFlightMsgCnt(callFuture.getChanTerm());
-            return;
-        }
-        nettyTcpClient = deletingClientMaps.get(callFuture.getClientAddr());
-        if (nettyTcpClient != null
-                && nettyTcpClient.getChanTermId() == callFuture.getChanTerm()) {
-            nettyTcpClient.decInFlightMsgCnt(callFuture.getChanTerm());
-        }
-    }
-
     private Bootstrap buildBootstrap(ThreadFactory selfFactory) {
         if (selfFactory == null) {
             selfFactory = new DefaultThreadFactory(
@@ -551,63 +455,34 @@ public class TcpClientMgr implements ClientMgr {
     }
 
     public void notifyInflightMsgClosed() {
-        long curTime;
-        Timeout timeoutTask;
-        TcpNettyClient nettyTcpClient;
-        for (Integer messageId : this.reqTimeouts.keySet()) {
-            if (messageId == null) {
-                continue;
-            }
-            timeoutTask = this.reqTimeouts.remove(messageId);
-            if (timeoutTask != null) {
-                timeoutTask.cancel();
-            }
-            TcpCallFuture callFuture = this.reqObjects.remove(messageId);
-            if (callFuture == null) {
-                continue;
-            }
-            curTime = System.currentTimeMillis();
-            // find and process in using clients
-            nettyTcpClient = usingClientMaps.get(callFuture.getClientAddr());
-            if (nettyTcpClient != null
-                    && nettyTcpClient.getChanTermId() == callFuture.getChanTerm()) {
-                try {
-                    nettyTcpClient.getChannel().eventLoop().execute(
-                            () -> callFuture.onMessageAck(new ProcessResult(ErrorCode.SDK_CLOSED)));
-                } catch (Throwable ex) {
-                    if (callbackExceptCnt.shouldPrint()) {
-                        logger.info("ClientMgr({}) closed, callback exception!",
-                                senderId, ex);
-                    }
-                } finally {
-                    nettyTcpClient.decInFlightMsgCnt(callFuture.getChanTerm());
-                    this.releaseAsyncCachedPermits(callFuture);
-                    baseSender.getMetricHolder().addCallbackFailMetric(ErrorCode.SDK_CLOSED.getErrCode(),
-                            callFuture.getGroupId(), callFuture.getStreamId(), callFuture.getMsgCnt(),
-                            (System.currentTimeMillis() - curTime));
-                }
-                return;
-            }
-            // find and process in deleting clients
-            nettyTcpClient = deletingClientMaps.get(callFuture.getClientAddr());
-            if (nettyTcpClient != null
-                    && nettyTcpClient.getChanTermId() == callFuture.getChanTerm()) {
-                try {
-                    nettyTcpClient.getChannel().eventLoop().execute(
-                            () -> callFuture.onMessageAck(new ProcessResult(ErrorCode.SDK_CLOSED)));
-                } catch (Throwable ex) {
-                    if (callbackExceptCnt.shouldPrint()) {
-                        logger.info("ClientMgr({}) closed, callback2 exception!",
-                                senderId, ex);
-                    }
-                } finally {
-                    nettyTcpClient.decInFlightMsgCnt(callFuture.getChanTerm());
-                    this.releaseAsyncCachedPermits(callFuture);
-                    baseSender.getMetricHolder().addCallbackFailMetric(ErrorCode.SDK_CLOSED.getErrCode(),
-                            callFuture.getGroupId(), callFuture.getStreamId(), callFuture.getMsgCnt(),
-                            (System.currentTimeMillis() - curTime));
+        for (TcpInFlightRing inflightRing : channelRings.values()) {
+            inflightRing.drain(callFuture -> notifyInflightMsgFailure(
+                    inflightRing, callFuture, ErrorCode.SDK_CLOSED, "closed"));
+        }
+    }
+
+    private void notifyInflightMsgFailure(TcpInFlightRing inflightRing,
+            TcpCallFuture callFuture, ErrorCode errCode, String reason) {
+        long curTime = System.currentTimeMillis();
+        try {
+            inflightRing.getChannel().eventLoop().execute(
+                    () -> callFuture.onMessageAck(new ProcessResult(errCode)));
+        } catch (Throwable ex) {
+            // the event loop may be closed, notify in the current thread
+            try {
+                callFuture.onMessageAck(new ProcessResult(errCode));
+            } catch (Throwable ex2) {
+                if (callbackExceptCnt.shouldPrint()) {
+                    logger.info("ClientMgr({}) msg {}, callback exception!",
+                            senderId, reason, ex2);
                 }
             }
+        } finally {
+            inflightRing.getClient().decInFlightMsgCnt(inflightRing.getChanTerm());
+            this.releaseAsyncCachedPermits(callFuture);
+            baseSender.getMetricHolder().addCallbackFailMetric(errCode.getErrCode(),
+                    callFuture.getGroupId(), callFuture.getStreamId(), callFuture.getMsgCnt(),
+                    (System.currentTimeMillis() - curTime));
         }
     }
 
@@ -700,76 +575,35 @@ public class TcpClientMgr implements ClientMgr {
     }
 
     /**
-     * Time out task call back handle
+     * In-flight request timeout sweep task
      */
-    public class TimeoutTask implements TimerTask {
-
-        private final int messageId;
-
-        public TimeoutTask(int messageId) {
-            this.messageId = messageId;
-        }
+    private class InFlightSweepTask implements TimerTask {
 
         @Override
         public void run(Timeout timeout) throws Exception {
-            Timeout timeoutMsg = reqTimeouts.remove(messageId);
-            if (timeoutMsg != null) {
-                timeoutMsg.cancel();
-            }
-            TcpCallFuture future = reqObjects.remove(messageId);
-            if (future == null) {
+            if (!started.get()) {
                 return;
             }
-            long curTime = System.currentTimeMillis();
-            ConcurrentHashMap<Integer, Boolean> messageIdMap;
-            // find and process in using clients
-            TcpNettyClient nettyTcpClient = usingClientMaps.get(future.getClientAddr());
-            if (nettyTcpClient != null
-                    && nettyTcpClient.getChanTermId() == future.getChanTerm()) {
-                messageIdMap = channelMsgIdMap.get(future.getChanStr());
-                if (messageIdMap != null) {
-                    messageIdMap.remove(messageId);
-                }
-                try {
-                    nettyTcpClient.getChannel().eventLoop().execute(
-                            () -> future.onMessageAck(new ProcessResult(ErrorCode.SEND_WAIT_TIMEOUT)));
-                } catch (Throwable ex) {
-                    if (callbackExceptCnt.shouldPrint()) {
-                        logger.info("ClientMgr({}) msg timeout, callback exception!",
-                                senderId, ex);
+            try {
+                long curTime = System.currentTimeMillis();
+                for (Map.Entry<String, TcpInFlightRing> entry : channelRings.entrySet()) {
+                    TcpInFlightRing inflightRing = entry.getValue();
+                    inflightRing.sweepTimeouts(curTime, tcpConfig.getRequestTimeoutMs(),
+                            callFuture -> notifyInflightMsgFailure(inflightRing,
+                                    callFuture, ErrorCode.SEND_WAIT_TIMEOUT, "timeout"));
+                    // clean the idle ring of the closed channel
+                    if (inflightRing.getInflightCnt() <= 0
+                            && !inflightRing.getChannel().isActive()) {
+                        channelRings.remove(entry.getKey(), inflightRing);
                     }
-                } finally {
-                    nettyTcpClient.decInFlightMsgCnt(future.getChanTerm());
-                    releaseAsyncCachedPermits(future);
-                    baseSender.getMetricHolder().addCallbackFailMetric(
-                            ErrorCode.SEND_WAIT_TIMEOUT.getErrCode(),
-                            future.getGroupId(), future.getStreamId(),
-                            future.getMsgCnt(), (System.currentTimeMillis() - curTime));
                 }
-                return;
-            }
-            // find and process in deleting clients
-            nettyTcpClient = deletingClientMaps.get(future.getClientAddr());
-            if (nettyTcpClient != null
-                    && nettyTcpClient.getChanTermId() == future.getChanTerm()) {
-                messageIdMap = channelMsgIdMap.get(future.getChanStr());
-                if (messageIdMap != null) {
-                    messageIdMap.remove(messageId);
+            } catch (Throwable ex) {
+                if (exptCounter.shouldPrint()) {
+                    logger.warn("ClientMgr({}) sweep in-flight requests throw exception", senderId, ex);
                 }
-                try {
-                    nettyTcpClient.getChannel().eventLoop().execute(
-                            () -> future.onMessageAck(new ProcessResult(ErrorCode.SEND_WAIT_TIMEOUT)));
-                } catch (Throwable ex) {
-                    if (callbackExceptCnt.shouldPrint()) {
-                        logger.info("ClientMgr({}) msg timeout, callback2 exception!",
-                                senderId, ex);
-                    }
-                } finally {
-                    nettyTcpClient.decInFlightMsgCnt(future.getChanTerm());
-                    releaseAsyncCachedPermits(future);
-                    baseSender.getMetricHolder().addCallbackFailMetric(ErrorCode.SEND_WAIT_TIMEOUT.getErrCode(),
-                            future.getGroupId(), future.getStreamId(), future.getMsgCnt(),
-                            (System.currentTimeMillis() - curTime));
+            } finally {
+                if (started.get()) {
+                    timerObj.newTimeout(this, sweepIntervalMs, TimeUnit.MILLISECONDS);
                 }
             }
         }
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.network.tcp;
+
+import org.apache.inlong.common.msg.MsgType;
+import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.common.SdkConsts;
+import org.apache.inlong.sdk.dataproxy.network.tcp.codec.EncodeObject;
+import org.apache.inlong.sdk.dataproxy.sender.MsgSendCallback;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the in-flight request tracking of the TCP send and ack cycle,
+ * compare the shared request maps with a wheel timer per request against
+ * the per-channel {@link TcpInFlightRing}. It is kept in this package because
+ * the ring is package-private.
+ */
+public class TcpInFlightBenchmark {
+
+    private static final MsgSendCallback callback = new MsgSendCallback() {
+
+        @Override
+        public void onMessageAck(ProcessResult result) {
+        }
+
+        @Override
+        public void onException(Throwable ex) {
+        }
+    };
+    private final int channelCount;
+    private final int inflightCnt;
+    private final int requestCount;
+    private final int roundCount;
+    // the request maps tracked before the in-flight rings
+    private final ConcurrentHashMap<Integer, TcpCallFuture> reqObjects = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Timeout> reqTimeouts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Integer, Boolean>> channelMsgIdMap =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Initial an in-flight tracking benchmark
+     *
+     * @param channelCount  the channel count, each channel is driven by one thread
+     * @param inflightCnt   the in-flight requests kept by each channel
+     * @param requestCount  the requests sent and acked by each channel in a round
+     * @param roundCount    the measured rounds, the first round is the warm up
+     */
+    public TcpInFlightBenchmark(int channelCount, int inflightCnt,
+            int requestCount, int roundCount) {
+        this.channelCount = channelCount;
+        this.inflightCnt = inflightCnt;
+        this.requestCount = requestCount;
+        this.roundCount = roundCount;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new TcpInFlightBenchmark(4, 1000, 1000000, 5).start();
+    }
+
+    /**
+     * Start benchmark test
+     *
+     * @throws Exception the exception
+     */
+    public void start() throws Exception {
+        TcpCallFuture[][] futures = new TcpCallFuture[channelCount][];
+        TcpInFlightRing[] rings = new TcpInFlightRing[channelCount];
+        for (int chan = 0; chan < channelCount; chan++) {
+            rings[chan] = new TcpInFlightRing(null, null, "chan" + chan, 1L,
+                    SdkConsts.MAX_INFLIGHT_MSG_COUNT_PER_CONNECTION);
+            // the futures are built up front, only the tracking cost is measured
+            futures[chan] = new TcpCallFuture[rings[chan].getCapacity()];
+            for (int i = 0; i < futures[chan].length; i++) {
+                futures[chan][i] = buildFuture(rings[chan].getNextMsgId(), "chan" + chan);
+            }
+        }
+        HashedWheelTimer timer = new HashedWheelTimer();
+        try {
+            for (int round = 0; round <= roundCount; round++) {
+                long mapCost = runChannels(chan -> runByMaps(futures[chan], timer));
+                long ringCost = runChannels(chan -> runByRing(futures[chan], rings[chan]));
+                if (round == 0) {
+                    continue;
+                }
+                long totalCount = (long) channelCount * requestCount;
+                System.out.println(new StringBuilder(512)
+                        .append("round=").append(round)
+                        .append(", channels=").append(channelCount)
+                        .append(", inflight=").append(inflightCnt)
+                        .append(", maps+timer=").append(mapCost / totalCount)
+                        .append("ns/op, ring=").append(ringCost / totalCount)
+                        .append("ns/op").toString());
+            }
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private long runChannels(ChannelTask task) throws Exception {
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch finishLatch = new CountDownLatch(channelCount);
+        for (int chan = 0; chan < channelCount; chan++) {
+            final int chanIndex = chan;
+            new Thread(() -> {
+                try {
+                    startLatch.await();
+                    task.run(chanIndex);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finishLatch.countDown();
+                }
+            }).start();
+        }
+        long startTime = System.nanoTime();
+        startLatch.countDown();
+        finishLatch.await();
+        return System.nanoTime() - startTime;
+    }
+
+    private void runByMaps(TcpCallFuture[] chanFutures, HashedWheelTimer timer) {
+        String chanStr = chanFutures[0].getChanStr();
+        ConcurrentHashMap<Integer, Boolean> msgIdMap =
+                channelMsgIdMap.computeIfAbsent(chanStr, k -> new ConcurrentHashMap<>());
+        for (int i = 0; i < requestCount + inflightCnt; i++) {
+            if (i < requestCount) {
+                // send, register the request
+                TcpCallFuture future = chanFutures[i % chanFutures.length];
+                int msgId = future.getMessageId();
+                reqObjects.put(msgId, future);
+                msgIdMap.put(msgId, Boolean.TRUE);
+                reqTimeouts.put(msgId, timer.newTimeout(timeout -> {
+                }, 10000L, TimeUnit.MILLISECONDS));
+            }
+            if (i >= inflightCnt) {
+                // ack, remove the request sent inflightCnt requests before
+                int msgId = chanFutures[(i - inflightCnt) % chanFutures.length].getMessageId();
+                Timeout timeout = reqTimeouts.remove(msgId);
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+                reqObjects.remove(msgId);
+                msgIdMap.remove(msgId);
+            }
+        }
+    }
+
+    private void runByRing(TcpCallFuture[] chanFutures, TcpInFlightRing ring) {
+        for (int i = 0; i < requestCount + inflightCnt; i++) {
+            if (i < requestCount) {
+                ring.register(chanFutures[i % chanFutures.length]);
+            }
+            if (i >= inflightCnt) {
+                ring.remove(chanFutures[(i - inflightCnt) % chanFutures.length].getMessageId());
+            }
+        }
+    }
+
+    private TcpCallFuture buildFuture(int messageId, String chanStr) {
+        EncodeObject encObject = new EncodeObject("group", "stream",
+                MsgType.MSG_BIN_MULTI_BODY, System.currentTimeMillis(), 10);
+        encObject.setMessageIdInfo(messageId);
+        return new TcpCallFuture(encObject, "127.0.0.1:46801", 1L, chanStr, callback);
+    }
+
+    private interface ChannelTask {
+
+        void run(int chanIndex) throws InterruptedException;
+    }
+}
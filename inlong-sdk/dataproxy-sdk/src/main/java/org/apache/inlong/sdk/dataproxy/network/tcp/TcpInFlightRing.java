@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.network.tcp;
+
+import io.netty.channel.Channel;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * TCP In-flight Ring class
+ *
+ * Used to hold the in-flight requests of one channel in a fixed-capacity ring,
+ *  the message ids are allocated sequentially per channel, and the slot of a
+ *  request is indexed by its message id, so registering, acknowledging and
+ *  timing out a request need no map entry or timer object.
+ */
+public class TcpInFlightRing {
+
+    private static final SecureRandom sRandom = new SecureRandom(
+            Long.toString(System.nanoTime()).getBytes());
+    private static final int MAX_RING_CAPACITY = 1 << 20;
+
+    private final TcpNettyClient client;
+    private final Channel channel;
+    private final String chanStr;
+    private final long chanTerm;
+    private final int mask;
+    private final AtomicReferenceArray<TcpCallFuture> slots;
+    private final AtomicInteger msgIdGen = new AtomicInteger(sRandom.nextInt());
+    private final AtomicInteger inflightCnt = new AtomicInteger(0);
+
+    public TcpInFlightRing(TcpNettyClient client,
+            Channel channel, String chanStr, long chanTerm, int maxInflightCnt) {
+        this.client = client;
+        this.channel = channel;
+        this.chanStr = chanStr;
+        this.chanTerm = chanTerm;
+        int capacity = 1;
+        int required = Math.min(MAX_RING_CAPACITY, Math.max(2, maxInflightCnt) * 2);
+        while (capacity < required) {
+            capacity <<= 1;
+        }
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Allocate the next message id of the channel
+     *
+     * @return the message id
+     */
+    public int getNextMsgId() {
+        return msgIdGen.incrementAndGet();
+    }
+
+    /**
+     * Register the in-flight request in the slot of its message id
+     *
+     * @param future the request future
+     * @return false if the slot is still held by an older request
+     */
+    public boolean register(TcpCallFuture future) {
+        if (!slots.compareAndSet(future.getMessageId() & mask, null, future)) {
+            return false;
+        }
+        inflightCnt.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Remove the in-flight request by message id
+     *
+     * @param messageId the message id
+     * @return the removed request, or null if not found
+     */
+    public TcpCallFuture remove(int messageId) {
+        int index = messageId & mask;
+        TcpCallFuture future = slots.get(index);
+        if (future == null
+                || future.getMessageId() != messageId
+                || !slots.compareAndSet(index, future, null)) {
+            return null;
+        }
+        inflightCnt.decrementAndGet();
+        return future;
+    }
+
+    /**
+     * Sweep the ring and remove the asynchronous requests that have timed out,
+     *  the synchronous requests are timed out by their waiting callers
+     *
+     * @param curTime   the current time
+     * @param timeoutMs the request timeout in milliseconds
+     * @param consumer  the consumer of the removed requests
+     */
+    public void sweepTimeouts(long curTime, long timeoutMs, Consumer<TcpCallFuture> consumer) {
+        if (inflightCnt.get() <= 0) {
+            return;
+        }
+        TcpCallFuture future;
+        for (int index = 0; index <= mask; index++) {
+            future = slots.get(index);
+            if (future == null
+                    || !future.isAsyncCall()
+                    || curTime - future.getRtTime() < timeoutMs) {
+                continue;
+            }
+            if (slots.compareAndSet(index, future, null)) {
+                inflightCnt.decrementAndGet();
+                consumer.accept(future);
+            }
+        }
+    }
+
+    /**
+     * Remove all the in-flight requests
+     *
+     * @param consumer the consumer of the removed requests
+     */
+    public void drain(Consumer<TcpCallFuture> consumer) {
+        TcpCallFuture future;
+        for (int index = 0; index <= mask && inflightCnt.get() > 0; index++) {
+            future = slots.get(index);
+            if (future != null && slots.compareAndSet(index, future, null)) {
+                inflightCnt.decrementAndGet();
+                consumer.accept(future);
+            }
+        }
+    }
+
+    public TcpNettyClient getClient() {
+        return client;
+    }
+
+    public Channel getChannel() {
+        return channel;
+    }
+
+    public String getChanStr() {
+        return chanStr;
+    }
+
+    public long getChanTerm() {
+        return chanTerm;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public int getInflightCnt() {
+        return inflightCnt.get();
+    }
+}
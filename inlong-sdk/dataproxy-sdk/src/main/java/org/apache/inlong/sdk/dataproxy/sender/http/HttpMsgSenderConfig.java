@@ -60,6 +60,16 @@ public class HttpMsgSenderConfig extends ProxyClientConfig implements Cloneable
     private int httpAsyncRptWorkerNum = SdkConsts.VAL_DEF_HTTP_ASYNC_RPT_WORKER_NUM;
     // interval for async worker in microseconds.
     private int httpAsyncWorkerIdleWaitMs = SdkConsts.VAL_DEF_HTTP_ASYNC_WORKER_IDLE_WAIT_MS;
+    // whether report the asynchronous events over persistent pipelined connections
+    private boolean enableHttpPipeline = false;
+    // persistent connection count per proxy node in pipeline mode
+    private int httpPipelineConnsPerNode = SdkConsts.VAL_DEF_HTTP_PIPELINE_CONNS_PER_NODE;
+    // max in-flight request count per connection in pipeline mode
+    private int httpPipelineDepth = SdkConsts.VAL_DEF_HTTP_PIPELINE_DEPTH;
+    // max message count merged into one request in pipeline mode
+    private int httpBatchMaxMsgCnt = SdkConsts.VAL_DEF_HTTP_BATCH_MAX_MSG_CNT;
+    // max body bytes merged into one request in pipeline mode
+    private int httpBatchMaxBytes = SdkConsts.VAL_DEF_HTTP_BATCH_MAX_BYTES;
 
     public HttpMsgSenderConfig(boolean visitMgrByHttps,
             String managerIP, int managerPort, String groupId) throws ProxySdkException {
@@ -192,6 +202,52 @@ public class HttpMsgSenderConfig extends ProxyClientConfig implements Cloneable
                         Math.max(SdkConsts.VAL_MIN_HTTP_ASYNC_WORKER_IDLE_WAIT_MS, httpAsyncWorkerIdleWaitMs));
     }
 
+    public boolean isEnableHttpPipeline() {
+        return enableHttpPipeline;
+    }
+
+    public void setEnableHttpPipeline(boolean enableHttpPipeline) {
+        this.enableHttpPipeline = enableHttpPipeline;
+    }
+
+    public int getHttpPipelineConnsPerNode() {
+        return httpPipelineConnsPerNode;
+    }
+
+    public void setHttpPipelineConnsPerNode(int httpPipelineConnsPerNode) {
+        this.httpPipelineConnsPerNode =
+                Math.min(SdkConsts.VAL_MAX_HTTP_PIPELINE_CONNS_PER_NODE,
+                        Math.max(SdkConsts.VAL_MIN_HTTP_PIPELINE_CONNS_PER_NODE, httpPipelineConnsPerNode));
+    }
+
+    public int getHttpPipelineDepth() {
+        return httpPipelineDepth;
+    }
+
+    public void setHttpPipelineDepth(int httpPipelineDepth) {
+        this.httpPipelineDepth =
+                Math.min(SdkConsts.VAL_MAX_HTTP_PIPELINE_DEPTH,
+                        Math.max(SdkConsts.VAL_MIN_HTTP_PIPELINE_DEPTH, httpPipelineDepth));
+    }
+
+    public int getHttpBatchMaxMsgCnt() {
+        return httpBatchMaxMsgCnt;
+    }
+
+    public void setHttpBatchMaxMsgCnt(int httpBatchMaxMsgCnt) {
+        this.httpBatchMaxMsgCnt =
+                Math.max(SdkConsts.VAL_MIN_HTTP_BATCH_MAX_MSG_CNT, httpBatchMaxMsgCnt);
+    }
+
+    public int getHttpBatchMaxBytes() {
+        return httpBatchMaxBytes;
+    }
+
+    public void setHttpBatchMaxBytes(int httpBatchMaxBytes) {
+        this.httpBatchMaxBytes =
+                Math.max(SdkConsts.VAL_MIN_HTTP_BATCH_MAX_BYTES, httpBatchMaxBytes);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -210,6 +266,11 @@ public class HttpMsgSenderConfig extends ProxyClientConfig implements Cloneable
                 && httpNodeReuseWaitIfFailMs == that.httpNodeReuseWaitIfFailMs
                 && httpAsyncRptWorkerNum == that.httpAsyncRptWorkerNum
                 && httpAsyncWorkerIdleWaitMs == that.httpAsyncWorkerIdleWaitMs
+                && enableHttpPipeline == that.enableHttpPipeline
+                && httpPipelineConnsPerNode == that.httpPipelineConnsPerNode
+                && httpPipelineDepth == that.httpPipelineDepth
+                && httpBatchMaxMsgCnt == that.httpBatchMaxMsgCnt
+                && httpBatchMaxBytes == that.httpBatchMaxBytes
                 && httpContentType == that.httpContentType
                 && Objects.equals(httpEventsSeparator, that.httpEventsSeparator);
     }
@@ -219,7 +280,8 @@ public class HttpMsgSenderConfig extends ProxyClientConfig implements Cloneable
         return Objects.hash(super.hashCode(), rptDataByHttps, httpContentType,
                 httpEventsSeparator, sepEventByLF, httpConTimeoutMs, httpSocketTimeoutMs,
                 discardHttpCacheWhenClosing, httpCloseWaitPeriodMs, httpNodeReuseWaitIfFailMs,
-                httpAsyncRptWorkerNum, httpAsyncWorkerIdleWaitMs);
+                httpAsyncRptWorkerNum, httpAsyncWorkerIdleWaitMs, enableHttpPipeline,
+                httpPipelineConnsPerNode, httpPipelineDepth, httpBatchMaxMsgCnt, httpBatchMaxBytes);
     }
 
     @Override
@@ -249,7 +311,12 @@ public class HttpMsgSenderConfig extends ProxyClientConfig implements Cloneable
                         .append(", httpCloseWaitPeriodMs=").append(httpCloseWaitPeriodMs)
                         .append(", httpNodeReuseWaitIfFailMs=").append(httpNodeReuseWaitIfFailMs)
                         .append(", httpAsyncRptWorkerNum=").append(httpAsyncRptWorkerNum)
-                        .append(", httpAsyncWorkerIdleWaitMs=").append(httpAsyncWorkerIdleWaitMs);
+                        .append(", httpAsyncWorkerIdleWaitMs=").append(httpAsyncWorkerIdleWaitMs)
+                        .append(", enableHttpPipeline=").append(enableHttpPipeline)
+                        .append(", httpPipelineConnsPerNode=").append(httpPipelineConnsPerNode)
+                        .append(", httpPipelineDepth=").append(httpPipelineDepth)
+                        .append(", httpBatchMaxMsgCnt=").append(httpBatchMaxMsgCnt)
+                        .append(", httpBatchMaxBytes=").append(httpBatchMaxBytes);
         return super.getSetting(strBuff);
     }
 }
@@ -43,6 +43,7 @@ import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ThreadFactory;
 
@@ -56,6 +57,8 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
     protected static final LogCounter tcpExceptCnt = new LogCounter(10, 100000, 60 * 1000L);
     private final TcpMsgSenderConfig tcpConfig;
     private final TcpClientMgr tcpClientMgr;
+    private final TcpBatchAccumulator batchAccumulator;
+    private final TcpLocalSpool localSpool;
 
     public InLongTcpMsgSender(TcpMsgSenderConfig configure) {
         this(configure, null, null, null);
@@ -71,6 +74,43 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
         this.tcpConfig = (TcpMsgSenderConfig) baseConfig;
         this.clientMgr = new TcpClientMgr(this, this.tcpConfig, selfDefineFactory);
         this.tcpClientMgr = (TcpClientMgr) clientMgr;
+        if (this.tcpConfig.isEnableLingerBatch()) {
+            this.batchAccumulator = new TcpBatchAccumulator(this, this.tcpConfig);
+        } else {
+            this.batchAccumulator = null;
+        }
+        if (this.tcpConfig.isEnableLocalSpool()) {
+            this.localSpool = new TcpLocalSpool(this, this.tcpConfig);
+        } else {
+            this.localSpool = null;
+        }
+    }
+
+    @Override
+    public boolean start(ProcessResult procResult) {
+        if (!super.start(procResult)) {
+            return false;
+        }
+        if (batchAccumulator != null) {
+            batchAccumulator.start();
+        }
+        if (localSpool != null) {
+            localSpool.start();
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // send the lingering events before the connections are closed
+        if (batchAccumulator != null && this.isStarted()) {
+            batchAccumulator.close();
+        }
+        // stop replaying before the connections are closed
+        if (localSpool != null) {
+            localSpool.close();
+        }
+        super.close();
     }
 
     @Override
@@ -82,11 +122,16 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
         boolean gotPermits = false;
         long curTime = System.currentTimeMillis();
         try {
-            if (!tryAcquireCachePermits(eventInfo.getBodySize(), procResult)) {
-                return false;
+            if (spoolOnBacklog(SendQos.SOURCE_ACK, eventInfo, null, procResult)) {
+                return true;
             }
-            gotPermits = true;
-            return processEvent(SendQos.SOURCE_ACK, eventInfo, null, procResult);
+            if (tryAcquireCachePermits(eventInfo.getBodySize(), procResult)) {
+                gotPermits = true;
+                if (processEvent(SendQos.SOURCE_ACK, eventInfo, null, procResult)) {
+                    return true;
+                }
+            }
+            return spoolOnFailure(SendQos.SOURCE_ACK, eventInfo, null, procResult);
         } finally {
             if (gotPermits) {
                 releaseCachePermits(eventInfo.getBodySize());
@@ -109,14 +154,32 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
             return procResult.setFailResult(ErrorCode.SDK_CLOSED);
         }
         boolean gotPermits = false;
+        boolean spooled = false;
         try {
-            if (!tryAcquireCachePermits(eventInfo.getBodySize(), procResult)) {
-                return false;
+            if (spoolOnBacklog(SendQos.SOURCE_ACK, eventInfo, callback, procResult)) {
+                spooled = true;
+                return true;
             }
-            gotPermits = true;
-            return processEvent(SendQos.SOURCE_ACK, eventInfo, callback, procResult);
+            if (tryAcquireCachePermits(eventInfo.getBodySize(), procResult)) {
+                gotPermits = true;
+                if (batchAccumulator != null) {
+                    if (this.isMetaInfoUnReady()) {
+                        procResult.setFailResult(ErrorCode.NO_NODE_META_INFOS);
+                    } else {
+                        return batchAccumulator.append(SendQos.SOURCE_ACK, eventInfo, callback, procResult);
+                    }
+                } else if (processEvent(SendQos.SOURCE_ACK, eventInfo, callback, procResult)) {
+                    return true;
+                }
+            }
+            spooled = spoolOnFailure(SendQos.SOURCE_ACK, eventInfo, callback, procResult);
+            return spooled;
         } finally {
             if (procResult.isSuccess()) {
+                // the spooled event is not in flight, release its permits
+                if (spooled && gotPermits) {
+                    releaseCachePermits(eventInfo.getBodySize());
+                }
                 metricHolder.addAsyncSucReqMetric(
                         eventInfo.getGroupId(), eventInfo.getStreamId(), eventInfo.getMsgCnt());
             } else {
@@ -184,12 +247,20 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
         if (!this.isStarted()) {
             return procResult.setFailResult(ErrorCode.SDK_CLOSED);
         }
+        // the spool acks an event once it is stored locally, which is not a sink ack,
+        // so the events sent with sink ack are not spooled and keep their original failure
         boolean gotPermits = false;
         try {
             if (!tryAcquireCachePermits(eventInfo.getBodySize(), procResult)) {
                 return false;
             }
             gotPermits = true;
+            if (batchAccumulator != null) {
+                if (this.isMetaInfoUnReady()) {
+                    return procResult.setFailResult(ErrorCode.NO_NODE_META_INFOS);
+                }
+                return batchAccumulator.append(SendQos.SINK_ACK, eventInfo, callback, procResult);
+            }
             return processEvent(SendQos.SINK_ACK, eventInfo, callback, procResult);
         } finally {
             if (procResult.isSuccess()) {
@@ -215,23 +286,107 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
         return tcpClientMgr.getInflightMsgCnt();
     }
 
+    /**
+     * Send the events merged by the batch accumulator as one request
+     *
+     * @param sendQos    the send qos
+     * @param headEvent  the first merged event, supplies the ids, data time and attributes
+     * @param bodyList   the merged body list
+     * @param msgCnt     the merged message count
+     * @param bodySize   the merged body size
+     * @param callback   the callback of the merged request
+     * @param procResult the send result
+     * @return whether the request is accepted
+     */
+    boolean sendBatchEvent(SendQos sendQos, TcpEventInfo headEvent, List<byte[]> bodyList,
+            int msgCnt, int bodySize, MsgSendCallback callback, ProcessResult procResult) {
+        return processEvent(sendQos, headEvent, bodyList, msgCnt, bodySize, callback, procResult);
+    }
+
+    /**
+     * Resend the event read from the local spool
+     *
+     * @param sendQos    the send qos of the spooled event
+     * @param eventInfo  the spooled event
+     * @param callback   the callback of the resent request
+     * @param procResult the send result
+     * @return whether the request is accepted
+     */
+    boolean replaySpooledEvent(SendQos sendQos,
+            TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
+        if (!this.isStarted()) {
+            return procResult.setFailResult(ErrorCode.SDK_CLOSED);
+        }
+        if (!tryAcquireCachePermits(eventInfo.getBodySize(), procResult)) {
+            return false;
+        }
+        if (processEvent(sendQos, eventInfo, callback, procResult)) {
+            return true;
+        }
+        releaseCachePermits(eventInfo.getBodySize());
+        return false;
+    }
+
+    private boolean spoolOnBacklog(SendQos sendQos,
+            TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
+        // keep the order with the spooled events until the spool is drained
+        if (localSpool == null || !localSpool.isBacklogged()) {
+            return false;
+        }
+        return spoolEvent(sendQos, eventInfo, callback, procResult);
+    }
+
+    private boolean spoolOnFailure(SendQos sendQos,
+            TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
+        if (localSpool == null || !TcpLocalSpool.isSpoolableError(procResult.getErrCode())) {
+            return false;
+        }
+        return spoolEvent(sendQos, eventInfo, callback, procResult);
+    }
+
+    private boolean spoolEvent(SendQos sendQos,
+            TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
+        if (!localSpool.append(sendQos, eventInfo)) {
+            // keep the original failure
+            return false;
+        }
+        procResult.setSuccess();
+        // the spooled event is acknowledged once it is written to the spool
+        if (callback != null) {
+            try {
+                callback.onMessageAck(new ProcessResult(ErrorCode.OK));
+            } catch (Throwable ex) {
+                if (tcpExceptCnt.shouldPrint()) {
+                    logger.warn("Sender({}) spooled event callback throw exception", senderId, ex);
+                }
+            }
+        }
+        return true;
+    }
+
     private boolean processEvent(SendQos sendQos,
             TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
+        return processEvent(sendQos, eventInfo, eventInfo.getBodyList(),
+                eventInfo.getMsgCnt(), eventInfo.getBodySize(), callback, procResult);
+    }
+
+    private boolean processEvent(SendQos sendQos, TcpEventInfo eventInfo, List<byte[]> bodyList,
+            int msgCnt, int bodySize, MsgSendCallback callback, ProcessResult procResult) {
         if (this.isMetaInfoUnReady()) {
             return procResult.setFailResult(ErrorCode.NO_NODE_META_INFOS);
         }
         EncodeObject encObject =
                 new EncodeObject(eventInfo.getGroupId(), eventInfo.getStreamId(),
-                        tcpConfig.getSdkMsgType(), eventInfo.getDtMs(), eventInfo.getBodySize());
+                        tcpConfig.getSdkMsgType(), eventInfo.getDtMs(), bodySize);
         // pre-process attributes
-        processEventAttrsInfo(sendQos, eventInfo, encObject);
+        processEventAttrsInfo(sendQos, eventInfo, msgCnt, bodySize, encObject);
         // check package length
         if (!isValidPkgLength(encObject.getAttrDataLength(),
-                eventInfo.getBodySize(), this.getAllowedPkgLength(), procResult)) {
+                bodySize, this.getAllowedPkgLength(), procResult)) {
             return false;
         }
         // process body
-        if (!procEventBodyInfo(eventInfo, procResult, encObject)) {
+        if (!procEventBodyInfo(bodyList, msgCnt, procResult, encObject)) {
             return false;
         }
         // get client object
@@ -239,7 +394,6 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
             return false;
         }
         TcpNettyClient client = (TcpNettyClient) procResult.getRetData();
-        encObject.setMessageIdInfo(tcpClientMgr.getNextMsgId());
         try {
             return tcpClientMgr.reportEvent(sendQos, client, encObject, callback, procResult);
         } finally {
@@ -265,12 +419,12 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
         return true;
     }
 
-    private void processEventAttrsInfo(
-            SendQos sendQos, TcpEventInfo eventInfo, EncodeObject encodeObject) {
+    private void processEventAttrsInfo(SendQos sendQos,
+            TcpEventInfo eventInfo, int msgCnt, int bodySize, EncodeObject encodeObject) {
         // get msgType
         int intMsgType = encodeObject.getMsgType().getValue();
         boolean enableDataComp = tcpConfig.isEnableDataCompress()
-                && eventInfo.getBodySize() >= tcpConfig.getMinCompEnableLength();
+                && bodySize >= tcpConfig.getMinCompEnableLength();
         // add fixed attributes
         Map<String, String> newAttrs = new HashMap<>(eventInfo.getAttrs());
         newAttrs.put(AttributeConstants.MSG_RPT_TIME, String.valueOf(encodeObject.getRtms()));
@@ -287,7 +441,7 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
             newAttrs.put(AttributeConstants.GROUP_ID, eventInfo.getGroupId());
             newAttrs.put(AttributeConstants.STREAM_ID, eventInfo.getStreamId());
             newAttrs.put(AttributeConstants.DATA_TIME, String.valueOf(eventInfo.getDtMs()));
-            newAttrs.put(AttributeConstants.MESSAGE_COUNT, String.valueOf(eventInfo.getMsgCnt()));
+            newAttrs.put(AttributeConstants.MESSAGE_COUNT, String.valueOf(msgCnt));
             if (enableDataComp) {
                 newAttrs.put(AttributeConstants.COMPRESS_TYPE, "snappy");
             }
@@ -329,10 +483,11 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
         encodeObject.setAttrInfo(intMsgType, enableDataComp, aesKey, newAttrs);
     }
 
-    private boolean procEventBodyInfo(TcpEventInfo eventInfo, ProcessResult procResult, EncodeObject encObject) {
+    private boolean procEventBodyInfo(List<byte[]> bodyList,
+            int msgCnt, ProcessResult procResult, EncodeObject encObject) {
         // encode message body
         byte[] body = encBodyList(senderId, encObject.getMsgType(),
-                tcpConfig.isSeparateEventByLF(), eventInfo, procResult);
+                tcpConfig.isSeparateEventByLF(), bodyList, procResult);
         if (body == null) {
             return false;
         }
@@ -350,24 +505,24 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
                 return false;
             }
         }
-        encObject.setBodyData(eventInfo.getMsgCnt(), body);
+        encObject.setBodyData(msgCnt, body);
         return true;
     }
 
     private byte[] encBodyList(String senderId,
-            MsgType msgType, boolean sepByLF, TcpEventInfo eventInfo, ProcessResult procResult) {
+            MsgType msgType, boolean sepByLF, List<byte[]> bodyList, ProcessResult procResult) {
         try {
             int totalCnt = 0;
             ByteArrayOutputStream bodyOut = new ByteArrayOutputStream();
             if (msgType == MsgType.MSG_ACK_SERVICE) {
-                for (byte[] entry : eventInfo.getBodyList()) {
+                for (byte[] entry : bodyList) {
                     if (totalCnt++ > 0) {
                         bodyOut.write(AttributeConstants.LINE_FEED_SEP.getBytes(StandardCharsets.UTF_8));
                     }
                     bodyOut.write(entry);
                 }
             } else if (msgType == MsgType.MSG_MULTI_BODY) {
-                for (byte[] entry : eventInfo.getBodyList()) {
+                for (byte[] entry : bodyList) {
                     ByteBuffer byteBuffer = ByteBuffer.allocate(4);
                     byteBuffer.putInt(entry.length);
                     bodyOut.write(byteBuffer.array());
@@ -376,7 +531,7 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
             } else {
                 if (sepByLF) {
                     ByteArrayOutputStream data = new ByteArrayOutputStream();
-                    for (byte[] entry : eventInfo.getBodyList()) {
+                    for (byte[] entry : bodyList) {
                         if (totalCnt++ > 0) {
                             data.write(AttributeConstants.LINE_FEED_SEP.getBytes(StandardCharsets.UTF_8));
                         }
@@ -387,7 +542,7 @@ public class InLongTcpMsgSender extends BaseSender implements TcpMsgSender {
                     bodyOut.write(dataBuffer.array());
                     bodyOut.write(data.toByteArray());
                 } else {
-                    for (byte[] entry : eventInfo.getBodyList()) {
+                    for (byte[] entry : bodyList) {
                         ByteBuffer dataBuffer = ByteBuffer.allocate(4);
                         dataBuffer.putInt(entry.length);
                         bodyOut.write(dataBuffer.array());
@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.sender.tcp;
+
+import org.apache.inlong.sdk.dataproxy.common.ErrorCode;
+import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.common.SdkConsts;
+import org.apache.inlong.sdk.dataproxy.network.tcp.SendQos;
+import org.apache.inlong.sdk.dataproxy.sender.MsgSendCallback;
+import org.apache.inlong.sdk.dataproxy.utils.LogCounter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TCP Batch Accumulator class
+ *
+ * Used to linger the asynchronously reported events, and merge the events with the same
+ *  send qos, groupId, streamId, data time and attributes into one request. The request is
+ *  sent when the linger time expires or the max bytes or max count of the batch is reached,
+ *  and the callbacks of the merged events are invoked when the request is acknowledged.
+ */
+class TcpBatchAccumulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TcpBatchAccumulator.class);
+    private static final LogCounter batchExceptCnt = new LogCounter(10, 100000, 60 * 1000L);
+
+    private final InLongTcpMsgSender sender;
+    private final long lingerMs;
+    private final int maxBytes;
+    private final int maxCount;
+    private final ConcurrentHashMap<String, EventBatch> batches = new ConcurrentHashMap<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final Thread flushThread;
+    private volatile boolean shutdown = false;
+    // flushed statistics
+    private final LongAdder flushedBatchCnt = new LongAdder();
+    private final LongAdder flushedEventCnt = new LongAdder();
+
+    public TcpBatchAccumulator(InLongTcpMsgSender sender, TcpMsgSenderConfig tcpConfig) {
+        this.sender = sender;
+        this.lingerMs = tcpConfig.getLingerBatchMs();
+        this.maxBytes = tcpConfig.getLingerBatchMaxBytes();
+        this.maxCount = tcpConfig.getLingerBatchMaxCount();
+        this.flushThread = new Thread(this::flushLoop, "BatchAccumulator-" + sender.getSenderId());
+        this.flushThread.setDaemon(true);
+    }
+
+    public void start() {
+        if (started.compareAndSet(false, true)) {
+            flushThread.start();
+        }
+    }
+
+    public void close() {
+        shutdown = true;
+        flushThread.interrupt();
+        try {
+            flushThread.join(lingerMs + 1000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushBatches(true);
+    }
+
+    /**
+     * Append the event to the batch of its send qos, groupId and streamId
+     *
+     * @param sendQos    the send qos
+     * @param eventInfo  the event information need to send
+     * @param callback   the callback of the event
+     * @param procResult the append result
+     * @return whether the event is accepted
+     */
+    public boolean append(SendQos sendQos,
+            TcpEventInfo eventInfo, MsgSendCallback callback, ProcessResult procResult) {
+        if (shutdown) {
+            return procResult.setFailResult(ErrorCode.SDK_CLOSED);
+        }
+        String batchKey = sendQos.ordinal() + ":" + eventInfo.getGroupId() + ":" + eventInfo.getStreamId();
+        boolean appended = false;
+        EventBatch readyBatch;
+        do {
+            readyBatch = null;
+            EventBatch batch = batches.computeIfAbsent(batchKey, k -> new EventBatch(sendQos));
+            synchronized (batch) {
+                if (batch.closed) {
+                    continue;
+                }
+                if (batch.canAppend(eventInfo, getBatchMaxBytes(eventInfo), maxCount)) {
+                    batch.append(eventInfo, callback);
+                    appended = true;
+                    if (batch.bodySize >= getBatchMaxBytes(eventInfo) || batch.msgCnt >= maxCount) {
+                        batch.closed = true;
+                        readyBatch = batch;
+                    }
+                } else {
+                    batch.closed = true;
+                    readyBatch = batch;
+                }
+                if (readyBatch != null) {
+                    batches.remove(batchKey, readyBatch);
+                }
+            }
+            if (readyBatch != null) {
+                flushBatch(readyBatch);
+            }
+        } while (!appended);
+        // flush the left events if closed during appending
+        if (shutdown) {
+            flushBatches(true);
+        }
+        return procResult.setSuccess();
+    }
+
+    public int getPendingBatchCnt() {
+        return batches.size();
+    }
+
+    public long getFlushedBatchCnt() {
+        return flushedBatchCnt.sum();
+    }
+
+    public long getFlushedEventCnt() {
+        return flushedEventCnt.sum();
+    }
+
+    private int getBatchMaxBytes(TcpEventInfo eventInfo) {
+        int allowedLen = sender.getAllowedPkgLength();
+        if (allowedLen < 0) {
+            return maxBytes;
+        }
+        // reserve space for the attributes of the merged request
+        int attrLen = SdkConsts.RESERVED_ATTRIBUTE_LENGTH;
+        for (Map.Entry<String, String> entry : eventInfo.getAttrs().entrySet()) {
+            attrLen += entry.getKey().length() + entry.getValue().length() + 2;
+        }
+        return Math.max(1, Math.min(maxBytes,
+                allowedLen - SdkConsts.RESERVED_ATTRIBUTE_LENGTH - attrLen));
+    }
+
+    private void flushLoop() {
+        long tickMs = Math.max(1L, lingerMs / 2);
+        while (!shutdown) {
+            try {
+                Thread.sleep(tickMs);
+            } catch (InterruptedException e) {
+                break;
+            }
+            try {
+                flushBatches(false);
+            } catch (Throwable ex) {
+                if (batchExceptCnt.shouldPrint()) {
+                    logger.warn("Sender({}) flush batches throw exception", sender.getSenderId(), ex);
+                }
+            }
+        }
+    }
+
+    private void flushBatches(boolean force) {
+        long curTime = System.currentTimeMillis();
+        for (Map.Entry<String, EventBatch> entry : batches.entrySet()) {
+            EventBatch batch = entry.getValue();
+            synchronized (batch) {
+                if (batch.closed
+                        || (!force && curTime - batch.createTime < lingerMs)) {
+                    continue;
+                }
+                batch.closed = true;
+                batches.remove(entry.getKey(), batch);
+            }
+            flushBatch(batch);
+        }
+    }
+
+    private void flushBatch(EventBatch batch) {
+        if (batch.msgCnt == 0) {
+            return;
+        }
+        flushedBatchCnt.increment();
+        flushedEventCnt.add(batch.callbacks.size());
+        ProcessResult procResult = new ProcessResult();
+        try {
+            if (sender.sendBatchEvent(batch.sendQos, batch.headEvent,
+                    batch.bodyList, batch.msgCnt, batch.bodySize, batch, procResult)) {
+                return;
+            }
+        } catch (Throwable ex) {
+            procResult.setFailResult(ErrorCode.UNKNOWN_ERROR, ex.getMessage());
+            if (batchExceptCnt.shouldPrint()) {
+                logger.warn("Sender({}) send batch throw exception", sender.getSenderId(), ex);
+            }
+        }
+        // the batch is not accepted, notify each event
+        sender.releaseCachePermits(batch.bodySize);
+        sender.getMetricHolder().addCallbackFailMetric(procResult.getErrCode(),
+                batch.headEvent.getGroupId(), batch.headEvent.getStreamId(),
+                batch.msgCnt, System.currentTimeMillis() - batch.createTime);
+        batch.onMessageAck(procResult);
+    }
+
+    /**
+     * The events merged into one request, the request's callback
+     *  fans the result out to the callbacks of the merged events
+     */
+    private static class EventBatch implements MsgSendCallback {
+
+        private final SendQos sendQos;
+        private final long createTime = System.currentTimeMillis();
+        private final List<byte[]> bodyList = new ArrayList<>();
+        private final List<MsgSendCallback> callbacks = new ArrayList<>();
+        private TcpEventInfo headEvent = null;
+        private int msgCnt = 0;
+        private int bodySize = 0;
+        private boolean closed = false;
+
+        EventBatch(SendQos sendQos) {
+            this.sendQos = sendQos;
+        }
+
+        boolean canAppend(TcpEventInfo eventInfo, int batchMaxBytes, int batchMaxCount) {
+            if (headEvent == null) {
+                return true;
+            }
+            return bodySize + eventInfo.getBodySize() <= batchMaxBytes
+                    && msgCnt + eventInfo.getMsgCnt() <= batchMaxCount
+                    && headEvent.getDtMs() == eventInfo.getDtMs()
+                    && headEvent.getAttrs().equals(eventInfo.getAttrs());
+        }
+
+        void append(TcpEventInfo eventInfo, MsgSendCallback callback) {
+            if (headEvent == null) {
+                headEvent = eventInfo;
+            }
+            bodyList.addAll(eventInfo.getBodyList());
+            msgCnt += eventInfo.getMsgCnt();
+            bodySize += eventInfo.getBodySize();
+            callbacks.add(callback);
+        }
+
+        @Override
+        public void onMessageAck(ProcessResult result) {
+            for (MsgSendCallback callback : callbacks) {
+                try {
+                    callback.onMessageAck(result);
+                } catch (Throwable ex) {
+                    if (batchExceptCnt.shouldPrint()) {
+                        logger.warn("Batch event callback onMessageAck throw exception", ex);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void onException(Throwable ex) {
+            for (MsgSendCallback callback : callbacks) {
+                try {
+                    callback.onException(ex);
+                } catch (Throwable ex2) {
+                    if (batchExceptCnt.shouldPrint()) {
+                        logger.warn("Batch event callback onException throw exception", ex2);
+                    }
+                }
+            }
+        }
+    }
+}
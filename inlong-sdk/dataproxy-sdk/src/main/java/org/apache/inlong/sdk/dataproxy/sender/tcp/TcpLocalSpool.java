@@ -0,0 +1,460 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.sender.tcp;
+
+import org.apache.inlong.common.msg.AttributeConstants;
+import org.apache.inlong.sdk.commons.utils.SegmentedFileLog;
+import org.apache.inlong.sdk.dataproxy.common.ErrorCode;
+import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.common.SdkConsts;
+import org.apache.inlong.sdk.dataproxy.exception.ProxyEventException;
+import org.apache.inlong.sdk.dataproxy.network.tcp.SendQos;
+import org.apache.inlong.sdk.dataproxy.sender.MsgSendCallback;
+import org.apache.inlong.sdk.dataproxy.utils.LogCounter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TCP Local Spool class
+ *
+ * Used to append the events that can not be delivered because no proxy node is available
+ *  or the in-flight quota is exhausted to a local segmented file log, and resend them in
+ *  the appended order in the background once the proxy nodes recover. While the spool is
+ *  not drained, the new events are appended to it too, so that they are not sent ahead of
+ *  the spooled ones. The disk size of the spool is bounded, the events are rejected
+ *  with their original failure once the budget is exhausted.
+ * The spooled events are kept until they are acknowledged by DataProxy, so they may be
+ *  sent more than once if the sender restarts or an acknowledgement times out. When a
+ *  replayed event is not acknowledged, the events after it are not committed either and
+ *  are resent with it in the appended order.
+ */
+class TcpLocalSpool {
+
+    private static final Logger logger = LoggerFactory.getLogger(TcpLocalSpool.class);
+    private static final LogCounter spoolExceptCnt = new LogCounter(10, 100000, 60 * 1000L);
+    // the version of the spooled record format, version 2 adds the send qos
+    private static final byte RECORD_VERSION_V1 = 1;
+    private static final byte RECORD_VERSION = 2;
+    // the name of spool files
+    static final String SPOOL_LOG_NAME = "spool";
+
+    private final InLongTcpMsgSender sender;
+    private final SegmentedFileLog spoolLog;
+    private final long replayIntvlMs;
+    private final long replayWaitMs;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final Thread replayThread;
+    private volatile boolean opened = false;
+    private volatile boolean shutdown = false;
+    private long lastCorruptedSize = 0L;
+    // the records from the first one not acknowledged for retryable failures, replayed again ahead of the others
+    private final List<SegmentedFileLog.LogRecord> retryRecords = new ArrayList<>();
+
+    public TcpLocalSpool(InLongTcpMsgSender sender, TcpMsgSenderConfig tcpConfig) {
+        this.sender = sender;
+        this.spoolLog = new SegmentedFileLog(new File(tcpConfig.getLocalSpoolDir()), SPOOL_LOG_NAME,
+                tcpConfig.getSpoolSegmentBytes(), tcpConfig.getSpoolMaxDiskBytes(), true);
+        this.replayIntvlMs = tcpConfig.getSpoolReplayIntvlMs();
+        // the timed out requests are notified by the sender, wait a little longer
+        this.replayWaitMs = tcpConfig.getRequestTimeoutMs() + 2 * SdkConsts.VAL_MAX_INFLIGHT_SWEEP_INTERVAL_MS;
+        this.replayThread = new Thread(this::replayLoop, "LocalSpool-" + sender.getSenderId());
+        this.replayThread.setDaemon(true);
+    }
+
+    /**
+     * Open the spool files and start the replay thread
+     *
+     * @return whether the spool is opened
+     */
+    public boolean start() {
+        if (!started.compareAndSet(false, true)) {
+            return opened;
+        }
+        try {
+            spoolLog.open();
+        } catch (Throwable ex) {
+            logger.error("Sender({}) open local spool failure, run without spool",
+                    sender.getSenderId(), ex);
+            return false;
+        }
+        sender.getMetricHolder().setSpoolFileSize(spoolLog.getFileSize());
+        opened = true;
+        replayThread.start();
+        return true;
+    }
+
+    public void close() {
+        if (!opened) {
+            return;
+        }
+        opened = false;
+        shutdown = true;
+        replayThread.interrupt();
+        try {
+            replayThread.join(replayIntvlMs + 1000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        spoolLog.close();
+        logger.info("Sender({}) local spool closed, left size = {}",
+                sender.getSenderId(), spoolLog.getUnreadSize());
+    }
+
+    /**
+     * Whether there are spooled events not acknowledged
+     *
+     * @return true if the spool is not drained
+     */
+    public boolean isBacklogged() {
+        return opened && !spoolLog.isDrained();
+    }
+
+    /**
+     * Append the event to the spool
+     *
+     * @param sendQos   the send qos of the event, used when the event is replayed
+     * @param eventInfo the event information need to spool
+     * @return false if the spool is unavailable or its disk budget is exhausted
+     */
+    public boolean append(SendQos sendQos, TcpEventInfo eventInfo) {
+        if (!opened) {
+            return false;
+        }
+        boolean result = false;
+        try {
+            result = spoolLog.append(encodeEvent(sendQos, eventInfo));
+            if (!result && spoolExceptCnt.shouldPrint()) {
+                logger.warn("Sender({}) local spool reach max disk size, size = {}",
+                        sender.getSenderId(), spoolLog.getFileSize());
+            }
+        } catch (Throwable ex) {
+            if (spoolExceptCnt.shouldPrint()) {
+                logger.warn("Sender({}) append local spool throw exception", sender.getSenderId(), ex);
+            }
+        }
+        sender.getMetricHolder().addSpoolAppendMetric(result, eventInfo.getMsgCnt(), eventInfo.getBodySize());
+        return result;
+    }
+
+    /**
+     * Whether the failure means the event can be spooled and sent later
+     *
+     * @param errCode the error code of the failure
+     * @return true if the failure is caused by unavailable nodes or exhausted quota
+     */
+    public static boolean isSpoolableError(int errCode) {
+        return errCode == ErrorCode.NO_NODE_META_INFOS.getErrCode()
+                || errCode == ErrorCode.EMPTY_ACTIVE_NODE_SET.getErrCode()
+                || errCode == ErrorCode.EMPTY_WRITABLE_NODE_SET.getErrCode()
+                || errCode == ErrorCode.NO_VALID_REMOTE_NODE.getErrCode()
+                || errCode == ErrorCode.INF_REQ_COUNT_REACH_FACTORY_LIMIT.getErrCode()
+                || errCode == ErrorCode.INF_REQ_SIZE_REACH_FACTORY_LIMIT.getErrCode()
+                || errCode == ErrorCode.INF_REQ_COUNT_REACH_SDK_LIMIT.getErrCode()
+                || errCode == ErrorCode.INF_REQ_SIZE_REACH_SDK_LIMIT.getErrCode()
+                || errCode == ErrorCode.INF_REQ_SLOTS_REACH_CONN_LIMIT.getErrCode()
+                || errCode == ErrorCode.CONNECTION_UNAVAILABLE.getErrCode()
+                || errCode == ErrorCode.CONNECTION_BREAK.getErrCode()
+                || errCode == ErrorCode.CONNECTION_UNWRITABLE.getErrCode();
+    }
+
+    /**
+     * Whether the failed replay should be retried
+     *
+     * @param errCode the error code of the failure
+     * @return true if the failure is spoolable or the acknowledgement timed out,
+     *  the other failures are rejected by DataProxy permanently
+     */
+    public static boolean isReplayRetryableError(int errCode) {
+        return isSpoolableError(errCode)
+                || errCode == ErrorCode.SEND_WAIT_TIMEOUT.getErrCode();
+    }
+
+    public long getFileSize() {
+        return spoolLog.getFileSize();
+    }
+
+    public long getUnreadSize() {
+        return spoolLog.getUnreadSize();
+    }
+
+    static byte[] encodeEvent(SendQos sendQos, TcpEventInfo eventInfo) throws IOException {
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream(eventInfo.getBodySize() + 256);
+        DataOutputStream out = new DataOutputStream(byteOut);
+        out.writeByte(RECORD_VERSION);
+        out.writeByte(sendQos.ordinal());
+        writeString(out, eventInfo.getGroupId());
+        writeString(out, eventInfo.getStreamId());
+        out.writeLong(eventInfo.getDtMs());
+        out.writeInt(eventInfo.getAttrs().size());
+        for (Map.Entry<String, String> entry : eventInfo.getAttrs().entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+        out.writeInt(eventInfo.getBodyList().size());
+        for (byte[] body : eventInfo.getBodyList()) {
+            out.writeInt(body.length);
+            out.write(body);
+        }
+        out.flush();
+        return byteOut.toByteArray();
+    }
+
+    static SpooledEvent decodeEvent(byte[] record) throws IOException, ProxyEventException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte version = in.readByte();
+        SendQos sendQos;
+        if (version == RECORD_VERSION) {
+            int qosIndex = in.readByte();
+            if (qosIndex < 0 || qosIndex >= SendQos.values().length) {
+                throw new IOException("Unsupported spool record send qos " + qosIndex);
+            }
+            sendQos = SendQos.values()[qosIndex];
+        } else if (version == RECORD_VERSION_V1) {
+            // the records of version 1 are spooled from the source ack sends only
+            sendQos = SendQos.SOURCE_ACK;
+        } else {
+            throw new IOException("Unsupported spool record version " + version);
+        }
+        String groupId = readString(in);
+        String streamId = readString(in);
+        long dtMs = in.readLong();
+        int attrCnt = in.readInt();
+        Map<String, String> attrs = new HashMap<>(Math.max(16, attrCnt * 2));
+        for (int i = 0; i < attrCnt; i++) {
+            attrs.put(readString(in), readString(in));
+        }
+        int bodyCnt = in.readInt();
+        List<byte[]> bodyList = new ArrayList<>(bodyCnt);
+        for (int i = 0; i < bodyCnt; i++) {
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            bodyList.add(body);
+        }
+        // the message uuid is a reserved attribute, restore it by the constructor
+        String msgUUID = attrs.remove(AttributeConstants.MSG_UUID);
+        return new SpooledEvent(sendQos, new TcpEventInfo(groupId, streamId, dtMs, msgUUID, attrs, bodyList));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void replayLoop() {
+        long lastFlushTime = System.currentTimeMillis();
+        while (!shutdown) {
+            boolean waitNext = true;
+            try {
+                if (!spoolLog.isDrained() && isReadyToReplay()) {
+                    waitNext = !replayWindow();
+                }
+                long corruptedSize = spoolLog.getCorruptedSize();
+                if (corruptedSize > lastCorruptedSize) {
+                    // the records failed the crc check are skipped by the spool log
+                    lastCorruptedSize = corruptedSize;
+                    sender.getMetricHolder().addSpoolCorruptMetric();
+                }
+                if (System.currentTimeMillis() - lastFlushTime >= replayIntvlMs) {
+                    spoolLog.checkpoint(true);
+                    sender.getMetricHolder().setSpoolFileSize(spoolLog.getFileSize());
+                    lastFlushTime = System.currentTimeMillis();
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (Throwable ex) {
+                if (spoolExceptCnt.shouldPrint()) {
+                    logger.warn("Sender({}) replay local spool throw exception", sender.getSenderId(), ex);
+                }
+            }
+            if (waitNext) {
+                try {
+                    Thread.sleep(replayIntvlMs);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private boolean isReadyToReplay() {
+        return sender.isStarted()
+                && !sender.isMetaInfoUnReady()
+                && sender.getActiveNodeCnt() > 0;
+    }
+
+    /**
+     * Resend a window of spooled records and wait for their acknowledgements,
+     *  the records are committed in order up to the first one not acknowledged,
+     *  which is replayed again in the next window together with all the records after it
+     *
+     * @return whether all the records in the window are acknowledged
+     */
+    private boolean replayWindow() throws IOException, InterruptedException {
+        List<SegmentedFileLog.LogRecord> records = new ArrayList<>(retryRecords);
+        retryRecords.clear();
+        while (records.size() < SdkConsts.VAL_DEF_TCP_SPOOL_REPLAY_WINDOW) {
+            SegmentedFileLog.LogRecord record = spoolLog.read();
+            if (record == null) {
+                break;
+            }
+            records.add(record);
+        }
+        if (records.isEmpty()) {
+            return true;
+        }
+        CountDownLatch latch = new CountDownLatch(records.size());
+        List<ReplayCallback> callbacks = new ArrayList<>(records.size());
+        for (SegmentedFileLog.LogRecord record : records) {
+            SpooledEvent spooledEvent;
+            try {
+                spooledEvent = decodeEvent(record.getPayload());
+            } catch (Throwable ex) {
+                // the record passed the crc check but can not be decoded, skip it
+                if (spoolExceptCnt.shouldPrint()) {
+                    logger.warn("Sender({}) decode spooled record at {} failure, skip it",
+                            sender.getSenderId(), record.getOffset(), ex);
+                }
+                sender.getMetricHolder().addSpoolCorruptMetric();
+                spoolLog.commitRead(record.getOffset());
+                latch.countDown();
+                continue;
+            }
+            ReplayCallback callback = new ReplayCallback(record, spooledEvent.getEventInfo().getMsgCnt(), latch);
+            callbacks.add(callback);
+            ProcessResult procResult = new ProcessResult();
+            if (!sender.replaySpooledEvent(spooledEvent.getSendQos(),
+                    spooledEvent.getEventInfo(), callback, procResult)) {
+                callback.onMessageAck(procResult);
+            }
+        }
+        latch.await(replayWaitMs, TimeUnit.MILLISECONDS);
+        boolean allAcked = true;
+        for (ReplayCallback callback : callbacks) {
+            if (!allAcked) {
+                // keep the order, do not commit past the record to be replayed again
+                retryRecords.add(callback.record);
+            } else if (!callback.finished) {
+                // not acknowledged in time, replay it again
+                sender.getMetricHolder().addSpoolReplayMetric(false, callback.msgCnt);
+                retryRecords.add(callback.record);
+                allAcked = false;
+            } else if (callback.acked) {
+                sender.getMetricHolder().addSpoolReplayMetric(true, callback.msgCnt);
+                spoolLog.commitRead(callback.record.getOffset());
+            } else if (isReplayRetryableError(callback.errCode)) {
+                sender.getMetricHolder().addSpoolReplayMetric(false, callback.msgCnt);
+                retryRecords.add(callback.record);
+                allAcked = false;
+            } else {
+                // rejected permanently, drop it so that it does not block the spool
+                if (spoolExceptCnt.shouldPrint()) {
+                    logger.warn("Sender({}) spooled record at {} rejected ({}), discard it",
+                            sender.getSenderId(), callback.record.getOffset(), callback.errCode);
+                }
+                sender.getMetricHolder().addSpoolDiscardMetric(callback.msgCnt);
+                spoolLog.commitRead(callback.record.getOffset());
+            }
+        }
+        spoolLog.checkpoint(false);
+        return allAcked;
+    }
+
+    /**
+     * The event decoded from a spooled record
+     */
+    static class SpooledEvent {
+
+        private final SendQos sendQos;
+        private final TcpEventInfo eventInfo;
+
+        SpooledEvent(SendQos sendQos, TcpEventInfo eventInfo) {
+            this.sendQos = sendQos;
+            this.eventInfo = eventInfo;
+        }
+
+        public SendQos getSendQos() {
+            return sendQos;
+        }
+
+        public TcpEventInfo getEventInfo() {
+            return eventInfo;
+        }
+    }
+
+    private class ReplayCallback implements MsgSendCallback {
+
+        private final SegmentedFileLog.LogRecord record;
+        private final int msgCnt;
+        private final CountDownLatch latch;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private volatile boolean acked = false;
+        private volatile int errCode = ErrorCode.OK.getErrCode();
+        // set after the result fields
+        private volatile boolean finished = false;
+
+        ReplayCallback(SegmentedFileLog.LogRecord record, int msgCnt, CountDownLatch latch) {
+            this.record = record;
+            this.msgCnt = msgCnt;
+            this.latch = latch;
+        }
+
+        @Override
+        public void onMessageAck(ProcessResult result) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            acked = result.isSuccess();
+            errCode = result.getErrCode();
+            finished = true;
+            latch.countDown();
+        }
+
+        @Override
+        public void onException(Throwable ex) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            errCode = ErrorCode.SEND_ON_EXCEPTION.getErrCode();
+            finished = true;
+            latch.countDown();
+        }
+    }
+}
@@ -24,6 +24,8 @@ import org.apache.inlong.sdk.dataproxy.common.SdkConsts;
 import org.apache.inlong.sdk.dataproxy.exception.ProxySdkException;
 import org.apache.inlong.sdk.dataproxy.utils.ProxyUtils;
 
+import org.apache.commons.lang3.StringUtils;
+
 import java.util.Objects;
 
 /**
@@ -68,6 +70,26 @@ public class TcpMsgSenderConfig extends ProxyClientConfig implements Cloneable {
     private int maxAllowedSyncMsgTimeoutCnt = SdkConsts.VAL_DEF_SYNC_MSG_TIMEOUT_CNT;
     // the synchronization message timeout check duration ms
     private long syncMsgTimeoutChkDurMs = SdkConsts.VAL_DEF_SYNC_TIMEOUT_CHK_DUR_MS;
+    // whether linger and batch the asynchronous reported events
+    private boolean enableLingerBatch = false;
+    // the max wait time of a linger batch in milliseconds
+    private long lingerBatchMs = SdkConsts.VAL_DEF_TCP_LINGER_BATCH_MS;
+    // the max body bytes of a linger batch
+    private int lingerBatchMaxBytes = SdkConsts.VAL_DEF_TCP_LINGER_BATCH_MAX_BYTES;
+    // the max event count of a linger batch
+    private int lingerBatchMaxCount = SdkConsts.VAL_DEF_TCP_LINGER_BATCH_MAX_COUNT;
+    // whether spool the source ack events to local disk when no proxy node is available
+    // or the in-flight quota is exhausted, the spooled events are acknowledged to the caller
+    // once written to the spool, and resent in the background after the nodes recover
+    private boolean enableLocalSpool = false;
+    // the directory of the local spool files
+    private String localSpoolDir = SdkConsts.VAL_DEF_TCP_LOCAL_SPOOL_DIR;
+    // the max size of a local spool segment file
+    private long spoolSegmentBytes = SdkConsts.VAL_DEF_TCP_SPOOL_SEGMENT_BYTES;
+    // the max disk size of the local spool
+    private long spoolMaxDiskBytes = SdkConsts.VAL_DEF_TCP_SPOOL_MAX_DISK_BYTES;
+    // the replay check interval of the local spool in milliseconds
+    private long spoolReplayIntvlMs = SdkConsts.VAL_DEF_TCP_SPOOL_REPLAY_INTVL_MS;
 
     public TcpMsgSenderConfig(boolean visitMgrByHttps,
             String managerIP, int managerPort, String groupId) throws ProxySdkException {
@@ -247,6 +269,87 @@ public class TcpMsgSenderConfig extends ProxyClientConfig implements Cloneable {
                 SdkConsts.VAL_MIN_SYNC_TIMEOUT_CHK_DUR_MS, syncMsgTimeoutChkDurMs);
     }
 
+    public boolean isEnableLingerBatch() {
+        return enableLingerBatch;
+    }
+
+    public void setEnableLingerBatch(boolean enableLingerBatch) {
+        this.enableLingerBatch = enableLingerBatch;
+    }
+
+    public long getLingerBatchMs() {
+        return lingerBatchMs;
+    }
+
+    public void setLingerBatchMs(long lingerBatchMs) {
+        this.lingerBatchMs = Math.min(SdkConsts.VAL_MAX_TCP_LINGER_BATCH_MS,
+                Math.max(SdkConsts.VAL_MIN_TCP_LINGER_BATCH_MS, lingerBatchMs));
+    }
+
+    public int getLingerBatchMaxBytes() {
+        return lingerBatchMaxBytes;
+    }
+
+    public void setLingerBatchMaxBytes(int lingerBatchMaxBytes) {
+        this.lingerBatchMaxBytes = Math.max(
+                SdkConsts.VAL_MIN_TCP_LINGER_BATCH_MAX_BYTES, lingerBatchMaxBytes);
+    }
+
+    public int getLingerBatchMaxCount() {
+        return lingerBatchMaxCount;
+    }
+
+    public void setLingerBatchMaxCount(int lingerBatchMaxCount) {
+        this.lingerBatchMaxCount = Math.max(
+                SdkConsts.VAL_MIN_TCP_LINGER_BATCH_MAX_COUNT, lingerBatchMaxCount);
+    }
+
+    public boolean isEnableLocalSpool() {
+        return enableLocalSpool;
+    }
+
+    public void setEnableLocalSpool(boolean enableLocalSpool) {
+        this.enableLocalSpool = enableLocalSpool;
+    }
+
+    public String getLocalSpoolDir() {
+        return localSpoolDir;
+    }
+
+    public void setLocalSpoolDir(String localSpoolDir) {
+        if (StringUtils.isBlank(localSpoolDir)) {
+            throw new IllegalArgumentException("localSpoolDir is Blank!");
+        }
+        this.localSpoolDir = localSpoolDir.trim();
+    }
+
+    public long getSpoolSegmentBytes() {
+        return spoolSegmentBytes;
+    }
+
+    public void setSpoolSegmentBytes(long spoolSegmentBytes) {
+        this.spoolSegmentBytes = Math.min(SdkConsts.VAL_MAX_TCP_SPOOL_SEGMENT_BYTES,
+                Math.max(SdkConsts.VAL_MIN_TCP_SPOOL_SEGMENT_BYTES, spoolSegmentBytes));
+    }
+
+    public long getSpoolMaxDiskBytes() {
+        return spoolMaxDiskBytes;
+    }
+
+    public void setSpoolMaxDiskBytes(long spoolMaxDiskBytes) {
+        this.spoolMaxDiskBytes = Math.max(
+                SdkConsts.VAL_MIN_TCP_SPOOL_MAX_DISK_BYTES, spoolMaxDiskBytes);
+    }
+
+    public long getSpoolReplayIntvlMs() {
+        return spoolReplayIntvlMs;
+    }
+
+    public void setSpoolReplayIntvlMs(long spoolReplayIntvlMs) {
+        this.spoolReplayIntvlMs = Math.min(SdkConsts.VAL_MAX_TCP_SPOOL_REPLAY_INTVL_MS,
+                Math.max(SdkConsts.VAL_MIN_TCP_SPOOL_REPLAY_INTVL_MS, spoolReplayIntvlMs));
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -272,6 +375,15 @@ public class TcpMsgSenderConfig extends ProxyClientConfig implements Cloneable {
                 && reconFailWaitMs == config.reconFailWaitMs
                 && maxAllowedSyncMsgTimeoutCnt == config.maxAllowedSyncMsgTimeoutCnt
                 && syncMsgTimeoutChkDurMs == config.syncMsgTimeoutChkDurMs
+                && enableLingerBatch == config.enableLingerBatch
+                && lingerBatchMs == config.lingerBatchMs
+                && lingerBatchMaxBytes == config.lingerBatchMaxBytes
+                && lingerBatchMaxCount == config.lingerBatchMaxCount
+                && enableLocalSpool == config.enableLocalSpool
+                && spoolSegmentBytes == config.spoolSegmentBytes
+                && spoolMaxDiskBytes == config.spoolMaxDiskBytes
+                && spoolReplayIntvlMs == config.spoolReplayIntvlMs
+                && Objects.equals(localSpoolDir, config.localSpoolDir)
                 && sdkMsgType == config.sdkMsgType;
     }
 
@@ -282,7 +394,9 @@ public class TcpMsgSenderConfig extends ProxyClientConfig implements Cloneable {
                 nettyWorkerThreadNum, rcvBufferSize, sendBufferSize, connectTimeoutMs,
                 requestTimeoutMs, conCloseWaitPeriodMs, maxMsgInFlightPerConn,
                 frozenReconnectWaitMs, busyReconnectWaitMs, reconFailWaitMs,
-                maxAllowedSyncMsgTimeoutCnt, syncMsgTimeoutChkDurMs);
+                maxAllowedSyncMsgTimeoutCnt, syncMsgTimeoutChkDurMs, enableLingerBatch,
+                lingerBatchMs, lingerBatchMaxBytes, lingerBatchMaxCount, enableLocalSpool,
+                localSpoolDir, spoolSegmentBytes, spoolMaxDiskBytes, spoolReplayIntvlMs);
     }
 
     @Override
@@ -318,7 +432,16 @@ public class TcpMsgSenderConfig extends ProxyClientConfig implements Cloneable {
                         .append(", busyReconnectWaitMs=").append(busyReconnectWaitMs)
                         .append(", reconFailWaitMs=").append(reconFailWaitMs)
                         .append(", maxAllowedSyncMsgTimeoutCnt=").append(maxAllowedSyncMsgTimeoutCnt)
-                        .append(", syncMsgTimeoutChkDurMs=").append(syncMsgTimeoutChkDurMs);
+                        .append(", syncMsgTimeoutChkDurMs=").append(syncMsgTimeoutChkDurMs)
+                        .append(", enableLingerBatch=").append(enableLingerBatch)
+                        .append(", lingerBatchMs=").append(lingerBatchMs)
+                        .append(", lingerBatchMaxBytes=").append(lingerBatchMaxBytes)
+                        .append(", lingerBatchMaxCount=").append(lingerBatchMaxCount)
+                        .append(", enableLocalSpool=").append(enableLocalSpool)
+                        .append(", localSpoolDir='").append(localSpoolDir)
+                        .append("', spoolSegmentBytes=").append(spoolSegmentBytes)
+                        .append(", spoolMaxDiskBytes=").append(spoolMaxDiskBytes)
+                        .append(", spoolReplayIntvlMs=").append(spoolReplayIntvlMs);
         return super.getSetting(strBuff);
     }
 }
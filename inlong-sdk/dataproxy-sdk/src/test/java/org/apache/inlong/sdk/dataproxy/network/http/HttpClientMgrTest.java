@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.network.http;
+
+import org.apache.inlong.sdk.dataproxy.common.ErrorCode;
+import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.common.SdkConsts;
+import org.apache.inlong.sdk.dataproxy.sender.MsgSendCallback;
+import org.apache.inlong.sdk.dataproxy.sender.http.HttpEventInfo;
+import org.apache.inlong.sdk.dataproxy.sender.http.HttpMsgSenderConfig;
+import org.apache.inlong.sdk.dataproxy.sender.http.InLongHttpMsgSender;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test for {@link HttpClientMgr}
+ */
+public class HttpClientMgrTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testPipelineBatchWaitTimeout() throws Exception {
+        // a port without listener, every connect fails
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        File metaDir = tempFolder.newFolder("meta");
+        File configFile = new File(metaDir.getAbsolutePath() + SdkConsts.META_STORE_SUB_DIR
+                + "test_group" + SdkConsts.LOCAL_DP_CONFIG_FILE_SUFFIX);
+        Assert.assertTrue(configFile.getParentFile().mkdirs());
+        Files.write(configFile.toPath(), ("{\"clusterId\":1,\"load\":0,\"isIntranet\":1,\"isSwitch\":0,"
+                + "\"nodeList\":[{\"id\":1,\"ip\":\"127.0.0.1\",\"port\":" + port + "}]}")
+                        .getBytes(StandardCharsets.UTF_8));
+        HttpMsgSenderConfig httpConfig = new HttpMsgSenderConfig("http://127.0.0.1:8083", "test_group");
+        httpConfig.setOnlyUseLocalProxyConfig(true);
+        httpConfig.setMetaStoreBasePath(metaDir.getAbsolutePath());
+        httpConfig.setEnableHttpPipeline(true);
+        httpConfig.setHttpSocketTimeoutMs(SdkConsts.VAL_MIN_SOCKET_TIMEOUT_MS);
+        InLongHttpMsgSender sender = new InLongHttpMsgSender(httpConfig);
+        try {
+            ProcessResult procResult = new ProcessResult();
+            Assert.assertTrue(procResult.toString(), sender.start(procResult));
+            CompletableFuture<ProcessResult> ackFuture = new CompletableFuture<>();
+            Assert.assertTrue(sender.asyncSendMessage(new HttpEventInfo("test_group", "test_stream",
+                    System.currentTimeMillis(), "body"), new MsgSendCallback() {
+
+                        @Override
+                        public void onMessageAck(ProcessResult result) {
+                            ackFuture.complete(result);
+                        }
+
+                        @Override
+                        public void onException(Throwable ex) {
+                            ackFuture.completeExceptionally(ex);
+                        }
+                    }, procResult));
+            // the queued batch is failed once it waits longer than the socket timeout
+            ProcessResult ackResult = ackFuture.get(30, TimeUnit.SECONDS);
+            Assert.assertEquals(ErrorCode.SEND_WAIT_TIMEOUT.getErrCode(), ackResult.getErrCode());
+            Assert.assertEquals(0, sender.getInflightMsgCnt());
+        } finally {
+            sender.close();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.network.http;
+
+import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.sender.MsgSendCallback;
+import org.apache.inlong.sdk.dataproxy.sender.http.HttpEventInfo;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Test for {@link HttpRptBatch}
+ */
+public class HttpRptBatchTest {
+
+    private static final MsgSendCallback callback = new MsgSendCallback() {
+
+        @Override
+        public void onMessageAck(ProcessResult result) {
+        }
+
+        @Override
+        public void onException(Throwable ex) {
+        }
+    };
+
+    @Test
+    public void testMergeSameStream() throws Exception {
+        HttpEventInfo event1 = new HttpEventInfo("groupId", "streamId", 1000L, "body1");
+        HttpEventInfo event2 = new HttpEventInfo("groupId", "streamId", 1000L,
+                Arrays.asList("body2", "body3"));
+        HttpRptBatch batch = new HttpRptBatch(event1);
+        Assert.assertTrue(batch.canAppend(event1, 10, 1024));
+        batch.append(new HttpAsyncObj(event1, callback));
+        Assert.assertTrue(batch.canAppend(event2, 10, 1024));
+        batch.append(new HttpAsyncObj(event2, callback));
+        Assert.assertEquals(2, batch.getAsyncObjs().size());
+        Assert.assertEquals(Arrays.asList("body1", "body2", "body3"), batch.getBodyList());
+        Assert.assertEquals(3, batch.getMsgCnt());
+        Assert.assertEquals(event1.getBodySize() + event2.getBodySize(), batch.getBodySize());
+        Assert.assertEquals(1000L, batch.getDtMs());
+    }
+
+    @Test
+    public void testRejectOverLimit() throws Exception {
+        HttpEventInfo event1 = new HttpEventInfo("groupId", "streamId", 1000L, "body1");
+        HttpEventInfo event2 = new HttpEventInfo("groupId", "streamId", 1000L, "body2");
+        HttpEventInfo event3 = new HttpEventInfo("groupId", "streamId2", 1000L, "body3");
+        HttpEventInfo event4 = new HttpEventInfo("groupId", "streamId", 2000L, "body4");
+        HttpRptBatch batch = new HttpRptBatch(event1);
+        batch.append(new HttpAsyncObj(event1, callback));
+        Assert.assertFalse(batch.canAppend(event3, 10, 1024));
+        // the events of different data time are not merged
+        Assert.assertFalse(batch.canAppend(event4, 10, 1024));
+        Assert.assertFalse(batch.canAppend(event2, 1, 1024));
+        Assert.assertFalse(batch.canAppend(event2, 10, event1.getBodySize()));
+        Assert.assertTrue(batch.canAppend(event2, 2, event1.getBodySize() + event2.getBodySize()));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.network.tcp;
+
+import org.apache.inlong.common.msg.MsgType;
+import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.network.tcp.codec.EncodeObject;
+import org.apache.inlong.sdk.dataproxy.sender.MsgSendCallback;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test for {@link TcpInFlightRing}
+ */
+public class TcpInFlightRingTest {
+
+    private static final MsgSendCallback callback = new MsgSendCallback() {
+
+        @Override
+        public void onMessageAck(ProcessResult result) {
+        }
+
+        @Override
+        public void onException(Throwable ex) {
+        }
+    };
+
+    @Test
+    public void testRegisterAndRemove() {
+        TcpInFlightRing inflightRing = new TcpInFlightRing(null, null, "chan", 1L, 4);
+        Assert.assertEquals(8, inflightRing.getCapacity());
+        TcpCallFuture future1 = buildFuture(inflightRing.getNextMsgId(), callback);
+        TcpCallFuture future2 = buildFuture(inflightRing.getNextMsgId(), null);
+        Assert.assertTrue(inflightRing.register(future1));
+        Assert.assertTrue(inflightRing.register(future2));
+        Assert.assertEquals(2, inflightRing.getInflightCnt());
+        // the slot is held until the older request is removed
+        TcpCallFuture future3 = buildFuture(future1.getMessageId() + inflightRing.getCapacity(), callback);
+        Assert.assertFalse(inflightRing.register(future3));
+        Assert.assertNull(inflightRing.remove(future3.getMessageId()));
+        Assert.assertSame(future1, inflightRing.remove(future1.getMessageId()));
+        Assert.assertNull(inflightRing.remove(future1.getMessageId()));
+        Assert.assertTrue(inflightRing.register(future3));
+        Assert.assertEquals(2, inflightRing.getInflightCnt());
+        // only the asynchronous requests are timed out by sweeping
+        List<TcpCallFuture> removed = new ArrayList<>();
+        inflightRing.sweepTimeouts(System.currentTimeMillis() + 60000L, 1000L, removed::add);
+        Assert.assertEquals(1, removed.size());
+        Assert.assertSame(future3, removed.get(0));
+        Assert.assertEquals(1, inflightRing.getInflightCnt());
+        // drain the left requests
+        removed.clear();
+        inflightRing.drain(removed::add);
+        Assert.assertEquals(1, removed.size());
+        Assert.assertSame(future2, removed.get(0));
+        Assert.assertEquals(0, inflightRing.getInflightCnt());
+    }
+
+    private TcpCallFuture buildFuture(int messageId, MsgSendCallback msgCallback) {
+        EncodeObject encObject = new EncodeObject("group", "stream",
+                MsgType.MSG_BIN_MULTI_BODY, System.currentTimeMillis(), 10);
+        encObject.setMessageIdInfo(messageId);
+        return new TcpCallFuture(encObject, "127.0.0.1:46801", 1L, "chan", msgCallback);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.sender.tcp;
+
+import org.apache.inlong.sdk.dataproxy.common.ErrorCode;
+import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.network.tcp.SendQos;
+import org.apache.inlong.sdk.dataproxy.sender.MsgSendCallback;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test for {@link TcpBatchAccumulator}
+ */
+public class TcpBatchAccumulatorTest {
+
+    @Test
+    public void testBatchAppendAndFlush() throws Exception {
+        TcpMsgSenderConfig tcpConfig = new TcpMsgSenderConfig(
+                "http://127.0.0.1:800", "test_group");
+        tcpConfig.setEnableLingerBatch(true);
+        tcpConfig.setLingerBatchMs(1000L);
+        tcpConfig.setLingerBatchMaxCount(3);
+        InLongTcpMsgSender sender = new InLongTcpMsgSender(tcpConfig);
+        TcpBatchAccumulator accumulator = new TcpBatchAccumulator(sender, tcpConfig);
+        List<ProcessResult> results = new ArrayList<>();
+        MsgSendCallback callback = new MsgSendCallback() {
+
+            @Override
+            public void onMessageAck(ProcessResult result) {
+                results.add(result);
+            }
+
+            @Override
+            public void onException(Throwable ex) {
+                Assert.fail();
+            }
+        };
+        ProcessResult procResult = new ProcessResult();
+        byte[] body = "test-body".getBytes(StandardCharsets.UTF_8);
+        long dtMs = 1700000000000L;
+        // the events are kept until the max count is reached
+        for (int i = 0; i < 2; i++) {
+            Assert.assertTrue(accumulator.append(SendQos.SOURCE_ACK,
+                    new TcpEventInfo("test_group", "test_stream", dtMs, null, body), callback, procResult));
+        }
+        Assert.assertEquals(1, accumulator.getPendingBatchCnt());
+        Assert.assertEquals(0, results.size());
+        // the batch is sent as one request, the result fans out to each event
+        Assert.assertTrue(accumulator.append(SendQos.SOURCE_ACK,
+                new TcpEventInfo("test_group", "test_stream", dtMs, null, body), callback, procResult));
+        Assert.assertEquals(0, accumulator.getPendingBatchCnt());
+        Assert.assertEquals(1, accumulator.getFlushedBatchCnt());
+        Assert.assertEquals(3, accumulator.getFlushedEventCnt());
+        Assert.assertEquals(3, results.size());
+        for (ProcessResult result : results) {
+            Assert.assertEquals(ErrorCode.NO_NODE_META_INFOS.getErrCode(), result.getErrCode());
+        }
+        // the events with different attributes are not merged
+        results.clear();
+        Map<String, String> attrs = new HashMap<>();
+        attrs.put("key", "value");
+        Assert.assertTrue(accumulator.append(SendQos.SOURCE_ACK,
+                new TcpEventInfo("test_group", "test_stream", dtMs, null, body), callback, procResult));
+        Assert.assertTrue(accumulator.append(SendQos.SOURCE_ACK,
+                new TcpEventInfo("test_group", "test_stream", dtMs, attrs, body), callback, procResult));
+        Assert.assertEquals(2, accumulator.getFlushedBatchCnt());
+        Assert.assertEquals(1, results.size());
+        // the events with different data time are not merged
+        Assert.assertTrue(accumulator.append(SendQos.SOURCE_ACK,
+                new TcpEventInfo("test_group", "test_stream", dtMs + 1000L, attrs, body), callback, procResult));
+        Assert.assertEquals(3, accumulator.getFlushedBatchCnt());
+        Assert.assertEquals(2, results.size());
+        // the lingering events are sent when closed
+        accumulator.close();
+        Assert.assertEquals(4, accumulator.getFlushedBatchCnt());
+        Assert.assertEquals(3, results.size());
+        Assert.assertFalse(accumulator.append(SendQos.SOURCE_ACK,
+                new TcpEventInfo("test_group", "test_stream", dtMs, null, body), callback, procResult));
+        Assert.assertEquals(ErrorCode.SDK_CLOSED.getErrCode(), procResult.getErrCode());
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.dataproxy.sender.tcp;
+
+import org.apache.inlong.common.msg.AttributeConstants;
+import org.apache.inlong.sdk.commons.utils.SegmentedFileLog;
+import org.apache.inlong.sdk.dataproxy.common.ErrorCode;
+import org.apache.inlong.sdk.dataproxy.common.ProcessResult;
+import org.apache.inlong.sdk.dataproxy.common.SdkConsts;
+import org.apache.inlong.sdk.dataproxy.network.tcp.SendQos;
+import org.apache.inlong.sdk.dataproxy.sender.MsgSendCallback;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Test for {@link TcpLocalSpool}
+ */
+public class TcpLocalSpoolTest {
+
+    @Test
+    public void testEncodeAndDecodeEvent() throws Exception {
+        Map<String, String> attrs = new HashMap<>();
+        attrs.put("key1", "value1");
+        List<byte[]> bodyList = new ArrayList<>();
+        bodyList.add("body-1".getBytes(StandardCharsets.UTF_8));
+        bodyList.add("body-2".getBytes(StandardCharsets.UTF_8));
+        TcpEventInfo eventInfo = new TcpEventInfo("test_group", "test_stream",
+                1700000000000L, 12L, "test-uuid", attrs, bodyList);
+        TcpLocalSpool.SpooledEvent spooledEvent =
+                TcpLocalSpool.decodeEvent(TcpLocalSpool.encodeEvent(SendQos.SINK_ACK, eventInfo));
+        Assert.assertEquals(SendQos.SINK_ACK, spooledEvent.getSendQos());
+        TcpEventInfo decoded = spooledEvent.getEventInfo();
+        Assert.assertEquals(eventInfo.getGroupId(), decoded.getGroupId());
+        Assert.assertEquals(eventInfo.getStreamId(), decoded.getStreamId());
+        Assert.assertEquals(eventInfo.getDtMs(), decoded.getDtMs());
+        Assert.assertEquals(eventInfo.getAttrs(), decoded.getAttrs());
+        Assert.assertEquals("test-uuid", decoded.getAttrs().get(AttributeConstants.MSG_UUID));
+        Assert.assertEquals(2, decoded.getMsgCnt());
+        Assert.assertEquals(eventInfo.getBodySize(), decoded.getBodySize());
+        Assert.assertEquals("body-2", new String(decoded.getBodyList().get(1), StandardCharsets.UTF_8));
+        // the records of version 1 have no send qos, they are replayed with source ack
+        byte[] record = TcpLocalSpool.encodeEvent(SendQos.SINK_ACK, eventInfo);
+        byte[] v1Record = new byte[record.length - 1];
+        v1Record[0] = 1;
+        System.arraycopy(record, 2, v1Record, 1, record.length - 2);
+        spooledEvent = TcpLocalSpool.decodeEvent(v1Record);
+        Assert.assertEquals(SendQos.SOURCE_ACK, spooledEvent.getSendQos());
+        Assert.assertEquals(eventInfo.getAttrs(), spooledEvent.getEventInfo().getAttrs());
+    }
+
+    @Test
+    public void testSpoolableError() {
+        Assert.assertTrue(TcpLocalSpool.isSpoolableError(ErrorCode.EMPTY_ACTIVE_NODE_SET.getErrCode()));
+        Assert.assertTrue(TcpLocalSpool.isSpoolableError(ErrorCode.INF_REQ_COUNT_REACH_SDK_LIMIT.getErrCode()));
+        Assert.assertFalse(TcpLocalSpool.isSpoolableError(ErrorCode.SEND_WAIT_TIMEOUT.getErrCode()));
+        Assert.assertFalse(TcpLocalSpool.isSpoolableError(ErrorCode.REPORT_INFO_EXCEED_MAX_LEN.getErrCode()));
+        // the replay is retried for the transient failures only
+        Assert.assertTrue(TcpLocalSpool.isReplayRetryableError(ErrorCode.SEND_WAIT_TIMEOUT.getErrCode()));
+        Assert.assertTrue(TcpLocalSpool.isReplayRetryableError(ErrorCode.CONNECTION_BREAK.getErrCode()));
+        Assert.assertFalse(TcpLocalSpool.isReplayRetryableError(ErrorCode.DP_INVALID_ATTRS.getErrCode()));
+        Assert.assertFalse(TcpLocalSpool.isReplayRetryableError(ErrorCode.SEND_ON_EXCEPTION.getErrCode()));
+    }
+
+    @Test
+    public void testSpoolKeptUntilReplayed() throws Exception {
+        File spoolDir = Files.createTempDirectory("tcp-spool").toFile();
+        TcpMsgSenderConfig tcpConfig = new TcpMsgSenderConfig(
+                "http://127.0.0.1:800", "test_group");
+        tcpConfig.setEnableLocalSpool(true);
+        tcpConfig.setLocalSpoolDir(spoolDir.getAbsolutePath());
+        InLongTcpMsgSender sender = new InLongTcpMsgSender(tcpConfig);
+        TcpLocalSpool localSpool = new TcpLocalSpool(sender, tcpConfig);
+        Assert.assertTrue(localSpool.start());
+        Assert.assertFalse(localSpool.isBacklogged());
+        // the directory can not be shared
+        Assert.assertFalse(new TcpLocalSpool(sender, tcpConfig).start());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(localSpool.append(SendQos.SOURCE_ACK, new TcpEventInfo("test_group", "test_stream",
+                    0L, null, ("body-" + i).getBytes(StandardCharsets.UTF_8))));
+        }
+        // the sender is not started, the events are kept in the spool
+        Assert.assertTrue(localSpool.isBacklogged());
+        localSpool.close();
+        Assert.assertFalse(localSpool.append(SendQos.SOURCE_ACK, new TcpEventInfo("test_group", "test_stream",
+                0L, null, "body-x".getBytes(StandardCharsets.UTF_8))));
+        // the events are recovered in the appended order
+        SegmentedFileLog spoolLog = new SegmentedFileLog(spoolDir, TcpLocalSpool.SPOOL_LOG_NAME,
+                tcpConfig.getSpoolSegmentBytes(), tcpConfig.getSpoolMaxDiskBytes(), true);
+        spoolLog.open();
+        for (int i = 0; i < 3; i++) {
+            SegmentedFileLog.LogRecord record = spoolLog.read();
+            Assert.assertNotNull(record);
+            TcpEventInfo eventInfo = TcpLocalSpool.decodeEvent(record.getPayload()).getEventInfo();
+            Assert.assertEquals("body-" + i, new String(eventInfo.getBodyList().get(0), StandardCharsets.UTF_8));
+            spoolLog.commitRead(record.getOffset());
+        }
+        Assert.assertNull(spoolLog.read());
+        Assert.assertTrue(spoolLog.isDrained());
+        spoolLog.close();
+    }
+
+    @Test
+    public void testReplayKeepsOrder() throws Exception {
+        File spoolDir = Files.createTempDirectory("tcp-spool").toFile();
+        TcpMsgSenderConfig tcpConfig = new TcpMsgSenderConfig(
+                "http://127.0.0.1:800", "test_group");
+        tcpConfig.setEnableLocalSpool(true);
+        tcpConfig.setLocalSpoolDir(spoolDir.getAbsolutePath());
+        tcpConfig.setSpoolReplayIntvlMs(SdkConsts.VAL_MIN_TCP_SPOOL_REPLAY_INTVL_MS);
+        InLongTcpMsgSender sender = Mockito.spy(new InLongTcpMsgSender(tcpConfig));
+        AtomicBoolean nodesReady = new AtomicBoolean(false);
+        Mockito.doAnswer(invocation -> nodesReady.get()).when(sender).isStarted();
+        Mockito.doReturn(false).when(sender).isMetaInfoUnReady();
+        Mockito.doReturn(1).when(sender).getActiveNodeCnt();
+        // the second event fails once with a retryable error, the others are acknowledged
+        List<String> replayed = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean failed = new AtomicBoolean(false);
+        Mockito.doAnswer(invocation -> {
+            TcpEventInfo eventInfo = invocation.getArgument(1);
+            MsgSendCallback callback = invocation.getArgument(2);
+            String body = new String(eventInfo.getBodyList().get(0), StandardCharsets.UTF_8);
+            replayed.add(body);
+            if ("body-1".equals(body) && failed.compareAndSet(false, true)) {
+                callback.onMessageAck(new ProcessResult(ErrorCode.CONNECTION_BREAK));
+            } else {
+                callback.onMessageAck(new ProcessResult(ErrorCode.OK));
+            }
+            return true;
+        }).when(sender).replaySpooledEvent(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+        TcpLocalSpool localSpool = new TcpLocalSpool(sender, tcpConfig);
+        Assert.assertTrue(localSpool.start());
+        try {
+            for (int i = 0; i < 3; i++) {
+                Assert.assertTrue(localSpool.append(SendQos.SOURCE_ACK, new TcpEventInfo("test_group",
+                        "test_stream", 0L, null, ("body-" + i).getBytes(StandardCharsets.UTF_8))));
+            }
+            nodesReady.set(true);
+            long deadline = System.currentTimeMillis() + 10000L;
+            while (localSpool.isBacklogged() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50L);
+            }
+            Assert.assertFalse(localSpool.isBacklogged());
+            // the event after the failed one is not committed, both are replayed again in order
+            Assert.assertEquals(Arrays.asList("body-0", "body-1", "body-2", "body-1", "body-2"), replayed);
+        } finally {
+            localSpool.close();
+        }
+    }
+}
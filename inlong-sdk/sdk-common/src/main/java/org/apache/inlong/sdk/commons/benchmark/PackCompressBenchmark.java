@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.commons.benchmark;
+
+import org.apache.inlong.sdk.commons.protocol.EventUtils;
+import org.apache.inlong.sdk.commons.protocol.ProxySdk.INLONG_COMPRESSED_TYPE;
+import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessagePack;
+import org.apache.inlong.sdk.commons.protocol.SdkEvent;
+import org.apache.inlong.sdk.commons.utils.ZstdUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark of the pack compression, compare the compressed ratio and the
+ * encode and decode cost of each compress type on the same log-like packs.
+ */
+public class PackCompressBenchmark {
+
+    private static final String GROUP_ID = "bench_group";
+    private static final String STREAM_ID = "bench_stream";
+    // the stream with a trained zstd dictionary
+    private static final String DICT_STREAM_ID = "bench_dict_stream";
+    private static final INLONG_COMPRESSED_TYPE[] COMPRESS_TYPES = {
+            INLONG_COMPRESSED_TYPE.INLONG_NO_COMPRESS,
+            INLONG_COMPRESSED_TYPE.INLONG_SNAPPY,
+            INLONG_COMPRESSED_TYPE.INLONG_LZ4,
+            INLONG_COMPRESSED_TYPE.INLONG_ZSTD,
+            INLONG_COMPRESSED_TYPE.INLONG_GZ};
+    private final int eventCnt;
+    private final int packCnt;
+    private final int roundCount;
+
+    /**
+     * Initial a pack compression benchmark
+     *
+     * @param eventCnt    the event count of each pack
+     * @param packCnt     the count of different packs
+     * @param roundCount  the encode and decode rounds of each test case
+     */
+    public PackCompressBenchmark(int eventCnt, int packCnt, int roundCount) {
+        this.eventCnt = eventCnt;
+        this.packCnt = packCnt;
+        this.roundCount = roundCount;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new PackCompressBenchmark(256, 16, 50).start();
+    }
+
+    /**
+     * Start benchmark test
+     *
+     * @throws Exception the exception
+     */
+    public void start() throws Exception {
+        List<List<SdkEvent>> packs = new ArrayList<>(packCnt);
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < packCnt; i++) {
+            List<SdkEvent> events = buildEvents(i);
+            packs.add(events);
+            for (SdkEvent event : events) {
+                samples.add(event.getBody());
+            }
+        }
+        ZstdUtils.registerDictionary(GROUP_ID, DICT_STREAM_ID,
+                ZstdUtils.trainDictionary(samples, 16 * 1024));
+        for (INLONG_COMPRESSED_TYPE compressType : COMPRESS_TYPES) {
+            runCase(compressType, STREAM_ID, packs);
+        }
+        runCase(INLONG_COMPRESSED_TYPE.INLONG_ZSTD, DICT_STREAM_ID, packs);
+    }
+
+    private void runCase(INLONG_COMPRESSED_TYPE compressType,
+            String streamId, List<List<SdkEvent>> packs) throws Exception {
+        // warm up
+        runRounds(compressType, streamId, packs, 2);
+        long srcLength = 0L;
+        long compressLen = 0L;
+        long encodeCost = 0L;
+        long decodeCost = 0L;
+        for (int round = 0; round < roundCount; round++) {
+            for (List<SdkEvent> events : packs) {
+                long startTime = System.nanoTime();
+                MessagePack pack = EventUtils.encodeSdkEvents(GROUP_ID, streamId, compressType, events);
+                long encodedTime = System.nanoTime();
+                EventUtils.decodeSdkPack(pack);
+                decodeCost += System.nanoTime() - encodedTime;
+                encodeCost += encodedTime - startTime;
+                srcLength += pack.getHeader().getSrcLength();
+                compressLen += pack.getHeader().getCompressLen();
+            }
+        }
+        long totalPackCnt = (long) packCnt * roundCount;
+        System.out.println(new StringBuilder(512)
+                .append("compress type=").append(compressType)
+                .append(DICT_STREAM_ID.equals(streamId) ? " (dictionary)" : "")
+                .append(", pack size=").append(srcLength / totalPackCnt)
+                .append(" bytes, ratio=").append(String.format("%.3f", (double) compressLen / srcLength))
+                .append(", encode=").append(encodeCost / 1000L / totalPackCnt)
+                .append(" us/pack, decode=").append(decodeCost / 1000L / totalPackCnt)
+                .append(" us/pack").toString());
+    }
+
+    private void runRounds(INLONG_COMPRESSED_TYPE compressType,
+            String streamId, List<List<SdkEvent>> packs, int rounds) throws Exception {
+        for (int round = 0; round < rounds; round++) {
+            for (List<SdkEvent> events : packs) {
+                EventUtils.decodeSdkPack(EventUtils.encodeSdkEvents(GROUP_ID, streamId, compressType, events));
+            }
+        }
+    }
+
+    private List<SdkEvent> buildEvents(int packIndex) {
+        List<SdkEvent> events = new ArrayList<>(eventCnt);
+        long msgTime = System.currentTimeMillis();
+        for (int i = 0; i < eventCnt; i++) {
+            int seq = packIndex * eventCnt + i;
+            String body = "ftime=20241018" + (seq % 24) + "&uid=" + (seq * 7919 % 100000)
+                    + "&action=" + (seq % 3 == 0 ? "click" : "view") + "&page=/home/item/" + (seq % 500)
+                    + "&os=" + (seq % 2 == 0 ? "android" : "ios") + "&net=wifi&ver=8.2." + (seq % 10)
+                    + "&cost=" + (seq * 31 % 1000) + "&trace=" + Long.toHexString(seq * 0x9E3779B97F4A7C15L);
+            SdkEvent event = new SdkEvent(GROUP_ID, STREAM_ID, body.getBytes(StandardCharsets.UTF_8));
+            event.setMsgTime(msgTime + i);
+            event.setSourceIp("127.0.0.1");
+            events.add(event);
+        }
+        return events;
+    }
+}
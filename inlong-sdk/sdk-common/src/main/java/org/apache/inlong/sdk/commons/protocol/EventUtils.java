@@ -24,6 +24,8 @@ import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessageObjs;
 import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessagePack;
 import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessagePackHeader;
 import org.apache.inlong.sdk.commons.utils.GzipUtils;
+import org.apache.inlong.sdk.commons.utils.Lz4Utils;
+import org.apache.inlong.sdk.commons.utils.ZstdUtils;
 
 import com.google.protobuf.ByteString;
 import org.xerial.snappy.Snappy;
@@ -68,6 +70,12 @@ public class EventUtils {
             case INLONG_GZ:
                 compressedBytes = GzipUtils.compress(srcBytes);
                 break;
+            case INLONG_ZSTD:
+                compressedBytes = ZstdUtils.compress(srcBytes, inlongGroupId, inlongStreamId);
+                break;
+            case INLONG_LZ4:
+                compressedBytes = Lz4Utils.compress(srcBytes);
+                break;
             case INLONG_NO_COMPRESS:
             default:
                 compressedBytes = srcBytes;
@@ -118,6 +126,12 @@ public class EventUtils {
             case INLONG_GZ:
                 srcBytes = GzipUtils.decompress(compressBytes);
                 break;
+            case INLONG_ZSTD:
+                srcBytes = ZstdUtils.decompress(compressBytes);
+                break;
+            case INLONG_LZ4:
+                srcBytes = Lz4Utils.decompress(compressBytes);
+                break;
             case INLONG_NO_COMPRESS:
             default:
                 srcBytes = compressBytes;
@@ -167,6 +181,12 @@ public class EventUtils {
             case INLONG_GZ:
                 compressBytes = GzipUtils.compress(srcBytes);
                 break;
+            case INLONG_ZSTD:
+                compressBytes = ZstdUtils.compress(srcBytes);
+                break;
+            case INLONG_LZ4:
+                compressBytes = Lz4Utils.compress(srcBytes);
+                break;
             case INLONG_NO_COMPRESS:
             default:
                 compressBytes = srcBytes;
@@ -196,6 +216,12 @@ public class EventUtils {
             case INLONG_GZ:
                 srcBytes = GzipUtils.decompress(msgBody);
                 break;
+            case INLONG_ZSTD:
+                srcBytes = ZstdUtils.decompress(msgBody);
+                break;
+            case INLONG_LZ4:
+                srcBytes = Lz4Utils.decompress(msgBody);
+                break;
             case INLONG_NO_COMPRESS:
             default:
                 srcBytes = msgBody;
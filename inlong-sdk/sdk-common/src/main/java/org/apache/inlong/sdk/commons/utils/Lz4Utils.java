@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.commons.utils;
+
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Lz4Utils, the data is compressed in the LZ4 frame format
+ */
+public class Lz4Utils {
+
+    /**
+     * compress
+     *
+     * @param  data
+     * @return      byte array
+     * @throws IOException
+     */
+    public static byte[] compress(byte[] data) throws IOException {
+        if (data == null || data.length == 0) {
+            return data;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+        try (LZ4FrameOutputStream lz4Out =
+                new LZ4FrameOutputStream(out, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB)) {
+            lz4Out.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * decompress
+     *
+     * @param  data
+     * @return      byte array
+     * @throws IOException
+     */
+    public static byte[] decompress(byte[] data) throws IOException {
+        if (data == null || data.length == 0) {
+            return data;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+                Math.min(ZstdUtils.MAX_DECOMPRESSED_SIZE, data.length * 2));
+        try (LZ4FrameInputStream lz4In = new LZ4FrameInputStream(new ByteArrayInputStream(data))) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = lz4In.read(buffer)) >= 0) {
+                if (out.size() + n > ZstdUtils.MAX_DECOMPRESSED_SIZE) {
+                    throw new IOException("Lz4 content exceeds the max pack length "
+                            + ZstdUtils.MAX_DECOMPRESSED_SIZE);
+                }
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,545 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.commons.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.zip.CRC32;
+
+/**
+ * SegmentedFileLog
+ *
+ * A segmented, append-only file log, each record is stored as [length][crc32][payload].
+ * The records are read in the appended order, and the offset of the first record not
+ * committed is kept in a checkpoint file, so the records read but not committed are read
+ * again after restart. The segments before the checkpoint are deleted, and the torn records
+ * at the tail are truncated when opening.
+ *
+ * The files are named by the log name, a log with name "spool" keeps the segments
+ * as "{startOffset}.spool" and the checkpoint as "spool.checkpoint". The disk budget
+ * and whether to lock the directory while opened are decided by the owner.
+ */
+public class SegmentedFileLog {
+
+    public static final Logger LOG = LoggerFactory.getLogger(SegmentedFileLog.class);
+
+    // length and crc32 of record
+    public static final int RECORD_HEADER_SIZE = 8;
+    // no limit of the disk budget
+    public static final long UNLIMITED_DISK_SIZE = -1L;
+
+    private final File logDir;
+    private final String logName;
+    private final String segmentSuffix;
+    private final long maxSegmentSize;
+    private final long maxDiskSize;
+    private final boolean lockDir;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    // the start offsets of the records read but not committed
+    private final ConcurrentSkipListSet<Long> inflightOffsets = new ConcurrentSkipListSet<>();
+    private final Object writeLock = new Object();
+    private final Object readLock = new Object();
+    private FileChannel lockChannel;
+    private FileLock dirLock;
+    private volatile long writeOffset = 0L;
+    private volatile long readOffset = 0L;
+    private volatile long checkpointOffset = 0L;
+    private long corruptedSize = 0L;
+
+    /**
+     * Constructor
+     *
+     * @param logDir  the directory of segment files
+     * @param logName  the name of log, used to name the files
+     * @param maxSegmentSize  the max size of a segment file
+     * @param maxDiskSize  the max size of all the segment files, {@link #UNLIMITED_DISK_SIZE} if no limit
+     * @param lockDir  whether to lock the directory while opened, so that it can not be shared
+     */
+    public SegmentedFileLog(File logDir, String logName,
+            long maxSegmentSize, long maxDiskSize, boolean lockDir) {
+        this.logDir = logDir;
+        this.logName = logName;
+        this.segmentSuffix = "." + logName;
+        this.maxSegmentSize = maxSegmentSize;
+        this.maxDiskSize = maxDiskSize < 0 ? Long.MAX_VALUE : Math.max(maxSegmentSize, maxDiskSize);
+        this.lockDir = lockDir;
+    }
+
+    /**
+     * Open the log, recover the segments and the read offset
+     *
+     * @throws IOException  the exception while opening files
+     */
+    public void open() throws IOException {
+        if (!logDir.exists() && !logDir.mkdirs()) {
+            throw new IOException("Create " + logName + " directory failure, dir = " + logDir);
+        }
+        if (lockDir) {
+            lockDirectory();
+        }
+        File[] files = logDir.listFiles((dir, name) -> name.endsWith(segmentSuffix));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                long startOffset = Long.parseLong(name.substring(0, name.length() - segmentSuffix.length()));
+                segments.put(startOffset, new Segment(file, startOffset, file.length()));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, createSegment(0L));
+        }
+        // truncate the torn records at the tail of the last segment
+        Segment lastSegment = segments.lastEntry().getValue();
+        long validSize = scanValidSize(lastSegment);
+        if (validSize < lastSegment.size) {
+            LOG.warn("Truncate {} segment {} from {} to {}",
+                    logName, lastSegment.file, lastSegment.size, validSize);
+            lastSegment.channel.truncate(validSize);
+            lastSegment.size = validSize;
+        }
+        this.writeOffset = lastSegment.startOffset + lastSegment.size;
+        long firstOffset = segments.firstKey();
+        long recoveredOffset = readCheckpoint(firstOffset);
+        this.readOffset = Math.min(Math.max(recoveredOffset, firstOffset), writeOffset);
+        this.checkpointOffset = this.readOffset;
+        LOG.info("Opened {} log {}, segments = {}, read offset = {}, write offset = {}",
+                logName, logDir, segments.size(), readOffset, writeOffset);
+    }
+
+    /**
+     * Append a record to the log
+     *
+     * @param record  the record payload
+     * @return false if the disk budget is exhausted
+     * @throws IOException  the exception while writing files
+     */
+    public boolean append(byte[] record) throws IOException {
+        return append(Collections.singletonList(record), false);
+    }
+
+    /**
+     * Append records to the log, the records are appended all or none
+     *
+     * @param records  the record payloads
+     * @param force  whether to fsync after writing
+     * @return false if the disk budget is exhausted
+     * @throws IOException  the exception while writing files
+     */
+    public boolean append(List<byte[]> records, boolean force) throws IOException {
+        if (records.isEmpty()) {
+            return true;
+        }
+        long totalSize = 0L;
+        for (byte[] record : records) {
+            totalSize += RECORD_HEADER_SIZE + record.length;
+        }
+        synchronized (writeLock) {
+            if (getFileSize() + totalSize > maxDiskSize) {
+                return false;
+            }
+            Segment segment = segments.lastEntry().getValue();
+            CRC32 crc32 = new CRC32();
+            for (byte[] record : records) {
+                if (segment.size > 0 && segment.size + RECORD_HEADER_SIZE + record.length > maxSegmentSize) {
+                    // the full segment is not written any more
+                    segment.channel.force(false);
+                    segment = createSegment(segment.startOffset + segment.size);
+                    segments.put(segment.startOffset, segment);
+                }
+                crc32.reset();
+                crc32.update(record, 0, record.length);
+                ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + record.length);
+                buffer.putInt(record.length).putInt((int) crc32.getValue()).put(record);
+                buffer.flip();
+                long position = segment.size;
+                while (buffer.hasRemaining()) {
+                    position += segment.channel.write(buffer, position);
+                }
+                segment.size = position;
+                this.writeOffset = segment.startOffset + position;
+            }
+            if (force) {
+                segment.channel.force(false);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Read the next record
+     *
+     * @return the record, or null if no record to read
+     * @throws IOException  the exception while reading files
+     */
+    public LogRecord read() throws IOException {
+        synchronized (readLock) {
+            while (readOffset < writeOffset) {
+                Map.Entry<Long, Segment> entry = segments.floorEntry(readOffset);
+                if (entry == null) {
+                    readOffset = segments.firstKey();
+                    continue;
+                }
+                Segment segment = entry.getValue();
+                long position = readOffset - segment.startOffset;
+                if (position + RECORD_HEADER_SIZE > segment.size) {
+                    if (!skipToNextSegment(segment)) {
+                        return null;
+                    }
+                    continue;
+                }
+                ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+                readFully(segment, header, position);
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                if (length < 0 || position + RECORD_HEADER_SIZE + length > segment.size) {
+                    handleCorruption(segment, position);
+                    continue;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(segment, payload, position + RECORD_HEADER_SIZE);
+                CRC32 crc32 = new CRC32();
+                crc32.update(payload.array(), 0, length);
+                if ((int) crc32.getValue() != checksum) {
+                    handleCorruption(segment, position);
+                    continue;
+                }
+                long recordOffset = readOffset;
+                inflightOffsets.add(recordOffset);
+                readOffset += RECORD_HEADER_SIZE + length;
+                return new LogRecord(recordOffset, payload.array());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Commit the record read, the record will not be read again after restart
+     *
+     * @param recordOffset  the offset of record
+     */
+    public void commitRead(long recordOffset) {
+        inflightOffsets.remove(recordOffset);
+    }
+
+    /**
+     * Persist the read offset and delete the segments fully consumed
+     *
+     * @param force  whether to fsync the checkpoint and the active segment
+     * @throws IOException  the exception while writing files
+     */
+    public void checkpoint(boolean force) throws IOException {
+        if (force) {
+            synchronized (writeLock) {
+                segments.lastEntry().getValue().channel.force(false);
+            }
+        }
+        long durableOffset = getDurableOffset();
+        if (durableOffset != checkpointOffset) {
+            File tmpFile = new File(logDir, getCheckpointFileName() + ".tmp");
+            ByteBuffer buffer = ByteBuffer.allocate(16);
+            CRC32 crc32 = new CRC32();
+            buffer.putLong(durableOffset);
+            crc32.update(buffer.array(), 0, 8);
+            buffer.putLong(crc32.getValue());
+            buffer.flip();
+            try (FileChannel channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (force) {
+                    channel.force(true);
+                }
+            }
+            Files.move(tmpFile.toPath(), new File(logDir, getCheckpointFileName()).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.checkpointOffset = durableOffset;
+        }
+        // delete the segments before the checkpoint, keep the active segment
+        synchronized (writeLock) {
+            Map.Entry<Long, Segment> entry = segments.firstEntry();
+            while (entry != null && entry.getKey() < segments.lastKey()
+                    && entry.getValue().startOffset + entry.getValue().size <= checkpointOffset) {
+                Segment segment = segments.remove(entry.getKey());
+                segment.close();
+                Files.deleteIfExists(segment.file.toPath());
+                entry = segments.firstEntry();
+            }
+        }
+    }
+
+    /**
+     * Close the log and release the directory lock
+     */
+    public void close() {
+        try {
+            checkpoint(true);
+        } catch (Throwable e) {
+            LOG.error("Checkpoint {} log {} failure while closing", logName, logDir, e);
+        }
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+        try {
+            if (dirLock != null) {
+                dirLock.release();
+                dirLock = null;
+            }
+            if (lockChannel != null) {
+                lockChannel.close();
+                lockChannel = null;
+            }
+        } catch (IOException e) {
+            LOG.warn("Release {} directory {} lock failure", logName, logDir, e);
+        }
+    }
+
+    /**
+     * Whether all the records are read and committed
+     *
+     * @return true if no record left
+     */
+    public boolean isDrained() {
+        return readOffset >= writeOffset && inflightOffsets.isEmpty();
+    }
+
+    /**
+     * get the size of records not read
+     *
+     * @return the unread size
+     */
+    public long getUnreadSize() {
+        return writeOffset - readOffset;
+    }
+
+    /**
+     * get the size of files kept
+     *
+     * @return the file size
+     */
+    public long getFileSize() {
+        Map.Entry<Long, Segment> entry = segments.firstEntry();
+        return entry == null ? 0L : writeOffset - entry.getKey();
+    }
+
+    /**
+     * get the segment count
+     *
+     * @return the segment count
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * get the corrupted size skipped
+     *
+     * @return the corrupted size
+     */
+    public long getCorruptedSize() {
+        synchronized (readLock) {
+            return corruptedSize;
+        }
+    }
+
+    /**
+     * get the file name of the segment
+     *
+     * @param startOffset  the start offset of the segment
+     * @return the segment file name
+     */
+    public String getSegmentFileName(long startOffset) {
+        return String.format("%020d%s", startOffset, segmentSuffix);
+    }
+
+    /**
+     * get the file name of the checkpoint
+     *
+     * @return the checkpoint file name
+     */
+    public String getCheckpointFileName() {
+        return logName + ".checkpoint";
+    }
+
+    private void lockDirectory() throws IOException {
+        lockChannel = FileChannel.open(new File(logDir, logName + ".lock").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            dirLock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // locked by another owner in the same process
+            dirLock = null;
+        }
+        if (dirLock == null) {
+            lockChannel.close();
+            lockChannel = null;
+            throw new IOException("The " + logName + " directory is locked by others, dir = " + logDir);
+        }
+    }
+
+    private long getDurableOffset() {
+        synchronized (readLock) {
+            Long minInflight = inflightOffsets.isEmpty() ? null : inflightOffsets.first();
+            return minInflight == null ? readOffset : Math.min(minInflight, readOffset);
+        }
+    }
+
+    private boolean skipToNextSegment(Segment segment) {
+        Long nextOffset = segments.higherKey(segment.startOffset);
+        if (nextOffset == null) {
+            return false;
+        }
+        if (readOffset < segment.startOffset + segment.size) {
+            corruptedSize += segment.startOffset + segment.size - readOffset;
+        }
+        readOffset = nextOffset;
+        return true;
+    }
+
+    private void handleCorruption(Segment segment, long position) {
+        LOG.error("Found corrupted record in {} segment {} at position {}, skip the rest of segment",
+                logName, segment.file, position);
+        if (!skipToNextSegment(segment)) {
+            // the last segment, skip to the end
+            corruptedSize += writeOffset - readOffset;
+            readOffset = writeOffset;
+        }
+    }
+
+    private long scanValidSize(Segment segment) throws IOException {
+        long position = 0L;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        CRC32 crc32 = new CRC32();
+        while (position + RECORD_HEADER_SIZE <= segment.size) {
+            header.clear();
+            readFully(segment, header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length < 0 || position + RECORD_HEADER_SIZE + length > segment.size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(segment, payload, position + RECORD_HEADER_SIZE);
+            crc32.reset();
+            crc32.update(payload.array(), 0, length);
+            if ((int) crc32.getValue() != checksum) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private long readCheckpoint(long defOffset) {
+        File file = new File(logDir, getCheckpointFileName());
+        if (!file.exists()) {
+            return defOffset;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            long offset = buffer.getLong();
+            CRC32 crc32 = new CRC32();
+            crc32.update(buffer.array(), 0, 8);
+            if (buffer.getLong() == crc32.getValue()) {
+                return offset;
+            }
+            LOG.warn("The {} checkpoint {} is corrupted, replay from offset {}", logName, file, defOffset);
+        } catch (Throwable e) {
+            LOG.warn("Read {} checkpoint {} failure, replay from offset {}", logName, file, defOffset, e);
+        }
+        return defOffset;
+    }
+
+    private Segment createSegment(long startOffset) throws IOException {
+        return new Segment(new File(logDir, getSegmentFileName(startOffset)), startOffset, 0L);
+    }
+
+    private void readFully(Segment segment, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int readSize = segment.channel.read(buffer, position);
+            if (readSize < 0) {
+                throw new IOException("Unexpected end of " + logName + " segment " + segment.file);
+            }
+            position += readSize;
+        }
+    }
+
+    /**
+     * LogRecord, a record read from the log
+     */
+    public static class LogRecord {
+
+        private final long offset;
+        private final byte[] payload;
+
+        public LogRecord(long offset, byte[] payload) {
+            this.offset = offset;
+            this.payload = payload;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    private static class Segment {
+
+        private final File file;
+        private final long startOffset;
+        private final FileChannel channel;
+        private volatile long size;
+
+        Segment(File file, long startOffset, long size) throws IOException {
+            this.file = file;
+            this.startOffset = startOffset;
+            this.size = size;
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.warn("Close segment {} failure", file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.commons.utils;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.github.luben.zstd.ZstdInputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ZstdUtils
+ *
+ * Zstd compression with optional trained dictionaries per inlongGroupId or
+ * inlongGroupId and inlongStreamId. The dictionary id is kept in the zstd frame,
+ * so the decompressor finds the dictionary by the frame, the same dictionaries
+ * must be registered on the decompression side.
+ */
+public class ZstdUtils {
+
+    public static final Logger LOG = LoggerFactory.getLogger(ZstdUtils.class);
+
+    public static final int DEFAULT_LEVEL = 3;
+    // max decompressed pack size, same as the upper bound of max-msg-length in DataProxy
+    public static final int MAX_DECOMPRESSED_SIZE = 20 * 1024 * 1024;
+    // dictionary file name: {inlongGroupId}.dict or {inlongGroupId}#{inlongStreamId}.dict
+    public static final String DICT_FILE_SUFFIX = ".dict";
+    public static final String DICT_KEY_SEPARATOR = "#";
+    // config key of the dictionary directory, shared by the compression and decompression sides
+    public static final String KEY_ZSTD_DICT_DIR = "compress.zstd.dict.dir";
+
+    private static final Map<String, ZstdDictCompress> compressDicts = new ConcurrentHashMap<>();
+    private static final Map<Long, ZstdDictDecompress> decompressDicts = new ConcurrentHashMap<>();
+    private static final Set<String> loadedDictDirs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * compress
+     *
+     * @param  data
+     * @return      byte array
+     */
+    public static byte[] compress(byte[] data) {
+        return Zstd.compress(data, DEFAULT_LEVEL);
+    }
+
+    /**
+     * compress with the dictionary of the stream or the group if registered
+     *
+     * @param  data
+     * @param  inlongGroupId
+     * @param  inlongStreamId
+     * @return      byte array
+     */
+    public static byte[] compress(byte[] data, String inlongGroupId, String inlongStreamId) {
+        if (!compressDicts.isEmpty() && inlongGroupId != null) {
+            ZstdDictCompress dict = compressDicts.get(buildDictKey(inlongGroupId, inlongStreamId));
+            if (dict == null) {
+                dict = compressDicts.get(inlongGroupId);
+            }
+            if (dict != null) {
+                return Zstd.compress(data, dict);
+            }
+        }
+        return Zstd.compress(data, DEFAULT_LEVEL);
+    }
+
+    /**
+     * decompress
+     *
+     * @param  data
+     * @return      byte array
+     * @throws IOException
+     */
+    public static byte[] decompress(byte[] data) throws IOException {
+        if (data == null || data.length == 0) {
+            return data;
+        }
+        long dictId = Zstd.getDictIdFromFrame(data);
+        long srcSize = Zstd.decompressedSize(data);
+        if (srcSize > MAX_DECOMPRESSED_SIZE) {
+            throw new IOException("Zstd content size " + srcSize
+                    + " exceeds the max pack length " + MAX_DECOMPRESSED_SIZE);
+        }
+        if (dictId != 0) {
+            ZstdDictDecompress dict = decompressDicts.get(dictId);
+            if (dict == null) {
+                throw new IOException("Zstd dictionary not found, dictId = " + dictId);
+            }
+            if (srcSize <= 0) {
+                throw new IOException("Unknown zstd content size with dictionary, dictId = " + dictId);
+            }
+            return Zstd.decompress(data, dict, (int) srcSize);
+        }
+        if (srcSize > 0) {
+            return Zstd.decompress(data, (int) srcSize);
+        }
+        // the content size is not in the frame header, decompress by stream
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+                Math.min(MAX_DECOMPRESSED_SIZE, data.length * 4));
+        try (ZstdInputStream in = new ZstdInputStream(new ByteArrayInputStream(data))) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                if (out.size() + n > MAX_DECOMPRESSED_SIZE) {
+                    throw new IOException("Zstd content exceeds the max pack length " + MAX_DECOMPRESSED_SIZE);
+                }
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * register a dictionary
+     *
+     * @param  inlongGroupId
+     * @param  inlongStreamId  null or empty to register the dictionary for the whole group
+     * @param  dict
+     */
+    public static void registerDictionary(String inlongGroupId, String inlongStreamId, byte[] dict) {
+        long dictId = Zstd.getDictIdFromDict(dict);
+        compressDicts.put(buildDictKey(inlongGroupId, inlongStreamId), new ZstdDictCompress(dict, DEFAULT_LEVEL));
+        decompressDicts.put(dictId, new ZstdDictDecompress(dict));
+        LOG.info("Register zstd dictionary, groupId = {}, streamId = {}, dictId = {}",
+                inlongGroupId, inlongStreamId, dictId);
+    }
+
+    /**
+     * load the dictionaries in the directory
+     *
+     * @param  dictDir
+     * @return      the count of loaded dictionaries
+     */
+    public static int loadDictionaries(File dictDir) {
+        File[] files = dictDir.listFiles((dir, name) -> name.endsWith(DICT_FILE_SUFFIX));
+        if (files == null) {
+            return 0;
+        }
+        int count = 0;
+        for (File file : files) {
+            String key = file.getName().substring(0, file.getName().length() - DICT_FILE_SUFFIX.length());
+            String inlongGroupId = StringUtils.substringBefore(key, DICT_KEY_SEPARATOR);
+            String inlongStreamId = StringUtils.substringAfter(key, DICT_KEY_SEPARATOR);
+            try {
+                registerDictionary(inlongGroupId, inlongStreamId, Files.readAllBytes(file.toPath()));
+                count++;
+            } catch (Throwable e) {
+                LOG.error("Load zstd dictionary {} error", file, e);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * load the dictionaries in the directory if the directory has not been loaded,
+     *  used by the decoders which may be created many times in one process
+     *
+     * @param  dictDir  the dictionary directory, ignored if blank
+     * @return      the count of loaded dictionaries
+     */
+    public static int loadDictionariesOnce(String dictDir) {
+        if (StringUtils.isBlank(dictDir)) {
+            return 0;
+        }
+        String realDir = dictDir.trim();
+        if (!loadedDictDirs.add(realDir)) {
+            return 0;
+        }
+        int count = loadDictionaries(new File(realDir));
+        LOG.info("Loaded {} zstd dictionaries from {}", count, realDir);
+        return count;
+    }
+
+    /**
+     * train a dictionary from the sample payloads
+     *
+     * @param  samples
+     * @param  dictSize
+     * @return      the dictionary
+     */
+    public static byte[] trainDictionary(List<byte[]> samples, int dictSize) {
+        long sampleSize = 0L;
+        for (byte[] sample : samples) {
+            sampleSize += sample.length;
+        }
+        ZstdDictTrainer trainer = new ZstdDictTrainer((int) Math.min(Integer.MAX_VALUE, sampleSize), dictSize);
+        for (byte[] sample : samples) {
+            trainer.addSample(sample);
+        }
+        return trainer.trainSamples();
+    }
+
+    private static String buildDictKey(String inlongGroupId, String inlongStreamId) {
+        if (StringUtils.isEmpty(inlongStreamId)) {
+            return inlongGroupId;
+        }
+        return inlongGroupId + DICT_KEY_SEPARATOR + inlongStreamId;
+    }
+}
@@ -104,4 +104,21 @@ public class TestEventUtils {
             e.printStackTrace();
         }
     }
+
+    @Test
+    public void testZstdAndLz4CacheMessageBody() throws Exception {
+        List<ProxyEvent> eventList = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            eventList.add(new ProxyEvent(INLONG_GROUP_ID, INLONG_STREAM_ID, (BODY + i).getBytes(),
+                    System.currentTimeMillis(), SOURCE_IP));
+        }
+        for (INLONG_COMPRESSED_TYPE compressedType : new INLONG_COMPRESSED_TYPE[]{
+                INLONG_COMPRESSED_TYPE.INLONG_ZSTD, INLONG_COMPRESSED_TYPE.INLONG_LZ4}) {
+            byte[] bodyBytes = EventUtils.encodeCacheMessageBody(compressedType, eventList);
+            List<SortEvent> sortEventList = EventUtils.decodeCacheMessageBody(INLONG_GROUP_ID, INLONG_STREAM_ID,
+                    compressedType, bodyBytes);
+            assertEquals(10, sortEventList.size());
+            assertEquals(BODY + 9, new String(sortEventList.get(9).getBody()));
+        }
+    }
 }
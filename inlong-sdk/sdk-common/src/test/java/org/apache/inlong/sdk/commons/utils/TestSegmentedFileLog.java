@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.commons.utils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TestSegmentedFileLog
+ */
+public class TestSegmentedFileLog {
+
+    private File logDir;
+
+    @Before
+    public void setUp() throws IOException {
+        logDir = Files.createTempDirectory("segment-log-test").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = logDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        logDir.delete();
+    }
+
+    @Test
+    public void testAppendReadAndRoll() throws IOException {
+        SegmentedFileLog fileLog = newFileLog(64, SegmentedFileLog.UNLIMITED_DISK_SIZE, false);
+        fileLog.open();
+        Assert.assertTrue(fileLog.append(buildRecords(0, 10), false));
+        Assert.assertTrue(fileLog.getSegmentCount() > 1);
+        for (int i = 0; i < 10; i++) {
+            SegmentedFileLog.LogRecord record = fileLog.read();
+            Assert.assertNotNull(record);
+            Assert.assertEquals("record-" + i, new String(record.getPayload(), StandardCharsets.UTF_8));
+            fileLog.commitRead(record.getOffset());
+        }
+        Assert.assertNull(fileLog.read());
+        Assert.assertTrue(fileLog.isDrained());
+        // the consumed segments are deleted except the active one
+        fileLog.checkpoint(true);
+        Assert.assertEquals(1, fileLog.getSegmentCount());
+        fileLog.close();
+    }
+
+    @Test
+    public void testReplayUncommittedAfterRestart() throws IOException {
+        SegmentedFileLog fileLog = newFileLog(1024, SegmentedFileLog.UNLIMITED_DISK_SIZE, false);
+        fileLog.open();
+        fileLog.append(buildRecords(0, 5), true);
+        SegmentedFileLog.LogRecord first = fileLog.read();
+        fileLog.commitRead(first.getOffset());
+        // read but not committed
+        fileLog.read();
+        fileLog.close();
+
+        fileLog = newFileLog(1024, SegmentedFileLog.UNLIMITED_DISK_SIZE, false);
+        fileLog.open();
+        SegmentedFileLog.LogRecord record = fileLog.read();
+        Assert.assertEquals("record-1", new String(record.getPayload(), StandardCharsets.UTF_8));
+        Assert.assertEquals(3 * (SegmentedFileLog.RECORD_HEADER_SIZE + 8), fileLog.getUnreadSize());
+        fileLog.close();
+    }
+
+    @Test
+    public void testTruncateTornTail() throws IOException {
+        SegmentedFileLog fileLog = newFileLog(1024, SegmentedFileLog.UNLIMITED_DISK_SIZE, false);
+        fileLog.open();
+        fileLog.append(buildRecords(0, 3), true);
+        fileLog.close();
+        // simulate a crash while writing the last record
+        File segment = new File(logDir, fileLog.getSegmentFileName(0L));
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        fileLog = newFileLog(1024, SegmentedFileLog.UNLIMITED_DISK_SIZE, false);
+        fileLog.open();
+        Assert.assertNotNull(fileLog.read());
+        Assert.assertNotNull(fileLog.read());
+        Assert.assertNull(fileLog.read());
+        Assert.assertEquals(0L, fileLog.getCorruptedSize());
+        // append after the valid records
+        fileLog.append(Collections.singletonList("record-x".getBytes(StandardCharsets.UTF_8)), false);
+        Assert.assertEquals("record-x", new String(fileLog.read().getPayload(), StandardCharsets.UTF_8));
+        fileLog.close();
+    }
+
+    @Test
+    public void testSkipCorruptedRecord() throws IOException {
+        SegmentedFileLog fileLog = newFileLog(1024, SegmentedFileLog.UNLIMITED_DISK_SIZE, false);
+        fileLog.open();
+        fileLog.append(buildRecords(0, 3), true);
+        File segment = new File(logDir, fileLog.getSegmentFileName(0L));
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(SegmentedFileLog.RECORD_HEADER_SIZE + 8 + SegmentedFileLog.RECORD_HEADER_SIZE);
+            file.write('X');
+        }
+        Assert.assertNotNull(fileLog.read());
+        Assert.assertNull(fileLog.read());
+        Assert.assertEquals(2 * (SegmentedFileLog.RECORD_HEADER_SIZE + 8), fileLog.getCorruptedSize());
+        fileLog.close();
+    }
+
+    @Test
+    public void testDiskBudget() throws IOException {
+        SegmentedFileLog fileLog = newFileLog(256, 1024, false);
+        fileLog.open();
+        byte[] payload = new byte[100];
+        int appended = 0;
+        while (fileLog.append(payload)) {
+            appended++;
+        }
+        // the disk budget is bounded, and the segments are rotated
+        Assert.assertEquals(1024 / (SegmentedFileLog.RECORD_HEADER_SIZE + payload.length), appended);
+        Assert.assertTrue(fileLog.getSegmentCount() > 1);
+        // a batch is appended all or none, one of the records fits in the budget left
+        Assert.assertTrue(1024 - fileLog.getFileSize() >= SegmentedFileLog.RECORD_HEADER_SIZE + 30);
+        Assert.assertFalse(fileLog.append(Arrays.asList(new byte[30], new byte[30]), false));
+        Assert.assertEquals(appended * (SegmentedFileLog.RECORD_HEADER_SIZE + payload.length),
+                fileLog.getFileSize());
+        // the consumed segments are deleted and the budget is released
+        for (int i = 0; i < appended - 1; i++) {
+            fileLog.commitRead(fileLog.read().getOffset());
+        }
+        fileLog.checkpoint(true);
+        Assert.assertEquals(1, fileLog.getSegmentCount());
+        Assert.assertTrue(fileLog.append(payload));
+        fileLog.close();
+    }
+
+    @Test
+    public void testLockDirectory() throws IOException {
+        SegmentedFileLog fileLog = newFileLog(1024, SegmentedFileLog.UNLIMITED_DISK_SIZE, true);
+        fileLog.open();
+        // the directory can not be shared while opened
+        try {
+            newFileLog(1024, SegmentedFileLog.UNLIMITED_DISK_SIZE, true).open();
+            Assert.fail("The locked directory is opened again");
+        } catch (IOException e) {
+            // expected
+        }
+        fileLog.close();
+        // the lock is released after closed
+        fileLog = newFileLog(1024, SegmentedFileLog.UNLIMITED_DISK_SIZE, true);
+        fileLog.open();
+        fileLog.close();
+    }
+
+    private SegmentedFileLog newFileLog(long maxSegmentSize, long maxDiskSize, boolean lockDir) {
+        return new SegmentedFileLog(logDir, "test", maxSegmentSize, maxDiskSize, lockDir);
+    }
+
+    private List<byte[]> buildRecords(int start, int count) {
+        List<byte[]> records = new ArrayList<>();
+        for (int i = start; i < start + count; i++) {
+            records.add(("record-" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.commons.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * TestZstdUtils
+ */
+public class TestZstdUtils {
+
+    @Test
+    public void testCompressWithDictionary() throws Exception {
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            samples.add(("ftime=20241018" + (i % 24) + "&uid=" + (i * 7919 % 1000)
+                    + "&action=click&page=/home/index&os=android&net=wifi").getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] dict = ZstdUtils.trainDictionary(samples, 4 * 1024);
+        ZstdUtils.registerDictionary("dictGroup", "dictStream", dict);
+        byte[] data = samples.get(123);
+        byte[] withDict = ZstdUtils.compress(data, "dictGroup", "dictStream");
+        byte[] withoutDict = ZstdUtils.compress(data);
+        assertTrue(withDict.length < withoutDict.length);
+        assertArrayEquals(data, ZstdUtils.decompress(withDict));
+        assertArrayEquals(data, ZstdUtils.decompress(withoutDict));
+        // falls back to no dictionary for unknown streams
+        assertArrayEquals(data, ZstdUtils.decompress(ZstdUtils.compress(data, "dictGroup", "other")));
+    }
+
+    @Test
+    public void testRejectOversizedFrame() throws Exception {
+        // a zeroed payload compresses to a small frame declaring a large content size
+        byte[] data = new byte[ZstdUtils.MAX_DECOMPRESSED_SIZE + 1];
+        byte[] compressed = ZstdUtils.compress(data);
+        assertTrue(compressed.length < 64 * 1024);
+        try {
+            ZstdUtils.decompress(compressed);
+            fail("the frame over the max pack length should be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("exceeds"));
+        }
+    }
+}
@@ -60,4 +60,6 @@ public class ConfigConstants {
 
     public static final String THREAD_POOL_SIZE = "threadPoolSize";
 
+    public static final String ZSTD_DICT_DIR = "zstdDictDir";
+
 }
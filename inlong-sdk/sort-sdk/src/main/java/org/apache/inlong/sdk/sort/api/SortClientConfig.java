@@ -80,6 +80,9 @@ public class SortClientConfig implements Serializable {
 
     private int sendFailPauseConsumerMinutes = 10;
 
+    // the directory of the zstd dictionaries used to decompress the zstd packs
+    private String zstdDictDir;
+
     public SortClientConfig(
             String sortTaskId,
             String sortClusterName,
@@ -523,6 +526,7 @@ public class SortClientConfig implements Serializable {
                 NumberUtils.toInt(sortSdkParams.get(ConfigConstants.START_OFFLINE_CHECK_THRESHOLD),
                         startOfflineTopicCheckThreshold);
         this.threadPoolSize = NumberUtils.toInt(sortSdkParams.get(ConfigConstants.THREAD_POOL_SIZE), threadPoolSize);
+        this.zstdDictDir = sortSdkParams.getOrDefault(ConfigConstants.ZSTD_DICT_DIR, zstdDictDir);
     }
 
     public List<InLongTopic> getConsumerSubset(List<InLongTopic> totalTopics) {
@@ -565,4 +569,20 @@ public class SortClientConfig implements Serializable {
         this.sendFailPauseConsumerMinutes = sendFailPauseConsumerMinutes;
     }
 
+    /**
+     * get zstdDictDir
+     * @return the zstdDictDir
+     */
+    public String getZstdDictDir() {
+        return zstdDictDir;
+    }
+
+    /**
+     * set zstdDictDir
+     * @param zstdDictDir the zstdDictDir to set
+     */
+    public void setZstdDictDir(String zstdDictDir) {
+        this.zstdDictDir = zstdDictDir;
+    }
+
 }
@@ -22,12 +22,17 @@ import org.apache.inlong.common.util.Utils;
 import org.apache.inlong.sdk.commons.protocol.ProxySdk.MapFieldEntry;
 import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessageObj;
 import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessageObjs;
+import org.apache.inlong.sdk.commons.utils.Lz4Utils;
+import org.apache.inlong.sdk.commons.utils.ZstdUtils;
 import org.apache.inlong.sdk.sort.api.ClientContext;
+import org.apache.inlong.sdk.sort.api.SortClientConfig;
 import org.apache.inlong.sdk.sort.entity.CacheZoneCluster;
 import org.apache.inlong.sdk.sort.entity.InLongMessage;
 import org.apache.inlong.sdk.sort.entity.InLongTopic;
 import org.apache.inlong.sdk.sort.impl.ClientContextImpl;
 
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
 import com.google.protobuf.ByteString;
 import org.junit.Assert;
 import org.junit.Test;
@@ -35,6 +40,10 @@ import org.junit.runner.RunWith;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -86,6 +95,46 @@ public class MessageDeserializerTest {
 
         // 6. DeserializeVersion2NoCompress
         testDeserializeVersion2NoCompress();
+
+        // 7. testDeserializeVersion1CompressionType3
+        testDeserializeVersion1CompressionType3();
+
+        // 8. testDeserializeVersion1CompressionType4
+        testDeserializeVersion1CompressionType4();
+    }
+
+    @Test
+    public void testDeserializeZstdWithDictionary() throws Exception {
+        setUp();
+        prepareTestMessageObjs();
+        headers.put("compressType", "3");
+        // the dictionary is only known by the file in the dictionary directory
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            samples.add(("ftime=20241018" + (i % 24) + "&uid=" + (i * 7919 % 1000)
+                    + "&action=click&page=/home/index&os=android&net=wifi").getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] dict = ZstdUtils.trainDictionary(samples, 4 * 1024);
+        byte[] testDataByteArray = Zstd.compress(messageObjs.toByteArray(),
+                new ZstdDictCompress(dict, ZstdUtils.DEFAULT_LEVEL));
+        File dictDir = Files.createTempDirectory("sort-sdk-zstd-dict").toFile();
+        try {
+            Files.write(new File(dictDir, "sortGroup#sortStream" + ZstdUtils.DICT_FILE_SUFFIX).toPath(), dict);
+            SortClientConfig config = new SortClientConfig("sortTaskId", "sortClusterName", null,
+                    SortClientConfig.ConsumeStrategy.earliest, "127.0.0.1");
+            config.setZstdDictDir(dictDir.getAbsolutePath());
+            PowerMockito.when(context.getConfig()).thenReturn(config);
+
+            List<InLongMessage> deserialize = messageDeserializer
+                    .deserialize(context, inLongTopic, headers, testDataByteArray);
+            Assert.assertEquals(2, deserialize.size());
+            Assert.assertEquals(testData, new String(deserialize.get(0).getBody()));
+        } finally {
+            for (File file : dictDir.listFiles()) {
+                file.delete();
+            }
+            dictDir.delete();
+        }
     }
 
     private void testDeserializeVersion0() {
@@ -154,6 +203,42 @@ public class MessageDeserializerTest {
         }
     }
 
+    private void testDeserializeVersion1CompressionType3() {
+        try {
+            // test version == 1
+            prepareTestMessageObjs();
+            // compression zstd
+            headers.put("compressType", "3");
+
+            byte[] testDataByteArray = ZstdUtils.compress(messageObjs.toByteArray());
+
+            List<InLongMessage> deserialize = messageDeserializer
+                    .deserialize(context, inLongTopic, headers, testDataByteArray);
+            Assert.assertEquals(2, deserialize.size());
+            Assert.assertEquals(testData, new String(deserialize.get(0).getBody()));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void testDeserializeVersion1CompressionType4() {
+        try {
+            // test version == 1
+            prepareTestMessageObjs();
+            // compression lz4
+            headers.put("compressType", "4");
+
+            byte[] testDataByteArray = Lz4Utils.compress(messageObjs.toByteArray());
+
+            List<InLongMessage> deserialize = messageDeserializer
+                    .deserialize(context, inLongTopic, headers, testDataByteArray);
+            Assert.assertEquals(2, deserialize.size());
+            Assert.assertEquals(testData, new String(deserialize.get(0).getBody()));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
     private void testDeserializeVersion2NoCompress() {
         try {
             String groupId = "sort_sdk_test_group_id";
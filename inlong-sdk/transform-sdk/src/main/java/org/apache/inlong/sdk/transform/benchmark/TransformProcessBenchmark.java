@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.transform.benchmark;
+
+import org.apache.inlong.common.pojo.sort.dataflow.field.format.StringFormatInfo;
+import org.apache.inlong.sdk.transform.decode.SourceDecoderFactory;
+import org.apache.inlong.sdk.transform.encode.SinkEncoderFactory;
+import org.apache.inlong.sdk.transform.pojo.CsvSinkInfo;
+import org.apache.inlong.sdk.transform.pojo.CsvSourceInfo;
+import org.apache.inlong.sdk.transform.pojo.FieldInfo;
+import org.apache.inlong.sdk.transform.pojo.JsonSourceInfo;
+import org.apache.inlong.sdk.transform.pojo.KvSinkInfo;
+import org.apache.inlong.sdk.transform.pojo.KvSourceInfo;
+import org.apache.inlong.sdk.transform.pojo.TransformConfig;
+import org.apache.inlong.sdk.transform.process.TransformProcessor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark of the transform processor, measure the rows per second of the
+ * CSV to KV, KV to CSV and JSON to CSV transforms, with plain column selects
+ * and with selects using functions and a where clause.
+ */
+public class TransformProcessBenchmark {
+
+    private static final String[] FIELD_NAMES = {"ftime", "uid", "action", "page", "cost", "ds"};
+    private static final String PLAIN_SQL = "select ftime,uid,action,page,cost,ds from source";
+    private static final String FUNCTION_SQL = "select ftime,uid,upper(action) as action,"
+            + "concat(page, '?from=', ds) as page,cost + 1 as cost,ds from source"
+            + " where action != 'skip' and length(page) > 1";
+    private static final String JSON_SQL = "select $root.ftime,$child.uid,$child.action,"
+            + "$child.page,$child.cost,$root.ds from source";
+    private final int rowCount;
+    private final int roundCount;
+    private final List<FieldInfo> fields;
+
+    /**
+     * Initial a transform processor benchmark
+     *
+     * @param rowCount    the row count of each input
+     * @param roundCount  the transform rounds of each test case
+     */
+    public TransformProcessBenchmark(int rowCount, int roundCount) {
+        this.rowCount = rowCount;
+        this.roundCount = roundCount;
+        this.fields = new ArrayList<>(FIELD_NAMES.length);
+        for (String fieldName : FIELD_NAMES) {
+            FieldInfo field = new FieldInfo();
+            field.setName(fieldName);
+            field.setFormatInfo(new StringFormatInfo());
+            this.fields.add(field);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new TransformProcessBenchmark(100, 20000).start();
+    }
+
+    /**
+     * Start benchmark test
+     *
+     * @throws Exception the exception
+     */
+    public void start() throws Exception {
+        CsvSourceInfo csvSource = new CsvSourceInfo("UTF-8", '|', '\\', fields);
+        KvSourceInfo kvSource = new KvSourceInfo("UTF-8", fields);
+        JsonSourceInfo jsonSource = new JsonSourceInfo("UTF-8", "rows");
+        CsvSinkInfo csvSink = new CsvSinkInfo("UTF-8", '|', '\\', fields);
+        KvSinkInfo kvSink = new KvSinkInfo("UTF-8", fields);
+        String csvInput = buildCsvInput();
+        String kvInput = buildKvInput();
+        String jsonInput = buildJsonInput();
+        runCase("csv to kv, plain", TransformProcessor.create(new TransformConfig(PLAIN_SQL),
+                SourceDecoderFactory.createCsvDecoder(csvSource), SinkEncoderFactory.createKvEncoder(kvSink)),
+                csvInput);
+        runCase("csv to kv, functions", TransformProcessor.create(new TransformConfig(FUNCTION_SQL),
+                SourceDecoderFactory.createCsvDecoder(csvSource), SinkEncoderFactory.createKvEncoder(kvSink)),
+                csvInput);
+        runCase("kv to csv, plain", TransformProcessor.create(new TransformConfig(PLAIN_SQL),
+                SourceDecoderFactory.createKvDecoder(kvSource), SinkEncoderFactory.createCsvEncoder(csvSink)),
+                kvInput);
+        runCase("kv to csv, functions", TransformProcessor.create(new TransformConfig(FUNCTION_SQL),
+                SourceDecoderFactory.createKvDecoder(kvSource), SinkEncoderFactory.createCsvEncoder(csvSink)),
+                kvInput);
+        runCase("json to csv, plain", TransformProcessor.create(new TransformConfig(JSON_SQL),
+                SourceDecoderFactory.createJsonDecoder(jsonSource), SinkEncoderFactory.createCsvEncoder(csvSink)),
+                jsonInput);
+    }
+
+    private void runCase(String caseName,
+            TransformProcessor<String, String> processor, String input) {
+        Map<String, Object> extParams = new HashMap<>();
+        // warm up
+        int outputCount = 0;
+        for (int round = 0; round < Math.max(1, roundCount / 10); round++) {
+            outputCount += processor.transform(input, extParams).size();
+        }
+        long startTime = System.nanoTime();
+        for (int round = 0; round < roundCount; round++) {
+            outputCount += processor.transform(input, extParams).size();
+        }
+        long costNanos = Math.max(System.nanoTime() - startTime, 1L);
+        long totalRowCnt = (long) rowCount * roundCount;
+        System.out.println(new StringBuilder(512)
+                .append(caseName)
+                .append(": rows=").append(totalRowCnt)
+                .append(", outputs=").append(outputCount)
+                .append(", throughput=").append(totalRowCnt * 1000000000L / costNanos)
+                .append(" rows/s, cost=").append(costNanos / totalRowCnt)
+                .append(" ns/row").toString());
+    }
+
+    private String buildCsvInput() {
+        StringBuilder builder = new StringBuilder(rowCount * 64);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                builder.append('\n');
+            }
+            builder.append("2024101812").append('|').append(i * 7919 % 100000)
+                    .append('|').append(i % 5 == 0 ? "skip" : "click")
+                    .append('|').append("/home/item/").append(i % 500)
+                    .append('|').append(i * 31 % 1000)
+                    .append('|').append("20241018");
+        }
+        return builder.toString();
+    }
+
+    private String buildKvInput() {
+        StringBuilder builder = new StringBuilder(rowCount * 96);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                builder.append('\n');
+            }
+            builder.append("ftime=2024101812&uid=").append(i * 7919 % 100000)
+                    .append("&action=").append(i % 5 == 0 ? "skip" : "click")
+                    .append("&page=/home/item/").append(i % 500)
+                    .append("&cost=").append(i * 31 % 1000)
+                    .append("&ds=20241018");
+        }
+        return builder.toString();
+    }
+
+    private String buildJsonInput() {
+        StringBuilder builder = new StringBuilder(rowCount * 96);
+        builder.append("{\"ftime\":\"2024101812\",\"ds\":\"20241018\",\"rows\":[");
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"uid\":").append(i * 7919 % 100000)
+                    .append(",\"action\":\"").append(i % 5 == 0 ? "skip" : "click")
+                    .append("\",\"page\":\"/home/item/").append(i % 500)
+                    .append("\",\"cost\":").append(i * 31 % 1000).append('}');
+        }
+        builder.append("]}");
+        return builder.toString();
+    }
+}
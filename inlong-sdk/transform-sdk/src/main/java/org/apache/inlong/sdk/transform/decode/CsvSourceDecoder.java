@@ -60,7 +60,7 @@ public class CsvSourceDecoder extends SourceDecoder<String> {
     @Override
     public SourceData decode(String srcString, Context context) {
         String[][] rowValues = KvUtils.splitCsv(srcString, delimiter, escapeChar, null, '\n', false);
-        CsvSourceData sourceData = new CsvSourceData(context);
+        CsvSourceData sourceData = new CsvSourceData(context, fieldSlots);
         for (int i = 0; i < rowValues.length; i++) {
             String[] fieldValues = rowValues[i];
             sourceData.addRow();
@@ -73,7 +73,6 @@ public class CsvSourceDecoder extends SourceDecoder<String> {
             }
             int fieldIndex = 0;
             for (FieldInfo field : fields) {
-                String fieldName = field.getName();
                 Object fieldValue = null;
                 if (fieldIndex < fieldValues.length) {
                     try {
@@ -82,7 +81,11 @@ public class CsvSourceDecoder extends SourceDecoder<String> {
 
                     }
                 }
-                sourceData.putField(fieldName, fieldValue);
+                if (fieldSlots.isEmpty()) {
+                    sourceData.putField(field.getName(), fieldValue);
+                } else {
+                    sourceData.putField(fieldIndex, fieldValue);
+                }
                 fieldIndex++;
             }
         }
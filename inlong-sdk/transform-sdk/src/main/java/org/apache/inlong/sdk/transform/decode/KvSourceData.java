@@ -33,33 +33,84 @@ public class KvSourceData extends AbstractSourceData {
 
     private Map<String, String> currentRow;
 
+    // rows stored by the slots of the decoder field list, null if no field is configured
+    private final Map<String, Integer> fieldSlots;
+    private final List<String[]> slotRows;
+
+    private String[] currentSlotRow;
+
     public KvSourceData(Context context) {
+        this(context, null);
+    }
+
+    public KvSourceData(Context context, Map<String, Integer> fieldSlots) {
         this.context = context;
+        if (fieldSlots == null || fieldSlots.isEmpty()) {
+            this.fieldSlots = null;
+            this.slotRows = null;
+        } else {
+            this.fieldSlots = fieldSlots;
+            this.slotRows = new ArrayList<>();
+        }
     }
 
     public void putField(String fieldName, String fieldValue) {
+        if (this.slotRows != null) {
+            Integer fieldSlot = this.fieldSlots.get(fieldName);
+            if (fieldSlot != null) {
+                this.currentSlotRow[fieldSlot] = fieldValue;
+            }
+            return;
+        }
         this.currentRow.put(fieldName, fieldValue);
     }
 
+    public void putField(int fieldSlot, String fieldValue) {
+        this.currentSlotRow[fieldSlot] = fieldValue;
+    }
+
     public void addRow() {
+        if (this.slotRows != null) {
+            this.currentSlotRow = new String[this.fieldSlots.size()];
+            slotRows.add(currentSlotRow);
+            return;
+        }
         this.currentRow = new HashMap<>();
         rows.add(currentRow);
     }
 
     @Override
     public int getRowCount() {
+        if (this.slotRows != null) {
+            return this.slotRows.size();
+        }
         return this.rows.size();
     }
 
     @Override
     public String getField(int rowNum, String fieldName) {
-        if (rowNum >= this.rows.size()) {
+        if (rowNum >= getRowCount()) {
             return null;
         }
         if (isContextField(fieldName)) {
             return getContextField(fieldName);
         }
+        if (this.slotRows != null) {
+            Integer fieldSlot = this.fieldSlots.get(fieldName);
+            return fieldSlot == null ? null : this.slotRows.get(rowNum)[fieldSlot];
+        }
         Map<String, String> targetRow = this.rows.get(rowNum);
         return targetRow.get(fieldName);
     }
+
+    @Override
+    public String getField(int rowNum, int fieldSlot, String fieldName) {
+        if (this.slotRows == null || fieldSlot < 0) {
+            return getField(rowNum, fieldName);
+        }
+        if (rowNum >= this.slotRows.size()) {
+            return null;
+        }
+        return this.slotRows.get(rowNum)[fieldSlot];
+    }
 }
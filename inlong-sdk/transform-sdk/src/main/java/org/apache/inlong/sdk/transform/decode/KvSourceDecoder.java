@@ -17,7 +17,6 @@
 
 package org.apache.inlong.sdk.transform.decode;
 
-import org.apache.inlong.sdk.transform.pojo.FieldInfo;
 import org.apache.inlong.sdk.transform.pojo.KvSourceInfo;
 import org.apache.inlong.sdk.transform.process.Context;
 
@@ -75,7 +74,7 @@ public class KvSourceDecoder extends SourceDecoder<String> {
     public SourceData decode(String srcString, Context context) {
         List<Map<String, String>> rowValues = KvUtils.splitKv(srcString, entryDelimiter, kvDelimiter,
                 escapeChar, quoteChar, lineDelimiter);
-        KvSourceData sourceData = new KvSourceData(context);
+        KvSourceData sourceData = new KvSourceData(context, fieldSlots);
         if (CollectionUtils.isEmpty(fields)) {
             for (Map<String, String> row : rowValues) {
                 sourceData.addRow();
@@ -85,10 +84,13 @@ public class KvSourceDecoder extends SourceDecoder<String> {
         }
         for (Map<String, String> row : rowValues) {
             sourceData.addRow();
-            for (FieldInfo field : fields) {
-                String fieldName = field.getName();
-                String fieldValue = row.get(fieldName);
-                sourceData.putField(fieldName, fieldValue);
+            for (int i = 0; i < fields.size(); i++) {
+                String fieldName = fields.get(i).getName();
+                if (fieldSlots.isEmpty()) {
+                    sourceData.putField(fieldName, row.get(fieldName));
+                } else {
+                    sourceData.putField(i, row.get(fieldName));
+                }
             }
         }
         return sourceData;
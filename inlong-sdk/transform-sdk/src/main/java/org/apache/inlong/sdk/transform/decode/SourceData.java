@@ -27,4 +27,17 @@ public interface SourceData {
     int getRowCount();
 
     Object getField(int rowNum, String fieldName);
+
+    /**
+     * get the field by the slot resolved from the decoder field list,
+     *  the source data without slot storage looks up the field by name
+     *
+     * @param rowNum    the row index
+     * @param fieldSlot the field index in the decoder field list, -1 if not resolved
+     * @param fieldName the field name
+     * @return the field value
+     */
+    default Object getField(int rowNum, int fieldSlot, String fieldName) {
+        return getField(rowNum, fieldName);
+    }
 }
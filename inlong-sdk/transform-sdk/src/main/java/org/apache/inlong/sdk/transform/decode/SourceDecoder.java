@@ -23,7 +23,10 @@ import org.apache.inlong.sdk.transform.process.Context;
 import com.google.common.collect.ImmutableList;
 import lombok.Getter;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * SourceDecoder
@@ -32,6 +35,7 @@ import java.util.List;
 public abstract class SourceDecoder<Input> {
 
     protected final List<FieldInfo> fields;
+    protected final Map<String, Integer> fieldSlots;
 
     public SourceDecoder() {
         this(ImmutableList.of());
@@ -39,6 +43,32 @@ public abstract class SourceDecoder<Input> {
 
     public SourceDecoder(List<FieldInfo> fields) {
         this.fields = fields;
+        this.fieldSlots = buildFieldSlots(fields);
+    }
+
+    private static Map<String, Integer> buildFieldSlots(List<FieldInfo> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> slots = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            if (slots.put(fields.get(i).getName(), i) != null) {
+                // duplicated field names keep the rows stored by name
+                return Collections.emptyMap();
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * get the slot of the field in the decoded rows
+     *
+     * @param fieldName the field name
+     * @return the index of the field in the field list, -1 if the field is not configured
+     */
+    public int getFieldSlot(String fieldName) {
+        Integer slot = fieldSlots.get(fieldName);
+        return slot == null ? -1 : slot;
     }
 
     public abstract SourceData decode(byte[] srcBytes, Context context);
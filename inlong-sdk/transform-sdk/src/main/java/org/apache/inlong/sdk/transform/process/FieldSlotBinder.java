@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.transform.process;
+
+import org.apache.inlong.sdk.transform.decode.SourceDecoder;
+import org.apache.inlong.sdk.transform.process.parser.ColumnParser;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * FieldSlotBinder
+ *  walk the built parser and operator tree once and bind every column reference,
+ *  including the ones nested in functions, operators and the where clause,
+ *  to its slot in the decoder field list
+ */
+@Slf4j
+public class FieldSlotBinder {
+
+    private static final String PROCESS_PATH = "org.apache.inlong.sdk.transform.process";
+
+    private final SourceDecoder<?> decoder;
+    private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public FieldSlotBinder(SourceDecoder<?> decoder) {
+        this.decoder = decoder;
+    }
+
+    /**
+     * bind the column references reachable from the node
+     * @param node the parser or operator
+     */
+    public void bind(Object node) {
+        if (node == null || !visited.add(node)) {
+            return;
+        }
+        if (node instanceof ColumnParser) {
+            ColumnParser columnParser = (ColumnParser) node;
+            columnParser.setFieldSlot(decoder.getFieldSlot(columnParser.getFieldName()));
+            return;
+        }
+        if (node instanceof Collection) {
+            for (Object child : (Collection<?>) node) {
+                bind(child);
+            }
+            return;
+        }
+        if (node instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) node).entrySet()) {
+                bind(entry.getKey());
+                bind(entry.getValue());
+            }
+            return;
+        }
+        if (node instanceof Object[]) {
+            for (Object child : (Object[]) node) {
+                bind(child);
+            }
+            return;
+        }
+        // only the parsers, operators, functions and their helper classes hold sub nodes
+        for (Class<?> clazz = node.getClass(); clazz != null
+                && clazz.getName().startsWith(PROCESS_PATH); clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    bind(field.get(node));
+                } catch (Exception e) {
+                    // the column keeps the lookup by name
+                    log.warn("can not bind the field slots of {}.{}", clazz.getName(), field.getName(), e);
+                }
+            }
+        }
+    }
+}
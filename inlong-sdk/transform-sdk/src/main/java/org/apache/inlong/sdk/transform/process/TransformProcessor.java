@@ -100,6 +100,8 @@ public class TransformProcessor<I, O> {
         Select select = (Select) parserManager.parse(new StringReader(sql));
         this.transformSelect = (PlainSelect) select.getSelectBody();
         this.where = OperatorTools.buildOperator(this.transformSelect.getWhere());
+        FieldSlotBinder slotBinder = new FieldSlotBinder(decoder);
+        slotBinder.bind(this.where);
         List<SelectItem> items = this.transformSelect.getSelectItems();
         this.selectItems = new ArrayList<>(items.size());
         List<FieldInfo> fields = this.encoder.getFields();
@@ -122,12 +124,15 @@ public class TransformProcessor<I, O> {
                                 String.format("Field name:%s can not be found in sink field list.", fieldName));
                     }
                 }
-                this.selectItems
-                        .add(new ValueParserNode(fieldName, OperatorTools.buildParser(exprItem.getExpression())));
+                ValueParser parser = OperatorTools.buildParser(exprItem.getExpression());
+                slotBinder.bind(parser);
+                this.selectItems.add(new ValueParserNode(fieldName, parser));
             } else if (item instanceof AllColumns) {
                 for (FieldInfo fieldInfo : decoder.getFields()) {
                     String name = fieldInfo.getName();
-                    this.selectItems.add(new ValueParserNode(name, new ColumnParser(new Column(name))));
+                    ColumnParser parser = new ColumnParser(new Column(name));
+                    slotBinder.bind(parser);
+                    this.selectItems.add(new ValueParserNode(name, parser));
                 }
             }
         }
@@ -31,6 +31,7 @@ import net.sf.jsqlparser.schema.Column;
 public class ColumnParser implements ValueParser {
 
     private final String fieldName;
+    private int fieldSlot = -1;
 
     public ColumnParser(Column expr) {
         this.fieldName = expr.toString();
@@ -40,6 +41,19 @@ public class ColumnParser implements ValueParser {
         this.fieldName = expr.toString();
     }
 
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * bind the slot resolved from the decoder field list, so that the rows
+     *  with slot storage are read without the lookup by name
+     * @param fieldSlot
+     */
+    public void setFieldSlot(int fieldSlot) {
+        this.fieldSlot = fieldSlot;
+    }
+
     /**
      * parse
      * @param sourceData
@@ -48,7 +62,7 @@ public class ColumnParser implements ValueParser {
      */
     @Override
     public Object parse(SourceData sourceData, int rowIndex, Context context) {
-        return sourceData.getField(rowIndex, fieldName);
+        return sourceData.getField(rowIndex, fieldSlot, fieldName);
     }
 
 }
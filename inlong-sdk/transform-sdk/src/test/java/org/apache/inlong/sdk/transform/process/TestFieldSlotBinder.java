@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sdk.transform.process;
+
+import org.apache.inlong.common.pojo.sort.dataflow.field.format.StringFormatInfo;
+import org.apache.inlong.sdk.transform.decode.SourceData;
+import org.apache.inlong.sdk.transform.decode.SourceDecoderFactory;
+import org.apache.inlong.sdk.transform.pojo.CsvSourceInfo;
+import org.apache.inlong.sdk.transform.pojo.FieldInfo;
+import org.apache.inlong.sdk.transform.process.operator.ExpressionOperator;
+import org.apache.inlong.sdk.transform.process.operator.OperatorTools;
+import org.apache.inlong.sdk.transform.process.parser.ValueParser;
+
+import net.sf.jsqlparser.parser.CCJSqlParserManager;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectExpressionItem;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Test for {@link FieldSlotBinder}
+ */
+public class TestFieldSlotBinder {
+
+    @Test
+    public void testBindNestedColumns() throws Exception {
+        List<FieldInfo> fields = new ArrayList<>();
+        for (String fieldName : new String[]{"ftime", "extinfo", "ds"}) {
+            FieldInfo field = new FieldInfo();
+            field.setName(fieldName);
+            field.setFormatInfo(new StringFormatInfo());
+            fields.add(field);
+        }
+        CsvSourceInfo csvSource = new CsvSourceInfo("UTF-8", '|', '\\', fields);
+        String sql = "select concat(ftime, '-', upper(extinfo)), case when ds = 'd1' then ftime else ds end"
+                + " from source where (ds = 'd1' or length(extinfo) > 3) and not ftime is null";
+        PlainSelect select = (PlainSelect) ((Select) new CCJSqlParserManager()
+                .parse(new StringReader(sql))).getSelectBody();
+        ExpressionOperator where = OperatorTools.buildOperator(select.getWhere());
+        ValueParser concatParser = OperatorTools.buildParser(
+                ((SelectExpressionItem) select.getSelectItems().get(0)).getExpression());
+        ValueParser caseParser = OperatorTools.buildParser(
+                ((SelectExpressionItem) select.getSelectItems().get(1)).getExpression());
+        FieldSlotBinder slotBinder = new FieldSlotBinder(SourceDecoderFactory.createCsvDecoder(csvSource));
+        slotBinder.bind(where);
+        slotBinder.bind(concatParser);
+        slotBinder.bind(caseParser);
+
+        // the source data only serves the bound slots, any lookup by name fails
+        SourceData sourceData = new SourceData() {
+
+            private final String[] row = {"t1", "abc", "d1"};
+
+            @Override
+            public int getRowCount() {
+                return 1;
+            }
+
+            @Override
+            public Object getField(int rowNum, String fieldName) {
+                throw new IllegalStateException("field " + fieldName + " is not bound to a slot");
+            }
+
+            @Override
+            public Object getField(int rowNum, int fieldSlot, String fieldName) {
+                if (fieldSlot < 0) {
+                    return getField(rowNum, fieldName);
+                }
+                return row[fieldSlot];
+            }
+        };
+        Context context = new Context(new HashMap<>(), new HashMap<>());
+        Assert.assertTrue(where.check(sourceData, 0, context));
+        Assert.assertEquals("t1-ABC", concatParser.parse(sourceData, 0, context));
+        Assert.assertEquals("t1", caseParser.parse(sourceData, 0, context));
+    }
+}
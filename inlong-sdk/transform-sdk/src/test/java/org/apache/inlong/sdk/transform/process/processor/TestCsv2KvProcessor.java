@@ -62,6 +62,31 @@ public class TestCsv2KvProcessor extends AbstractProcessorTestBase {
         Assert.assertEquals(0, output2.size());
     }
 
+    @Test
+    public void testCsv2KvFieldSlot() throws Exception {
+        List<FieldInfo> fields = this.getTestFieldList("ftime", "extinfo", "ds");
+        CsvSourceInfo csvSource = new CsvSourceInfo("UTF-8", '|', '\\', fields);
+        KvSinkInfo kvSink = new KvSinkInfo("UTF-8", fields);
+        String transformSql = "select ftime,extinfo,ds from source where extinfo!='skip'";
+        TransformConfig config = new TransformConfig(transformSql);
+        TransformProcessor<String, String> processor = TransformProcessor
+                .create(config, SourceDecoderFactory.createCsvDecoder(csvSource),
+                        SinkEncoderFactory.createKvEncoder(kvSink));
+        List<String> output = processor.transform("t1|ok|d1\nt2|skip|d2\nt3|ok", new HashMap<>());
+        Assert.assertEquals(2, output.size());
+        Assert.assertEquals("ftime=t1&extinfo=ok&ds=d1", output.get(0));
+        Assert.assertEquals("ftime=t3&extinfo=ok&ds=", output.get(1));
+        // duplicated source field names are looked up by name
+        List<FieldInfo> dupFields = this.getTestFieldList("ftime", "extinfo", "extinfo");
+        CsvSourceInfo dupSource = new CsvSourceInfo("UTF-8", '|', '\\', dupFields);
+        TransformProcessor<String, String> dupProcessor = TransformProcessor
+                .create(config, SourceDecoderFactory.createCsvDecoder(dupSource),
+                        SinkEncoderFactory.createKvEncoder(kvSink));
+        List<String> dupOutput = dupProcessor.transform("t1|ok|ok2", new HashMap<>());
+        Assert.assertEquals(1, dupOutput.size());
+        Assert.assertEquals("ftime=t1&extinfo=ok2&ds=", dupOutput.get(0));
+    }
+
     @Test
     public void testCsv2KvNoField() throws Exception {
         CsvSourceInfo csvSource = new CsvSourceInfo("UTF-8", '|', '\\', null);
@@ -17,6 +17,8 @@
 
 package org.apache.inlong.sort.formats.inlongmsgpb;
 
+import org.apache.inlong.sdk.commons.utils.ZstdUtils;
+
 import org.apache.flink.configuration.ConfigOption;
 import org.apache.flink.configuration.ConfigOptions;
 import org.apache.flink.configuration.ReadableConfig;
@@ -45,9 +47,17 @@ public class InLongMsgPbOptions {
             ConfigOptions.key("decompress.type")
                     .stringType()
                     .defaultValue("gzip")
-                    .withDescription("Specify the decompress type of inlong pb message. \n"
+                    .withDescription("Specify the decompress type of inlong pb message, "
+                            + "gzip, snappy, zstd, lz4 or no-compress. \n"
                             + "The default type is Gzip");
 
+    public static final ConfigOption<String> ZSTD_DICT_DIR =
+            ConfigOptions.key(ZstdUtils.KEY_ZSTD_DICT_DIR)
+                    .stringType()
+                    .defaultValue("")
+                    .withDescription("The directory of the zstd dictionaries used by the DataProxy, "
+                            + "required if the zstd packs are compressed with dictionaries.");
+
     public static final ConfigOption<Boolean> IGNORE_TRAILING_UNMAPPABLE =
             ConfigOptions.key("ignore-trailing-unmappable")
                     .booleanType()
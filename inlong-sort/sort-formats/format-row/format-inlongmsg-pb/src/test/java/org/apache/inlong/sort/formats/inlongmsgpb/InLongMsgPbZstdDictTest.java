@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.sort.formats.inlongmsgpb;
+
+import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessageObj;
+import org.apache.inlong.sdk.commons.protocol.ProxySdk.MessageObjs;
+import org.apache.inlong.sdk.commons.utils.ZstdUtils;
+import org.apache.inlong.sort.formats.inlongmsgpb.InLongMsgPbDeserializationSchema.InLongPbMsgDecompressor;
+import org.apache.inlong.sort.formats.inlongmsgpb.InLongMsgPbDeserializationSchema.MetadataConverter;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.google.protobuf.ByteString;
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for the zstd dictionary decompression of {@link InLongMsgPbDeserializationSchema}
+ */
+public class InLongMsgPbZstdDictTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testDeserializeDictCompressedPack() throws Exception {
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            samples.add(("ftime=20241018" + (i % 24) + "&uid=" + (i * 7919 % 1000)
+                    + "&action=click&page=/home/index&os=android&net=wifi").getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] dict = ZstdUtils.trainDictionary(samples, 4 * 1024);
+        File dictDir = tempFolder.newFolder("dict");
+        Files.write(new File(dictDir, "testGroup#testStream" + ZstdUtils.DICT_FILE_SUFFIX).toPath(), dict);
+        // compress the pack as the DataProxy does with the stream dictionary
+        MessageObjs.Builder msgObjs = MessageObjs.newBuilder();
+        for (int i = 0; i < 3; i++) {
+            msgObjs.addMsgs(MessageObj.newBuilder()
+                    .setMsgTime(System.currentTimeMillis())
+                    .setSourceIp("127.0.0.1")
+                    .setBody(ByteString.copyFrom(samples.get(i))));
+        }
+        byte[] packBytes = Zstd.compress(msgObjs.build().toByteArray(),
+                new ZstdDictCompress(dict, ZstdUtils.DEFAULT_LEVEL));
+        // the pack can not be decoded without the dictionaries
+        try {
+            buildSchema(InLongMsgPbDecodingFormat.getDecompressor("zstd", ""))
+                    .deserialize(packBytes, new ListCollector<>(new ArrayList<>()));
+            fail("the pack compressed with dictionary should not be decoded without dictionary");
+        } catch (IOException e) {
+            // expected
+        }
+        // the decoder loads the dictionaries from the configured directory
+        List<RowData> rows = new ArrayList<>();
+        buildSchema(InLongMsgPbDecodingFormat.getDecompressor("zstd", dictDir.getPath()))
+                .deserialize(packBytes, new ListCollector<>(rows));
+        assertEquals(3, rows.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(new String(samples.get(i), StandardCharsets.UTF_8), rows.get(i).getString(0).toString());
+        }
+    }
+
+    private InLongMsgPbDeserializationSchema buildSchema(InLongPbMsgDecompressor decompressor) {
+        return new InLongMsgPbDeserializationSchema(new BodyDeserializationSchema(),
+                new MetadataConverter[0], null, decompressor, false);
+    }
+
+    /** deserialize the message body into a row with one string field */
+    private static class BodyDeserializationSchema implements DeserializationSchema<RowData> {
+
+        @Override
+        public RowData deserialize(byte[] message) {
+            return GenericRowData.of(StringData.fromBytes(message));
+        }
+
+        @Override
+        public boolean isEndOfStream(RowData nextElement) {
+            return false;
+        }
+
+        @Override
+        public TypeInformation<RowData> getProducedType() {
+            return null;
+        }
+    }
+}
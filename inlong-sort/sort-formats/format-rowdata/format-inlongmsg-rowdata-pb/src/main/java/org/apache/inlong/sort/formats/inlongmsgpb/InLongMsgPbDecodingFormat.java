@@ -19,6 +19,8 @@ package org.apache.inlong.sort.formats.inlongmsgpb;
 
 import org.apache.inlong.sdk.commons.protocol.ProxySdk;
 import org.apache.inlong.sdk.commons.utils.GzipUtils;
+import org.apache.inlong.sdk.commons.utils.Lz4Utils;
+import org.apache.inlong.sdk.commons.utils.ZstdUtils;
 import org.apache.inlong.sort.formats.inlongmsgpb.InLongMsgPbDeserializationSchema.InLongPbMsgDecompressor;
 import org.apache.inlong.sort.formats.inlongmsgpb.InLongMsgPbDeserializationSchema.MetadataConverter;
 
@@ -73,18 +75,22 @@ public class InLongMsgPbDecodingFormat implements DecodingFormat<Deserialization
 
     private final boolean ignoreTrailingUnmappable;
 
+    private final String zstdDictDir;
+
     public InLongMsgPbDecodingFormat(
             DecodingFormat<DeserializationSchema<RowData>> innerDecodingFormat,
             String innerFormatMetaPrefix,
             boolean ignoreErrors,
             boolean ignoreTrailingUnmappable,
-            String decompressType) {
+            String decompressType,
+            String zstdDictDir) {
         this.innerDecodingFormat = innerDecodingFormat;
         this.innerFormatMetaPrefix = innerFormatMetaPrefix;
         this.metadataKeys = Collections.emptyList();
         this.ignoreErrors = ignoreErrors;
         this.ignoreTrailingUnmappable = ignoreTrailingUnmappable;
         this.decompressType = decompressType;
+        this.zstdDictDir = zstdDictDir;
     }
 
     @Override
@@ -109,7 +115,7 @@ public class InLongMsgPbDecodingFormat implements DecodingFormat<Deserialization
                 DataTypeUtils.appendRowFields(physicalDataType, metadataFields);
         final TypeInformation<RowData> producedTypeInfo =
                 context.createTypeInformation(producedDataType);
-        final InLongPbMsgDecompressor decompressor = getDecompressor(decompressType);
+        final InLongPbMsgDecompressor decompressor = getDecompressor(decompressType, zstdDictDir);
 
         DeserializationSchema<RowData> innerSchema =
                 innerDecodingFormat.createRuntimeDecoder(context, physicalDataType);
@@ -167,13 +173,21 @@ public class InLongMsgPbDecodingFormat implements DecodingFormat<Deserialization
         return innerDecodingFormat.getChangelogMode();
     }
 
-    /** only support gzip and snappy for now */
-    private InLongPbMsgDecompressor getDecompressor(String decompressType) {
+    /** support gzip, snappy, zstd and lz4 */
+    static InLongPbMsgDecompressor getDecompressor(String decompressType, String zstdDictDir) {
         switch (decompressType.toLowerCase(Locale.ROOT)) {
             case "gzip":
                 return GzipUtils::decompress;
             case "snappy":
                 return Snappy::uncompress;
+            case "zstd":
+                // the dictionaries are loaded in the task which runs the decoder
+                return message -> {
+                    ZstdUtils.loadDictionariesOnce(zstdDictDir);
+                    return ZstdUtils.decompress(message);
+                };
+            case "lz4":
+                return Lz4Utils::decompress;
             case "no-compress":
             default:
                 return unDecompress -> unDecompress;
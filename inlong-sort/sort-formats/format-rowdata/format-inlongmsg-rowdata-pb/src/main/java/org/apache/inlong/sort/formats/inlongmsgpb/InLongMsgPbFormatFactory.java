@@ -38,6 +38,7 @@ import static org.apache.inlong.sort.formats.inlongmsgpb.InLongMsgPbOptions.DECO
 import static org.apache.inlong.sort.formats.inlongmsgpb.InLongMsgPbOptions.IGNORE_PARSE_ERRORS;
 import static org.apache.inlong.sort.formats.inlongmsgpb.InLongMsgPbOptions.IGNORE_TRAILING_UNMAPPABLE;
 import static org.apache.inlong.sort.formats.inlongmsgpb.InLongMsgPbOptions.INNER_FORMAT;
+import static org.apache.inlong.sort.formats.inlongmsgpb.InLongMsgPbOptions.ZSTD_DICT_DIR;
 import static org.apache.inlong.sort.formats.inlongmsgpb.InLongMsgPbOptions.validateDecodingFormatOptions;
 
 /**
@@ -69,8 +70,9 @@ public final class InLongMsgPbFormatFactory
         boolean ignoreErrors = formatOptions.get(IGNORE_PARSE_ERRORS);
         boolean ignoreTrailingUnmappable = formatOptions.get(IGNORE_TRAILING_UNMAPPABLE);
         String decompressType = formatOptions.get(DECOMPRESS_TYPE);
+        String zstdDictDir = formatOptions.get(ZSTD_DICT_DIR);
         return new InLongMsgPbDecodingFormat(innerFormat, innerFormatMetaPrefix,
-                ignoreErrors, ignoreTrailingUnmappable, decompressType);
+                ignoreErrors, ignoreTrailingUnmappable, decompressType, zstdDictDir);
     }
 
     @Override
@@ -97,6 +99,7 @@ public final class InLongMsgPbFormatFactory
         Set<ConfigOption<?>> options = new HashSet<>();
         options.add(IGNORE_PARSE_ERRORS);
         options.add(IGNORE_TRAILING_UNMAPPABLE);
+        options.add(ZSTD_DICT_DIR);
         return options;
     }
 }
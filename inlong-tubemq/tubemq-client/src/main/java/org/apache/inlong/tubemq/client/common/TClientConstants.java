@@ -17,6 +17,9 @@
 
 package org.apache.inlong.tubemq.client.common;
 
+import org.apache.inlong.tubemq.corebase.TBaseConstants;
+import org.apache.inlong.tubemq.corerpc.RpcConstants;
+
 public class TClientConstants {
 
     public static final int CFG_DEFAULT_REGISTER_RETRY_TIMES = 5;
@@ -39,4 +42,13 @@ public class TClientConstants {
 
     public static final long CFG_DEFAULT_META_QUERY_WAIT_PERIOD_MS = 10000L;
     public static final long CFG_MIN_META_QUERY_WAIT_PERIOD_MS = 5000L;
+
+    public static final long CFG_DEFAULT_PRODUCE_BATCH_LINGER_MS = 0L;
+    public static final int CFG_DEFAULT_PRODUCE_BATCH_MAX_MSG_COUNT = 100;
+    public static final int CFG_DEFAULT_PRODUCE_BATCH_MAX_SIZE = 512 * 1024;
+    // a batch is closed after the message exceeding the max size is added,
+    // so leave room for one max size message within the max frame size
+    public static final int CFG_MAX_PRODUCE_BATCH_MAX_SIZE =
+            RpcConstants.MAX_FRAME_MAX_LIST_SIZE * RpcConstants.RPC_MAX_BUFFER_SIZE
+                    - TBaseConstants.META_MAX_MESSAGE_DATA_SIZE_UPPER_LIMIT;
 }
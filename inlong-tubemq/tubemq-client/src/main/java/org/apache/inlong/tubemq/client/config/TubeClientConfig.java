@@ -88,6 +88,12 @@ public class TubeClientConfig {
     private long linkMaxAllowedDelayedMsgCount = 50000;
     // Max allowed delayed message number in a session.
     private long sessionMaxAllowedDelayedMsgCount = 500000;
+    // Max linger time of a produce batch, 0 means sending messages one by one.
+    private long produceBatchLingerMs = TClientConstants.CFG_DEFAULT_PRODUCE_BATCH_LINGER_MS;
+    // Max message count of a produce batch.
+    private int produceBatchMaxMsgCount = TClientConstants.CFG_DEFAULT_PRODUCE_BATCH_MAX_MSG_COUNT;
+    // Max data size of a produce batch.
+    private int produceBatchMaxSize = TClientConstants.CFG_DEFAULT_PRODUCE_BATCH_MAX_SIZE;
     // Enable user auth.
     private boolean enableUserAuthentic = false;
     // User name.
@@ -369,6 +375,45 @@ public class TubeClientConfig {
         this.sessionMaxAllowedDelayedMsgCount = sessionMaxAllowedDelayedMsgCount;
     }
 
+    public long getProduceBatchLingerMs() {
+        return produceBatchLingerMs;
+    }
+
+    /**
+     * Set the max linger time of a produce batch. When it is greater than 0,
+     * the asynchronous sent messages are accumulated per partition and sent
+     * to the broker in batches, the broker must support the batch produce API.
+     *
+     * @param produceBatchLingerMs   the max linger time, 0 means disabled
+     */
+    public void setProduceBatchLingerMs(long produceBatchLingerMs) {
+        this.produceBatchLingerMs = Math.max(0, produceBatchLingerMs);
+    }
+
+    public int getProduceBatchMaxMsgCount() {
+        return produceBatchMaxMsgCount;
+    }
+
+    public void setProduceBatchMaxMsgCount(int produceBatchMaxMsgCount) {
+        this.produceBatchMaxMsgCount = Math.max(1, produceBatchMaxMsgCount);
+    }
+
+    public int getProduceBatchMaxSize() {
+        return produceBatchMaxSize;
+    }
+
+    /**
+     * Set the max data size of a produce batch, the value is limited to
+     * [1, TClientConstants.CFG_MAX_PRODUCE_BATCH_MAX_SIZE] so that a batch
+     * always fits in one rpc frame.
+     *
+     * @param produceBatchMaxSize   the max data size of a batch
+     */
+    public void setProduceBatchMaxSize(int produceBatchMaxSize) {
+        this.produceBatchMaxSize = Math.min(TClientConstants.CFG_MAX_PRODUCE_BATCH_MAX_SIZE,
+                Math.max(1, produceBatchMaxSize));
+    }
+
     /**
      * Set authenticate information
      *
@@ -551,6 +596,15 @@ public class TubeClientConfig {
         if (sessionMaxAllowedDelayedMsgCount != that.sessionMaxAllowedDelayedMsgCount) {
             return false;
         }
+        if (produceBatchLingerMs != that.produceBatchLingerMs) {
+            return false;
+        }
+        if (produceBatchMaxMsgCount != that.produceBatchMaxMsgCount) {
+            return false;
+        }
+        if (produceBatchMaxSize != that.produceBatchMaxSize) {
+            return false;
+        }
         if (enableUserAuthentic != that.enableUserAuthentic) {
             return false;
         }
@@ -612,6 +666,9 @@ public class TubeClientConfig {
                 .append(",\"sessionWarnDelayedMsgCount\":").append(this.sessionWarnDelayedMsgCount)
                 .append(",\"linkMaxAllowedDelayedMsgCount\":").append(this.linkMaxAllowedDelayedMsgCount)
                 .append(",\"sessionMaxAllowedDelayedMsgCount\":").append(this.sessionMaxAllowedDelayedMsgCount)
+                .append(",\"produceBatchLingerMs\":").append(this.produceBatchLingerMs)
+                .append(",\"produceBatchMaxMsgCount\":").append(this.produceBatchMaxMsgCount)
+                .append(",\"produceBatchMaxSize\":").append(this.produceBatchMaxSize)
                 .append(",\"unAvailableFbdDurationMs\":").append(this.unAvailableFbdDurationMs)
                 .append(",\"enableUserAuthentic\":").append(this.enableUserAuthentic)
                 .append(",").append(this.statsConfig.toString())
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.client.producer;
+
+import org.apache.inlong.tubemq.corebase.Message;
+import org.apache.inlong.tubemq.corebase.cluster.Partition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulate the asynchronous sent messages per partition, and hand the batches over to
+ * the sender when the message count or data size limit is reached, or the oldest message
+ * in the batch has lingered for the configured time.
+ */
+public class ProducerBatchAccumulator {
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(ProducerBatchAccumulator.class);
+    private final long lingerMs;
+    private final int maxMsgCount;
+    private final int maxBatchSize;
+    private final BatchSender batchSender;
+    private final ConcurrentHashMap<String, PartitionBatch> batchMap =
+            new ConcurrentHashMap<>();
+    private final ScheduledExecutorService lingerExecutor;
+
+    /**
+     * Initial a batch accumulator
+     *
+     * @param lingerMs       the max linger time of a batch
+     * @param maxMsgCount    the max message count of a batch
+     * @param maxBatchSize   the max data size of a batch
+     * @param batchSender    the sender of ready batches
+     */
+    public ProducerBatchAccumulator(long lingerMs, int maxMsgCount,
+            int maxBatchSize, BatchSender batchSender) {
+        this.lingerMs = lingerMs;
+        this.maxMsgCount = maxMsgCount;
+        this.maxBatchSize = maxBatchSize;
+        this.batchSender = batchSender;
+        this.lingerExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "tube_producer_batch_linger");
+            t.setDaemon(true);
+            return t;
+        });
+        long checkPeriodMs = Math.max(1, lingerMs / 2);
+        this.lingerExecutor.scheduleWithFixedDelay(this::sendExpiredBatches,
+                checkPeriodMs, checkPeriodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Append a message to the batch of its partition.
+     *
+     * @param partition   the partition the message sent to
+     * @param message     the message
+     * @param dataSize    the encoded data size of the message
+     * @param callback    the callback of the message
+     */
+    public void append(Partition partition, Message message,
+            int dataSize, MessageSentCallback callback) {
+        PartitionBatch readyBatch = null;
+        PartitionBatch batch = batchMap.get(partition.getPartitionKey());
+        if (batch == null) {
+            PartitionBatch newBatch = new PartitionBatch(partition);
+            batch = batchMap.putIfAbsent(partition.getPartitionKey(), newBatch);
+            if (batch == null) {
+                batch = newBatch;
+            }
+        }
+        synchronized (batch) {
+            batch.add(message, dataSize, callback);
+            if (batch.messages.size() >= maxMsgCount
+                    || batch.dataSize >= maxBatchSize) {
+                readyBatch = batch.drain();
+            }
+        }
+        if (readyBatch != null) {
+            sendBatch(readyBatch);
+        }
+    }
+
+    /**
+     * Stop the linger check and send all the pending batches.
+     */
+    public void close() {
+        this.lingerExecutor.shutdownNow();
+        for (PartitionBatch batch : batchMap.values()) {
+            PartitionBatch readyBatch;
+            synchronized (batch) {
+                readyBatch = batch.drain();
+            }
+            if (readyBatch != null) {
+                sendBatch(readyBatch);
+            }
+        }
+    }
+
+    private void sendExpiredBatches() {
+        long curTime = System.currentTimeMillis();
+        for (PartitionBatch batch : batchMap.values()) {
+            PartitionBatch readyBatch = null;
+            synchronized (batch) {
+                if (!batch.messages.isEmpty()
+                        && curTime - batch.createTime >= lingerMs) {
+                    readyBatch = batch.drain();
+                }
+            }
+            if (readyBatch != null) {
+                sendBatch(readyBatch);
+            }
+        }
+    }
+
+    private void sendBatch(PartitionBatch batch) {
+        try {
+            batchSender.sendBatch(batch.partition, batch.messages, batch.callbacks);
+        } catch (Throwable e) {
+            logger.warn("[Batch Send] send batch failure for partition "
+                    + batch.partition.getPartitionKey(), e);
+            for (MessageSentCallback callback : batch.callbacks) {
+                callback.onException(e);
+            }
+        }
+    }
+
+    public interface BatchSender {
+
+        void sendBatch(Partition partition, List<Message> messages,
+                List<MessageSentCallback> callbacks) throws Throwable;
+    }
+
+    private static class PartitionBatch {
+
+        private final Partition partition;
+        private List<Message> messages = new ArrayList<>();
+        private List<MessageSentCallback> callbacks = new ArrayList<>();
+        private int dataSize = 0;
+        private long createTime = 0;
+
+        PartitionBatch(Partition partition) {
+            this.partition = partition;
+        }
+
+        void add(Message message, int msgSize, MessageSentCallback callback) {
+            if (messages.isEmpty()) {
+                createTime = System.currentTimeMillis();
+            }
+            messages.add(message);
+            callbacks.add(callback);
+            dataSize += msgSize;
+        }
+
+        PartitionBatch drain() {
+            if (messages.isEmpty()) {
+                return null;
+            }
+            PartitionBatch readyBatch = new PartitionBatch(partition);
+            readyBatch.messages = messages;
+            readyBatch.callbacks = callbacks;
+            readyBatch.dataSize = dataSize;
+            messages = new ArrayList<>();
+            callbacks = new ArrayList<>();
+            dataSize = 0;
+            return readyBatch;
+        }
+    }
+}
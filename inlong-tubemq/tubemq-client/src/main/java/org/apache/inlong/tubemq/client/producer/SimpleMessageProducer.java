@@ -67,6 +67,7 @@ public class SimpleMessageProducer implements MessageProducer {
     private final DefaultBrokerRcvQltyStats brokerRcvQltyStats;
     private final RpcConfig rpcConfig = new RpcConfig();
     private final AtomicBoolean isShutDown = new AtomicBoolean(false);
+    private final ProducerBatchAccumulator batchAccumulator;
 
     /**
      * Initial a producer object
@@ -104,6 +105,14 @@ public class SimpleMessageProducer implements MessageProducer {
                 tubeClientConfig.getRpcNettyWorkMemorySize());
         this.rpcConfig.put(RpcConstants.CALLBACK_WORKER_COUNT,
                 tubeClientConfig.getRpcRspCallBackThreadCnt());
+        if (tubeClientConfig.getProduceBatchLingerMs() > 0) {
+            this.batchAccumulator = new ProducerBatchAccumulator(
+                    tubeClientConfig.getProduceBatchLingerMs(),
+                    tubeClientConfig.getProduceBatchMaxMsgCount(),
+                    tubeClientConfig.getProduceBatchMaxSize(), this::sendBatchMessage);
+        } else {
+            this.batchAccumulator = null;
+        }
     }
 
     /**
@@ -200,6 +209,9 @@ public class SimpleMessageProducer implements MessageProducer {
             return;
         }
         if (this.isShutDown.compareAndSet(false, true)) {
+            if (this.batchAccumulator != null) {
+                this.batchAccumulator.close();
+            }
             this.producerManager.removeTopic(publishTopicMap.keySet());
             this.publishTopicMap.clear();
             this.sessionFactory.removeClient(this);
@@ -253,6 +265,13 @@ public class SimpleMessageProducer implements MessageProducer {
         }
         final Partition partition =
                 this.selectPartition(message, BrokerWriteService.AsyncService.class);
+        if (this.batchAccumulator != null) {
+            int msgSize = TStringUtils.isBlank(message.getAttribute())
+                    ? message.getData().length
+                    : (message.getData().length + message.getAttribute().length());
+            this.batchAccumulator.append(partition, message, msgSize, cb);
+            return;
+        }
         final int brokerId = partition.getBrokerId();
         long startTime = System.currentTimeMillis();
         try {
@@ -304,6 +323,71 @@ public class SimpleMessageProducer implements MessageProducer {
         }
     }
 
+    /**
+     * Send the accumulated messages of a partition in one request,
+     * each message callback is notified with its own result.
+     *
+     * @param partition   the partition the messages sent to
+     * @param messages    the messages
+     * @param callbacks   the callbacks of the messages
+     */
+    private void sendBatchMessage(final Partition partition,
+            final List<Message> messages,
+            final List<MessageSentCallback> callbacks) {
+        final int brokerId = partition.getBrokerId();
+        long startTime = System.currentTimeMillis();
+        try {
+            this.brokerRcvQltyStats.addSendStatistic(brokerId);
+            getAsyncBrokerService(partition.getBroker()).sendBatchMessageP2B(
+                    createSendBatchMessageRequest(partition, messages),
+                    AddressUtils.getLocalAddress(), producerConfig.isTlsEnable(),
+                    new Callback() {
+
+                        @Override
+                        public void handleResult(Object result) {
+                            if (!(result instanceof ClientBroker.SendBatchMessageResponseB2P)) {
+                                return;
+                            }
+                            final ClientBroker.SendBatchMessageResponseB2P responseB2P =
+                                    (ClientBroker.SendBatchMessageResponseB2P) result;
+                            final long dltTime = System.currentTimeMillis() - startTime;
+                            partition.resetRetries();
+                            brokerRcvQltyStats.addReceiveStatistic(brokerId,
+                                    responseB2P.getSuccess());
+                            if (!responseB2P.getSuccess()
+                                    && responseB2P.getErrCode() == TErrCodeConstants.SERVICE_UNAVAILABLE) {
+                                rpcServiceFactory.addUnavailableBroker(brokerId);
+                            }
+                            for (int i = 0; i < messages.size(); i++) {
+                                callbacks.get(i).onMessageSent(buildBatchMsgSentResult(
+                                        dltTime, messages.get(i), partition, responseB2P, i));
+                            }
+                        }
+
+                        @Override
+                        public void handleError(Throwable error) {
+                            producerManager.getClientMetrics().bookFailRpcCall(
+                                    TErrCodeConstants.UNSPECIFIED_ABNORMAL);
+                            partition.increRetries(1);
+                            brokerRcvQltyStats.addReceiveStatistic(brokerId, false);
+                            for (MessageSentCallback callback : callbacks) {
+                                callback.onException(error);
+                            }
+                        }
+                    });
+            rpcServiceFactory.resetRmtAddrErrCount(partition.getBroker().getBrokerAddr());
+        } catch (final Throwable e) {
+            if (e instanceof LocalConnException) {
+                rpcServiceFactory.addRmtAddrErrCount(partition.getBroker().getBrokerAddr());
+            }
+            partition.increRetries(1);
+            this.brokerRcvQltyStats.addReceiveStatistic(brokerId, false);
+            for (MessageSentCallback callback : callbacks) {
+                callback.onException(e);
+            }
+        }
+    }
+
     private MessageSentResult checkMessageAndStatus(final Message message) {
         if (message == null) {
             return new MessageSentResult(message, false,
@@ -371,6 +455,32 @@ public class SimpleMessageProducer implements MessageProducer {
         return builder.build();
     }
 
+    private ClientBroker.SendBatchMessageRequestP2B createSendBatchMessageRequest(
+            Partition partition, List<Message> messages) {
+        ClientBroker.SendBatchMessageRequestP2B.Builder builder =
+                ClientBroker.SendBatchMessageRequestP2B.newBuilder();
+        builder.setClientId(this.producerManager.getProducerId());
+        builder.setTopicName(partition.getTopic());
+        builder.setPartitionId(partition.getPartitionId());
+        builder.setSentAddr(this.producerManager.getProducerAddrId());
+        for (Message message : messages) {
+            ClientBroker.BatchMessageItem.Builder itemBuilder =
+                    ClientBroker.BatchMessageItem.newBuilder();
+            itemBuilder.setData(ByteString.copyFrom(encodePayload(message)));
+            itemBuilder.setFlag(MessageFlagUtils.getFlag(message));
+            itemBuilder.setCheckSum(-1);
+            if (TStringUtils.isNotBlank(message.getMsgType())) {
+                itemBuilder.setMsgType(message.getMsgType());
+            }
+            if (TStringUtils.isNotBlank(message.getMsgTime())) {
+                itemBuilder.setMsgTime(message.getMsgTime());
+            }
+            builder.addMessages(itemBuilder);
+        }
+        builder = this.producerManager.setAuthorizedTokenInfo(builder);
+        return builder.build();
+    }
+
     private byte[] encodePayload(final Message message) {
         final byte[] payload = message.getData();
         final String attribute = message.getAttribute();
@@ -410,6 +520,35 @@ public class SimpleMessageProducer implements MessageProducer {
         }
     }
 
+    private MessageSentResult buildBatchMsgSentResult(final long dltTime,
+            final Message message,
+            final Partition partition,
+            final ClientBroker.SendBatchMessageResponseB2P response,
+            final int index) {
+        if (!response.getSuccess() || index >= response.getResultsCount()) {
+            int errCode = response.getSuccess()
+                    ? TErrCodeConstants.INTERNAL_SERVER_ERROR
+                    : response.getErrCode();
+            producerManager.getClientMetrics().bookFailRpcCall(errCode);
+            return new MessageSentResult(false, errCode,
+                    response.getSuccess() ? "Missing message result in response!" : response.getErrMsg(),
+                    message, TBaseConstants.META_VALUE_UNDEFINED, partition);
+        }
+        final ClientBroker.BatchMessageResult msgResult = response.getResults(index);
+        if (msgResult.getErrCode() == TErrCodeConstants.SUCCESS) {
+            producerManager.getClientMetrics().bookSuccSendMsg(dltTime,
+                    message.getTopic(), partition.getPartitionKey(), message.getData().length);
+            return new MessageSentResult(true,
+                    msgResult.getErrCode(), "Ok!",
+                    message, msgResult.getMessageId(), partition,
+                    msgResult.getAppendTime(), msgResult.getAppendOffset());
+        } else {
+            producerManager.getClientMetrics().bookFailRpcCall(msgResult.getErrCode());
+            return new MessageSentResult(false, msgResult.getErrCode(), msgResult.getErrMsg(),
+                    message, TBaseConstants.META_VALUE_UNDEFINED, partition);
+        }
+    }
+
     private Partition selectPartition(final Message message,
             Class clazz) throws TubeClientException {
         String topic = message.getTopic();
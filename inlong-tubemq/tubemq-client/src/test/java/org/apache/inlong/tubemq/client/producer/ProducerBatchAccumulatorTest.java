@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.client.producer;
+
+import org.apache.inlong.tubemq.corebase.Message;
+import org.apache.inlong.tubemq.corebase.cluster.BrokerInfo;
+import org.apache.inlong.tubemq.corebase.cluster.Partition;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test for {@link ProducerBatchAccumulator}
+ */
+public class ProducerBatchAccumulatorTest {
+
+    private static final MessageSentCallback NOOP_CALLBACK = new MessageSentCallback() {
+
+        @Override
+        public void onMessageSent(MessageSentResult result) {
+        }
+
+        @Override
+        public void onException(Throwable e) {
+        }
+    };
+
+    @Test
+    public void testSendOnCountAndClose() {
+        final List<List<Message>> sentBatches = new ArrayList<>();
+        ProducerBatchAccumulator accumulator = new ProducerBatchAccumulator(60000L, 3, 1024 * 1024,
+                (partition, messages, callbacks) -> {
+                    synchronized (sentBatches) {
+                        sentBatches.add(messages);
+                    }
+                });
+        Partition partition0 = new Partition(new BrokerInfo("0:127.0.0.1:18080"), "test", 0);
+        Partition partition1 = new Partition(new BrokerInfo("0:127.0.0.1:18080"), "test", 1);
+        for (int i = 0; i < 4; i++) {
+            accumulator.append(partition0, new Message("test", new byte[]{1}), 1, NOOP_CALLBACK);
+        }
+        accumulator.append(partition1, new Message("test", new byte[]{1}), 1, NOOP_CALLBACK);
+        // the full batch of partition 0 is sent at once
+        Assert.assertEquals(1, sentBatches.size());
+        Assert.assertEquals(3, sentBatches.get(0).size());
+        // the pending batches are sent while closing
+        accumulator.close();
+        Assert.assertEquals(3, sentBatches.size());
+        Assert.assertEquals(1, sentBatches.get(1).size());
+        Assert.assertEquals(1, sentBatches.get(2).size());
+    }
+
+    @Test
+    public void testSendOnSizeAndLinger() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final List<Integer> batchSizes = new ArrayList<>();
+        ProducerBatchAccumulator accumulator = new ProducerBatchAccumulator(20L, 100, 10,
+                (partition, messages, callbacks) -> {
+                    synchronized (batchSizes) {
+                        batchSizes.add(messages.size());
+                    }
+                    latch.countDown();
+                });
+        Partition partition = new Partition(new BrokerInfo("0:127.0.0.1:18080"), "test", 0);
+        accumulator.append(partition, new Message("test", new byte[]{1}), 6, NOOP_CALLBACK);
+        accumulator.append(partition, new Message("test", new byte[]{1}), 6, NOOP_CALLBACK);
+        accumulator.append(partition, new Message("test", new byte[]{1}), 6, NOOP_CALLBACK);
+        // the first two messages reach the size limit, the last one is sent after lingering
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(2, batchSizes.get(0).intValue());
+        Assert.assertEquals(1, batchSizes.get(1).intValue());
+        accumulator.close();
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.corebase.metric.impl;
+
+import org.apache.inlong.tubemq.corebase.TBaseConstants;
+import org.apache.inlong.tubemq.corebase.metric.Histogram;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LogBucketHistogram, a log-bucketed histogram with a bounded relative error.
+ *
+ * Each power-of-2 range of the value is split into 2^precisionBits linear sub-buckets,
+ * the percentile values are accurate to 1/2^precisionBits of the value. The counts are
+ * spread over stripes selected by the thread id, recording is allocation-free and only
+ * takes one atomic increment in most cases.
+ *
+ * The snapshot drains each bucket with an atomic getAndSet(), a concurrent record
+ * is counted either in this snapshot or in the next one, never lost.
+ *
+ * The output items are compatible with ESTHistogram, include the count, min, max,
+ * power-of-2 cells and percentile values.
+ */
+public class LogBucketHistogram extends BaseMetric implements Histogram {
+
+    // The default precision bits, the relative error is within 1/64
+    private static final int DEF_PRECISION_BITS = 6;
+    // The default bits of the max trackable value
+    private static final int DEF_MAX_VALUE_BITS = 36;
+    // The default max count of stripes
+    private static final int DEF_MAX_STRIPE_COUNT = 8;
+    // Total number of exponential statistic cells, same as ESTHistogram
+    private static final int NUM_CELLS = 18;
+    // The upper boundary index of exponential statistic cells
+    private static final int MAX_CELL_INDEX = NUM_CELLS - 1;
+    // The count of longs between the min/max values of stripes
+    private static final int STATS_PADDING = 8;
+    // The percentiles to output
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999, 0.9999};
+    private static final String[] PERCENTILE_KEYS = {"P50", "P90", "P99", "P999", "P9999"};
+    private final String[] percentileFullKeys = new String[PERCENTILES.length];
+    private final String[] cellShortNames = new String[NUM_CELLS];
+    private final String[] cellFullNames = new String[NUM_CELLS];
+    private final String countFullKey;
+    private final String minFullKey;
+    private final String maxFullKey;
+    private final int precisionBits;
+    private final int subBucketCount;
+    private final int bucketCount;
+    private final long maxTrackableValue;
+    private final int stripeMask;
+    // The bucket counts of all stripes
+    private final AtomicLongArray counts;
+    // The min and max values of all stripes
+    private final AtomicLongArray minMaxValues;
+
+    /**
+     * Initial a log-bucketed histogram with the default precision
+     *
+     * @param metricName   metric name
+     * @param prefix       the prefix of metric item
+     */
+    public LogBucketHistogram(String metricName, String prefix) {
+        this(metricName, prefix, DEF_PRECISION_BITS, DEF_MAX_VALUE_BITS,
+                Math.min(DEF_MAX_STRIPE_COUNT, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Initial a log-bucketed histogram
+     *
+     * @param metricName      metric name
+     * @param prefix          the prefix of metric item
+     * @param precisionBits   the bits of sub-buckets in each power-of-2 range, in [1, 10]
+     * @param maxValueBits    the bits of the max trackable value, the larger values are
+     *                        counted as the max trackable value
+     * @param stripeCount     the expected stripe count, round up to the power of 2
+     */
+    public LogBucketHistogram(String metricName, String prefix,
+            int precisionBits, int maxValueBits, int stripeCount) {
+        super(metricName, prefix);
+        this.precisionBits = Math.max(1, Math.min(10, precisionBits));
+        int valueBits = Math.max(this.precisionBits + 1, Math.min(62, maxValueBits));
+        this.subBucketCount = 1 << this.precisionBits;
+        this.bucketCount = (valueBits - this.precisionBits + 1) << this.precisionBits;
+        this.maxTrackableValue = (1L << valueBits) - 1;
+        int stripeCnt = 1;
+        while (stripeCnt < stripeCount && stripeCnt < DEF_MAX_STRIPE_COUNT * 8) {
+            stripeCnt <<= 1;
+        }
+        this.stripeMask = stripeCnt - 1;
+        this.counts = new AtomicLongArray(stripeCnt * this.bucketCount);
+        this.minMaxValues = new AtomicLongArray(stripeCnt * STATS_PADDING);
+        this.countFullKey = getFullName() + "_count";
+        this.minFullKey = getFullName() + "_min";
+        this.maxFullKey = getFullName() + "_max";
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            this.percentileFullKeys[i] = getFullName() + "_" + PERCENTILE_KEYS[i];
+        }
+        // the cell is a left-closed right-open interval, and the cell name
+        // consists of left boundary value + "t" + right boundary value
+        StringBuilder strBuff =
+                new StringBuilder(TBaseConstants.BUILDER_DEFAULT_SIZE);
+        for (int i = 0; i < NUM_CELLS; i++) {
+            strBuff.append("cell_");
+            if (i == 0) {
+                strBuff.append(0).append("t").append(1L << (i + 1));
+            } else if (i == MAX_CELL_INDEX) {
+                strBuff.append(1L << i).append("tMax");
+            } else {
+                strBuff.append(1L << i).append("t").append(1L << (i + 1));
+            }
+            this.cellShortNames[i] = strBuff.toString();
+            this.cellFullNames[i] = getFullName() + "_" + this.cellShortNames[i];
+            strBuff.delete(0, strBuff.length());
+        }
+        clear();
+    }
+
+    @Override
+    public void update(long newValue) {
+        int stripe = StripedLongCounter.stripeIndex(this.stripeMask);
+        this.counts.getAndIncrement(stripe * this.bucketCount + bucketIndex(newValue));
+        int statsIndex = stripe * STATS_PADDING;
+        long curValue = this.minMaxValues.get(statsIndex);
+        while (newValue < curValue
+                && !this.minMaxValues.compareAndSet(statsIndex, curValue, newValue)) {
+            curValue = this.minMaxValues.get(statsIndex);
+        }
+        curValue = this.minMaxValues.get(statsIndex + 1);
+        while (newValue > curValue
+                && !this.minMaxValues.compareAndSet(statsIndex + 1, curValue, newValue)) {
+            curValue = this.minMaxValues.get(statsIndex + 1);
+        }
+    }
+
+    @Override
+    public void getValue(Map<String, Long> keyValMap, boolean includeZero) {
+        getValue2Map(keyValMap, false, includeZero);
+    }
+
+    @Override
+    public void getValue(StringBuilder strBuff, boolean includeZero) {
+        getValue2StrBuff(strBuff, false, includeZero);
+    }
+
+    @Override
+    public void snapShort(Map<String, Long> keyValMap, boolean includeZero) {
+        getValue2Map(keyValMap, true, includeZero);
+    }
+
+    @Override
+    public void snapShort(StringBuilder strBuff, boolean includeZero) {
+        getValue2StrBuff(strBuff, true, includeZero);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < this.counts.length(); i++) {
+            this.counts.set(i, 0L);
+        }
+        for (int i = 0; i < this.minMaxValues.length(); i += STATS_PADDING) {
+            this.minMaxValues.set(i, Long.MAX_VALUE);
+            this.minMaxValues.set(i + 1, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Get the value at the percentile
+     *
+     * @param percentile   the percentile, in (0, 1]
+     * @return             the highest value of the bucket reached, 0 if no value recorded
+     */
+    public long getPercentileValue(double percentile) {
+        HistogramSnapshot snapshot = takeSnapshot(false);
+        return snapshot.getPercentileValue(percentile);
+    }
+
+    private void getValue2Map(Map<String, Long> keyValMap,
+            boolean snapShot, boolean includeZero) {
+        HistogramSnapshot snapshot = takeSnapshot(snapShot);
+        keyValMap.put(this.countFullKey, snapshot.totalCnt);
+        keyValMap.put(this.minFullKey, snapshot.minValue);
+        keyValMap.put(this.maxFullKey, snapshot.maxValue);
+        for (int i = 0; i < NUM_CELLS; i++) {
+            if (includeZero || snapshot.cellCounts[i] != 0) {
+                keyValMap.put(this.cellFullNames[i], snapshot.cellCounts[i]);
+            }
+        }
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            keyValMap.put(this.percentileFullKeys[i],
+                    snapshot.getPercentileValue(PERCENTILES[i]));
+        }
+    }
+
+    private void getValue2StrBuff(StringBuilder strBuff,
+            boolean snapShot, boolean includeZero) {
+        HistogramSnapshot snapshot = takeSnapshot(snapShot);
+        strBuff.append("\"").append(getFullName()).append("\":")
+                .append("{\"count\":").append(snapshot.totalCnt)
+                .append(",\"min\":").append(snapshot.minValue)
+                .append(",\"max\":").append(snapshot.maxValue)
+                .append(",\"cells\":{");
+        int count = 0;
+        for (int i = 0; i < NUM_CELLS; i++) {
+            if (includeZero || snapshot.cellCounts[i] != 0) {
+                if (count++ > 0) {
+                    strBuff.append(",");
+                }
+                strBuff.append("\"").append(this.cellShortNames[i])
+                        .append("\":").append(snapshot.cellCounts[i]);
+            }
+        }
+        strBuff.append("}");
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            strBuff.append(",\"").append(PERCENTILE_KEYS[i]).append("\":")
+                    .append(snapshot.getPercentileValue(PERCENTILES[i]));
+        }
+        strBuff.append("}");
+    }
+
+    private HistogramSnapshot takeSnapshot(boolean resetValue) {
+        HistogramSnapshot snapshot = new HistogramSnapshot(this.bucketCount);
+        int stripeCnt = this.stripeMask + 1;
+        long value;
+        for (int stripe = 0; stripe < stripeCnt; stripe++) {
+            int baseIndex = stripe * this.bucketCount;
+            for (int i = 0; i < this.bucketCount; i++) {
+                value = resetValue
+                        ? this.counts.getAndSet(baseIndex + i, 0L)
+                        : this.counts.get(baseIndex + i);
+                if (value != 0) {
+                    snapshot.bucketCounts[i] += value;
+                }
+            }
+            int statsIndex = stripe * STATS_PADDING;
+            if (resetValue) {
+                snapshot.minValue = Math.min(snapshot.minValue,
+                        this.minMaxValues.getAndSet(statsIndex, Long.MAX_VALUE));
+                snapshot.maxValue = Math.max(snapshot.maxValue,
+                        this.minMaxValues.getAndSet(statsIndex + 1, Long.MIN_VALUE));
+            } else {
+                snapshot.minValue = Math.min(snapshot.minValue,
+                        this.minMaxValues.get(statsIndex));
+                snapshot.maxValue = Math.max(snapshot.maxValue,
+                        this.minMaxValues.get(statsIndex + 1));
+            }
+        }
+        for (int i = 0; i < this.bucketCount; i++) {
+            if (snapshot.bucketCounts[i] != 0) {
+                snapshot.totalCnt += snapshot.bucketCounts[i];
+                snapshot.cellCounts[cellIndex(lowestValue(i))] += snapshot.bucketCounts[i];
+            }
+        }
+        return snapshot;
+    }
+
+    private int bucketIndex(long value) {
+        if (value < this.subBucketCount) {
+            return (value <= 0L) ? 0 : (int) value;
+        }
+        if (value > this.maxTrackableValue) {
+            value = this.maxTrackableValue;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - this.precisionBits;
+        return ((shift + 1) << this.precisionBits)
+                + (int) ((value >>> shift) - this.subBucketCount);
+    }
+
+    private long lowestValue(int bucketIndex) {
+        if (bucketIndex < this.subBucketCount) {
+            return bucketIndex;
+        }
+        int shift = (bucketIndex >> this.precisionBits) - 1;
+        long subBucket = bucketIndex & (this.subBucketCount - 1);
+        return (this.subBucketCount + subBucket) << shift;
+    }
+
+    private long highestValue(int bucketIndex) {
+        if (bucketIndex < this.subBucketCount) {
+            return bucketIndex;
+        }
+        int shift = (bucketIndex >> this.precisionBits) - 1;
+        return lowestValue(bucketIndex) + (1L << shift) - 1;
+    }
+
+    private int cellIndex(long value) {
+        if (value <= 1L) {
+            return 0;
+        }
+        return Math.min(MAX_CELL_INDEX, 63 - Long.numberOfLeadingZeros(value));
+    }
+
+    private class HistogramSnapshot {
+
+        private final long[] bucketCounts;
+        private final long[] cellCounts = new long[NUM_CELLS];
+        private long totalCnt = 0L;
+        private long minValue = Long.MAX_VALUE;
+        private long maxValue = Long.MIN_VALUE;
+
+        HistogramSnapshot(int bucketCount) {
+            this.bucketCounts = new long[bucketCount];
+        }
+
+        long getPercentileValue(double percentile) {
+            if (this.totalCnt <= 0L) {
+                return 0L;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(this.totalCnt * percentile));
+            long accumCnt = 0L;
+            for (int i = 0; i < this.bucketCounts.length; i++) {
+                accumCnt += this.bucketCounts[i];
+                if (accumCnt >= rank) {
+                    // the max value may be recorded after the bucket counts are drained
+                    return (this.maxValue == Long.MIN_VALUE)
+                            ? highestValue(i)
+                            : Math.min(highestValue(i), this.maxValue);
+                }
+            }
+            return (this.maxValue == Long.MIN_VALUE) ? 0L : this.maxValue;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.corebase.metric.impl;
+
+import org.apache.inlong.tubemq.corebase.metric.Counter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * StripedLongCounter, a counter with the value spread over padded cells.
+ *
+ * Each thread updates the cell selected by its thread id, so the threads rarely
+ * update the same cache line. Unlike LongAdder#sumThenReset(), each cell is read
+ * and reset with one atomic getAndSet(), no update is lost while taking the snapshot.
+ */
+public class StripedLongCounter extends BaseMetric implements Counter {
+
+    // The count of longs between cells, a cache line of 64 bytes
+    private static final int CELL_PADDING = 8;
+    // The max count of cells
+    private static final int MAX_CELL_COUNT = 64;
+    private final int cellMask;
+    private final AtomicLongArray cells;
+
+    public StripedLongCounter(String metricName, String prefix) {
+        this(metricName, prefix, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Initial a striped counter
+     *
+     * @param metricName   metric name
+     * @param prefix       the prefix of metric item
+     * @param cellCount    the expected cell count, round up to the power of 2
+     */
+    public StripedLongCounter(String metricName, String prefix, int cellCount) {
+        super(metricName, prefix);
+        int cellCnt = 1;
+        while (cellCnt < cellCount && cellCnt < MAX_CELL_COUNT) {
+            cellCnt <<= 1;
+        }
+        this.cellMask = cellCnt - 1;
+        this.cells = new AtomicLongArray(cellCnt * CELL_PADDING);
+    }
+
+    @Override
+    public void incValue() {
+        this.cells.getAndIncrement(cellIndex());
+    }
+
+    @Override
+    public void decValue() {
+        this.cells.getAndDecrement(cellIndex());
+    }
+
+    @Override
+    public void addValue(long delta) {
+        this.cells.getAndAdd(cellIndex(), delta);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < this.cells.length(); i += CELL_PADDING) {
+            this.cells.set(i, 0L);
+        }
+    }
+
+    @Override
+    public long getValue() {
+        long sum = 0L;
+        for (int i = 0; i < this.cells.length(); i += CELL_PADDING) {
+            sum += this.cells.get(i);
+        }
+        return sum;
+    }
+
+    @Override
+    public long getAndResetValue() {
+        long sum = 0L;
+        for (int i = 0; i < this.cells.length(); i += CELL_PADDING) {
+            sum += this.cells.getAndSet(i, 0L);
+        }
+        return sum;
+    }
+
+    private int cellIndex() {
+        return stripeIndex(this.cellMask) * CELL_PADDING;
+    }
+
+    /**
+     * Get the stripe index of the current thread
+     *
+     * @param mask   the mask of the stripe count
+     * @return       the stripe index
+     */
+    static int stripeIndex(int mask) {
+        long threadId = Thread.currentThread().getId();
+        return (int) ((threadId ^ (threadId >>> 16)) & mask);
+    }
+}
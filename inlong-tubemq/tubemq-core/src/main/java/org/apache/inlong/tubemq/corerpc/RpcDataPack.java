@@ -17,6 +17,9 @@
 
 package org.apache.inlong.tubemq.corerpc;
 
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
+
 import java.nio.ByteBuffer;
 import java.util.List;
 
@@ -24,6 +27,8 @@ public class RpcDataPack {
 
     private int serialNo;
     private List<ByteBuffer> dataLst;
+    // the pooled buffer the data list is sliced from, null if the data is on heap
+    private ReferenceCounted backingBuf;
 
     public RpcDataPack() {
 
@@ -50,4 +55,19 @@ public class RpcDataPack {
         this.dataLst = dataLst;
     }
 
+    public void setBackingBuf(ReferenceCounted backingBuf) {
+        this.backingBuf = backingBuf;
+    }
+
+    /**
+     * Release the pooled buffer the data list is sliced from.
+     * The data list must not be read once released.
+     */
+    public void release() {
+        if (this.backingBuf != null) {
+            ReferenceCountUtil.release(this.backingBuf);
+            this.backingBuf = null;
+        }
+    }
+
 }
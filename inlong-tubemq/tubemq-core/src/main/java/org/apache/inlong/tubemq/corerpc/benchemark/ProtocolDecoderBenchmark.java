@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.corerpc.benchemark;
+
+import org.apache.inlong.tubemq.corerpc.RpcConstants;
+import org.apache.inlong.tubemq.corerpc.RpcDataPack;
+import org.apache.inlong.tubemq.corerpc.netty.NettyPooledProtocolDecoder;
+import org.apache.inlong.tubemq.corerpc.netty.NettyProtocolDecoder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+/**
+ * Compare the heap allocation and throughput of the rpc frame decoders.
+ *
+ * The frames are fed in socket-read sized chunks, so that most frames
+ * arrive across several reads as they do for large produce or consume batches.
+ */
+public class ProtocolDecoderBenchmark {
+
+    private final int frameCount;
+    private final int bodyCount;
+    private final int bodySize;
+    private final int readSize;
+
+    public ProtocolDecoderBenchmark(int frameCount, int bodyCount, int bodySize, int readSize) {
+        this.frameCount = frameCount;
+        this.bodyCount = bodyCount;
+        this.bodySize = bodySize;
+        this.readSize = readSize;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[][] cases = {{200000, 2, 512, 16384}, {20000, 16, RpcConstants.RPC_MAX_BUFFER_SIZE, 65536}};
+        for (int[] item : cases) {
+            ProtocolDecoderBenchmark benchmark =
+                    new ProtocolDecoderBenchmark(item[0], item[1], item[2], item[3]);
+            for (int round = 0; round < 3; round++) {
+                benchmark.run("heap  ", new NettyProtocolDecoder());
+                benchmark.run("pooled", new NettyPooledProtocolDecoder());
+            }
+        }
+    }
+
+    /**
+     * Decode all frames with the decoder and print the result
+     *
+     * @param name       the decoder name
+     * @param decoder    the decoder to test
+     */
+    public void run(String name, ChannelHandler decoder) {
+        ByteBuf frame = buildFrame();
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+        long checkSum = 0;
+        int framePos = 0;
+        int decodedCnt = 0;
+        long startAlloc = getAllocatedBytes();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < frameCount;) {
+            int chunkSize = Math.min(readSize, frame.readableBytes() - framePos);
+            channel.writeInbound(frame.retainedSlice(framePos, chunkSize));
+            framePos += chunkSize;
+            if (framePos == frame.readableBytes()) {
+                framePos = 0;
+                i++;
+            }
+            RpcDataPack dataPack;
+            while ((dataPack = channel.readInbound()) != null) {
+                for (ByteBuffer buffer : dataPack.getDataLst()) {
+                    checkSum += buffer.get(buffer.limit() - 1);
+                }
+                dataPack.release();
+                decodedCnt++;
+            }
+        }
+        long costNs = System.nanoTime() - startTime;
+        long allocBytes = getAllocatedBytes() - startAlloc;
+        channel.finishAndReleaseAll();
+        frame.release();
+        System.out.println(new StringBuilder(256).append(name)
+                .append(" bodyCount=").append(bodyCount)
+                .append(", bodySize=").append(bodySize)
+                .append(", readSize=").append(readSize)
+                .append(", frames/s=").append(decodedCnt * 1000000000L / Math.max(costNs, 1))
+                .append(", MB/s=").append((long) decodedCnt * frame.capacity() * 1000L / Math.max(costNs, 1))
+                .append(", heap bytes/frame=").append(allocBytes / Math.max(decodedCnt, 1))
+                .append(", checkSum=").append(checkSum).toString());
+    }
+
+    private ByteBuf buildFrame() {
+        ByteBuf frame = PooledByteBufAllocator.DEFAULT.directBuffer();
+        frame.writeInt(RpcConstants.RPC_PROTOCOL_BEGIN_TOKEN);
+        frame.writeInt(1);
+        frame.writeInt(bodyCount);
+        for (int i = 0; i < bodyCount; i++) {
+            frame.writeInt(bodySize);
+            for (int j = 0; j < bodySize; j++) {
+                frame.writeByte(j);
+            }
+        }
+        return frame;
+    }
+
+    private long getAllocatedBytes() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
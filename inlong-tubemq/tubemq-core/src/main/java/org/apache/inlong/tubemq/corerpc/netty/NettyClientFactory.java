@@ -26,6 +26,7 @@ import org.apache.inlong.tubemq.corerpc.exception.LocalConnException;
 import org.apache.inlong.tubemq.corerpc.utils.TSSLEngineUtil;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
@@ -211,6 +212,11 @@ public class NettyClientFactory implements ClientFactory {
         clientBootstrap.option(ChannelOption.TCP_NODELAY, true);
         clientBootstrap.option(ChannelOption.SO_REUSEADDR, true);
         clientBootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout);
+        final boolean enablePooledDecoder =
+                conf.getBoolean(RpcConstants.NETTY_POOLED_DECODER, false);
+        if (enablePooledDecoder) {
+            clientBootstrap.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        }
 
         int nettyWriteHighMark =
                 conf.getInt(RpcConstants.NETTY_WRITE_HIGH_MARK, 64 * 1024);
@@ -240,7 +246,11 @@ public class NettyClientFactory implements ClientFactory {
                 // Encode the data
                 pipeline.addLast("protocolEncoder", new NettyProtocolEncoder());
                 // Decode the bytes into a Rpc Data Pack
-                pipeline.addLast("protocolDecoder", new NettyProtocolDecoder());
+                if (enablePooledDecoder) {
+                    pipeline.addLast("protocolDecoder", new NettyPooledProtocolDecoder());
+                } else {
+                    pipeline.addLast("protocolDecoder", new NettyProtocolDecoder());
+                }
                 // handle the time out requests
                 pipeline.addLast("readTimeoutHandler", new ReadTimeoutHandler(
                         conf.getLong(RpcConstants.CONNECT_READ_IDLE_DURATION,
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.corerpc.netty;
+
+import org.apache.inlong.tubemq.corerpc.RpcConstants;
+import org.apache.inlong.tubemq.corerpc.RpcDataPack;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rpc frame decoder based on Netty's cumulation buffer.
+ *
+ * Different from {@link NettyProtocolDecoder}, the bytes of a partial frame are kept
+ * in the pooled cumulation buffer instead of being copied into new heap buffers, and
+ * the bodies of a complete frame are exposed as views of one retained slice.
+ * The receiver must call {@link RpcDataPack#release()} once the data list is parsed.
+ */
+public class NettyPooledProtocolDecoder extends ByteToMessageDecoder {
+
+    // frame token, serial number, list size
+    private static final int FRAME_HEAD_LEN = 12;
+    private static final int BODY_HEAD_LEN = 4;
+    // the scanned body count of the pending frame
+    private int scannedBodyCnt = 0;
+    // the scanned length from the pending frame start
+    private int scannedFrameLen = FRAME_HEAD_LEN;
+
+    public NettyPooledProtocolDecoder() {
+        super();
+        setCumulator(MERGE_CUMULATOR);
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        while (in.readableBytes() >= FRAME_HEAD_LEN) {
+            final int frameIndex = in.readerIndex();
+            final int listSize = in.getInt(frameIndex + 8);
+            if (scannedBodyCnt == 0) {
+                NettyProtocolDecoder.filterIllegalPkgToken(in.getInt(frameIndex),
+                        RpcConstants.RPC_PROTOCOL_BEGIN_TOKEN, ctx.channel());
+                NettyProtocolDecoder.filterIllegalPackageSize(true, listSize,
+                        RpcConstants.MAX_FRAME_MAX_LIST_SIZE, ctx.channel());
+            }
+            // check whether the whole frame has been received
+            final int readableLen = in.readableBytes();
+            while (scannedBodyCnt < listSize) {
+                if (readableLen - scannedFrameLen < BODY_HEAD_LEN) {
+                    return;
+                }
+                int bodyLen = in.getInt(frameIndex + scannedFrameLen);
+                NettyProtocolDecoder.filterIllegalPackageSize(false, bodyLen,
+                        Integer.MAX_VALUE - BODY_HEAD_LEN - scannedFrameLen, ctx.channel());
+                if (readableLen - scannedFrameLen - BODY_HEAD_LEN < bodyLen) {
+                    return;
+                }
+                scannedFrameLen += BODY_HEAD_LEN + bodyLen;
+                scannedBodyCnt++;
+            }
+            out.add(sliceDataPack(in, frameIndex, listSize, scannedFrameLen));
+            scannedBodyCnt = 0;
+            scannedFrameLen = FRAME_HEAD_LEN;
+        }
+    }
+
+    private RpcDataPack sliceDataPack(ByteBuf in, int frameIndex, int listSize, int frameLen) {
+        final ByteBuf frameBuf = in.retainedSlice(frameIndex, frameLen);
+        in.skipBytes(frameLen);
+        final List<ByteBuffer> dataLst = new ArrayList<>(listSize);
+        int bodyIndex = FRAME_HEAD_LEN;
+        for (int i = 0; i < listSize; i++) {
+            int bodyLen = frameBuf.getInt(bodyIndex);
+            bodyIndex += BODY_HEAD_LEN;
+            dataLst.add(frameBuf.nioBuffer(bodyIndex, bodyLen));
+            bodyIndex += bodyLen;
+        }
+        RpcDataPack dataPack = new RpcDataPack(frameBuf.getInt(4), dataLst);
+        dataPack.setBackingBuf(frameBuf);
+        return dataPack;
+    }
+}
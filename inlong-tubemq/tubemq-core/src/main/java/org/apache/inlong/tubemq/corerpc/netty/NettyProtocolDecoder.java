@@ -123,7 +123,7 @@ public class NettyProtocolDecoder extends MessageToMessageDecoder<ByteBuf> {
         return newByteBuf;
     }
 
-    private void filterIllegalPkgToken(int inParamValue, int allowTokenVal,
+    static void filterIllegalPkgToken(int inParamValue, int allowTokenVal,
             Channel channel) throws UnknownProtocolException {
         if (inParamValue != allowTokenVal) {
             String rmtaddrIp = getRemoteAddressIP(channel);
@@ -156,7 +156,7 @@ public class NettyProtocolDecoder extends MessageToMessageDecoder<ByteBuf> {
         }
     }
 
-    private void filterIllegalPackageSize(boolean isFrameSize, int inParamValue,
+    static void filterIllegalPackageSize(boolean isFrameSize, int inParamValue,
             int allowSize, Channel channel) throws UnknownProtocolException {
         if (inParamValue < 0 || inParamValue > allowSize) {
             String rmtaddrIp = getRemoteAddressIP(channel);
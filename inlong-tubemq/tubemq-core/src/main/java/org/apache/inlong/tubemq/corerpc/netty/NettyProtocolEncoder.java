@@ -24,58 +24,34 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageEncoder;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 
 public class NettyProtocolEncoder extends MessageToMessageEncoder<RpcDataPack> {
 
-    private static final Logger logger = LoggerFactory.getLogger(NettyProtocolEncoder.class);
+    // begin token, serial number and buffer count
+    private static final int RPC_PACK_HEADER_SIZE = 12;
+    // length of each buffer
+    private static final int RPC_LENGTH_HEADER_SIZE = 4;
 
     @Override
     protected void encode(ChannelHandlerContext chx, RpcDataPack msg, List<Object> out) {
         RpcDataPack dataPack = msg;
-        try (ByteArrayOutputStream byteOut = new ByteArrayOutputStream()) {
-            byteOut.write(getPackHeader(dataPack).array());
-            List<ByteBuffer> origs = dataPack.getDataLst();
-            Iterator<ByteBuffer> iter = origs.iterator();
-            while (iter.hasNext()) {
-                ByteBuffer entry = iter.next();
-                byteOut.write(getLengthHeader(entry).array());
-                byteOut.write(getLengthBody(entry));
-            }
-            byte[] body = byteOut.toByteArray();
-            ByteBuf buf = ByteBufAllocator.DEFAULT.buffer(body.length);
-            buf.writeBytes(body);
-            out.add(buf);
-        } catch (IOException e) {
-            logger.error("encode has exception ", e);
+        List<ByteBuffer> origs = dataPack.getDataLst();
+        // size the frame up front and write the buffers straight into it
+        int frameSize = RPC_PACK_HEADER_SIZE;
+        for (ByteBuffer entry : origs) {
+            frameSize += RPC_LENGTH_HEADER_SIZE + entry.limit();
         }
-    }
-
-    private ByteBuffer getPackHeader(RpcDataPack dataPack) {
-        ByteBuffer header = ByteBuffer.allocate(12);
-        header.putInt(RpcConstants.RPC_PROTOCOL_BEGIN_TOKEN);
-        header.putInt(dataPack.getSerialNo());
-        header.putInt(dataPack.getDataLst().size());
-        header.flip();
-        return header;
-    }
-
-    private ByteBuffer getLengthHeader(ByteBuffer buf) {
-        ByteBuffer header = ByteBuffer.allocate(4);
-        header.putInt(buf.limit());
-        header.flip();
-        return header;
-    }
-
-    private byte[] getLengthBody(ByteBuffer buf) {
-        return Arrays.copyOf(buf.array(), buf.limit());
+        ByteBuf buf = ByteBufAllocator.DEFAULT.buffer(frameSize);
+        buf.writeInt(RpcConstants.RPC_PROTOCOL_BEGIN_TOKEN);
+        buf.writeInt(dataPack.getSerialNo());
+        buf.writeInt(origs.size());
+        for (ByteBuffer entry : origs) {
+            buf.writeInt(entry.limit());
+            buf.writeBytes(entry.array(), 0, entry.limit());
+        }
+        out.add(buf);
     }
 }
@@ -34,6 +34,7 @@ import org.apache.inlong.tubemq.corerpc.utils.TSSLEngineUtil;
 
 import com.google.protobuf.Message;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
@@ -77,6 +78,7 @@ public class NettyRpcServer implements ServiceRpcServer {
     private EventLoopGroup acceptorGroup;
     private EventLoopGroup workerGroup;
     private boolean enableBusyWait;
+    private boolean enablePooledDecoder;
     private AtomicBoolean started = new AtomicBoolean(false);
     private int protocolType = RpcProtocol.RPC_PROTOCOL_TCP;
     private boolean isOverTLS;
@@ -117,6 +119,7 @@ public class NettyRpcServer implements ServiceRpcServer {
             }
         }
         this.enableBusyWait = conf.getBoolean(RpcConstants.NETTY_TCP_ENABLEBUSYWAIT, false);
+        this.enablePooledDecoder = conf.getBoolean(RpcConstants.NETTY_POOLED_DECODER, false);
         int bossCount =
                 conf.getInt(RpcConstants.BOSS_COUNT,
                         RpcConstants.CFG_DEFAULT_BOSS_COUNT);
@@ -142,6 +145,9 @@ public class NettyRpcServer implements ServiceRpcServer {
                 conf.getInt(RpcConstants.NETTY_WRITE_LOW_MARK, 32 * 1024);
         bootstrap.option(ChannelOption.WRITE_BUFFER_WATER_MARK,
                 new WriteBufferWaterMark(nettyWriteLowMark, nettyWriteHighMark));
+        if (this.enablePooledDecoder) {
+            bootstrap.childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        }
         int nettySendBuf = conf.getInt(RpcConstants.NETTY_TCP_SENDBUF, -1);
         if (nettySendBuf > 0) {
             bootstrap.childOption(ChannelOption.SO_SNDBUF, nettySendBuf);
@@ -174,7 +180,11 @@ public class NettyRpcServer implements ServiceRpcServer {
                     }
                 }
                 // Encode the data handler
-                socketChannel.pipeline().addLast("protocolEncoder", new NettyProtocolDecoder());
+                if (enablePooledDecoder) {
+                    socketChannel.pipeline().addLast("protocolEncoder", new NettyPooledProtocolDecoder());
+                } else {
+                    socketChannel.pipeline().addLast("protocolEncoder", new NettyProtocolDecoder());
+                }
                 // Decode the bytes into a Rpc Data Pack
                 socketChannel.pipeline().addLast("protocolDecoder", new NettyProtocolEncoder());
                 // tube netty Server handler
@@ -282,6 +292,8 @@ public class NettyRpcServer implements ServiceRpcServer {
             int rmtVersion = RpcProtocol.RPC_PROTOCOL_VERSION;
             Channel channel = ctx.channel();
             if (channel == null) {
+                // no channel to respond, release the pooled frame buffer before dropping it
+                dataPack.release();
                 return;
             }
             String rmtaddrIp = getRemoteAddressIP(channel);
@@ -329,6 +341,9 @@ public class NettyRpcServer implements ServiceRpcServer {
                     channel.writeAndFlush(dataPack);
                 }
                 return;
+            } finally {
+                // the request has been parsed, release the pooled frame buffer if exists
+                dataPack.release();
             }
             try {
                 RequestWrapper requestWrapper =
@@ -18,6 +18,7 @@
 package org.apache.inlong.tubemq.corebase.metric;
 
 import org.apache.inlong.tubemq.corebase.metric.impl.ESTHistogram;
+import org.apache.inlong.tubemq.corebase.metric.impl.LogBucketHistogram;
 import org.apache.inlong.tubemq.corebase.metric.impl.SimpleHistogram;
 
 import org.junit.Assert;
@@ -137,4 +138,54 @@ public class HistogramTest {
         Assert.assertEquals(tmpMap.get("disk_dlt_max").longValue(), Long.MIN_VALUE);
         Assert.assertEquals(tmpMap.get("disk_dlt_min").longValue(), Long.MAX_VALUE);
     }
+
+    @Test
+    public void testLogBucketHistogram() {
+        LogBucketHistogram histogram =
+                new LogBucketHistogram("dlt", "disk");
+        histogram.update(30L);
+        histogram.update(1000L);
+        histogram.update(-5L);
+        histogram.update(131070L);
+        histogram.update(131071L);
+        histogram.update(131072L);
+        histogram.update(131100L);
+        // same items as ESTHistogram
+        StringBuilder strBuff = new StringBuilder(512);
+        histogram.getValue(strBuff, false);
+        String result1 = "\"disk_dlt\":{\"count\":7,\"min\":-5,\"max\":131100,"
+                + "\"cells\":{\"cell_0t2\":1,\"cell_16t32\":1,\"cell_512t1024\":1"
+                + ",\"cell_65536t131072\":2,\"cell_131072tMax\":2},\"P50\":131071"
+                + ",\"P90\":131100,\"P99\":131100,\"P999\":131100,\"P9999\":131100}";
+        Assert.assertEquals(result1, strBuff.toString());
+        strBuff.delete(0, strBuff.length());
+        Map<String, Long> tmpMap = new LinkedHashMap();
+        histogram.snapShort(tmpMap, false);
+        Assert.assertEquals(7L, tmpMap.get("disk_dlt_count").longValue());
+        Assert.assertEquals(-5L, tmpMap.get("disk_dlt_min").longValue());
+        Assert.assertEquals(2L, tmpMap.get("disk_dlt_cell_131072tMax").longValue());
+        tmpMap.clear();
+        // the snapshot resets the values
+        histogram.getValue(tmpMap, false);
+        Assert.assertEquals(0L, tmpMap.get("disk_dlt_count").longValue());
+        Assert.assertEquals(Long.MAX_VALUE, tmpMap.get("disk_dlt_min").longValue());
+        Assert.assertEquals(Long.MIN_VALUE, tmpMap.get("disk_dlt_max").longValue());
+        Assert.assertEquals(0L, tmpMap.get("disk_dlt_P99").longValue());
+        tmpMap.clear();
+        // the percentile values are within the relative error
+        for (long i = 1; i <= 100000; i++) {
+            histogram.update(i);
+        }
+        long p50 = histogram.getPercentileValue(0.5);
+        long p99 = histogram.getPercentileValue(0.99);
+        Assert.assertTrue(Math.abs(p50 - 50000) <= 50000 / 64);
+        Assert.assertTrue(Math.abs(p99 - 99000) <= 99000 / 64);
+        histogram.getValue(tmpMap, true);
+        Assert.assertEquals(100000L, tmpMap.get("disk_dlt_count").longValue());
+        Assert.assertEquals(1L, tmpMap.get("disk_dlt_cell_0t2").longValue());
+        Assert.assertEquals(32768L, tmpMap.get("disk_dlt_cell_32768t65536").longValue());
+        Assert.assertEquals(34465L, tmpMap.get("disk_dlt_cell_65536t131072").longValue());
+        histogram.clear();
+        Assert.assertEquals(0L, histogram.getPercentileValue(0.5));
+    }
 }
@@ -23,6 +23,7 @@ import org.apache.inlong.tubemq.corebase.metric.impl.LongMinGauge;
 import org.apache.inlong.tubemq.corebase.metric.impl.LongOnlineCounter;
 import org.apache.inlong.tubemq.corebase.metric.impl.LongStatsCounter;
 import org.apache.inlong.tubemq.corebase.metric.impl.SinceTime;
+import org.apache.inlong.tubemq.corebase.metric.impl.StripedLongCounter;
 import org.apache.inlong.tubemq.corebase.utils.ThreadUtils;
 
 import org.junit.Assert;
@@ -122,4 +123,39 @@ public class SimpleMetricTest {
         statsCounter.clear();
         Assert.assertEquals(0, statsCounter.getValue());
     }
+
+    @Test
+    public void testStripedLongCounter() throws Exception {
+        StripedLongCounter counter = new StripedLongCounter("count", "striped", 4);
+        Assert.assertEquals("striped_count", counter.getFullName());
+        counter.incValue();
+        counter.addValue(10);
+        counter.decValue();
+        Assert.assertEquals(10L, counter.getValue());
+        Assert.assertEquals(10L, counter.getAndResetValue());
+        Assert.assertEquals(0L, counter.getValue());
+        // no update lost while the value is reset
+        final StripedLongCounter sharedCounter = new StripedLongCounter("count", null, 8);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 100000; j++) {
+                    sharedCounter.incValue();
+                }
+            });
+            threads[i].start();
+        }
+        long total = 0L;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                total += sharedCounter.getAndResetValue();
+            }
+            thread.join();
+        }
+        total += sharedCounter.getAndResetValue();
+        Assert.assertEquals(400000L, total);
+        counter.addValue(5);
+        counter.clear();
+        Assert.assertEquals(0L, counter.getValue());
+    }
 }
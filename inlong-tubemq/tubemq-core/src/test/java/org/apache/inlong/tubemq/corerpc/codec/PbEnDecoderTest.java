@@ -17,12 +17,15 @@
 
 package org.apache.inlong.tubemq.corerpc.codec;
 
+import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker;
 import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientMaster;
 import org.apache.inlong.tubemq.corerpc.RpcConstants;
 
+import com.google.protobuf.ByteString;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class PbEnDecoderTest {
 
@@ -46,4 +49,29 @@ public class PbEnDecoderTest {
         assertEquals(decodeObject.getHostName(), object.getHostName());
     }
 
+    @Test
+    public void testBatchMessageEncodeAndDecoder() throws Exception {
+        ClientBroker.SendBatchMessageRequestP2B.Builder builder =
+                ClientBroker.SendBatchMessageRequestP2B.newBuilder();
+        builder.setClientId("10001");
+        builder.setTopicName("test");
+        builder.setPartitionId(2);
+        builder.setSentAddr(1234);
+        for (int i = 0; i < 3; i++) {
+            builder.addMessages(ClientBroker.BatchMessageItem.newBuilder()
+                    .setData(ByteString.copyFromUtf8("message-" + i))
+                    .setFlag(0).setCheckSum(-1).setMsgType("type" + i));
+        }
+        ClientBroker.SendBatchMessageRequestP2B object = builder.build();
+        byte[] data = PbEnDecoder.pbEncode(object);
+        ClientBroker.SendBatchMessageRequestP2B decodeObject =
+                (ClientBroker.SendBatchMessageRequestP2B) PbEnDecoder.pbDecode(true,
+                        RpcConstants.RPC_MSG_BROKER_PRODUCER_SENDBATCHMESSAGE, data);
+        assertEquals(object.getTopicName(), decodeObject.getTopicName());
+        assertEquals(3, decodeObject.getMessagesCount());
+        assertEquals("message-2", decodeObject.getMessages(2).getData().toStringUtf8());
+        assertTrue(PbEnDecoder.isValidServiceTypeAndMethod(
+                RpcConstants.RPC_SERVICE_TYPE_BROKER_WRITE_SERVICE,
+                PbEnDecoder.getMethIdByName("sendBatchMessageP2B"), new StringBuilder(128)));
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.corerpc.netty;
+
+import org.apache.inlong.tubemq.corerpc.RpcDataPack;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * NettyPooledProtocolDecoder test.
+ */
+public class NettyPooledProtocolDecoderTest {
+
+    @Test
+    public void decodePartialFrames() {
+        NettyProtocolEncoder nettyProtocolEncoder = new NettyProtocolEncoder();
+        List<ByteBuffer> dataList = new LinkedList<>();
+        dataList.add(ByteBuffer.wrap("abc".getBytes(StandardCharsets.UTF_8)));
+        dataList.add(ByteBuffer.wrap("defgh".getBytes(StandardCharsets.UTF_8)));
+        List<Object> out = new ArrayList<>();
+        // encode two frames
+        nettyProtocolEncoder.encode(null, new RpcDataPack(123, dataList), out);
+        nettyProtocolEncoder.encode(null, new RpcDataPack(124, dataList), out);
+        ByteBuf frames = PooledByteBufAllocator.DEFAULT.directBuffer();
+        for (Object obj : out) {
+            ByteBuf buf = (ByteBuf) obj;
+            frames.writeBytes(buf);
+            buf.release();
+        }
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyPooledProtocolDecoder());
+        // feed the frames in pieces, split inside the header and inside the body
+        int[] splitPos = {5, 17, 30, frames.readableBytes()};
+        int startPos = 0;
+        for (int pos : splitPos) {
+            channel.writeInbound(frames.retainedSlice(startPos, pos - startPos));
+            startPos = pos;
+        }
+        frames.release();
+        RpcDataPack dataPack = channel.readInbound();
+        Assert.assertEquals(123, dataPack.getSerialNo());
+        Assert.assertEquals(2, dataPack.getDataLst().size());
+        Assert.assertEquals("abc", readString(dataPack.getDataLst().get(0)));
+        Assert.assertEquals("defgh", readString(dataPack.getDataLst().get(1)));
+        dataPack.release();
+        dataPack = channel.readInbound();
+        Assert.assertEquals(124, dataPack.getSerialNo());
+        Assert.assertEquals(2, dataPack.getDataLst().size());
+        Assert.assertEquals("defgh", readString(dataPack.getDataLst().get(1)));
+        dataPack.release();
+        Assert.assertNull(channel.readInbound());
+        Assert.assertFalse(channel.finish());
+    }
+
+    private String readString(ByteBuffer buffer) {
+        byte[] content = new byte[buffer.remaining()];
+        buffer.get(content);
+        return new String(content, StandardCharsets.UTF_8);
+    }
+}
@@ -24,6 +24,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -54,6 +55,14 @@ public class NettyProtocolEncoderTest {
             int i = buf.readInt();
             i = buf.readInt();
             Assert.assertEquals(123, i);
+            Assert.assertEquals(2, buf.readInt());
+            Assert.assertEquals(3, buf.readInt());
+            Assert.assertEquals("abc", buf.readCharSequence(3, StandardCharsets.UTF_8).toString());
+            Assert.assertEquals(3, buf.readInt());
+            Assert.assertEquals("def", buf.readCharSequence(3, StandardCharsets.UTF_8).toString());
+            // the frame is sized exactly
+            Assert.assertEquals(0, buf.readableBytes());
+            Assert.assertEquals(buf.writerIndex(), buf.capacity());
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -22,6 +22,7 @@ import org.apache.inlong.tubemq.corebase.config.TLSConfig;
 import org.apache.inlong.tubemq.corebase.utils.AddressUtils;
 import org.apache.inlong.tubemq.corebase.utils.MixedUtils;
 import org.apache.inlong.tubemq.corebase.utils.TStringUtils;
+import org.apache.inlong.tubemq.server.broker.msgstore.disk.SegmentBlockCache;
 import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
 import org.apache.inlong.tubemq.server.common.TServerConstants;
 import org.apache.inlong.tubemq.server.common.fileconfig.ADConfig;
@@ -137,6 +138,26 @@ public class BrokerConfig extends AbstractFileConfig {
             TServerConstants.CFG_DEFAULT_GROUP_OFFSET_SCAN_DUR;
     // whether to enable the memory cache storage, the default is true, open the memory cache
     private boolean enableMemStore = true;
+    // whether to memory-map the immutable index segments, the default is false
+    private boolean enableIndexMmap = false;
+    // whether to append messages into the memory cache without the write lock, the default is false
+    private boolean enableLockFreeAppend = false;
+    // whether to flush the file stores by the broker-wide group commit flusher, the default is false
+    private boolean enableGroupCommitFlush = false;
+    // the window to collect the dirty file stores of a group commit, in milliseconds
+    private long groupCommitWindowMs = 5L;
+    // the thread count to flush the file stores on different devices in parallel
+    private int groupCommitFlushThreads = 2;
+    // whether to cache the data file blocks for lagging consumers, the default is false
+    private boolean enableBlockCache = false;
+    // the off-heap memory size of the data block cache
+    private long blockCacheSize = 256 * 1024 * 1024L;
+    // the block count loaded ahead when the data file is read sequentially
+    private int blockCacheReadAheadCount = 4;
+    // whether to skip the unmatched index blocks for filter consumption, the default is false
+    private boolean enableIndexKeyFilter = false;
+    // whether to store the group offsets in binary snapshot and delta log files, the default is false
+    private boolean enableBinaryOffsetStg = false;
 
     public BrokerConfig() {
         super();
@@ -146,6 +167,46 @@ public class BrokerConfig extends AbstractFileConfig {
         return enableMemStore;
     }
 
+    public boolean isEnableIndexMmap() {
+        return enableIndexMmap;
+    }
+
+    public boolean isEnableLockFreeAppend() {
+        return enableLockFreeAppend;
+    }
+
+    public boolean isEnableGroupCommitFlush() {
+        return enableGroupCommitFlush;
+    }
+
+    public long getGroupCommitWindowMs() {
+        return groupCommitWindowMs;
+    }
+
+    public int getGroupCommitFlushThreads() {
+        return groupCommitFlushThreads;
+    }
+
+    public boolean isEnableBlockCache() {
+        return enableBlockCache;
+    }
+
+    public long getBlockCacheSize() {
+        return blockCacheSize;
+    }
+
+    public int getBlockCacheReadAheadCount() {
+        return blockCacheReadAheadCount;
+    }
+
+    public boolean isEnableIndexKeyFilter() {
+        return enableIndexKeyFilter;
+    }
+
+    public boolean isEnableBinaryOffsetStg() {
+        return enableBinaryOffsetStg;
+    }
+
     public boolean isUpdateConsumerOffsets() {
         return this.updateConsumerOffsets;
     }
@@ -459,6 +520,40 @@ public class BrokerConfig extends AbstractFileConfig {
         if (TStringUtils.isNotBlank(brokerSect.get("enableMemStore"))) {
             this.enableMemStore = this.getBoolean(brokerSect, "enableMemStore");
         }
+        if (TStringUtils.isNotBlank(brokerSect.get("enableIndexMmap"))) {
+            this.enableIndexMmap = this.getBoolean(brokerSect, "enableIndexMmap");
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("enableLockFreeAppend"))) {
+            this.enableLockFreeAppend = this.getBoolean(brokerSect, "enableLockFreeAppend");
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("enableGroupCommitFlush"))) {
+            this.enableGroupCommitFlush = this.getBoolean(brokerSect, "enableGroupCommitFlush");
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("groupCommitWindowMs"))) {
+            this.groupCommitWindowMs =
+                    MixedUtils.mid(getLong(brokerSect, "groupCommitWindowMs"), 0L, 1000L);
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("groupCommitFlushThreads"))) {
+            this.groupCommitFlushThreads =
+                    MixedUtils.mid(getInt(brokerSect, "groupCommitFlushThreads"), 1, 64);
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("enableBlockCache"))) {
+            this.enableBlockCache = this.getBoolean(brokerSect, "enableBlockCache");
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("blockCacheSize"))) {
+            this.blockCacheSize = MixedUtils.mid(getLong(brokerSect, "blockCacheSize"),
+                    SegmentBlockCache.CACHE_BLOCK_SIZE, 64 * 1024 * 1024 * 1024L);
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("blockCacheReadAheadCount"))) {
+            this.blockCacheReadAheadCount =
+                    MixedUtils.mid(getInt(brokerSect, "blockCacheReadAheadCount"), 0, 64);
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("enableIndexKeyFilter"))) {
+            this.enableIndexKeyFilter = this.getBoolean(brokerSect, "enableIndexKeyFilter");
+        }
+        if (TStringUtils.isNotBlank(brokerSect.get("enableBinaryOffsetStg"))) {
+            this.enableBinaryOffsetStg = this.getBoolean(brokerSect, "enableBinaryOffsetStg");
+        }
     }
 
     public long getLogClearupDurationMs() {
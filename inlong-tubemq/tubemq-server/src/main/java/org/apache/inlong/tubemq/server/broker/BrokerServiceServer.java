@@ -23,6 +23,8 @@ import org.apache.inlong.tubemq.corebase.TErrCodeConstants;
 import org.apache.inlong.tubemq.corebase.TokenConstants;
 import org.apache.inlong.tubemq.corebase.cluster.Partition;
 import org.apache.inlong.tubemq.corebase.config.TLSConfig;
+import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.BatchMessageItem;
+import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.BatchMessageResult;
 import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.CommitOffsetRequestC2B;
 import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.CommitOffsetResponseB2C;
 import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.GetMessageRequestC2B;
@@ -31,6 +33,8 @@ import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.HeartBe
 import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.HeartBeatResponseB2C;
 import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.RegisterRequestC2B;
 import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.RegisterResponseB2C;
+import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.SendBatchMessageRequestP2B;
+import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.SendBatchMessageResponseB2P;
 import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.SendMessageRequestP2B;
 import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.SendMessageResponseB2P;
 import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.TransferedMessage;
@@ -706,6 +710,183 @@ public class BrokerServiceServer implements BrokerReadService, BrokerWriteServic
         }
     }
 
+    /**
+     * Handle producer's sendBatchMessage request.
+     *
+     * The request level fields are checked once, each message is checked separately,
+     * then the valid messages are appended to the partition store in one batch.
+     *
+     * @param request       the request
+     * @param rmtAddress    the remote ip
+     * @param overtls       whether transfer over TLS
+     * @return              the response
+     * @throws Throwable    the exception during processing
+     */
+    @Override
+    public SendBatchMessageResponseB2P sendBatchMessageP2B(SendBatchMessageRequestP2B request,
+            final String rmtAddress,
+            boolean overtls) throws Throwable {
+        ProcessResult result = new ProcessResult();
+        final long startTime = System.currentTimeMillis();
+        final StringBuilder strBuffer = new StringBuilder(512);
+        SendBatchMessageResponseB2P.Builder builder = SendBatchMessageResponseB2P.newBuilder();
+        builder.setSuccess(false);
+        if (!this.started.get()
+                || ServiceStatusHolder.isWriteServiceStop()) {
+            builder.setErrCode(TErrCodeConstants.SERVICE_UNAVAILABLE);
+            builder.setErrMsg("Write StoreService temporary unavailable!");
+            return builder.build();
+        }
+        if (!serverAuthHandler.identityValidUserInfo(request.getAuthInfo(), true, result)) {
+            builder.setErrCode(result.getErrCode());
+            builder.setErrMsg(result.getErrMsg());
+            return builder.build();
+        }
+        final CertifiedInfo certifiedInfo = (CertifiedInfo) result.getRetData();
+        // get and check clientId field
+        if (!PBParameterUtils.checkClientId(request.getClientId(), strBuffer, result)) {
+            builder.setErrCode(result.getErrCode());
+            builder.setErrMsg(result.getErrMsg());
+            return builder.build();
+        }
+        // get and check topicName and partitionId field
+        final int partitionId = request.getPartitionId();
+        if (!PBParameterUtils.getTopicNamePartIdInfo(true, request.getTopicName(),
+                partitionId, this.metadataManager, strBuffer, result)) {
+            builder.setErrCode(result.getErrCode());
+            builder.setErrMsg(result.getErrMsg());
+            return builder.build();
+        }
+        final TopicMetadata topicMetadata = (TopicMetadata) result.getRetData();
+        final String topicName = topicMetadata.getTopic();
+        final int msgCount = request.getMessagesCount();
+        if (msgCount <= 0) {
+            builder.setErrCode(TErrCodeConstants.BAD_REQUEST);
+            builder.setErrMsg("message count is zero!");
+            return builder.build();
+        }
+        // check each message, the failed ones are answered without appending
+        int validCount = 0;
+        final int[] validIndexes = new int[msgCount];
+        final byte[][] msgDatas = new byte[msgCount][];
+        final int[] checkSums = new int[msgCount];
+        final int[] msgTypeCodes = new int[msgCount];
+        final int[] msgFlags = new int[msgCount];
+        final BatchMessageResult[] msgResults = new BatchMessageResult[msgCount];
+        for (int i = 0; i < msgCount; i++) {
+            BatchMessageItem item = request.getMessages(i);
+            String msgType = null;
+            int msgTypeCode = -1;
+            if (TStringUtils.isNotBlank(item.getMsgType())) {
+                msgType = item.getMsgType().trim();
+                msgTypeCode = msgType.hashCode();
+            }
+            final byte[] msgData = item.getData().toByteArray();
+            final int dataLength = msgData.length;
+            if (dataLength <= 0) {
+                msgResults[i] = buildBatchMsgFailure(TErrCodeConstants.BAD_REQUEST,
+                        "data length is zero!");
+                continue;
+            }
+            if (dataLength > topicMetadata.getMaxMsgSize()) {
+                msgResults[i] = buildBatchMsgFailure(TErrCodeConstants.BAD_REQUEST,
+                        strBuffer.append("data length over max length, allowed max length is ")
+                                .append(topicMetadata.getMaxMsgSize())
+                                .append(", data length is ").append(dataLength).toString());
+                strBuffer.delete(0, strBuffer.length());
+                continue;
+            }
+            int checkSum = CheckSum.crc32(msgData);
+            if (item.getCheckSum() != -1 && checkSum != item.getCheckSum()) {
+                msgResults[i] = buildBatchMsgFailure(TErrCodeConstants.FORBIDDEN,
+                        strBuffer.append("Checksum msg data failure: ")
+                                .append(item.getCheckSum()).append(" of ").append(topicName)
+                                .append(" not equal to the data's checksum of ")
+                                .append(checkSum).toString());
+                strBuffer.delete(0, strBuffer.length());
+                continue;
+            }
+            if (!serverAuthHandler.validProduceAuthorizeInfo(
+                    certifiedInfo.getUserName(), topicName, msgType, rmtAddress, result)) {
+                msgResults[i] = buildBatchMsgFailure(result.getErrCode(), result.getErrMsg());
+                continue;
+            }
+            validIndexes[validCount] = i;
+            msgDatas[validCount] = msgData;
+            checkSums[validCount] = checkSum;
+            msgTypeCodes[validCount] = msgTypeCode;
+            msgFlags[validCount] = item.getFlag();
+            validCount++;
+        }
+        if (validCount > 0) {
+            try {
+                final MessageStore store =
+                        this.storeManager.getOrCreateMessageStore(topicName, partitionId);
+                final AppendResult[] appendResults = new AppendResult[validCount];
+                for (int j = 0; j < validCount; j++) {
+                    appendResults[j] = new AppendResult();
+                }
+                store.appendMsgs(appendResults, validCount, checkSums,
+                        msgDatas, msgTypeCodes, msgFlags, partitionId, request.getSentAddr());
+                String sentIp = AddressUtils.intToIp(request.getSentAddr());
+                for (int j = 0; j < validCount; j++) {
+                    final int i = validIndexes[j];
+                    if (!appendResults[j].isSuccess()) {
+                        msgResults[i] = buildBatchMsgFailure(TErrCodeConstants.SERVER_RECEIVE_OVERFLOW,
+                                strBuffer.append("Put message failed from ")
+                                        .append(tubeConfig.getHostName())
+                                        .append(", server receive message overflow!").toString());
+                        strBuffer.delete(0, strBuffer.length());
+                        continue;
+                    }
+                    BatchMessageItem item = request.getMessages(i);
+                    String baseKey = strBuffer.append(topicName)
+                            .append("#").append(sentIp)
+                            .append("#").append(tubeConfig.getHostName())
+                            .append("#").append(partitionId)
+                            .append("#").append(item.getMsgTime()).toString();
+                    strBuffer.delete(0, strBuffer.length());
+                    putCounterGroup.add(baseKey, 1L, msgDatas[j].length);
+                    AuditUtils.addProduceRecord(topicName,
+                            item.getMsgType(), item.getMsgTime(), 1, msgDatas[j].length);
+                    msgResults[i] = BatchMessageResult.newBuilder()
+                            .setSuccess(true)
+                            .setErrCode(TErrCodeConstants.SUCCESS)
+                            .setErrMsg("Ok")
+                            .setMessageId(appendResults[j].getMsgId())
+                            .setAppendTime(appendResults[j].getAppendTime())
+                            .setAppendOffset(appendResults[j].getAppendIndexOffset())
+                            .build();
+                }
+            } catch (final Throwable ex) {
+                logger.error("Put batch message failed ", ex);
+                strBuffer.delete(0, strBuffer.length());
+                builder.setErrCode(TErrCodeConstants.INTERNAL_SERVER_ERROR);
+                builder.setErrMsg(strBuffer.append("Put batch message failed from ")
+                        .append(tubeConfig.getHostName()).append(" ")
+                        .append((ex.getMessage() != null ? ex.getMessage() : " ")).toString());
+                return builder.build();
+            }
+        }
+        for (BatchMessageResult msgResult : msgResults) {
+            builder.addResults(msgResult);
+        }
+        builder.setSuccess(true);
+        builder.setRequireAuth(certifiedInfo.isReAuth());
+        builder.setErrCode(TErrCodeConstants.SUCCESS);
+        builder.setErrMsg("Ok");
+        BrokerSrvStatsHolder.updSendMsgLatency(System.currentTimeMillis() - startTime);
+        return builder.build();
+    }
+
+    private BatchMessageResult buildBatchMsgFailure(int errCode, String errMsg) {
+        return BatchMessageResult.newBuilder()
+                .setSuccess(false)
+                .setErrCode(errCode)
+                .setErrMsg(errMsg)
+                .build();
+    }
+
     /**
      * append group current offset to storage
      *
@@ -390,6 +390,23 @@ public class TubeBroker implements Stoppable {
                     .updateBrokerTopicConfigMap(response.getCurBrokerConfId(),
                             response.getConfCheckSumId(), response.getBrokerDefaultConfInfo(),
                             response.getBrokerTopicSetConfInfoList(), false, strBuff);
+        } else if (response.getTakeDeltaConfInfo()) {
+            logger.info(strBuff
+                    .append("[HeartBeat response] received broker metadata delta: brokerConfId=")
+                    .append(response.getCurBrokerConfId())
+                    .append(",configCheckSumId=").append(response.getConfCheckSumId())
+                    .append(",baseBrokerConfId=").append(response.getBaseBrokerConfId())
+                    .append(",baseConfCheckSumId=").append(response.getBaseConfCheckSumId())
+                    .append(",brokerTopicSetConfList=")
+                    .append(response.getBrokerTopicSetConfInfoList())
+                    .append(",deltaRemovedTopics=")
+                    .append(response.getDeltaRemovedTopicsList()).toString());
+            strBuff.delete(0, strBuff.length());
+            metadataManager.updateBrokerTopicConfigDelta(response.getCurBrokerConfId(),
+                    response.getConfCheckSumId(), response.getBaseBrokerConfId(),
+                    response.getBaseConfCheckSumId(), response.getBrokerDefaultConfInfo(),
+                    response.getBrokerTopicSetConfInfoList(),
+                    response.getDeltaRemovedTopicsList(), strBuff);
         }
         // update auth info
         if (response.hasBrokerAuthorizedInfo()) {
@@ -581,6 +598,7 @@ public class TubeBroker implements Stoppable {
         builder.setFlowCheckId(flowCtrlRuleHandler.getFlowCtrlId());
         builder.setQryPriorityId(flowCtrlRuleHandler.getQryPriorityId());
         builder.setTakeConfInfo(false);
+        builder.setSupportDeltaConf(true);
         builder.setTakeRemovedTopicInfo(false);
         List<String> removedTopics = this.metadataManager.getHardRemovedTopics();
         if (!removedTopics.isEmpty()) {
@@ -29,6 +29,7 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -55,6 +56,8 @@ public class BrokerMetadataManager implements MetadataManager {
     private String brokerDefMetaConfInfo = "";
     // broker's topic's config list.
     private List<String> topicMetaConfInfoLst = new ArrayList<>();
+    // broker's topic's config string, keyed by topic name.
+    private Map<String/* topic */, String> topicMetaConfInfoMap = new LinkedHashMap<>();
     // topic in this broker.
     private List<String> topics = new ArrayList<>();
     // broker's default metadata.
@@ -69,6 +72,11 @@ public class BrokerMetadataManager implements MetadataManager {
     private final Map<String/* topic */, TopicMetadata> removedTopicConfigMap =
             new ConcurrentHashMap<>();
     private long lastRptBrokerMetaConfId = 0;
+    // topic configure sync statistics
+    private volatile long fullSyncCount = 0;
+    private volatile long deltaSyncCount = 0;
+    private volatile long lastSyncDataSize = 0;
+    private volatile long lastSyncCostMs = 0;
     // group offset storage expire ms
     private final long grpOffsetStgExpMs;
 
@@ -238,6 +246,7 @@ public class BrokerMetadataManager implements MetadataManager {
             List<String> newTopicMetaConfInfoLst,
             boolean isForce,
             final StringBuilder sb) {
+        long startTime = System.currentTimeMillis();
         if ((!isForce)
                 && (this.brokerMetadataConfId == newBrokerMetaConfId)
                 && (this.brokerConfCheckSumId == newConfCheckSumId)) {
@@ -260,15 +269,18 @@ public class BrokerMetadataManager implements MetadataManager {
             logger.error("[Metadata Manage] received broker topic info is Blank, not update");
             return;
         }
+        long dataSize = newBrokerDefMetaConfInfo.length();
         List<String> newTopics = new ArrayList<>();
         Map<String/* topic */, Integer> tmpInvalidTopicMap =
                 new ConcurrentHashMap<>();
+        Map<String/* topic */, String> newTopicConfInfoMap = new LinkedHashMap<>();
         ConcurrentHashMap<String/* topic */, TopicMetadata> newTopicConfigMap =
                 new ConcurrentHashMap<>();
         for (String strTopicConfInfo : newTopicMetaConfInfoLst) {
             if (TStringUtils.isBlank(strTopicConfInfo)) {
                 continue;
             }
+            dataSize += strTopicConfInfo.length();
             TopicMetadata topicMetadata = new TopicMetadata(brokerDefMetadata, strTopicConfInfo);
             if (!topicMetadata.isValidTopic()) {
                 tmpInvalidTopicMap.put(topicMetadata.getTopic(),
@@ -276,20 +288,142 @@ public class BrokerMetadataManager implements MetadataManager {
             }
             newTopics.add(topicMetadata.getTopic());
             newTopicConfigMap.put(topicMetadata.getTopic(), topicMetadata);
+            newTopicConfInfoMap.put(topicMetadata.getTopic(), strTopicConfInfo);
         }
-        // Check to-be-added configure, if history-offset topic is not included, append it
-        addSysHisOffsetTopic(brokerDefMetadata, newTopics, newTopicConfigMap);
-        this.topicMetaConfInfoLst = newTopicMetaConfInfoLst;
-        this.closedTopicMap = tmpInvalidTopicMap;
-        Collections.sort(newTopics);
-        if (!newTopicConfigMap.equals(this.topicConfigMap)) {
-            Map<String, TopicMetadata> oldTopicConfigMap = this.topicConfigMap;
-            this.topics = newTopics;
-            this.topicConfigMap = newTopicConfigMap;
-            this.propertyChangeSupport
-                    .firePropertyChange("topicConfigMap", oldTopicConfigMap, newTopicConfigMap);
+        this.topicMetaConfInfoMap = newTopicConfInfoMap;
+        applyTopicConfigMap(newTopicMetaConfInfoLst,
+                tmpInvalidTopicMap, newTopics, newTopicConfigMap);
+        this.fullSyncCount++;
+        this.lastSyncDataSize = dataSize;
+        this.lastSyncCostMs = System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Apply the topic configure changes got from Master Service to the
+     * current broker's metadata, only the changed topics will be parsed.
+     *
+     * @param newBrokerMetaConfId         the new broker meta configure id
+     * @param newConfCheckSumId           the new configure checksum id
+     * @param baseBrokerMetaConfId        the meta configure id the delta based on
+     * @param baseConfCheckSumId          the configure checksum id the delta based on
+     * @param newBrokerDefMetaConfInfo    the new broker default meta configures
+     * @param changedTopicMetaConfInfoLst the added or changed topic meta configure list
+     * @param removedTopics               the removed topic names
+     * @param sb                          string buffer
+     * @return                            whether the delta is applied
+     */
+    @Override
+    public boolean updateBrokerTopicConfigDelta(long newBrokerMetaConfId,
+            int newConfCheckSumId,
+            long baseBrokerMetaConfId,
+            int baseConfCheckSumId,
+            String newBrokerDefMetaConfInfo,
+            List<String> changedTopicMetaConfInfoLst,
+            List<String> removedTopics,
+            final StringBuilder sb) {
+        long startTime = System.currentTimeMillis();
+        // the delta only takes effect on the configure it based on,
+        // otherwise wait for the Master to send the full configure
+        if (this.brokerMetadataConfId != baseBrokerMetaConfId
+                || this.brokerConfCheckSumId != baseConfCheckSumId
+                || !this.brokerDefMetaConfInfo.equals(newBrokerDefMetaConfInfo)) {
+            logger.info(sb
+                    .append("[Metadata Manage] Broker topic configure delta not match, not update!")
+                    .append(" curBrokerConfId is ").append(this.brokerMetadataConfId)
+                    .append(", curConfCheckSumId is ").append(this.brokerConfCheckSumId)
+                    .append(", received baseBrokerMetaConfId is ").append(baseBrokerMetaConfId)
+                    .append(", received baseConfCheckSumId is ").append(baseConfCheckSumId)
+                    .toString());
+            sb.delete(0, sb.length());
+            return false;
         }
-        this.propertyChangeSupport.firePropertyChange("unflushInterval", null, null);
+        long dataSize = newBrokerDefMetaConfInfo.length();
+        Map<String/* topic */, Integer> tmpInvalidTopicMap =
+                new ConcurrentHashMap<>(this.closedTopicMap);
+        Map<String/* topic */, String> newTopicConfInfoMap =
+                new LinkedHashMap<>(this.topicMetaConfInfoMap);
+        ConcurrentHashMap<String/* topic */, TopicMetadata> newTopicConfigMap =
+                new ConcurrentHashMap<>(this.topicConfigMap);
+        if (removedTopics != null) {
+            for (String topicName : removedTopics) {
+                if (TStringUtils.isBlank(topicName)) {
+                    continue;
+                }
+                dataSize += topicName.length();
+                tmpInvalidTopicMap.remove(topicName);
+                newTopicConfInfoMap.remove(topicName);
+                newTopicConfigMap.remove(topicName);
+            }
+        }
+        if (changedTopicMetaConfInfoLst != null) {
+            for (String strTopicConfInfo : changedTopicMetaConfInfoLst) {
+                if (TStringUtils.isBlank(strTopicConfInfo)) {
+                    continue;
+                }
+                dataSize += strTopicConfInfo.length();
+                TopicMetadata topicMetadata = new TopicMetadata(brokerDefMetadata, strTopicConfInfo);
+                if (topicMetadata.isValidTopic()) {
+                    tmpInvalidTopicMap.remove(topicMetadata.getTopic());
+                } else {
+                    tmpInvalidTopicMap.put(topicMetadata.getTopic(),
+                            topicMetadata.getStatusId());
+                }
+                newTopicConfigMap.put(topicMetadata.getTopic(), topicMetadata);
+                newTopicConfInfoMap.put(topicMetadata.getTopic(), strTopicConfInfo);
+            }
+        }
+        this.brokerMetadataConfId = newBrokerMetaConfId;
+        this.brokerConfCheckSumId = newConfCheckSumId;
+        this.topicMetaConfInfoMap = newTopicConfInfoMap;
+        // rebuild the default history-offset topic as the full update does
+        List<String> newTopics = new ArrayList<>(newTopicConfInfoMap.keySet());
+        if (!newTopics.contains(TServerConstants.OFFSET_HISTORY_NAME)) {
+            newTopicConfigMap.remove(TServerConstants.OFFSET_HISTORY_NAME);
+        }
+        applyTopicConfigMap(new ArrayList<>(newTopicConfInfoMap.values()),
+                tmpInvalidTopicMap, newTopics, newTopicConfigMap);
+        this.deltaSyncCount++;
+        this.lastSyncDataSize = dataSize;
+        this.lastSyncCostMs = System.currentTimeMillis() - startTime;
+        logger.info(sb
+                .append("[Metadata Manage] Broker topic configure delta applied, brokerConfId is ")
+                .append(newBrokerMetaConfId).append(", changed topic count is ")
+                .append(changedTopicMetaConfInfoLst == null ? 0 : changedTopicMetaConfInfoLst.size())
+                .append(", removed topic count is ")
+                .append(removedTopics == null ? 0 : removedTopics.size())
+                .append(", sync data size is ").append(dataSize)
+                .append(", cost is ").append(lastSyncCostMs).append("ms").toString());
+        sb.delete(0, sb.length());
+        return true;
+    }
+
+    public long getFullSyncCount() {
+        return fullSyncCount;
+    }
+
+    public long getDeltaSyncCount() {
+        return deltaSyncCount;
+    }
+
+    public long getLastSyncDataSize() {
+        return lastSyncDataSize;
+    }
+
+    public long getLastSyncCostMs() {
+        return lastSyncCostMs;
+    }
+
+    /**
+     * Get the topic configure sync statistics
+     *
+     * @param statsMap    the statistics result
+     */
+    @Override
+    public void getSyncStatsInfo(Map<String, Long> statsMap) {
+        statsMap.put("meta_full_sync_count", fullSyncCount);
+        statsMap.put("meta_delta_sync_count", deltaSyncCount);
+        statsMap.put("meta_last_sync_data_size", lastSyncDataSize);
+        statsMap.put("meta_last_sync_cost_ms", lastSyncCostMs);
     }
 
     /**
@@ -361,6 +495,32 @@ public class BrokerMetadataManager implements MetadataManager {
         this.propertyChangeSupport.addPropertyChangeListener(propertyName, listener);
     }
 
+    /**
+     * Apply the topic configures synchronized from master
+     *
+     * @param newTopicMetaConfInfoLst   the topic configure strings
+     * @param tmpInvalidTopicMap        the closed topic map
+     * @param newTopics                 the topic list
+     * @param newTopicConfigMap         the topic configure map
+     */
+    private void applyTopicConfigMap(List<String> newTopicMetaConfInfoLst,
+            Map<String, Integer> tmpInvalidTopicMap, List<String> newTopics,
+            ConcurrentHashMap<String, TopicMetadata> newTopicConfigMap) {
+        // Check to-be-added configure, if history-offset topic is not included, append it
+        addSysHisOffsetTopic(brokerDefMetadata, newTopics, newTopicConfigMap);
+        this.topicMetaConfInfoLst = newTopicMetaConfInfoLst;
+        this.closedTopicMap = tmpInvalidTopicMap;
+        Collections.sort(newTopics);
+        if (!newTopicConfigMap.equals(this.topicConfigMap)) {
+            Map<String, TopicMetadata> oldTopicConfigMap = this.topicConfigMap;
+            this.topics = newTopics;
+            this.topicConfigMap = newTopicConfigMap;
+            this.propertyChangeSupport
+                    .firePropertyChange("topicConfigMap", oldTopicConfigMap, newTopicConfigMap);
+        }
+        this.propertyChangeSupport.firePropertyChange("unflushInterval", null, null);
+    }
+
     /**
      * Add historical offset storage topic by default
      *
@@ -37,6 +37,15 @@ public interface MetadataManager {
             boolean isForce,
             StringBuilder sb);
 
+    boolean updateBrokerTopicConfigDelta(long newBrokerMetaConfId,
+            int newConfCheckSumId,
+            long baseBrokerMetaConfId,
+            int baseConfCheckSumId,
+            String newBrokerDefMetaConfInfo,
+            List<String> changedTopicMetaConfInfoLst,
+            List<String> removedTopics,
+            StringBuilder sb);
+
     boolean updateBrokerRemoveTopicMap(boolean isTakeRemoveTopics,
             List<String> rmvTopicMetaConfInfoLst,
             StringBuilder sb);
@@ -87,4 +96,6 @@ public interface MetadataManager {
     Map<String, TopicMetadata> getTopicConfigMap();
 
     long getGrpOffsetsStgExpMs();
+
+    void getSyncStatsInfo(Map<String, Long> statsMap);
 }
@@ -26,8 +26,11 @@ import org.apache.inlong.tubemq.corebase.utils.Tuple3;
 import org.apache.inlong.tubemq.server.broker.BrokerConfig;
 import org.apache.inlong.tubemq.server.broker.metadata.TopicMetadata;
 import org.apache.inlong.tubemq.server.broker.msgstore.disk.GetMessageResult;
+import org.apache.inlong.tubemq.server.broker.msgstore.disk.GroupCommitFlusher;
+import org.apache.inlong.tubemq.server.broker.msgstore.disk.IndexKeyFilter;
 import org.apache.inlong.tubemq.server.broker.msgstore.disk.MsgFileStore;
 import org.apache.inlong.tubemq.server.broker.msgstore.disk.Segment;
+import org.apache.inlong.tubemq.server.broker.msgstore.disk.SegmentBlockCache;
 import org.apache.inlong.tubemq.server.broker.msgstore.mem.GetCacheMsgResult;
 import org.apache.inlong.tubemq.server.broker.msgstore.mem.MsgMemStore;
 import org.apache.inlong.tubemq.server.broker.nodeinfo.ConsumerNodeInfo;
@@ -165,9 +168,11 @@ public class MessageStore implements Closeable {
         this.msgFileStore = new MsgFileStore(this, this.tubeConfig, this.primStorePath, offsetIfCreate);
         if (this.tubeConfig.isEnableMemStore()) {
             this.msgMemStore = new MsgMemStore(this.writeCacheMaxSize, this.writeCacheMaxCnt,
-                    this.msgFileStore.getDataMaxOffset(), this.msgFileStore.getIndexMaxOffset());
+                    this.msgFileStore.getDataMaxOffset(), this.msgFileStore.getIndexMaxOffset(),
+                    this.tubeConfig.isEnableLockFreeAppend());
             this.msgMemStoreBeingFlush = new MsgMemStore(this.writeCacheMaxSize, this.writeCacheMaxCnt,
-                    this.msgFileStore.getDataMaxOffset(), this.msgFileStore.getIndexMaxOffset());
+                    this.msgFileStore.getDataMaxOffset(), this.msgFileStore.getIndexMaxOffset(),
+                    this.tubeConfig.isEnableLockFreeAppend());
             this.lastMemFlushTime.set(System.currentTimeMillis());
         }
     }
@@ -280,9 +285,16 @@ public class MessageStore implements Closeable {
         maxIndexReadLength = consumerNodeInfo.isFilterConsume()
                 ? fileMaxFilterIndexReadSize.get()
                 : fileMaxIndexReadSize.get();
+        // skip the index records whose data has been deleted
+        final long validIndexOffset = this.msgFileStore.skipExpiredIndex(reqNewOffset);
+        // skip the index blocks without the filtered keys
+        final long readIndexOffset = consumerNodeInfo.isFilterConsume()
+                ? this.msgFileStore.skipUnmatchedIndex(validIndexOffset,
+                        IndexKeyFilter.MAX_SKIP_INDEX_SIZE, consumerNodeInfo.getFilterCondCodeSet())
+                : validIndexOffset;
         final ByteBuffer indexBuffer = ByteBuffer.allocate(maxIndexReadLength);
         Segment indexRecordView =
-                this.msgFileStore.indexSlice(reqNewOffset, maxIndexReadLength);
+                this.msgFileStore.indexSlice(readIndexOffset, maxIndexReadLength);
         if (indexRecordView == null) {
             if (reqNewOffset < this.msgFileStore.getIndexMinOffset()) {
                 return new GetMessageResult(false, TErrCodeConstants.MOVED,
@@ -292,7 +304,7 @@ public class MessageStore implements Closeable {
                         reqNewOffset, 0, "current offset is exceed max offset!");
             }
         }
-        indexRecordView.read(indexBuffer, reqNewOffset);
+        indexRecordView.read(indexBuffer, readIndexOffset);
         indexBuffer.flip();
         indexRecordView.relViewRef();
         if ((msgFileStore.getDataHighMaxOffset() - consumerNodeInfo.getLastDataRdOffset() >= this.tubeConfig
@@ -302,10 +314,18 @@ public class MessageStore implements Closeable {
         }
         GetMessageResult retResult =
                 msgFileStore.getMessages(partitionId,
-                        consumerNodeInfo.getLastDataRdOffset(), reqNewOffset,
+                        consumerNodeInfo.getLastDataRdOffset(), readIndexOffset,
                         indexBuffer, consumerNodeInfo.isFilterConsume(),
                         consumerNodeInfo.getFilterCondCodeSet(),
                         statsKeyBase, msgSizeLimit, reqRcvTime);
+        // the skipped records are counted as read from the adjusted offset
+        if (readIndexOffset > reqNewOffset
+                && retResult.isSuccess
+                && retResult.getLastReadOffset() >= 0) {
+            retResult.setReqOffset(reqNewOffset);
+            retResult.setLastReadOffset((int) (readIndexOffset - reqNewOffset)
+                    + retResult.getLastReadOffset());
+        }
         if (reqSwitch <= 1) {
             retResult.setMaxOffset(getFileIndexMaxOffset());
         } else {
@@ -405,30 +425,11 @@ public class MessageStore implements Closeable {
                     .append(this.storeKey).toString());
         }
         long messageId = this.idWorker.nextId();
-        // build data buffer
         int msgBufLen = DataStoreUtils.STORE_DATA_HEADER_LEN + dataLength;
-        final ByteBuffer dataBuffer = ByteBuffer.allocate(msgBufLen);
-        dataBuffer.putInt(DataStoreUtils.STORE_DATA_PREFX_LEN + dataLength);
-        dataBuffer.putInt(DataStoreUtils.STORE_DATA_TOKER_BEGIN_VALUE);
-        dataBuffer.putInt(dataCheckSum);
-        dataBuffer.putInt(partitionId);
-        dataBuffer.putLong(-1L);
-        dataBuffer.putLong(receivedTime);
-        dataBuffer.putInt(sentAddr);
-        dataBuffer.putInt(msgTypeCode);
-        dataBuffer.putLong(messageId);
-        dataBuffer.putInt(msgFlag);
-        dataBuffer.put(data);
-        dataBuffer.flip();
-        // build index buffer
+        final ByteBuffer dataBuffer = buildDataBuffer(dataLength, dataCheckSum, data,
+                msgTypeCode, msgFlag, partitionId, sentAddr, receivedTime, messageId);
         final ByteBuffer indexBuffer =
-                ByteBuffer.allocate(DataStoreUtils.STORE_INDEX_HEAD_LEN);
-        indexBuffer.putInt(partitionId);
-        indexBuffer.putLong(-1L);
-        indexBuffer.putInt(msgBufLen);
-        indexBuffer.putInt(msgTypeCode);
-        indexBuffer.putLong(receivedTime);
-        indexBuffer.flip();
+                buildIndexBuffer(msgBufLen, msgTypeCode, partitionId, receivedTime);
         appendResult.putReceivedInfo(messageId, receivedTime);
         boolean appendSuss = true;
         long startTime = System.currentTimeMillis();
@@ -475,6 +476,97 @@ public class MessageStore implements Closeable {
         }
     }
 
+    /**
+     * Append a batch of messages of one partition to store.
+     *
+     * If the memory cache is enabled and can hold the whole batch, the batch is appended
+     * to the memory cache in one operation; otherwise the messages are appended one by one,
+     * and the append stops at the first failed message.
+     *
+     * @param appendResults   the append results
+     * @param msgCount        the message count in batch
+     * @param dataCheckSums   the check sums of message data
+     * @param datas           the message data
+     * @param msgTypeCodes    the filter item hash codes
+     * @param msgFlags        the message flags
+     * @param partitionId     the partitionId for append messages
+     * @param sentAddr        the address to send the messages to
+     *
+     * @return                whether all the messages are appended
+     * @throws IOException    the exception during processing
+     */
+    public boolean appendMsgs(AppendResult[] appendResults, int msgCount,
+            int[] dataCheckSums, byte[][] datas,
+            int[] msgTypeCodes, int[] msgFlags,
+            int partitionId, int sentAddr) throws IOException {
+        if (this.closed.get()) {
+            throw new IllegalStateException(new StringBuilder(512)
+                    .append("[Data Store] Closed MessageStore for storeKey ")
+                    .append(this.storeKey).toString());
+        }
+        final long receivedTime = System.currentTimeMillis();
+        int totalDataLength = 0;
+        for (int i = 0; i < msgCount; i++) {
+            totalDataLength += DataStoreUtils.STORE_DATA_HEADER_LEN + datas[i].length;
+        }
+        if (!this.tubeConfig.isEnableMemStore()
+                || !this.msgMemStore.canHoldMsgs(msgCount, totalDataLength)) {
+            for (int i = 0; i < msgCount; i++) {
+                if (!appendMsg2(appendResults[i], datas[i].length, dataCheckSums[i],
+                        datas[i], msgTypeCodes[i], msgFlags[i], partitionId,
+                        sentAddr, receivedTime, 3, 1)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        long messageId;
+        final ByteBuffer[] dataBuffers = new ByteBuffer[msgCount];
+        final ByteBuffer[] indexBuffers = new ByteBuffer[msgCount];
+        for (int i = 0; i < msgCount; i++) {
+            messageId = this.idWorker.nextId();
+            dataBuffers[i] = buildDataBuffer(datas[i].length, dataCheckSums[i], datas[i],
+                    msgTypeCodes[i], msgFlags[i], partitionId, sentAddr, receivedTime, messageId);
+            indexBuffers[i] = buildIndexBuffer(dataBuffers[i].limit(),
+                    msgTypeCodes[i], partitionId, receivedTime);
+            appendResults[i].putReceivedInfo(messageId, receivedTime);
+        }
+        int count = 3;
+        boolean appendSuss;
+        long startTime = System.currentTimeMillis();
+        do {
+            this.writeCacheMutex.readLock().lock();
+            try {
+                appendSuss = this.msgMemStore.appendMsgs(msgStoreStatsHolder, partitionId,
+                        receivedTime, msgCount, indexBuffers, dataBuffers, totalDataLength, appendResults);
+            } finally {
+                this.writeCacheMutex.readLock().unlock();
+            }
+            if (!appendSuss) {
+                writeCacheMutex.writeLock().lock();
+                try {
+                    triggerFlushAndWait(false);
+                    appendSuss = msgMemStore.appendMsgs(msgStoreStatsHolder, partitionId,
+                            receivedTime, msgCount, indexBuffers, dataBuffers, totalDataLength, appendResults);
+                } finally {
+                    writeCacheMutex.writeLock().unlock();
+                }
+            }
+            if (appendSuss) {
+                long writeDltTime = System.currentTimeMillis() - startTime;
+                for (int i = 0; i < msgCount; i++) {
+                    msgStoreStatsHolder.addMsgWriteSuccess(dataBuffers[i].limit(), writeDltTime);
+                }
+                return true;
+            }
+            ThreadUtils.sleep(1);
+        } while (count-- >= 0);
+        for (int i = 0; i < msgCount; i++) {
+            msgStoreStatsHolder.addMsgWriteFailure();
+        }
+        return false;
+    }
+
     public void getMsgStoreStatsInfo(boolean needRefresh, StringBuilder strBuff) {
         msgStoreStatsHolder.getMsgStoreStatsInfo(needRefresh, strBuff);
     }
@@ -483,6 +575,20 @@ public class MessageStore implements Closeable {
         return this.msgStoreStatsHolder;
     }
 
+    public GroupCommitFlusher getGroupCommitFlusher() {
+        if (this.msgStoreMgr == null) {
+            return null;
+        }
+        return this.msgStoreMgr.getGroupCommitFlusher();
+    }
+
+    public SegmentBlockCache getSegmentBlockCache() {
+        if (this.msgStoreMgr == null) {
+            return null;
+        }
+        return this.msgStoreMgr.getSegmentBlockCache();
+    }
+
     /**
      * Execute cleanup policy.
      *
@@ -785,8 +891,29 @@ public class MessageStore implements Closeable {
             long receivedTime, ByteBuffer indexEntry,
             int dataLength, ByteBuffer dataEntry,
             AppendResult appendResult) throws IOException {
-        long startTime;
         writeCacheMutex.writeLock().lock();
+        try {
+            triggerFlushAndWait(isTimeTrigger);
+            if (needAdd) {
+                return msgMemStore.appendMsg(msgStoreStatsHolder, partitionId, keyCode,
+                        receivedTime, indexEntry, dataLength, dataEntry, appendResult);
+            }
+        } finally {
+            writeCacheMutex.writeLock().unlock();
+        }
+        return false;
+    }
+
+    /**
+     * Trigger the flush of memory cache and wait for it to complete,
+     * the caller must hold the write lock of the cache mutex.
+     *
+     * @param isTimeTrigger     whether is timer trigger
+     *
+     * @throws IOException      the exception during processing
+     */
+    private void triggerFlushAndWait(boolean isTimeTrigger) throws IOException {
+        long startTime;
         try {
             if (!isFlushOngoing.get() && hasFlushBeenTriggered.compareAndSet(false, true)) {
                 this.executor.execute(new Runnable() {
@@ -819,20 +946,46 @@ public class MessageStore implements Closeable {
                     break;
                 }
             }
-            if (needAdd) {
-                return msgMemStore.appendMsg(msgStoreStatsHolder, partitionId, keyCode,
-                        receivedTime, indexEntry, dataLength, dataEntry, appendResult);
-            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new IOException(new StringBuilder(512)
                     .append("[Data Store] StoreKey=").append(storeKey)
                     .append(" Interrupted when triggerFlushAndAddMsg process for storekey ")
                     .append(storeKey).toString());
-        } finally {
-            writeCacheMutex.writeLock().unlock();
         }
-        return false;
+    }
+
+    private ByteBuffer buildDataBuffer(int dataLength, int dataCheckSum, byte[] data,
+            int msgTypeCode, int msgFlag, int partitionId, int sentAddr,
+            long receivedTime, long messageId) {
+        final ByteBuffer dataBuffer =
+                ByteBuffer.allocate(DataStoreUtils.STORE_DATA_HEADER_LEN + dataLength);
+        dataBuffer.putInt(DataStoreUtils.STORE_DATA_PREFX_LEN + dataLength);
+        dataBuffer.putInt(DataStoreUtils.STORE_DATA_TOKER_BEGIN_VALUE);
+        dataBuffer.putInt(dataCheckSum);
+        dataBuffer.putInt(partitionId);
+        dataBuffer.putLong(-1L);
+        dataBuffer.putLong(receivedTime);
+        dataBuffer.putInt(sentAddr);
+        dataBuffer.putInt(msgTypeCode);
+        dataBuffer.putLong(messageId);
+        dataBuffer.putInt(msgFlag);
+        dataBuffer.put(data);
+        dataBuffer.flip();
+        return dataBuffer;
+    }
+
+    private ByteBuffer buildIndexBuffer(int msgBufLen, int msgTypeCode,
+            int partitionId, long receivedTime) {
+        final ByteBuffer indexBuffer =
+                ByteBuffer.allocate(DataStoreUtils.STORE_INDEX_HEAD_LEN);
+        indexBuffer.putInt(partitionId);
+        indexBuffer.putLong(-1L);
+        indexBuffer.putInt(msgBufLen);
+        indexBuffer.putInt(msgTypeCode);
+        indexBuffer.putLong(receivedTime);
+        indexBuffer.flip();
+        return indexBuffer;
     }
 
     private void flush(StringBuilder strBuffer) throws IOException {
@@ -886,7 +1039,8 @@ public class MessageStore implements Closeable {
             } else {
                 isRealloc = true;
                 msgMemStore = new MsgMemStore(writeCacheMaxSize,
-                        writeCacheMaxCnt, lastDataPos, lastIndexPos);
+                        writeCacheMaxCnt, lastDataPos, lastIndexPos,
+                        tubeConfig.isEnableLockFreeAppend());
             }
             hasFlushBeenTriggered.set(false);
             flushWriteCacheCondition.signalAll();
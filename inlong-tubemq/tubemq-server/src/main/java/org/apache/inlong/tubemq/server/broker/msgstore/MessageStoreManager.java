@@ -27,6 +27,8 @@ import org.apache.inlong.tubemq.server.broker.exception.StartupException;
 import org.apache.inlong.tubemq.server.broker.metadata.MetadataManager;
 import org.apache.inlong.tubemq.server.broker.metadata.TopicMetadata;
 import org.apache.inlong.tubemq.server.broker.msgstore.disk.GetMessageResult;
+import org.apache.inlong.tubemq.server.broker.msgstore.disk.GroupCommitFlusher;
+import org.apache.inlong.tubemq.server.broker.msgstore.disk.SegmentBlockCache;
 import org.apache.inlong.tubemq.server.broker.nodeinfo.ConsumerNodeInfo;
 import org.apache.inlong.tubemq.server.broker.offset.topicpub.TopicPubInfo;
 import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
@@ -85,6 +87,10 @@ public class MessageStoreManager implements StoreService {
     private final int maxMsgTransferSize;
     // the status that is deleting topic.
     private final AtomicBoolean isRemovingTopic = new AtomicBoolean(false);
+    // the group commit flusher, null if disabled.
+    private final GroupCommitFlusher groupCommitFlusher;
+    // the data block cache, null if disabled.
+    private final SegmentBlockCache segmentBlockCache;
 
     /**
      * Initial the message-store manager.
@@ -136,7 +142,20 @@ public class MessageStoreManager implements StoreService {
                         return new Thread(r, "Broker Log Mem Flush Thread");
                     }
                 });
-
+        if (tubeConfig.isEnableGroupCommitFlush()) {
+            this.groupCommitFlusher =
+                    new GroupCommitFlusher(tubeConfig.getGroupCommitWindowMs(),
+                            tubeConfig.getGroupCommitFlushThreads());
+        } else {
+            this.groupCommitFlusher = null;
+        }
+        if (tubeConfig.isEnableBlockCache()) {
+            this.segmentBlockCache =
+                    new SegmentBlockCache(tubeConfig.getBlockCacheSize(),
+                            tubeConfig.getBlockCacheReadAheadCount());
+        } else {
+            this.segmentBlockCache = null;
+        }
     }
 
     @Override
@@ -149,6 +168,9 @@ public class MessageStoreManager implements StoreService {
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
+        if (this.groupCommitFlusher != null) {
+            this.groupCommitFlusher.start();
+        }
         this.logClearScheduler.scheduleWithFixedDelay(new LogClearRunner(),
                 tubeConfig.getLogClearupDurationMs(),
                 tubeConfig.getLogClearupDurationMs(),
@@ -176,6 +198,9 @@ public class MessageStoreManager implements StoreService {
             this.logClearScheduler.shutdownNow();
             this.unFlushDiskScheduler.shutdownNow();
             this.unFlushMemScheduler.shutdownNow();
+            if (this.groupCommitFlusher != null) {
+                this.groupCommitFlusher.close();
+            }
             for (Map.Entry<String, ConcurrentHashMap<Integer, MessageStore>> entry : this.dataStores.entrySet()) {
                 if (entry.getValue() != null) {
                     ConcurrentHashMap<Integer, MessageStore> subMap = entry.getValue();
@@ -193,6 +218,9 @@ public class MessageStoreManager implements StoreService {
                 }
             }
             this.dataStores.clear();
+            if (this.segmentBlockCache != null) {
+                this.segmentBlockCache.close();
+            }
             logger.info("[Store Manager] Store Manager stopped!");
         }
     }
@@ -395,6 +423,14 @@ public class MessageStoreManager implements StoreService {
         return maxMsgTransferSize;
     }
 
+    public GroupCommitFlusher getGroupCommitFlusher() {
+        return groupCommitFlusher;
+    }
+
+    public SegmentBlockCache getSegmentBlockCache() {
+        return segmentBlockCache;
+    }
+
     public Map<String, ConcurrentHashMap<Integer, MessageStore>> getMessageStores() {
         return Collections.unmodifiableMap(this.dataStores);
     }
@@ -25,14 +25,18 @@ import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sun.nio.ch.DirectBuffer;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Segment file. Topic contains multi FileSegments. Each FileSegment contains data file and index file.
@@ -50,6 +54,14 @@ public class FileSegment implements Segment {
     private final AtomicLong flushedSize;
     private final SegmentType segmentType;
     private volatile boolean mutable = false;
+    // read-only mapping of the immutable index segment
+    private volatile MappedByteBuffer readMapping = null;
+    // the read lock is held while reading the mapping, the write lock while releasing it
+    private final ReentrantReadWriteLock mappingLock = new ReentrantReadWriteLock();
+    // whether the keyCode filter of the index segment is enabled
+    private volatile boolean keyFilterEnabled = false;
+    // the keyCode filter of the index segment, null if not built
+    private volatile IndexKeyFilter keyFilter = null;
     private long expiredTime = 0;
     private final AtomicBoolean expired = new AtomicBoolean(false);
     private final AtomicBoolean closed = new AtomicBoolean(false);
@@ -150,6 +162,8 @@ public class FileSegment implements Segment {
     @Override
     public void close() {
         if (this.closed.compareAndSet(false, true)) {
+            releaseMapping();
+            this.keyFilter = null;
             try {
                 if (this.channel.isOpen()) {
                     if (this.mutable) {
@@ -173,6 +187,7 @@ public class FileSegment implements Segment {
     @Override
     public void deleteFile() {
         this.closed.set(true);
+        releaseMapping();
         try {
             if (this.channel.isOpen()) {
                 if (this.mutable) {
@@ -226,6 +241,11 @@ public class FileSegment implements Segment {
             throw new UnsupportedOperationException("[File Store] Segment is closed!");
         }
         final long offset = this.cachedSize.get();
+        // the keyCodes must be visible before the records
+        final IndexKeyFilter curKeyFilter = this.keyFilter;
+        if (curKeyFilter != null) {
+            curKeyFilter.addRecords(offset, buf);
+        }
         int sizeInBytes = 0;
         while (buf.hasRemaining()) {
             sizeInBytes += this.channel.write(buf);
@@ -250,8 +270,15 @@ public class FileSegment implements Segment {
      */
     @Override
     public long flush(boolean force) throws IOException {
+        // only the bytes appended before force() are guaranteed durable,
+        // and concurrent flushes must never move the flushed size backwards
+        final long toFlushSize = this.cachedSize.get();
         this.channel.force(force);
-        this.flushedSize.set(this.cachedSize.get());
+        long curFlushedSize = this.flushedSize.get();
+        while (toFlushSize > curFlushedSize
+                && !this.flushedSize.compareAndSet(curFlushedSize, toFlushSize)) {
+            curFlushedSize = this.flushedSize.get();
+        }
         return this.start + this.flushedSize.get();
     }
 
@@ -367,6 +394,18 @@ public class FileSegment implements Segment {
         if (this.isExpired()) {
             // Todo: conduct file closed and expired cases.
         }
+        if (this.readMapping != null) {
+            this.mappingLock.readLock().lock();
+            try {
+                final MappedByteBuffer mapping = this.readMapping;
+                if (mapping != null) {
+                    readFromMapping(mapping, bf, absOffset - start);
+                    return;
+                }
+            } finally {
+                this.mappingLock.readLock().unlock();
+            }
+        }
         int size = 0;
         long startPos = absOffset - start;
         while (bf.hasRemaining()) {
@@ -383,6 +422,18 @@ public class FileSegment implements Segment {
         if (this.isExpired()) {
             // Todo: conduct file closed and expired cases.
         }
+        if (this.readMapping != null) {
+            this.mappingLock.readLock().lock();
+            try {
+                final MappedByteBuffer mapping = this.readMapping;
+                if (mapping != null) {
+                    readFromMapping(mapping, bf, relOffset);
+                    return;
+                }
+            } finally {
+                this.mappingLock.readLock().unlock();
+            }
+        }
         int size = 0;
         while (bf.hasRemaining()) {
             final int l = this.channel.read(bf, relOffset + size);
@@ -400,6 +451,17 @@ public class FileSegment implements Segment {
      */
     @Override
     public long getRecordTime(long reqOffset) throws IOException {
+        if (this.readMapping != null) {
+            this.mappingLock.readLock().lock();
+            try {
+                final MappedByteBuffer mapping = this.readMapping;
+                if (mapping != null) {
+                    return mapping.getLong((int) (reqOffset - start) + DataStoreUtils.INDEX_POS_TIME_RECV);
+                }
+            } finally {
+                this.mappingLock.readLock().unlock();
+            }
+        }
         ByteBuffer readUnit = ByteBuffer.allocate(DataStoreUtils.STORE_INDEX_HEAD_LEN);
         int size = 0;
         while (readUnit.hasRemaining()) {
@@ -413,6 +475,220 @@ public class FileSegment implements Segment {
         return readUnit.getLong(DataStoreUtils.INDEX_POS_TIME_RECV);
     }
 
+    /**
+     * Map the immutable index segment into memory in read-only mode.
+     * The mapping is released when the segment is closed or deleted.
+     *
+     * @return whether the segment is mapped
+     * @throws IOException exception while mapping the file
+     */
+    @Override
+    public boolean mapReadOnly() throws IOException {
+        if (this.mutable
+                || this.closed.get()
+                || this.segmentType != SegmentType.INDEX) {
+            return false;
+        }
+        final long mapSize = getCommitSize();
+        if (mapSize <= 0 || mapSize > Integer.MAX_VALUE) {
+            return false;
+        }
+        this.mappingLock.writeLock().lock();
+        try {
+            if (this.closed.get() || this.readMapping != null) {
+                return this.readMapping != null;
+            }
+            this.readMapping = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, mapSize);
+            return true;
+        } finally {
+            this.mappingLock.writeLock().unlock();
+        }
+    }
+
+    public boolean isMapped() {
+        return this.readMapping != null;
+    }
+
+    /**
+     * Binary search the first index record received at the specified time,
+     * if not found, return the last record received before the specified time.
+     *
+     * @param timestamp         the specified timestamp
+     * @param minDataOffset     the min valid data offset
+     * @return                  the absolute index offset
+     * @throws IOException      exception while reading index records
+     */
+    @Override
+    public long getStartOffsetByTimeStamp(long timestamp,
+            long minDataOffset) throws IOException {
+        long endPos = getCommitSize() / DataStoreUtils.STORE_INDEX_HEAD_LEN - 1;
+        // check boundaries
+        if (endPos <= 0) {
+            return this.start;
+        }
+        this.mappingLock.readLock().lock();
+        try {
+            return searchOffsetByTimeStamp(this.readMapping, endPos, timestamp, minDataOffset);
+        } finally {
+            this.mappingLock.readLock().unlock();
+        }
+    }
+
+    private long searchOffsetByTimeStamp(MappedByteBuffer mapping, long endPos,
+            long timestamp, long minDataOffset) throws IOException {
+        final ByteBuffer readBuffer = (mapping == null)
+                ? ByteBuffer.allocate(DataStoreUtils.STORE_INDEX_HEAD_LEN)
+                : null;
+        long foundTime = getValidRecordTime(mapping, 0, minDataOffset, readBuffer);
+        if (timestamp < foundTime) {
+            return this.start;
+        }
+        foundTime = getValidRecordTime(mapping,
+                endPos * DataStoreUtils.STORE_INDEX_HEAD_LEN, minDataOffset, readBuffer);
+        if (timestamp > foundTime) {
+            return this.start + endPos * DataStoreUtils.STORE_INDEX_HEAD_LEN;
+        }
+        long midPos = 0;
+        long startPos = 0;
+        long firstLowPos = 0;
+        long firstEqualPos = -1;
+        // Dichotomy finds the first offset position less than the specified time
+        while (startPos <= endPos) {
+            midPos = endPos + startPos >>> 1;
+            foundTime = getValidRecordTime(mapping,
+                    midPos * DataStoreUtils.STORE_INDEX_HEAD_LEN, minDataOffset, readBuffer);
+            if (foundTime < timestamp) {
+                firstLowPos = midPos;
+                startPos = midPos + 1;
+            } else {
+                endPos = midPos - 1;
+                if (foundTime == timestamp) {
+                    firstEqualPos = midPos;
+                }
+            }
+        }
+        if (firstEqualPos != -1) {
+            return this.start + firstEqualPos * DataStoreUtils.STORE_INDEX_HEAD_LEN;
+        } else {
+            return this.start + firstLowPos * DataStoreUtils.STORE_INDEX_HEAD_LEN;
+        }
+    }
+
+    /**
+     * Binary search the first index record whose data offset is not less than
+     * the specified data offset.
+     *
+     * @param dataOffset        the specified data offset
+     * @return                  the absolute index offset
+     * @throws IOException      exception while reading index records
+     */
+    @Override
+    public long getIndexOffsetByDataOffset(long dataOffset) throws IOException {
+        this.mappingLock.readLock().lock();
+        try {
+            return searchOffsetByDataOffset(this.readMapping, dataOffset);
+        } finally {
+            this.mappingLock.readLock().unlock();
+        }
+    }
+
+    private long searchOffsetByDataOffset(MappedByteBuffer mapping,
+            long dataOffset) throws IOException {
+        final ByteBuffer readBuffer = (mapping == null)
+                ? ByteBuffer.allocate(DataStoreUtils.STORE_INDEX_HEAD_LEN)
+                : null;
+        long midPos = 0;
+        long startPos = 0;
+        long endPos = getCommitSize() / DataStoreUtils.STORE_INDEX_HEAD_LEN - 1;
+        long firstHighPos = endPos + 1;
+        while (startPos <= endPos) {
+            midPos = endPos + startPos >>> 1;
+            if (getRecordDataOffset(mapping,
+                    midPos * DataStoreUtils.STORE_INDEX_HEAD_LEN, readBuffer) >= dataOffset) {
+                firstHighPos = midPos;
+                endPos = midPos - 1;
+            } else {
+                startPos = midPos + 1;
+            }
+        }
+        return this.start + firstHighPos * DataStoreUtils.STORE_INDEX_HEAD_LEN;
+    }
+
+    @Override
+    public void enableKeyFilter() throws IOException {
+        if (this.segmentType != SegmentType.INDEX) {
+            return;
+        }
+        // the records appended later must be added to the built filter
+        if (this.mutable) {
+            buildKeyFilter();
+        }
+        this.keyFilterEnabled = true;
+    }
+
+    /**
+     * Skip the index records that contain none of the keyCodes,
+     * the records are skipped block by block, and only the committed
+     * records are skipped.
+     *
+     * @param offset            the absolute index offset to start from
+     * @param maxOffset         the max absolute index offset to skip to
+     * @param keyCodes          the keyCodes to match
+     * @return                  the absolute index offset after the skipped records
+     * @throws IOException      exception while building the filter
+     */
+    @Override
+    public long skipUnmatchedRecords(long offset, long maxOffset,
+            Set<Integer> keyCodes) throws IOException {
+        if (!this.keyFilterEnabled
+                || keyCodes == null
+                || keyCodes.isEmpty()) {
+            return offset;
+        }
+        final IndexKeyFilter curKeyFilter = buildKeyFilter();
+        if (curKeyFilter == null) {
+            return offset;
+        }
+        final long relMaxOffset = Math.min(maxOffset - this.start, getCommitSize());
+        long relOffset = offset - this.start;
+        while (relOffset < relMaxOffset) {
+            final int blockIndex = (int) (relOffset / IndexKeyFilter.BLOCK_INDEX_SIZE);
+            if (curKeyFilter.mightContain(blockIndex, keyCodes)) {
+                break;
+            }
+            relOffset = Math.min(relMaxOffset,
+                    (blockIndex + 1L) * IndexKeyFilter.BLOCK_INDEX_SIZE);
+        }
+        return this.start + relOffset;
+    }
+
+    /**
+     * Build the keyCode filter from the index records in the segment.
+     *
+     * @return                  the keyCode filter, null if the segment is closed
+     * @throws IOException      exception while reading index records
+     */
+    private synchronized IndexKeyFilter buildKeyFilter() throws IOException {
+        if (this.keyFilter != null || this.closed.get()) {
+            return this.keyFilter;
+        }
+        final IndexKeyFilter newKeyFilter = new IndexKeyFilter();
+        final long totalSize = getCachedSize();
+        final ByteBuffer readBuffer =
+                ByteBuffer.allocate(IndexKeyFilter.BLOCK_INDEX_SIZE);
+        long relOffset = 0;
+        while (relOffset < totalSize) {
+            readBuffer.clear();
+            readBuffer.limit((int) Math.min(readBuffer.capacity(), totalSize - relOffset));
+            relRead(readBuffer, relOffset);
+            readBuffer.flip();
+            newKeyFilter.addRecords(relOffset, readBuffer);
+            relOffset += readBuffer.limit();
+        }
+        this.keyFilter = newKeyFilter;
+        return newKeyFilter;
+    }
+
     /**
      * Check whether this FileSegment is expired, and set expire status.
      * The last FileSegment cannot be marked expired.
@@ -440,6 +716,74 @@ public class FileSegment implements Segment {
         return 0;
     }
 
+    private void readFromMapping(MappedByteBuffer mapping,
+            ByteBuffer bf, long relOffset) {
+        if (relOffset < 0 || relOffset >= mapping.capacity()) {
+            return;
+        }
+        final ByteBuffer readView = mapping.duplicate();
+        readView.position((int) relOffset);
+        if (readView.remaining() > bf.remaining()) {
+            readView.limit((int) relOffset + bf.remaining());
+        }
+        bf.put(readView);
+    }
+
+    private long getValidRecordTime(MappedByteBuffer mapping, long relReadPos,
+            long minDataOffset, ByteBuffer readBuffer) throws IOException {
+        final ByteBuffer recordBuffer;
+        final int recordPos;
+        if (mapping == null) {
+            readBuffer.clear();
+            relRead(readBuffer, relReadPos);
+            readBuffer.flip();
+            if (readBuffer.remaining() < DataStoreUtils.STORE_INDEX_HEAD_LEN) {
+                return -1;
+            }
+            recordBuffer = readBuffer;
+            recordPos = 0;
+        } else {
+            recordBuffer = mapping;
+            recordPos = (int) relReadPos;
+        }
+        final long recordDataOffset =
+                recordBuffer.getLong(recordPos + DataStoreUtils.INDEX_POS_DATAOFFSET);
+        final int recordDataSize =
+                recordBuffer.getInt(recordPos + DataStoreUtils.INDEX_POS_MSG_SIZE);
+        // skip when mismatch condition
+        if (recordDataOffset < 0
+                || recordDataSize <= 0
+                || recordDataSize > DataStoreUtils.STORE_MAX_MESSAGE_STORE_LEN
+                || recordDataOffset < minDataOffset) {
+            return -1;
+        }
+        return recordBuffer.getLong(recordPos + DataStoreUtils.INDEX_POS_TIME_RECV);
+    }
+
+    private long getRecordDataOffset(MappedByteBuffer mapping,
+            long relReadPos, ByteBuffer readBuffer) throws IOException {
+        if (mapping != null) {
+            return mapping.getLong((int) relReadPos + DataStoreUtils.INDEX_POS_DATAOFFSET);
+        }
+        readBuffer.clear();
+        relRead(readBuffer, relReadPos);
+        readBuffer.flip();
+        return readBuffer.getLong(DataStoreUtils.INDEX_POS_DATAOFFSET);
+    }
+
+    private void releaseMapping() {
+        this.mappingLock.writeLock().lock();
+        try {
+            final MappedByteBuffer mapping = this.readMapping;
+            this.readMapping = null;
+            if (mapping != null) {
+                ((DirectBuffer) mapping).cleaner().clean();
+            }
+        } finally {
+            this.mappingLock.writeLock().unlock();
+        }
+    }
+
     private RecoverResult recoverData(long checkOffset) throws IOException {
         if (!this.mutable) {
             throw new UnsupportedOperationException(
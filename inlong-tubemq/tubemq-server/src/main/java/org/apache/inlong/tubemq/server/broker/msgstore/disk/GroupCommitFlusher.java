@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore.disk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Broker-wide group commit flusher.
+ *
+ * The file stores that reach their flush condition register themselves here instead of
+ * calling fsync on the append path. The flusher collects the dirty stores within a commit
+ * window, groups them by the device they belong to, and fsyncs each device group in
+ * sequence, while different devices are flushed in parallel.
+ */
+public class GroupCommitFlusher {
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(GroupCommitFlusher.class);
+    // the dirty file stores waiting for flush
+    private final LinkedBlockingQueue<MsgFileStore> dirtyStores =
+            new LinkedBlockingQueue<>();
+    // the collect window of a group commit
+    private final long commitWindowMs;
+    private final Thread flushThread;
+    private final ExecutorService deviceFlushExecutor;
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+
+    /**
+     * Initial the group commit flusher.
+     *
+     * @param commitWindowMs       the collect window of a group commit
+     * @param deviceFlushThreads   the thread count to flush devices in parallel
+     */
+    public GroupCommitFlusher(long commitWindowMs, int deviceFlushThreads) {
+        this.commitWindowMs = commitWindowMs;
+        this.deviceFlushExecutor = Executors.newFixedThreadPool(
+                Math.max(deviceFlushThreads, 1), new ThreadFactory() {
+
+                    private final AtomicInteger threadIndex = new AtomicInteger(0);
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r, "Broker Group Flush Device Thread-"
+                                + threadIndex.incrementAndGet());
+                    }
+                });
+        this.flushThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                runFlushLoop();
+            }
+        }, "Broker Group Flush Thread");
+        this.flushThread.setDaemon(true);
+    }
+
+    public void start() {
+        this.flushThread.start();
+        logger.info("[Group Flush] group commit flusher started!");
+    }
+
+    /**
+     * Stop the flusher, the pending stores are flushed before stopped.
+     */
+    public void close() {
+        if (this.stopped.compareAndSet(false, true)) {
+            this.flushThread.interrupt();
+            try {
+                this.flushThread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.deviceFlushExecutor.shutdown();
+            logger.info("[Group Flush] group commit flusher stopped!");
+        }
+    }
+
+    /**
+     * Register a dirty file store, the store is flushed in the next group commit.
+     *
+     * @param fileStore    the file store to flush
+     */
+    public void addDirtyStore(MsgFileStore fileStore) {
+        this.dirtyStores.offer(fileStore);
+    }
+
+    public int getPendingStoreCount() {
+        return this.dirtyStores.size();
+    }
+
+    private void runFlushLoop() {
+        MsgFileStore firstStore;
+        List<MsgFileStore> flushStores = new ArrayList<>();
+        while (!this.stopped.get()) {
+            try {
+                firstStore = this.dirtyStores.poll(1000, TimeUnit.MILLISECONDS);
+                if (firstStore == null) {
+                    continue;
+                }
+                // collect dirty stores within the commit window
+                if (this.commitWindowMs > 0) {
+                    Thread.sleep(this.commitWindowMs);
+                }
+                flushStores.add(firstStore);
+                this.dirtyStores.drainTo(flushStores);
+                flushStoreGroups(flushStores);
+            } catch (InterruptedException e) {
+                break;
+            } catch (Throwable e) {
+                logger.error("[Group Flush] flush dirty stores failure", e);
+            } finally {
+                flushStores.clear();
+            }
+        }
+        // flush the remaining stores
+        this.dirtyStores.drainTo(flushStores);
+        for (MsgFileStore fileStore : flushStores) {
+            fileStore.groupFlush();
+        }
+    }
+
+    private void flushStoreGroups(List<MsgFileStore> flushStores) throws Exception {
+        // group the stores by device, keep the order of storage path in each group
+        Map<String, TreeMap<String, MsgFileStore>> deviceGroups = new TreeMap<>();
+        for (MsgFileStore fileStore : flushStores) {
+            TreeMap<String, MsgFileStore> deviceStores =
+                    deviceGroups.get(fileStore.getDeviceKey());
+            if (deviceStores == null) {
+                deviceStores = new TreeMap<>();
+                deviceGroups.put(fileStore.getDeviceKey(), deviceStores);
+            }
+            deviceStores.put(fileStore.getStoreKey(), fileStore);
+        }
+        if (deviceGroups.size() == 1) {
+            flushDeviceStores(deviceGroups.values().iterator().next());
+            return;
+        }
+        List<Future<Integer>> futures = new ArrayList<>(deviceGroups.size());
+        for (final TreeMap<String, MsgFileStore> deviceStores : deviceGroups.values()) {
+            futures.add(this.deviceFlushExecutor.submit(new Callable<Integer>() {
+
+                @Override
+                public Integer call() {
+                    return flushDeviceStores(deviceStores);
+                }
+            }));
+        }
+        for (Future<Integer> future : futures) {
+            future.get();
+        }
+    }
+
+    private int flushDeviceStores(TreeMap<String, MsgFileStore> deviceStores) {
+        int flushedCnt = 0;
+        for (MsgFileStore fileStore : deviceStores.values()) {
+            if (fileStore.groupFlush()) {
+                flushedCnt++;
+            }
+        }
+        return flushedCnt;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore.disk;
+
+import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+/**
+ * The keyCode filter of an index segment.
+ *
+ * The index records are divided into fixed count blocks, and each block holds
+ * a Bloom filter of the keyCodes of its records, so that the filter consumption
+ * can skip the blocks that contain none of the required keyCodes.
+ *
+ * Only one thread adds keyCodes, and the keyCodes of a record must be added before
+ * the record is appended, so the readers see the keyCodes of all the committed records.
+ */
+public class IndexKeyFilter {
+
+    // the index record count of a filter block
+    public static final int BLOCK_RECORD_CNT = 1024;
+    // the index size of a filter block
+    public static final int BLOCK_INDEX_SIZE =
+            BLOCK_RECORD_CNT * DataStoreUtils.STORE_INDEX_HEAD_LEN;
+    // the max index size skipped by a filter read
+    public static final long MAX_SKIP_INDEX_SIZE = 1024L * BLOCK_INDEX_SIZE;
+    // the bit count of the Bloom filter of a block
+    private static final int BLOCK_BITS = 2048;
+    private static final int BLOCK_WORDS = BLOCK_BITS / Long.SIZE;
+    private static final int HASH_CNT = 3;
+    // the Bloom filters of the blocks, null if the block has no record
+    private volatile long[][] blockFilters = new long[16][];
+
+    /**
+     * Add the keyCodes of the index records.
+     *
+     * @param relOffset      the relative offset of the first record in the segment
+     * @param indexBuffer    the index records
+     */
+    public void addRecords(long relOffset, ByteBuffer indexBuffer) {
+        final int startPos = indexBuffer.position();
+        final int endPos = indexBuffer.limit() - DataStoreUtils.STORE_INDEX_HEAD_LEN;
+        for (int pos = startPos; pos <= endPos; pos += DataStoreUtils.STORE_INDEX_HEAD_LEN) {
+            addKeyCode(relOffset + pos - startPos,
+                    indexBuffer.getInt(pos + DataStoreUtils.INDEX_POS_KEY_CODE));
+        }
+    }
+
+    /**
+     * Add the keyCode of an index record.
+     *
+     * @param relOffset    the relative offset of the record in the segment
+     * @param keyCode      the keyCode of the record
+     */
+    public void addKeyCode(long relOffset, int keyCode) {
+        final int blockIndex = (int) (relOffset / BLOCK_INDEX_SIZE);
+        long[][] curFilters = this.blockFilters;
+        if (blockIndex >= curFilters.length) {
+            long[][] newFilters = new long[Math.max(curFilters.length * 2, blockIndex + 1)][];
+            System.arraycopy(curFilters, 0, newFilters, 0, curFilters.length);
+            this.blockFilters = newFilters;
+            curFilters = newFilters;
+        }
+        long[] filter = curFilters[blockIndex];
+        if (filter == null) {
+            filter = new long[BLOCK_WORDS];
+            curFilters[blockIndex] = filter;
+        }
+        final int hash1 = mix(keyCode);
+        final int hash2 = mix(hash1) | 1;
+        for (int i = 0; i < HASH_CNT; i++) {
+            int bitIndex = (hash1 + i * hash2) & (BLOCK_BITS - 1);
+            filter[bitIndex >>> 6] |= 1L << bitIndex;
+        }
+        // publish the updated filter
+        this.blockFilters = curFilters;
+    }
+
+    /**
+     * Check whether the block may contain one of the keyCodes.
+     *
+     * @param blockIndex    the block index
+     * @param keyCodes      the keyCodes to check
+     * @return              false if the block contains none of the keyCodes
+     */
+    public boolean mightContain(int blockIndex, Set<Integer> keyCodes) {
+        final long[][] curFilters = this.blockFilters;
+        if (blockIndex >= curFilters.length || curFilters[blockIndex] == null) {
+            return false;
+        }
+        final long[] filter = curFilters[blockIndex];
+        for (Integer keyCode : keyCodes) {
+            if (keyCode == null) {
+                continue;
+            }
+            final int hash1 = mix(keyCode);
+            final int hash2 = mix(hash1) | 1;
+            boolean isMatched = true;
+            for (int i = 0; i < HASH_CNT; i++) {
+                int bitIndex = (hash1 + i * hash2) & (BLOCK_BITS - 1);
+                if ((filter[bitIndex >>> 6] & (1L << bitIndex)) == 0) {
+                    isMatched = false;
+                    break;
+                }
+            }
+            if (isMatched) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -38,6 +38,7 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -86,6 +87,16 @@ public class MsgFileStore implements Closeable {
     private SegmentList indexSegments;
     // close status
     private final AtomicBoolean closed = new AtomicBoolean(false);
+    // the group commit flusher, null if flush on the append path
+    private final GroupCommitFlusher groupCommitFlusher;
+    // the device the data directory belongs to, used to group flushes
+    private final String deviceKey;
+    // whether the store has been registered to the group commit flusher
+    private final AtomicBoolean groupFlushPending = new AtomicBoolean(false);
+    // time of the group flush request
+    private final AtomicLong groupFlushReqTime = new AtomicLong(0);
+    // the data block cache, null if disabled
+    private final SegmentBlockCache blockCache;
 
     /**
      * MsgFileStore, initial message file store block
@@ -115,6 +126,9 @@ public class MsgFileStore implements Closeable {
         FileUtil.checkDir(this.indexDir);
         loadSegments(SegmentType.DATA, offsetIfCreate, sBuilder);
         loadSegments(SegmentType.INDEX, offsetIfCreate, sBuilder);
+        this.groupCommitFlusher = messageStore.getGroupCommitFlusher();
+        this.blockCache = messageStore.getSegmentBlockCache();
+        this.deviceKey = resolveDeviceKey(this.dataDir);
         this.lastFlushTime.set(System.currentTimeMillis());
     }
 
@@ -201,12 +215,15 @@ public class MsgFileStore implements Closeable {
                 isIndexSegFlushed = true;
                 long newIndexOffset = curIndexSeg.flush(true);
                 curIndexSeg.setMutable(false);
+                mapIndexSegment(curIndexSeg);
                 File newIndexFile =
                         new File(this.indexDir,
                                 DataStoreUtils.nameFromOffset(newIndexOffset, DataStoreUtils.INDEX_FILE_SUFFIX));
                 newIndexFilePath = newIndexFile.getAbsolutePath();
-                this.indexSegments.append(new FileSegment(newIndexOffset,
-                        newIndexFile, SegmentType.INDEX));
+                final Segment newIndexSeg =
+                        new FileSegment(newIndexOffset, newIndexFile, SegmentType.INDEX);
+                enableIndexKeyFilter(newIndexSeg);
+                this.indexSegments.append(newIndexSeg);
             }
             // check whether we need to flush to disk.
             pendingMsgSizeExceed = (messageStore.getUnflushDataHold() > 0)
@@ -215,7 +232,20 @@ public class MsgFileStore implements Closeable {
                     (this.curUnflushed.addAndGet(msgCnt) >= messageStore.getUnflushThreshold());
             pendingMsgTimeExceed =
                     (currTime - this.lastFlushTime.get() >= messageStore.getUnflushInterval());
-            if (pendingMsgCntExceed || pendingMsgTimeExceed
+            if (this.groupCommitFlusher != null
+                    && !isDataSegFlushed && !isIndexSegFlushed
+                    && (pendingMsgCntExceed || pendingMsgTimeExceed || pendingMsgSizeExceed)) {
+                // hand over the flush to the group commit flusher,
+                // only the first request of a group commit is counted
+                if (this.groupFlushPending.compareAndSet(false, true)) {
+                    this.groupFlushReqTime.set(currTime);
+                    this.groupCommitFlusher.addDirtyStore(this);
+                } else {
+                    pendingMsgCntExceed = false;
+                    pendingMsgTimeExceed = false;
+                    pendingMsgSizeExceed = false;
+                }
+            } else if (pendingMsgCntExceed || pendingMsgTimeExceed
                     || pendingMsgSizeExceed || isDataSegFlushed || isIndexSegFlushed) {
                 isForceMetadata = (isDataSegFlushed || isIndexSegFlushed
                         || (currTime - this.lastMetaFlushTime.get() > MAX_META_REFRESH_DUR));
@@ -316,6 +346,11 @@ public class MsgFileStore implements Closeable {
         long recvTimeInMillsec = 0L;
         long maxDataLimitOffset = 0L;
         long lastRdDataOffset = 0L;
+        // the data range [batchStartOffset, batchEndOffset) held by dataBuffer
+        long batchStartOffset = -1L;
+        long batchEndOffset = -1L;
+        int batchReadSize = 0;
+        long firstRdDataOffset = -1L;
         final StringBuilder sBuilder = new StringBuilder(512);
         final long curDataMaxOffset = getDataMaxOffset();
         final long curDataMinOffset = getDataMinOffset();
@@ -375,15 +410,36 @@ public class MsgFileStore implements Closeable {
                         throw new Exception("Read Service has closed!");
                     }
                 }
-                if (dataBuffer.capacity() < curIndexDataSize) {
-                    dataBuffer = ByteBuffer.allocate(curIndexDataSize);
+                // read the contiguous run starting at the current record with one
+                // positional read, then the following records are served from buffer
+                if (curIndexDataOffset < batchStartOffset
+                        || maxDataLimitOffset > batchEndOffset) {
+                    batchReadSize = getContiguousReadSize(indexBuffer, partitionId,
+                            curIndexDataOffset, curIndexDataSize,
+                            Math.min(curDataMaxOffset, recordSeg.getStart() + recordSeg.getCommitSize()),
+                            Math.max(curIndexDataSize, Math.min(maxMsgTransferSize - totalSize,
+                                    TServerConstants.CFG_STORE_DEFAULT_MSG_READ_UNIT)),
+                            isFilterConsume, filterKeySet, reqRcvTime);
+                    if (dataBuffer.capacity() < batchReadSize) {
+                        dataBuffer = ByteBuffer.allocate(batchReadSize);
+                    }
+                    dataBuffer.clear();
+                    dataBuffer.limit(batchReadSize);
+                    if (this.blockCache == null) {
+                        recordSeg.read(dataBuffer, curIndexDataOffset);
+                    } else {
+                        this.blockCache.read(this.storeKey, recordSeg, dataBuffer, curIndexDataOffset);
+                    }
+                    dataBuffer.flip();
+                    if (firstRdDataOffset < 0) {
+                        firstRdDataOffset = curIndexDataOffset;
+                    }
+                    batchStartOffset = curIndexDataOffset;
+                    batchEndOffset = curIndexDataOffset + dataBuffer.limit();
                 }
-                dataBuffer.clear();
-                dataBuffer.limit(curIndexDataSize);
-                recordSeg.read(dataBuffer, curIndexDataOffset);
-                dataBuffer.flip();
-                dataRealLimit = dataBuffer.limit();
+                dataRealLimit = (int) (batchEndOffset - curIndexDataOffset);
                 if (dataRealLimit < curIndexDataSize) {
+                    batchEndOffset = -1L;
                     lastRdDataOffset = curIndexDataOffset;
                     readedOffset = curIndexOffset + DataStoreUtils.STORE_INDEX_HEAD_LEN;
                     continue;
@@ -408,6 +464,7 @@ public class MsgFileStore implements Closeable {
             lastRdDataOffset = maxDataLimitOffset;
             ClientBroker.TransferedMessage transferedMessage =
                     DataStoreUtils.getTransferMsg(dataBuffer,
+                            (int) (curIndexDataOffset - batchStartOffset),
                             curIndexDataSize, countMap, statsKeyBase, sBuilder);
             if (transferedMessage == null) {
                 continue;
@@ -423,6 +480,12 @@ public class MsgFileStore implements Closeable {
         if (recordSeg != null) {
             recordSeg.relViewRef();
         }
+        // load the following blocks in advance when read sequentially
+        if (this.blockCache != null
+                && totalSize > 0
+                && firstRdDataOffset == lastRdOffset) {
+            this.blockCache.readAhead(this.storeKey, this.dataSegments, lastRdDataOffset);
+        }
         if (retCode != 0) {
             if (!transferedMessageList.isEmpty()) {
                 retCode = 0;
@@ -450,50 +513,15 @@ public class MsgFileStore implements Closeable {
         if (recordSeg == null || this.closed.get()) {
             return -1;
         }
-        long endPos = (recordSeg.getCommitLast() - recordSeg.getStart())
-                / DataStoreUtils.STORE_INDEX_HEAD_LEN - 1;
-        final long curDataMinOffset = getDataMinOffset();
-        final ByteBuffer readBuffer =
-                ByteBuffer.allocate(DataStoreUtils.STORE_INDEX_HEAD_LEN);
-        // check boundaries
-        if (endPos <= 0) {
-            return recordSeg.getStart();
-        }
-        long foundTime = getTimeStamp(recordSeg,
-                0, curDataMinOffset, readBuffer);
-        if (timestamp < foundTime) {
-            return recordSeg.getStart();
-        }
-        foundTime = getTimeStamp(recordSeg,
-                endPos * DataStoreUtils.STORE_INDEX_HEAD_LEN,
-                curDataMinOffset, readBuffer);
-        if (timestamp > foundTime) {
-            return recordSeg.getStart() + endPos * DataStoreUtils.STORE_INDEX_HEAD_LEN;
-        }
-        long midPos = 0;
-        long startPos = 0;
-        long firstLowPos = 0;
-        long firstEqualPos = -1;
-        // Dichotomy finds the first offset position less than the specified time
-        while (startPos <= endPos) {
-            midPos = endPos + startPos >>> 1;
-            foundTime = getTimeStamp(recordSeg,
-                    midPos * DataStoreUtils.STORE_INDEX_HEAD_LEN,
-                    curDataMinOffset, readBuffer);
-            if (foundTime < timestamp) {
-                firstLowPos = midPos;
-                startPos = midPos + 1;
-            } else {
-                endPos = midPos - 1;
-                if (foundTime == timestamp) {
-                    firstEqualPos = midPos;
-                }
+        try {
+            return recordSeg.getStartOffsetByTimeStamp(timestamp, getDataMinOffset());
+        } catch (Throwable ex) {
+            if (ex instanceof IOException) {
+                ServiceStatusHolder.addReadIOErrCnt();
+                BrokerSrvStatsHolder.incDiskIOExcCnt();
             }
-        }
-        if (firstEqualPos != -1) {
-            return recordSeg.getStart() + firstEqualPos * DataStoreUtils.STORE_INDEX_HEAD_LEN;
-        } else {
-            return recordSeg.getStart() + firstLowPos * DataStoreUtils.STORE_INDEX_HEAD_LEN;
+            samplePrintCtrl.printExceptionCaught(ex);
+            return recordSeg.getStart();
         }
     }
 
@@ -507,6 +535,9 @@ public class MsgFileStore implements Closeable {
             } finally {
                 this.writeLock.unlock();
             }
+            if (this.blockCache != null) {
+                this.blockCache.invalidate(this.storeKey);
+            }
         }
     }
 
@@ -572,6 +603,81 @@ public class MsgFileStore implements Closeable {
         msgStoreStatsHolder.chkStatsExpired(checkTimestamp);
     }
 
+    /**
+     * Flush the last data and index segments on behalf of the group commit flusher.
+     *
+     * The pending counters are taken under the write lock, while the fsync is executed
+     * outside the lock, so that the appending is not blocked by the disk flush.
+     *
+     * @return whether the flush is successful
+     */
+    public boolean groupFlush() {
+        if (!this.groupFlushPending.get()) {
+            return false;
+        }
+        long flushedMsgCnt;
+        long flushedDataSize;
+        boolean forceMetadata;
+        Segment curDataSeg;
+        Segment curIndexSeg;
+        long checkTimestamp = System.currentTimeMillis();
+        this.writeLock.lock();
+        try {
+            curDataSeg = this.dataSegments.last();
+            curIndexSeg = this.indexSegments.last();
+            forceMetadata =
+                    (checkTimestamp - lastMetaFlushTime.get()) > MAX_META_REFRESH_DUR;
+            if (forceMetadata) {
+                this.lastMetaFlushTime.set(checkTimestamp);
+            }
+            flushedMsgCnt = curUnflushed.getAndSet(0);
+            flushedDataSize = curUnflushSize.getAndSet(0);
+            lastFlushTime.set(checkTimestamp);
+            this.groupFlushPending.set(false);
+        } finally {
+            this.writeLock.unlock();
+        }
+        if (this.closed.get()) {
+            return false;
+        }
+        try {
+            // flush data file first, then index file
+            if (curDataSeg != null) {
+                curDataSeg.flush(forceMetadata);
+            }
+            if (curIndexSeg != null) {
+                curIndexSeg.flush(forceMetadata);
+            }
+        } catch (Throwable e) {
+            if (!closed.get()) {
+                ServiceStatusHolder.addWriteIOErrCnt();
+                BrokerSrvStatsHolder.incDiskIOExcCnt();
+            }
+            samplePrintCtrl.printExceptionCaught(e);
+            return false;
+        }
+        long flushLagTime = System.currentTimeMillis() - this.groupFlushReqTime.get();
+        msgStoreStatsHolder.addFileGroupFlushStats(flushedMsgCnt, flushedDataSize,
+                forceMetadata, flushLagTime, flushLagTime > messageStore.getUnflushInterval());
+        return true;
+    }
+
+    public String getStoreKey() {
+        return storeKey;
+    }
+
+    public String getDeviceKey() {
+        return deviceKey;
+    }
+
+    private String resolveDeviceKey(File storeDir) {
+        try {
+            return Files.getFileStore(storeDir.toPath()).name();
+        } catch (Throwable e) {
+            return storeDir.getParent();
+        }
+    }
+
     public long getDataSizeInBytes() {
         return dataSegments.getSizeInBytes();
     }
@@ -612,6 +718,89 @@ public class MsgFileStore implements Closeable {
         return indexSegments.getRecordSeg(offset);
     }
 
+    /**
+     * Skip the committed index records whose data has been deleted, the first
+     * valid record is located by the binary search of the data offset.
+     *
+     * @param offset         the index offset to start from
+     * @return               the index offset of the first record with valid data,
+     *                       or the specified offset if not found before the committed max offset
+     */
+    public long skipExpiredIndex(long offset) {
+        final long dataMinOffset = getDataMinOffset();
+        try {
+            final Segment indexSeg = this.indexSegments.findSegment(offset);
+            if (indexSeg == null
+                    || offset + DataStoreUtils.STORE_INDEX_HEAD_LEN > indexSeg.getCommitLast()) {
+                return offset;
+            }
+            // check the record at the offset first, most requests start with valid data
+            final ByteBuffer recordBuffer = ByteBuffer.allocate(DataStoreUtils.STORE_INDEX_HEAD_LEN);
+            indexSeg.read(recordBuffer, offset);
+            recordBuffer.flip();
+            if (recordBuffer.remaining() < DataStoreUtils.STORE_INDEX_HEAD_LEN
+                    || recordBuffer.getLong(DataStoreUtils.INDEX_POS_DATAOFFSET) >= dataMinOffset) {
+                return offset;
+            }
+            final long validOffset = indexSeg.getIndexOffsetByDataOffset(dataMinOffset);
+            if (validOffset <= offset
+                    || validOffset >= getIndexMaxHighOffset()) {
+                return offset;
+            }
+            return validOffset;
+        } catch (Throwable e) {
+            if (e instanceof IOException) {
+                ServiceStatusHolder.addReadIOErrCnt();
+                BrokerSrvStatsHolder.incDiskIOExcCnt();
+            }
+            samplePrintCtrl.printExceptionCaught(e);
+        }
+        return offset;
+    }
+
+    /**
+     * Skip the committed index records that contain none of the filtered keyCodes,
+     * at least one record is kept before the committed max offset.
+     *
+     * @param offset         the index offset to start from
+     * @param maxSkipSize    the max index size to skip
+     * @param keyCodes       the filtered keyCodes
+     * @return               the index offset after the skipped records
+     */
+    public long skipUnmatchedIndex(long offset, long maxSkipSize, Set<Integer> keyCodes) {
+        if (!this.tubeConfig.isEnableIndexKeyFilter()
+                || keyCodes == null
+                || keyCodes.isEmpty()) {
+            return offset;
+        }
+        final long maxOffset = Math.min(offset + maxSkipSize,
+                getIndexMaxHighOffset() - DataStoreUtils.STORE_INDEX_HEAD_LEN);
+        long curOffset = offset;
+        try {
+            while (curOffset < maxOffset) {
+                final Segment indexSeg = this.indexSegments.findSegment(curOffset);
+                if (indexSeg == null) {
+                    break;
+                }
+                final long nextOffset =
+                        indexSeg.skipUnmatchedRecords(curOffset, maxOffset, keyCodes);
+                if (nextOffset == curOffset
+                        || nextOffset < indexSeg.getCommitLast()) {
+                    curOffset = nextOffset;
+                    break;
+                }
+                curOffset = nextOffset;
+            }
+        } catch (Throwable e) {
+            if (e instanceof IOException) {
+                ServiceStatusHolder.addReadIOErrCnt();
+                BrokerSrvStatsHolder.incDiskIOExcCnt();
+            }
+            samplePrintCtrl.printExceptionCaught(e);
+        }
+        return curOffset;
+    }
+
     private void loadSegments(SegmentType segType, long offsetIfCreate,
             StringBuilder sBuilder) throws IOException {
         String segTypeStr = "Data";
@@ -693,6 +882,12 @@ public class MsgFileStore implements Closeable {
         if (segType == SegmentType.DATA) {
             this.dataSegments = new FileSegmentList(accum.toArray(new Segment[accum.size()]));
         } else {
+            for (Segment segment : accum) {
+                if (!segment.isMutable()) {
+                    mapIndexSegment(segment);
+                }
+                enableIndexKeyFilter(segment);
+            }
             this.indexSegments = new FileSegmentList(accum.toArray(new Segment[accum.size()]));
         }
         logger.info(sBuilder.append("[File Store] Loaded ")
@@ -701,6 +896,32 @@ public class MsgFileStore implements Closeable {
         sBuilder.delete(0, sBuilder.length());
     }
 
+    private void mapIndexSegment(Segment indexSegment) {
+        if (!this.tubeConfig.isEnableIndexMmap()) {
+            return;
+        }
+        try {
+            indexSegment.mapReadOnly();
+        } catch (Throwable ex) {
+            samplePrintCtrl.printExceptionCaught(ex);
+        }
+    }
+
+    private void enableIndexKeyFilter(Segment indexSegment) {
+        if (!this.tubeConfig.isEnableIndexKeyFilter()) {
+            return;
+        }
+        try {
+            indexSegment.enableKeyFilter();
+        } catch (Throwable ex) {
+            if (ex instanceof IOException) {
+                ServiceStatusHolder.addReadIOErrCnt();
+                BrokerSrvStatsHolder.incDiskIOExcCnt();
+            }
+            samplePrintCtrl.printExceptionCaught(ex);
+        }
+    }
+
     private void validateSegments(String segTypeStr, final List<Segment> segments) {
         // valid segments, continuous
         for (int i = 0; i < segments.size() - 1; i++) {
@@ -716,33 +937,46 @@ public class MsgFileStore implements Closeable {
         }
     }
 
-    private long getTimeStamp(Segment recordSeg, long relReadPos,
-            long curDataMinOffset, ByteBuffer readBuffer) {
-        int curIndexPartitionId = 0;
-        long curIndexDataOffset = 0L;
-        int curIndexDataSize = 0;
-        int curIndexKeyCode = 0;
-        long recvTimeInMillsec = 0L;
-        try {
-            readBuffer.clear();
-            recordSeg.relRead(readBuffer, relReadPos);
-            readBuffer.flip();
-            curIndexPartitionId = readBuffer.getInt();
-            curIndexDataOffset = readBuffer.getLong();
-            curIndexDataSize = readBuffer.getInt();
-            curIndexKeyCode = readBuffer.getInt();
-            recvTimeInMillsec = readBuffer.getLong();
-            // skip when mismatch condition
-            if (curIndexDataOffset < 0
-                    || curIndexDataSize <= 0
-                    || curIndexDataSize > DataStoreUtils.STORE_MAX_MESSAGE_STORE_LEN
-                    || curIndexDataOffset < curDataMinOffset) {
-                return -1;
+    /**
+     * Calculate the byte size of the contiguous data run starting at the current record.
+     * The following index records are checked from the index buffer's current position,
+     * the run ends at the first record that is not adjacent in the data file, or will
+     * be skipped by the read loop.
+     *
+     * @param indexBuffer        the index read buffer, positioned after the current record
+     * @param partitionId        the partitionId for reading messages
+     * @param dataOffset         the data offset of the current record
+     * @param dataSize           the data size of the current record
+     * @param maxEndOffset       the max data offset allowed to read
+     * @param maxReadSize        the max byte size of the run
+     * @param isFilterConsume    whether to filter consumption
+     * @param filterKeySet       filter item set
+     * @param reqRcvTime         the timestamp of the record to be checked
+     * @return                   the byte size of the contiguous run
+     */
+    private int getContiguousReadSize(ByteBuffer indexBuffer, int partitionId,
+            long dataOffset, int dataSize, long maxEndOffset,
+            int maxReadSize, boolean isFilterConsume,
+            Set<Integer> filterKeySet, long reqRcvTime) {
+        int itemSize;
+        long runEndOffset = dataOffset + dataSize;
+        for (int pos = indexBuffer.position(); pos + DataStoreUtils.STORE_INDEX_HEAD_LEN <= indexBuffer
+                .limit(); pos += DataStoreUtils.STORE_INDEX_HEAD_LEN) {
+            itemSize = indexBuffer.getInt(pos + DataStoreUtils.INDEX_POS_MSG_SIZE);
+            if (indexBuffer.getInt(pos + DataStoreUtils.INDEX_POS_PARTITIONID) != partitionId
+                    || indexBuffer.getLong(pos + DataStoreUtils.INDEX_POS_DATAOFFSET) != runEndOffset
+                    || itemSize <= 0
+                    || itemSize > DataStoreUtils.STORE_MAX_MESSAGE_STORE_LEN
+                    || runEndOffset + itemSize > maxEndOffset
+                    || runEndOffset + itemSize - dataOffset > maxReadSize
+                    || (isFilterConsume
+                            && !filterKeySet.contains(indexBuffer.getInt(pos + DataStoreUtils.INDEX_POS_KEY_CODE)))
+                    || (reqRcvTime != 0
+                            && indexBuffer.getLong(pos + DataStoreUtils.INDEX_POS_TIME_RECV) < reqRcvTime)) {
+                break;
             }
-            return recvTimeInMillsec;
-        } catch (Throwable ex) {
-            samplePrintCtrl.printExceptionCaught(ex);
-            return -1;
+            runEndOffset += itemSize;
         }
+        return (int) (runEndOffset - dataOffset);
     }
 }
@@ -20,6 +20,7 @@ package org.apache.inlong.tubemq.server.broker.msgstore.disk;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Set;
 
 /**
  * Storage segment, usually implemented in file format.
@@ -95,4 +96,48 @@ public interface Segment {
     boolean containTime(long timestamp);
 
     long getRecordTime(long reqOffset) throws IOException;
+
+    /**
+     * Map the immutable segment into memory in read-only mode,
+     * the following reads are served from the mapping.
+     *
+     * @return            whether the segment is mapped
+     */
+    boolean mapReadOnly() throws IOException;
+
+    /**
+     * Binary search the index segment for the first record received at the specified time.
+     *
+     * @param timestamp         the specified timestamp
+     * @param minDataOffset     the min valid data offset
+     * @return                  the absolute index offset
+     */
+    long getStartOffsetByTimeStamp(long timestamp, long minDataOffset) throws IOException;
+
+    /**
+     * Binary search the index segment for the first record whose data offset
+     * is not less than the specified data offset.
+     *
+     * @param dataOffset        the specified data offset
+     * @return                  the absolute index offset, or the committed last
+     *                          position if all records are before the data offset
+     */
+    long getIndexOffsetByDataOffset(long dataOffset) throws IOException;
+
+    /**
+     * Enable the keyCode filter of the index segment, the filter of the mutable
+     * segment is built at once, and the filter of the immutable segment is built
+     * at the first use.
+     */
+    void enableKeyFilter() throws IOException;
+
+    /**
+     * Skip the index records that contain none of the keyCodes.
+     *
+     * @param offset            the absolute index offset to start from
+     * @param maxOffset         the max absolute index offset to skip to
+     * @param keyCodes          the keyCodes to match
+     * @return                  the absolute index offset after the skipped records
+     */
+    long skipUnmatchedRecords(long offset, long maxOffset, Set<Integer> keyCodes) throws IOException;
 }
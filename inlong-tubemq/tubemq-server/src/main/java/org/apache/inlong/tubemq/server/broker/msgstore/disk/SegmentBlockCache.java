@@ -0,0 +1,543 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore.disk;
+
+import org.apache.inlong.tubemq.corebase.metric.impl.LongStatsCounter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broker-wide off-heap block cache of the data segments.
+ *
+ * The cache keeps the data file content in fixed size blocks keyed by
+ * (storeKey, segment start, block index), so that the consumer groups lagging behind
+ * the memory cache read the same file regions from memory instead of from the disk.
+ * The blocks are evicted by a segmented LRU: a new block enters the probation segment,
+ * and is only promoted to the protected segment when hit again, so a single scan can not
+ * flush the blocks shared by several consumer groups.
+ * The blocks are partitioned into stripes by the block key, each stripe has its own
+ * lock and LRU lists, so the reads of different blocks do not contend on one lock.
+ * The blocks following a sequential read are loaded asynchronously in advance.
+ */
+public class SegmentBlockCache {
+
+    private static final Logger logger =
+            LoggerFactory.getLogger(SegmentBlockCache.class);
+    // the cache block size
+    public static final int CACHE_BLOCK_SIZE = 64 * 1024;
+    // the max size of a direct memory slab
+    private static final int MAX_SLAB_SIZE = 1024 * 1024 * 1024;
+    // the protected segment takes 80% of the blocks
+    private static final int PROTECTED_PERCENT = 80;
+    // the max stripe count, and the min block count of a stripe
+    private static final int MAX_STRIPE_CNT = 16;
+    private static final int MIN_STRIPE_BLOCK_CNT = 256;
+    private final int maxBlockCnt;
+    private final int readAheadBlockCnt;
+    // the cache stripes, the count is a power of 2
+    private final CacheStripe[] stripes;
+    // the invalidation epoch of the stores, a block loaded before
+    // the store is invalidated is not cached
+    private final ConcurrentHashMap<String, Long> storeEpochs = new ConcurrentHashMap<>();
+    // the read-ahead executor
+    private final ThreadPoolExecutor readAheadExecutor;
+    // statistic items
+    private final LongStatsCounter hitCnt =
+            new LongStatsCounter("block_cache_hit", null);
+    private final LongStatsCounter missCnt =
+            new LongStatsCounter("block_cache_miss", null);
+    private final LongStatsCounter evictCnt =
+            new LongStatsCounter("block_cache_evict", null);
+    private final LongStatsCounter readAheadCnt =
+            new LongStatsCounter("block_cache_read_ahead", null);
+    private final LongStatsCounter readAheadDropCnt =
+            new LongStatsCounter("block_cache_read_ahead_drop", null);
+
+    /**
+     * Initial the block cache.
+     *
+     * @param cacheSize            the total size of the cache
+     * @param readAheadBlockCnt    the block count loaded ahead on sequential read
+     */
+    public SegmentBlockCache(long cacheSize, int readAheadBlockCnt) {
+        this.maxBlockCnt = (int) Math.max(1, cacheSize / CACHE_BLOCK_SIZE);
+        this.readAheadBlockCnt = Math.max(0, readAheadBlockCnt);
+        final int stripeCnt = Integer.highestOneBit(Math.max(1,
+                Math.min(MAX_STRIPE_CNT, this.maxBlockCnt / MIN_STRIPE_BLOCK_CNT)));
+        this.stripes = new CacheStripe[stripeCnt];
+        for (int i = 0; i < stripeCnt; i++) {
+            int stripeBlockCnt = this.maxBlockCnt / stripeCnt
+                    + (i < this.maxBlockCnt % stripeCnt ? 1 : 0);
+            this.stripes[i] = new CacheStripe(stripeBlockCnt);
+        }
+        final int slabBlockCnt = MAX_SLAB_SIZE / CACHE_BLOCK_SIZE;
+        int stripeIndex = 0;
+        int remainCnt = this.maxBlockCnt;
+        while (remainCnt > 0) {
+            int curBlockCnt = Math.min(remainCnt, slabBlockCnt);
+            ByteBuffer slab = ByteBuffer.allocateDirect(curBlockCnt * CACHE_BLOCK_SIZE);
+            for (int i = 0; i < curBlockCnt; i++) {
+                slab.limit((i + 1) * CACHE_BLOCK_SIZE);
+                slab.position(i * CACHE_BLOCK_SIZE);
+                while (this.stripes[stripeIndex].freeBlocks.size() >= this.stripes[stripeIndex].maxBlockCnt) {
+                    stripeIndex++;
+                }
+                CacheStripe stripe = this.stripes[stripeIndex];
+                stripe.freeBlocks.add(new CacheBlock(slab.slice(), stripe));
+            }
+            remainCnt -= curBlockCnt;
+        }
+        this.readAheadExecutor = new ThreadPoolExecutor(1, 1,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(256),
+                new ThreadFactory() {
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "Broker Block Cache Read-Ahead Thread");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        logger.info(new StringBuilder(256)
+                .append("[Block Cache] initialed block cache, blockCount=")
+                .append(this.maxBlockCnt).append(", blockSize=").append(CACHE_BLOCK_SIZE)
+                .append(", stripeCount=").append(stripeCnt)
+                .append(", readAheadBlockCount=").append(this.readAheadBlockCnt).toString());
+    }
+
+    public void close() {
+        this.readAheadExecutor.shutdownNow();
+    }
+
+    /**
+     * Read the data segment content through the cache.
+     * Only the committed content is read, the same as {@link Segment#read(ByteBuffer, long)}.
+     *
+     * @param storeKey     the store key of the segment
+     * @param segment      the data segment to read
+     * @param dst          the read buffer
+     * @param absOffset    the absolute offset to read from
+     * @throws IOException the exception during reading
+     */
+    public void read(String storeKey, Segment segment,
+            ByteBuffer dst, long absOffset) throws IOException {
+        long readOffset = absOffset;
+        final long segStart = segment.getStart();
+        final long segCommitEnd = segStart + segment.getCommitSize();
+        while (dst.hasRemaining() && readOffset < segCommitEnd) {
+            final long blockIndex = (readOffset - segStart) / CACHE_BLOCK_SIZE;
+            final long blockStart = segStart + blockIndex * CACHE_BLOCK_SIZE;
+            CacheBlock block = getOrLoadBlock(storeKey, segment, blockIndex, true);
+            if (block == null) {
+                // not cacheable, read the rest directly
+                segment.read(dst, readOffset);
+                return;
+            }
+            try {
+                int inBlockPos = (int) (readOffset - blockStart);
+                int copyLen = Math.min(dst.remaining(), block.validSize - inBlockPos);
+                if (copyLen <= 0) {
+                    return;
+                }
+                ByteBuffer src = block.buffer.duplicate();
+                src.limit(inBlockPos + copyLen);
+                src.position(inBlockPos);
+                dst.put(src);
+                readOffset += copyLen;
+            } finally {
+                unpinBlock(block);
+            }
+        }
+    }
+
+    /**
+     * Load the blocks from the absolute offset asynchronously.
+     *
+     * @param storeKey     the store key of the segments
+     * @param segments     the data segment list
+     * @param absOffset    the absolute offset to load from
+     */
+    public void readAhead(final String storeKey,
+            final SegmentList segments, final long absOffset) {
+        if (this.readAheadBlockCnt <= 0) {
+            return;
+        }
+        try {
+            this.readAheadExecutor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    loadBlocks(storeKey, segments, absOffset);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            readAheadDropCnt.incValue();
+        }
+    }
+
+    /**
+     * Remove the cached blocks of the store.
+     *
+     * @param storeKey    the store key
+     */
+    public void invalidate(String storeKey) {
+        // bump the epoch first, the blocks being loaded are not cached after the sweep
+        this.storeEpochs.merge(storeKey, 1L, Long::sum);
+        for (CacheStripe stripe : this.stripes) {
+            stripe.invalidate(storeKey);
+        }
+    }
+
+    /**
+     * Get the cache statistics.
+     *
+     * @param statsMap  the return map information
+     */
+    public void getValue(Map<String, Long> statsMap) {
+        statsMap.put(hitCnt.getFullName(), hitCnt.getValue());
+        statsMap.put(missCnt.getFullName(), missCnt.getValue());
+        statsMap.put(evictCnt.getFullName(), evictCnt.getValue());
+        statsMap.put(readAheadCnt.getFullName(), readAheadCnt.getValue());
+        statsMap.put(readAheadDropCnt.getFullName(), readAheadDropCnt.getValue());
+        long usedCnt = 0;
+        long protectedCnt = 0;
+        for (CacheStripe stripe : this.stripes) {
+            synchronized (stripe) {
+                usedCnt += stripe.blockMap.size();
+                protectedCnt += stripe.protectedList.size;
+            }
+        }
+        statsMap.put("block_cache_used_bytes", usedCnt * CACHE_BLOCK_SIZE);
+        statsMap.put("block_cache_protected_bytes", protectedCnt * CACHE_BLOCK_SIZE);
+        statsMap.put("block_cache_capacity_bytes", (long) maxBlockCnt * CACHE_BLOCK_SIZE);
+    }
+
+    private void loadBlocks(String storeKey, SegmentList segments, long absOffset) {
+        long loadOffset = absOffset;
+        try {
+            for (int i = 0; i < this.readAheadBlockCnt; i++) {
+                Segment segment = segments.getRecordSeg(loadOffset);
+                if (segment == null) {
+                    return;
+                }
+                final long blockIndex = (loadOffset - segment.getStart()) / CACHE_BLOCK_SIZE;
+                CacheBlock block = getOrLoadBlock(storeKey, segment, blockIndex, false);
+                if (block == null) {
+                    return;
+                }
+                unpinBlock(block);
+                loadOffset = segment.getStart() + (blockIndex + 1) * CACHE_BLOCK_SIZE;
+            }
+        } catch (Throwable e) {
+            // the read-ahead is best effort, such as reading a segment deleted meanwhile,
+            // so the failure is not counted as the disk IO error of the broker
+            readAheadDropCnt.incValue();
+            logger.warn(new StringBuilder(256)
+                    .append("[Block Cache] read ahead failure, storeKey=").append(storeKey)
+                    .append(", offset=").append(loadOffset).toString(), e);
+        }
+    }
+
+    /**
+     * Get the pinned block, load it from the segment if not cached.
+     *
+     * @return the pinned block, or null if the block is not cacheable
+     */
+    private CacheBlock getOrLoadBlock(String storeKey, Segment segment,
+            long blockIndex, boolean isRead) throws IOException {
+        final long blockOffset = blockIndex * CACHE_BLOCK_SIZE;
+        final long commitSize = segment.getCommitSize();
+        // only the content never changes is cached
+        if (blockOffset >= commitSize
+                || (segment.isMutable() && blockOffset + CACHE_BLOCK_SIZE > commitSize)) {
+            return null;
+        }
+        final BlockKey blockKey = new BlockKey(storeKey, segment.getStart(), blockIndex);
+        final CacheStripe stripe = getStripe(blockKey);
+        final long storeEpoch = getStoreEpoch(storeKey);
+        CacheBlock block;
+        synchronized (stripe) {
+            block = stripe.blockMap.get(blockKey);
+            if (block != null) {
+                block.pinCnt++;
+                if (isRead) {
+                    hitCnt.incValue();
+                    stripe.promoteBlock(block);
+                }
+                return block;
+            }
+            block = stripe.allocBlock();
+            if (block == null) {
+                // all blocks are in use
+                return null;
+            }
+            block.pinCnt = 1;
+        }
+        if (isRead) {
+            missCnt.incValue();
+        } else {
+            readAheadCnt.incValue();
+        }
+        try {
+            ByteBuffer loadBuf = block.buffer.duplicate();
+            loadBuf.clear();
+            loadBuf.limit((int) Math.min(CACHE_BLOCK_SIZE, commitSize - blockOffset));
+            segment.relRead(loadBuf, blockOffset);
+            block.validSize = loadBuf.position();
+        } catch (Throwable e) {
+            synchronized (stripe) {
+                block.pinCnt = 0;
+                stripe.freeBlocks.add(block);
+            }
+            throw e;
+        }
+        synchronized (stripe) {
+            if (storeEpoch != getStoreEpoch(storeKey)) {
+                // the store is invalidated while loading, the block is stale
+                block.pinCnt = 0;
+                stripe.freeBlocks.add(block);
+                return null;
+            }
+            CacheBlock curBlock = stripe.blockMap.get(blockKey);
+            if (curBlock != null) {
+                // loaded by others at the same time
+                block.pinCnt = 0;
+                stripe.freeBlocks.add(block);
+                curBlock.pinCnt++;
+                return curBlock;
+            }
+            block.key = blockKey;
+            stripe.blockMap.put(blockKey, block);
+            stripe.probationList.addLast(block);
+        }
+        return block;
+    }
+
+    private void unpinBlock(CacheBlock block) {
+        synchronized (block.stripe) {
+            block.pinCnt--;
+            if (block.pinCnt == 0 && block.key == null && block.list == null) {
+                // invalidated while in use
+                block.stripe.freeBlocks.add(block);
+            }
+        }
+    }
+
+    private CacheStripe getStripe(BlockKey blockKey) {
+        int hash = blockKey.hashCode;
+        hash ^= (hash >>> 16);
+        return this.stripes[hash & (this.stripes.length - 1)];
+    }
+
+    private long getStoreEpoch(String storeKey) {
+        Long epoch = this.storeEpochs.get(storeKey);
+        return epoch == null ? 0L : epoch;
+    }
+
+    private class CacheStripe {
+
+        private final int maxBlockCnt;
+        private final int maxProtectedCnt;
+        // the free blocks
+        private final ArrayDeque<CacheBlock> freeBlocks = new ArrayDeque<>();
+        // the cached blocks
+        private final HashMap<BlockKey, CacheBlock> blockMap = new HashMap<>();
+        // the LRU lists, the head is the least recently used
+        private final BlockList probationList = new BlockList();
+        private final BlockList protectedList = new BlockList();
+
+        public CacheStripe(int maxBlockCnt) {
+            this.maxBlockCnt = maxBlockCnt;
+            this.maxProtectedCnt = Math.max(1, maxBlockCnt * PROTECTED_PERCENT / 100);
+        }
+
+        public synchronized void invalidate(String storeKey) {
+            Iterator<Map.Entry<BlockKey, CacheBlock>> iterator =
+                    this.blockMap.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<BlockKey, CacheBlock> entry = iterator.next();
+                if (!entry.getKey().storeKey.equals(storeKey)) {
+                    continue;
+                }
+                iterator.remove();
+                CacheBlock block = entry.getValue();
+                if (block.list != null) {
+                    block.list.remove(block);
+                }
+                block.key = null;
+                if (block.pinCnt == 0) {
+                    this.freeBlocks.add(block);
+                }
+            }
+        }
+
+        private void promoteBlock(CacheBlock block) {
+            if (block.list == this.protectedList) {
+                this.protectedList.moveToLast(block);
+                return;
+            }
+            this.probationList.remove(block);
+            this.protectedList.addLast(block);
+            // demote the least recently used protected blocks
+            while (this.protectedList.size > this.maxProtectedCnt) {
+                CacheBlock demoted = this.protectedList.head;
+                this.protectedList.remove(demoted);
+                this.probationList.addLast(demoted);
+            }
+        }
+
+        private CacheBlock allocBlock() {
+            CacheBlock block = this.freeBlocks.poll();
+            if (block != null) {
+                return block;
+            }
+            block = evictBlock(this.probationList);
+            if (block == null) {
+                block = evictBlock(this.protectedList);
+            }
+            return block;
+        }
+
+        private CacheBlock evictBlock(BlockList blockList) {
+            CacheBlock block = blockList.head;
+            while (block != null && block.pinCnt > 0) {
+                block = block.next;
+            }
+            if (block == null) {
+                return null;
+            }
+            blockList.remove(block);
+            this.blockMap.remove(block.key);
+            block.key = null;
+            evictCnt.incValue();
+            return block;
+        }
+    }
+
+    private static class BlockKey {
+
+        private final String storeKey;
+        private final long segStart;
+        private final long blockIndex;
+        private final int hashCode;
+
+        public BlockKey(String storeKey, long segStart, long blockIndex) {
+            this.storeKey = storeKey;
+            this.segStart = segStart;
+            this.blockIndex = blockIndex;
+            int result = storeKey.hashCode();
+            result = 31 * result + Long.hashCode(segStart);
+            result = 31 * result + Long.hashCode(blockIndex);
+            this.hashCode = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BlockKey)) {
+                return false;
+            }
+            BlockKey other = (BlockKey) o;
+            return segStart == other.segStart
+                    && blockIndex == other.blockIndex
+                    && storeKey.equals(other.storeKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class CacheBlock {
+
+        private final ByteBuffer buffer;
+        private final CacheStripe stripe;
+        private BlockKey key;
+        private int validSize;
+        private int pinCnt;
+        private BlockList list;
+        private CacheBlock prev;
+        private CacheBlock next;
+
+        public CacheBlock(ByteBuffer buffer, CacheStripe stripe) {
+            this.buffer = buffer;
+            this.stripe = stripe;
+        }
+    }
+
+    private static class BlockList {
+
+        private CacheBlock head;
+        private CacheBlock tail;
+        private int size;
+
+        public void addLast(CacheBlock block) {
+            block.list = this;
+            block.prev = tail;
+            block.next = null;
+            if (tail == null) {
+                head = block;
+            } else {
+                tail.next = block;
+            }
+            tail = block;
+            size++;
+        }
+
+        public void remove(CacheBlock block) {
+            if (block.prev == null) {
+                head = block.next;
+            } else {
+                block.prev.next = block.next;
+            }
+            if (block.next == null) {
+                tail = block.prev;
+            } else {
+                block.next.prev = block.prev;
+            }
+            block.prev = null;
+            block.next = null;
+            block.list = null;
+            size--;
+        }
+
+        public void moveToLast(CacheBlock block) {
+            if (tail != block) {
+                remove(block);
+                addLast(block);
+            }
+        }
+    }
+}
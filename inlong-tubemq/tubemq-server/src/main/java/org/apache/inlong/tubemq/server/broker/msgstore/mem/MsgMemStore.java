@@ -34,11 +34,13 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -53,12 +55,22 @@ public class MsgMemStore implements Closeable {
     private final AtomicInteger cacheIndexOffset = new AtomicInteger(0);
     private final AtomicInteger curMessageCount = new AtomicInteger(0);
     private final ReentrantLock writeLock = new ReentrantLock();
+    // whether to append messages without the write lock
+    private final boolean lockFreeAppend;
+    // reserved data offset(high 32 bits) and index offset(low 32 bits),
+    // used in lock-free append mode
+    private final AtomicLong reservedOffsets = new AtomicLong(0);
+    // the data end position of each copied but unpublished index slot,
+    // used in lock-free append mode
+    private final AtomicIntegerArray copiedSlots;
+    // whether some writer is publishing the copied slots
+    private final AtomicBoolean publishing = new AtomicBoolean(false);
     // partitionId to index position, accelerate query
     private final Map<Integer, Integer> queuesMap =
-            new HashMap<>(20);
+            new ConcurrentHashMap<>(20);
     // key to index position, used for filter consume
     private final Map<Integer, Integer> keysMap =
-            new HashMap<>(100);
+            new ConcurrentHashMap<>(100);
     // where messages in memory will sink to disk
     private final int maxDataCacheSize;
     private long writeDataStartPos = -1;
@@ -82,11 +94,30 @@ public class MsgMemStore implements Closeable {
      */
     public MsgMemStore(int maxCacheSize, int maxMsgCount,
             long writeDataStartPos, long writeIndexStartPos) {
+        this(maxCacheSize, maxMsgCount, writeDataStartPos, writeIndexStartPos, false);
+    }
+
+    /**
+     * MsgMemStore, initial message memory cache store block
+     *
+     * @param maxCacheSize     the allowed max cache data size
+     * @param maxMsgCount      the allowed max cache data size
+     * @param writeDataStartPos     the data start position
+     * @param writeIndexStartPos    the data start position
+     * @param lockFreeAppend        whether to append messages without the write lock
+     */
+    public MsgMemStore(int maxCacheSize, int maxMsgCount,
+            long writeDataStartPos, long writeIndexStartPos,
+            boolean lockFreeAppend) {
+        this.lockFreeAppend = lockFreeAppend;
         this.maxDataCacheSize = maxCacheSize;
         this.maxAllowedMsgCount = maxMsgCount;
         this.maxIndexCacheSize = this.maxAllowedMsgCount * DataStoreUtils.STORE_INDEX_HEAD_LEN;
         this.cacheDataSegment = ByteBuffer.allocateDirect(this.maxDataCacheSize);
         this.cachedIndexSegment = ByteBuffer.allocateDirect(this.maxIndexCacheSize);
+        this.copiedSlots = lockFreeAppend
+                ? new AtomicIntegerArray(this.maxAllowedMsgCount)
+                : null;
         this.leftAppendTime.set(System.currentTimeMillis());
         this.rightAppendTime.set(System.currentTimeMillis());
         this.writeDataStartPos = writeDataStartPos;
@@ -102,6 +133,7 @@ public class MsgMemStore implements Closeable {
     public void resetMemStoreStatus(long writeDataStartPos, long writeIndexStartPos) {
         this.keysMap.clear();
         this.queuesMap.clear();
+        this.reservedOffsets.set(0);
         this.cacheDataOffset.set(0);
         this.cacheIndexOffset.set(0);
         this.curMessageCount.set(0);
@@ -131,6 +163,10 @@ public class MsgMemStore implements Closeable {
             int partitionId, int keyCode, long timeRecv,
             ByteBuffer indexEntry, int dataEntryLength,
             ByteBuffer dataEntry, AppendResult appendResult) {
+        if (this.lockFreeAppend) {
+            return appendMsgLockFree(memStatsHolder, partitionId, keyCode,
+                    timeRecv, indexEntry, dataEntryLength, dataEntry, appendResult);
+        }
         long dataOffset;
         long indexOffset;
         int indexSizePos;
@@ -177,6 +213,280 @@ public class MsgMemStore implements Closeable {
         return true;
     }
 
+    /**
+     * Append a batch of messages of one partition to memory cache.
+     *
+     * The batch is appended in one write lock acquisition, or one space reservation
+     * in lock-free append mode, and is all-or-nothing: if the cache can not hold the
+     * whole batch, nothing is appended.
+     *
+     * @param memStatsHolder    statistical information object
+     * @param partitionId       the partitionId for append messages
+     * @param timeRecv          the received timestamp
+     * @param msgCount          the message count in batch
+     * @param indexEntries      the stored index entries
+     * @param dataEntries       the stored data entries
+     * @param totalDataLength   the total length of the stored data entries
+     * @param appendResults     the append results
+     *
+     * @return    the process result
+     */
+    public boolean appendMsgs(MsgStoreStatsHolder memStatsHolder,
+            int partitionId, long timeRecv, int msgCount,
+            ByteBuffer[] indexEntries, ByteBuffer[] dataEntries,
+            int totalDataLength, AppendResult[] appendResults) {
+        if (this.lockFreeAppend) {
+            return appendMsgsLockFree(memStatsHolder, msgCount,
+                    indexEntries, dataEntries, totalDataLength, appendResults);
+        }
+        int dataSizePos;
+        int indexSizePos;
+        boolean isAppended = true;
+        boolean fullDataSize = false;
+        boolean fullIndexSize = false;
+        boolean fullCount = false;
+        this.writeLock.lock();
+        try {
+            // judge whether can write the whole batch to memory or not.
+            fullDataSize =
+                    (this.cacheDataOffset.get() + totalDataLength > this.maxDataCacheSize);
+            fullCount =
+                    (this.curMessageCount.get() + msgCount > maxAllowedMsgCount);
+            fullIndexSize = (this.cacheIndexOffset.get()
+                    + msgCount * DataStoreUtils.STORE_INDEX_HEAD_LEN > this.maxIndexCacheSize);
+            if (fullDataSize || fullCount || fullIndexSize) {
+                isAppended = false;
+                return false;
+            }
+            dataSizePos = this.cacheDataOffset.get();
+            indexSizePos = this.cacheIndexOffset.get();
+            if (indexSizePos == 0) {
+                this.leftAppendTime.set(timeRecv);
+            }
+            for (int i = 0; i < msgCount; i++) {
+                fillEntries(indexEntries[i], dataEntries[i],
+                        dataSizePos, indexSizePos, appendResults[i]);
+                this.cacheDataSegment.put(dataEntries[i].array());
+                this.cachedIndexSegment.put(indexEntries[i].array());
+                this.keysMap.put(indexEntries[i].getInt(DataStoreUtils.INDEX_POS_KEY_CODE), indexSizePos);
+                dataSizePos += dataEntries[i].array().length;
+                indexSizePos += DataStoreUtils.STORE_INDEX_HEAD_LEN;
+            }
+            this.queuesMap.put(partitionId, indexSizePos - DataStoreUtils.STORE_INDEX_HEAD_LEN);
+            this.curMessageCount.getAndAdd(msgCount);
+            this.rightAppendTime.set(timeRecv);
+            this.cacheDataOffset.set(dataSizePos);
+            this.cacheIndexOffset.set(indexSizePos);
+        } finally {
+            this.writeLock.unlock();
+            if (!isAppended) {
+                memStatsHolder.addCacheFullType(fullDataSize, fullIndexSize, fullCount);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether an empty memory cache can hold the batch of messages.
+     *
+     * @param msgCount          the message count in batch
+     * @param totalDataLength   the total length of the stored data entries
+     *
+     * @return    whether the batch fits in the memory cache
+     */
+    public boolean canHoldMsgs(int msgCount, int totalDataLength) {
+        return msgCount <= this.maxAllowedMsgCount
+                && totalDataLength <= this.maxDataCacheSize
+                && msgCount * DataStoreUtils.STORE_INDEX_HEAD_LEN <= this.maxIndexCacheSize;
+    }
+
+    /**
+     * Append a batch of messages to memory cache without the write lock,
+     * the space of the whole batch is reserved by one CAS on the packed offsets.
+     *
+     * @param memStatsHolder    statistical information object
+     * @param msgCount          the message count in batch
+     * @param indexEntries      the stored index entries
+     * @param dataEntries       the stored data entries
+     * @param totalDataLength   the total length of the stored data entries
+     * @param appendResults     the append results
+     *
+     * @return    the process result
+     */
+    private boolean appendMsgsLockFree(MsgStoreStatsHolder memStatsHolder, int msgCount,
+            ByteBuffer[] indexEntries, ByteBuffer[] dataEntries,
+            int totalDataLength, AppendResult[] appendResults) {
+        long curReserved;
+        int dataSizePos;
+        int indexSizePos;
+        boolean fullDataSize;
+        boolean fullIndexSize;
+        boolean fullCount;
+        final int totalIndexLength = msgCount * DataStoreUtils.STORE_INDEX_HEAD_LEN;
+        // reserve data and index space of the whole batch
+        do {
+            curReserved = this.reservedOffsets.get();
+            dataSizePos = (int) (curReserved >>> 32);
+            indexSizePos = (int) curReserved;
+            fullDataSize =
+                    (dataSizePos + totalDataLength > this.maxDataCacheSize);
+            fullCount =
+                    (indexSizePos / DataStoreUtils.STORE_INDEX_HEAD_LEN + msgCount > maxAllowedMsgCount);
+            fullIndexSize =
+                    (indexSizePos + totalIndexLength > this.maxIndexCacheSize);
+            if (fullDataSize || fullCount || fullIndexSize) {
+                memStatsHolder.addCacheFullType(fullDataSize, fullIndexSize, fullCount);
+                return false;
+            }
+        } while (!this.reservedOffsets.compareAndSet(curReserved,
+                ((long) (dataSizePos + totalDataLength) << 32)
+                        | (indexSizePos + totalIndexLength)));
+        // copy messages into the reserved space
+        int dataEntryLength;
+        final ByteBuffer dataWriteBuf = this.cacheDataSegment.duplicate();
+        dataWriteBuf.position(dataSizePos);
+        final ByteBuffer indexWriteBuf = this.cachedIndexSegment.duplicate();
+        indexWriteBuf.position(indexSizePos);
+        for (int i = 0; i < msgCount; i++) {
+            dataEntryLength = dataEntries[i].array().length;
+            fillEntries(indexEntries[i], dataEntries[i],
+                    dataSizePos, indexSizePos, appendResults[i]);
+            dataWriteBuf.put(dataEntries[i].array(), 0, dataEntryLength);
+            indexWriteBuf.put(indexEntries[i].array(), 0, DataStoreUtils.STORE_INDEX_HEAD_LEN);
+            dataSizePos += dataEntryLength;
+            indexSizePos += DataStoreUtils.STORE_INDEX_HEAD_LEN;
+        }
+        // mark the slots as copied in reservation order, then publish them
+        dataSizePos -= totalDataLength;
+        indexSizePos -= totalIndexLength;
+        for (int i = 0; i < msgCount; i++) {
+            dataSizePos += dataEntries[i].array().length;
+            this.copiedSlots.set(indexSizePos / DataStoreUtils.STORE_INDEX_HEAD_LEN + i, dataSizePos);
+        }
+        publishCopiedSlots();
+        return true;
+    }
+
+    /**
+     * Fill the stored offsets into the index and data entries of a message.
+     */
+    private void fillEntries(ByteBuffer indexEntry, ByteBuffer dataEntry,
+            int dataSizePos, int indexSizePos, AppendResult appendResult) {
+        final long indexOffset = this.writeIndexStartPos + indexSizePos;
+        final long dataOffset = this.writeDataStartPos + dataSizePos;
+        indexEntry.putLong(DataStoreUtils.INDEX_POS_DATAOFFSET, dataOffset);
+        dataEntry.putLong(DataStoreUtils.STORE_HEADER_POS_QUEUE_LOGICOFF, indexOffset);
+        appendResult.putAppendResult(indexOffset, dataOffset);
+    }
+
+    /**
+     * Append message to memory cache without the write lock.
+     *
+     * The data and index space is reserved by CAS on the packed offsets, then the
+     * writers copy their entries in parallel and mark their index slots as copied.
+     * The copied slots are published in reservation order by whichever writer holds
+     * the publishing flag, readers only see the published entries.
+     *
+     * @param memStatsHolder    statistical information object
+     * @param partitionId       the partitionId for append messages
+     * @param keyCode           the filter item hash code
+     * @param timeRecv          the received timestamp
+     * @param indexEntry        the stored index entry
+     * @param dataEntryLength   the stored data entry length
+     * @param dataEntry         the stored data entry
+     * @param appendResult      the append result
+     *
+     * @return    the process result
+     */
+    private boolean appendMsgLockFree(MsgStoreStatsHolder memStatsHolder,
+            int partitionId, int keyCode, long timeRecv,
+            ByteBuffer indexEntry, int dataEntryLength,
+            ByteBuffer dataEntry, AppendResult appendResult) {
+        long curReserved;
+        int dataSizePos;
+        int indexSizePos;
+        boolean fullDataSize;
+        boolean fullIndexSize;
+        boolean fullCount;
+        // reserve data and index space
+        do {
+            curReserved = this.reservedOffsets.get();
+            dataSizePos = (int) (curReserved >>> 32);
+            indexSizePos = (int) curReserved;
+            fullDataSize =
+                    (dataSizePos + dataEntryLength > this.maxDataCacheSize);
+            fullCount =
+                    (indexSizePos / DataStoreUtils.STORE_INDEX_HEAD_LEN + 1 > maxAllowedMsgCount);
+            fullIndexSize =
+                    (indexSizePos + DataStoreUtils.STORE_INDEX_HEAD_LEN > this.maxIndexCacheSize);
+            if (fullDataSize || fullCount || fullIndexSize) {
+                memStatsHolder.addCacheFullType(fullDataSize, fullIndexSize, fullCount);
+                return false;
+            }
+        } while (!this.reservedOffsets.compareAndSet(curReserved,
+                ((long) (dataSizePos + dataEntryLength) << 32)
+                        | (indexSizePos + DataStoreUtils.STORE_INDEX_HEAD_LEN)));
+        // copy message into the reserved space
+        final long indexOffset = this.writeIndexStartPos + indexSizePos;
+        final long dataOffset = this.writeDataStartPos + dataSizePos;
+        indexEntry.putLong(DataStoreUtils.INDEX_POS_DATAOFFSET, dataOffset);
+        dataEntry.putLong(DataStoreUtils.STORE_HEADER_POS_QUEUE_LOGICOFF, indexOffset);
+        final ByteBuffer dataWriteBuf = this.cacheDataSegment.duplicate();
+        dataWriteBuf.position(dataSizePos);
+        dataWriteBuf.put(dataEntry.array(), 0, dataEntryLength);
+        final ByteBuffer indexWriteBuf = this.cachedIndexSegment.duplicate();
+        indexWriteBuf.position(indexSizePos);
+        indexWriteBuf.put(indexEntry.array(), 0, DataStoreUtils.STORE_INDEX_HEAD_LEN);
+        // mark the slot as copied, then try to publish the copied slots
+        this.copiedSlots.set(indexSizePos / DataStoreUtils.STORE_INDEX_HEAD_LEN,
+                dataSizePos + dataEntryLength);
+        publishCopiedSlots();
+        appendResult.putAppendResult(indexOffset, dataOffset);
+        return true;
+    }
+
+    /**
+     * Publish the continuous copied slots after the current index offset.
+     * If another writer is publishing, it re-checks the slots after it
+     * releases the publishing flag, so the copied slot will not be missed.
+     */
+    private void publishCopiedSlots() {
+        int slot;
+        int dataEndPos;
+        int indexSizePos;
+        while (this.publishing.compareAndSet(false, true)) {
+            try {
+                slot = this.cacheIndexOffset.get() / DataStoreUtils.STORE_INDEX_HEAD_LEN;
+                while (slot < this.maxAllowedMsgCount
+                        && (dataEndPos = this.copiedSlots.get(slot)) > 0) {
+                    this.copiedSlots.set(slot, 0);
+                    indexSizePos = slot * DataStoreUtils.STORE_INDEX_HEAD_LEN;
+                    this.queuesMap.put(this.cachedIndexSegment.getInt(
+                            indexSizePos + DataStoreUtils.INDEX_POS_PARTITIONID), indexSizePos);
+                    this.keysMap.put(this.cachedIndexSegment.getInt(
+                            indexSizePos + DataStoreUtils.INDEX_POS_KEY_CODE), indexSizePos);
+                    this.curMessageCount.getAndIncrement();
+                    this.rightAppendTime.set(this.cachedIndexSegment.getLong(
+                            indexSizePos + DataStoreUtils.INDEX_POS_TIME_RECV));
+                    if (indexSizePos == 0) {
+                        this.leftAppendTime.set(this.rightAppendTime.get());
+                    }
+                    // publish data before index, so the visible index always refers to visible data
+                    this.cacheDataOffset.set(dataEndPos);
+                    this.cacheIndexOffset.set(indexSizePos + DataStoreUtils.STORE_INDEX_HEAD_LEN);
+                    slot++;
+                }
+            } finally {
+                this.publishing.set(false);
+            }
+            slot = this.cacheIndexOffset.get() / DataStoreUtils.STORE_INDEX_HEAD_LEN;
+            if (slot >= this.maxAllowedMsgCount
+                    || this.copiedSlots.get(slot) == 0) {
+                return;
+            }
+        }
+    }
+
     /**
      * Read from memory, read index, then data.
      *
@@ -215,7 +525,9 @@ public class MsgMemStore implements Closeable {
         int currDataOffset;
         long lastDataRdOff = lstRdDataOffset;
         int startReadOff = (int) (lstRdIndexOffset - this.writeIndexStartPos);
-        this.writeLock.lock();
+        if (!this.lockFreeAppend) {
+            this.writeLock.lock();
+        }
         try {
             if (isFilterConsume) {
                 // filter conduct. accelerate by keysMap.
@@ -235,11 +547,14 @@ public class MsgMemStore implements Closeable {
                     hasMsg = true;
                 }
             }
-            currDataOffset = this.cacheDataOffset.get();
+            // read index offset before data offset, see appendMsgLockFree()
             currIndexOffset = this.cacheIndexOffset.get();
+            currDataOffset = this.cacheDataOffset.get();
             lastDataRdOff = this.writeDataStartPos + currDataOffset;
         } finally {
-            this.writeLock.unlock();
+            if (!this.lockFreeAppend) {
+                this.writeLock.unlock();
+            }
         }
         int limitReadSize = currIndexOffset - startReadOff;
         // cannot find message, return not found
@@ -329,8 +644,10 @@ public class MsgMemStore implements Closeable {
         }
         ByteBuffer tmpIndexBuffer = this.cachedIndexSegment.asReadOnlyBuffer();
         final ByteBuffer tmpDataReadBuf = this.cacheDataSegment.asReadOnlyBuffer();
-        tmpIndexBuffer.flip();
-        tmpDataReadBuf.flip();
+        tmpIndexBuffer.position(0);
+        tmpIndexBuffer.limit(cacheIndexOffset.get());
+        tmpDataReadBuf.position(0);
+        tmpDataReadBuf.limit(cacheDataOffset.get());
         long startTime = System.currentTimeMillis();
         msgFileStore.appendMsg(true, startTime, strBuffer, curMessageCount.get(),
                 cacheIndexOffset.get(), tmpIndexBuffer, cacheDataOffset.get(),
@@ -399,6 +716,7 @@ public class MsgMemStore implements Closeable {
     public void clear() {
         this.writeDataStartPos = -1;
         this.writeIndexStartPos = -1;
+        this.reservedOffsets.set(0);
         this.cacheDataOffset.set(0);
         this.cacheIndexOffset.set(0);
         this.curMessageCount.set(0);
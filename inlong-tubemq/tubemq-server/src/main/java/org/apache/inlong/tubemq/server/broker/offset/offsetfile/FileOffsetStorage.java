@@ -34,10 +34,12 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -53,21 +55,34 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
     private static final String OFFSET_FILENAME_SUFFIX_TMP = ".tmp";
     private static final String OFFSET_FILENAME_SUFFIX_MID = ".mid";
     private static final String OFFSET_FILENAME_SUFFIX_OLD = ".old";
+    private static final String OFFSET_FILENAME_SUFFIX_MIGRATED = ".migrated";
     private final int brokerId;
     private final String offsetsDirBase;
     private final String offsetsFileBase;
     private final long syncDurWarnMs;
     private final AtomicBoolean isStarted = new AtomicBoolean(false);
     private final AtomicBoolean isUpdated = new AtomicBoolean(false);
+    // the binary offset files, null if stored in json format
+    private final OffsetBinaryLog binaryLog;
+    // whether to write a full snapshot at the next binary sync
+    private final AtomicBoolean isCompactRequired = new AtomicBoolean(false);
     private GroupOffsetStgInfo groupOffsetInfo;
     private final ConcurrentHashMap<String, ConcurrentHashSet<String>> groupTopicsInfo = new ConcurrentHashMap<>();
 
     public FileOffsetStorage(int brokerId, String offsetFilePath, long syncIntMs, long syncDurWarnMs) {
+        this(brokerId, offsetFilePath, syncIntMs, syncDurWarnMs, false);
+    }
+
+    public FileOffsetStorage(int brokerId, String offsetFilePath,
+            long syncIntMs, long syncDurWarnMs, boolean enableBinaryStg) {
         super("Offset-File", syncIntMs);
         this.brokerId = brokerId;
         this.syncDurWarnMs = syncDurWarnMs;
         this.offsetsDirBase = offsetFilePath + File.separator + offsetSubDir;
         this.offsetsFileBase = this.offsetsDirBase + File.separator + OFFSET_FILENAME;
+        this.binaryLog = enableBinaryStg
+                ? new OffsetBinaryLog(brokerId, this.offsetsFileBase)
+                : null;
     }
 
     @Override
@@ -95,7 +110,7 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
             return;
         }
         long curStartTime = System.currentTimeMillis();
-        storeOffsetStgInfoToFile(this.groupOffsetInfo, this.offsetsFileBase);
+        syncOffsetsToFile(false);
         long wastMs = System.currentTimeMillis() - curStartTime;
         if (wastMs > syncDurWarnMs) {
             logger.warn("[File offsets] sync offsets to file over warn value, wast={}ms, warnMs={}",
@@ -111,7 +126,10 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
         super.stop();
         logger.info("[File offsets] begin sync content to file, begin");
         long curStartTime = System.currentTimeMillis();
-        storeOffsetStgInfoToFile(this.groupOffsetInfo, this.offsetsFileBase);
+        syncOffsetsToFile(true);
+        if (this.binaryLog != null) {
+            this.binaryLog.close();
+        }
         long wastMs = System.currentTimeMillis() - curStartTime;
         if (wastMs > syncDurWarnMs) {
             logger.warn("[File offsets] close and sync offsets to file, wast={}ms, warnMs={}",
@@ -119,6 +137,38 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
         }
     }
 
+    /**
+     * Sync the offsets to file, rewrite the json file or append the
+     * changed offsets to the binary log.
+     *
+     * @param isFullSync    whether to write all the offsets
+     */
+    private void syncOffsetsToFile(boolean isFullSync) {
+        if (this.binaryLog == null) {
+            storeOffsetStgInfoToFile(this.groupOffsetInfo, this.offsetsFileBase);
+            return;
+        }
+        try {
+            if (isFullSync
+                    || this.isCompactRequired.get()
+                    || this.binaryLog.needCompact()) {
+                this.isCompactRequired.set(false);
+                this.binaryLog.compact(this.groupOffsetInfo);
+            } else {
+                this.binaryLog.sync(this.groupOffsetInfo);
+            }
+        } catch (Throwable ex) {
+            if (ex instanceof IOException) {
+                ServiceStatusHolder.addWriteIOErrCnt();
+                BrokerSrvStatsHolder.incDiskIOExcCnt();
+            }
+            // the changed offsets are taken, retry with a full snapshot
+            this.isCompactRequired.set(true);
+            this.isUpdated.set(true);
+            logger.error("[File offsets] sync offsets to binary file failure", ex);
+        }
+    }
+
     @Override
     public ConcurrentHashMap<String, OffsetStorageInfo> loadGroupStgInfo(String group) {
         ConcurrentHashMap<String, OffsetStorageInfo> result = new ConcurrentHashMap<>();
@@ -162,8 +212,22 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
         if (offsetInfoList == null || offsetInfoList.isEmpty()) {
             return false;
         }
+        List<String> updPartKeys = null;
+        if (this.binaryLog != null) {
+            updPartKeys = new ArrayList<>(offsetInfoList.size());
+            for (OffsetStorageInfo info : offsetInfoList) {
+                if (info != null && info.isModified()) {
+                    updPartKeys.add(OffsetStgInfo.buildOffsetKey(info.getTopic(), info.getPartitionId()));
+                }
+            }
+        }
         if (this.groupOffsetInfo.storeOffsetStgInfo(
                 group, offsetInfoList, this.groupTopicsInfo)) {
+            if (updPartKeys != null) {
+                for (String partKey : updPartKeys) {
+                    this.binaryLog.markPartUpdated(group, partKey);
+                }
+            }
             isUpdated.set(true);
             return true;
         }
@@ -232,6 +296,7 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
                 continue;
             }
             if (this.groupOffsetInfo.rmvGroupOffsetInfo(entry.getKey(), entry.getValue())) {
+                markGroupUpdated(entry.getKey());
                 isUpdated = true;
             }
             // clean cache
@@ -268,6 +333,7 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
         if (!rmvGroups.isEmpty()) {
             for (String rmvGroup : rmvGroups) {
                 this.groupTopicsInfo.remove(rmvGroup);
+                markGroupUpdated(rmvGroup);
             }
             this.isUpdated.set(true);
         }
@@ -299,6 +365,7 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
         ConcurrentHashSet<String> curTopics;
         for (String group : groups) {
             this.groupOffsetInfo.rmvGroupOffsetInfo(group, rmvTopics);
+            markGroupUpdated(group);
             curTopics = groupTopicsInfo.get(group);
             if (curTopics == null) {
                 continue;
@@ -312,6 +379,12 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
         return groups;
     }
 
+    private void markGroupUpdated(String group) {
+        if (this.binaryLog != null) {
+            this.binaryLog.markGroupUpdated(group);
+        }
+    }
+
     public String getOffsetsFileBase() {
         return offsetsFileBase;
     }
@@ -368,7 +441,8 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
                 if (file.isFile()) {
                     if (file.getName().endsWith(OFFSET_FILENAME_SUFFIX_MID)
                             || file.getName().endsWith(OFFSET_FILENAME_SUFFIX_FORMAL)
-                            || file.getName().endsWith(OFFSET_FILENAME_SUFFIX_OLD)) {
+                            || file.getName().endsWith(OFFSET_FILENAME_SUFFIX_OLD)
+                            || file.getName().endsWith(OffsetBinaryLog.SNAPSHOT_SUFFIX)) {
                         isFistUseFileStg = false;
                         break;
                     }
@@ -379,40 +453,12 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
     }
 
     private boolean initialFileInfo() {
-        if (!checkAndRecoverStgFiles()) {
+        GroupOffsetStgInfo tmpOffsetInfoMap = (this.binaryLog == null)
+                ? loadJsonStgInfo()
+                : loadBinaryStgInfo();
+        if (tmpOffsetInfoMap == null) {
             return false;
         }
-        GroupOffsetStgInfo tmpOffsetInfoMap;
-        File dstFile = new File(this.offsetsFileBase + OFFSET_FILENAME_SUFFIX_FORMAL);
-        if (dstFile.exists()) {
-            String offsetsContent = getConfigFromFile(dstFile);
-            if (offsetsContent == null) {
-                logger.error("[File offsets] initial load storage file {} failure!",
-                        dstFile.getAbsoluteFile());
-                return false;
-            }
-            try {
-                tmpOffsetInfoMap = GSON.fromJson(offsetsContent, GroupOffsetStgInfo.class);
-            } catch (Throwable ex) {
-                logger.error("[File offsets] parse loaded json config failure", ex);
-                return false;
-            }
-            if (tmpOffsetInfoMap == null) {
-                logger.error("[File offsets] LOADED configure is null");
-                return false;
-            }
-        } else {
-            if (!isFistUseFileStg()) {
-                logger.error("[File offsets] storage file {} is required!",
-                        dstFile.getAbsoluteFile());
-                return false;
-            }
-            tmpOffsetInfoMap = new GroupOffsetStgInfo(this.brokerId);
-            RetValue retValue = storeOffsetStgInfoToFile(tmpOffsetInfoMap, this.offsetsFileBase);
-            if (!retValue.isSuccess()) {
-                return false;
-            }
-        }
         this.groupOffsetInfo = tmpOffsetInfoMap;
         Map<String, OffsetStgInfo> offsetStgInfos = tmpOffsetInfoMap.getGroupOffsetStgInfo();
         if (offsetStgInfos == null || offsetStgInfos.isEmpty()) {
@@ -448,6 +494,74 @@ public class FileOffsetStorage extends AbstractDaemonService implements OffsetSt
         return true;
     }
 
+    private GroupOffsetStgInfo loadJsonStgInfo() {
+        if (!checkAndRecoverStgFiles()) {
+            return null;
+        }
+        GroupOffsetStgInfo tmpOffsetInfoMap;
+        File dstFile = new File(this.offsetsFileBase + OFFSET_FILENAME_SUFFIX_FORMAL);
+        if (dstFile.exists()) {
+            String offsetsContent = getConfigFromFile(dstFile);
+            if (offsetsContent == null) {
+                logger.error("[File offsets] initial load storage file {} failure!",
+                        dstFile.getAbsoluteFile());
+                return null;
+            }
+            try {
+                tmpOffsetInfoMap = GSON.fromJson(offsetsContent, GroupOffsetStgInfo.class);
+            } catch (Throwable ex) {
+                logger.error("[File offsets] parse loaded json config failure", ex);
+                return null;
+            }
+            if (tmpOffsetInfoMap == null) {
+                logger.error("[File offsets] LOADED configure is null");
+                return null;
+            }
+        } else {
+            if (!isFistUseFileStg()) {
+                logger.error("[File offsets] storage file {} is required!",
+                        dstFile.getAbsoluteFile());
+                return null;
+            }
+            tmpOffsetInfoMap = new GroupOffsetStgInfo(this.brokerId);
+            RetValue retValue = storeOffsetStgInfoToFile(tmpOffsetInfoMap, this.offsetsFileBase);
+            if (!retValue.isSuccess()) {
+                return null;
+            }
+        }
+        return tmpOffsetInfoMap;
+    }
+
+    private GroupOffsetStgInfo loadBinaryStgInfo() {
+        try {
+            if (this.binaryLog.isStgFileExist()) {
+                return this.binaryLog.load();
+            }
+            // migrate the offsets from the json files
+            GroupOffsetStgInfo tmpOffsetInfoMap = loadJsonStgInfo();
+            if (tmpOffsetInfoMap == null) {
+                return null;
+            }
+            this.binaryLog.compact(tmpOffsetInfoMap);
+            // the json file is no longer updated, keep it away from the json loading
+            File dstFile = new File(this.offsetsFileBase + OFFSET_FILENAME_SUFFIX_FORMAL);
+            if (dstFile.exists()) {
+                File migratedFile = new File(this.offsetsFileBase + OFFSET_FILENAME_SUFFIX_MIGRATED);
+                FileUtils.deleteQuietly(migratedFile);
+                FileUtils.moveFile(dstFile, migratedFile);
+            }
+            logger.info("[File offsets] migrated offsets from json file to binary file");
+            return tmpOffsetInfoMap;
+        } catch (Throwable ex) {
+            if (ex instanceof IOException) {
+                ServiceStatusHolder.addReadIOErrCnt();
+                BrokerSrvStatsHolder.incDiskIOExcCnt();
+            }
+            logger.error("[File offsets] load offsets from binary file failure", ex);
+            return null;
+        }
+    }
+
     private boolean checkAndRecoverStgFiles() {
         String fileContent;
         GroupOffsetStgInfo tmpGroupStgInfo;
@@ -88,6 +88,29 @@ public class GroupOffsetStgInfo {
         return curOffsetStgInfo.updOffsetInfo(topic, partId, 0, msgId, offset, System.currentTimeMillis());
     }
 
+    public void restorePartStgInfo(String group, PartStgInfo partStgInfo) {
+        OffsetStgInfo curOffsetStgInfo = groupOffsetStgInfo.get(group);
+        if (curOffsetStgInfo == null) {
+            OffsetStgInfo tmpOffsetStgInfo = new OffsetStgInfo();
+            curOffsetStgInfo = groupOffsetStgInfo.putIfAbsent(group, tmpOffsetStgInfo);
+            if (curOffsetStgInfo == null) {
+                curOffsetStgInfo = tmpOffsetStgInfo;
+            }
+        }
+        curOffsetStgInfo.restorePartOffsetInfo(partStgInfo);
+    }
+
+    public void rmvPartStgInfo(String group, String partKey) {
+        OffsetStgInfo offsetStgInfo = groupOffsetStgInfo.get(group);
+        if (offsetStgInfo == null) {
+            return;
+        }
+        offsetStgInfo.getPartOffsetInfo().remove(partKey);
+        if (offsetStgInfo.isOffsetStgInfoEmpty()) {
+            groupOffsetStgInfo.remove(group);
+        }
+    }
+
     public Map<Integer, Long> queryGroupOffsetInfo(String group, String topic, Set<Integer> partIds) {
         OffsetStgInfo offsetStgInfo = groupOffsetStgInfo.get(group);
         if (offsetStgInfo == null) {
@@ -0,0 +1,465 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.offset.offsetfile;
+
+import org.apache.inlong.tubemq.corebase.TokenConstants;
+import org.apache.inlong.tubemq.corebase.utils.ConcurrentHashSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * The binary offset storage files of the broker.
+ *
+ * The offsets are stored in a compacted snapshot file and an append-only delta log file,
+ * each sync appends only the changed partition offsets to the log, and the log is
+ * compacted into a new snapshot when it grows larger than the snapshot.
+ *
+ * Both files start with a header of magic, version, broker id and generation, followed by
+ * records of [length, crc32, payload]. The log is only replayed on the snapshot of the same
+ * generation, and the torn or corrupted tail of the log is truncated at recovery.
+ */
+public class OffsetBinaryLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffsetBinaryLog.class);
+    public static final String SNAPSHOT_SUFFIX = ".snap";
+    public static final String LOG_SUFFIX = ".log";
+    private static final String TMP_SUFFIX = ".btmp";
+    private static final int SNAPSHOT_MAGIC = 0x4F535331;
+    private static final int LOG_MAGIC = 0x4F534C31;
+    private static final int FORMAT_VERSION = 1;
+    // magic, version, broker id and generation
+    private static final int FILE_HEADER_LEN = 20;
+    // length and crc32 of a record
+    private static final int RECORD_HEADER_LEN = 8;
+    private static final int MAX_RECORD_LEN = 256 * 1024;
+    // the min log size to compact
+    private static final long MIN_COMPACT_LOG_SIZE = 1024 * 1024L;
+    // record types
+    private static final byte REC_PART_OFFSET = 1;
+    private static final byte REC_RMV_PART = 2;
+    private static final byte REC_RMV_GROUP = 3;
+    private static final byte REC_SNAPSHOT_END = 4;
+    private final int brokerId;
+    private final File snapshotFile;
+    private final File logFile;
+    // the changed partitions to sync, keyed by group and partition key
+    private final ConcurrentHashSet<String> dirtyParts = new ConcurrentHashSet<>();
+    // the groups to rewrite entirely, set when partitions are removed
+    private final ConcurrentHashSet<String> dirtyGroups = new ConcurrentHashSet<>();
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream(512);
+    private final DataOutputStream recordOutput = new DataOutputStream(recordBuffer);
+    private final CRC32 crc32 = new CRC32();
+    private FileChannel logChannel;
+    private long generation = 0;
+    private long snapshotSize = 0;
+
+    public OffsetBinaryLog(int brokerId, String fileNameBase) {
+        this.brokerId = brokerId;
+        this.snapshotFile = new File(fileNameBase + SNAPSHOT_SUFFIX);
+        this.logFile = new File(fileNameBase + LOG_SUFFIX);
+    }
+
+    public boolean isStgFileExist() {
+        return this.snapshotFile.exists();
+    }
+
+    public void markPartUpdated(String group, String partKey) {
+        this.dirtyParts.add(group + TokenConstants.SEGMENT_SEP + partKey);
+    }
+
+    public void markGroupUpdated(String group) {
+        this.dirtyGroups.add(group);
+    }
+
+    public long getLogSize() throws IOException {
+        return this.logChannel == null ? 0 : this.logChannel.size();
+    }
+
+    /**
+     * Load the offsets from the snapshot and replay the delta log on it.
+     *
+     * @return               the loaded offsets
+     * @throws IOException   exception while reading or recovering files
+     */
+    public synchronized GroupOffsetStgInfo load() throws IOException {
+        GroupOffsetStgInfo stgInfo = new GroupOffsetStgInfo(this.brokerId);
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.snapshotFile.toPath()));
+        this.generation = readFileHeader(buffer, SNAPSHOT_MAGIC, this.snapshotFile);
+        boolean isEnded = false;
+        while (!isEnded) {
+            ByteBuffer record = readRecord(buffer);
+            if (record == null) {
+                throw new IOException(new StringBuilder(512)
+                        .append("Snapshot file ").append(this.snapshotFile.getAbsolutePath())
+                        .append(" is corrupted at position ").append(buffer.position()).toString());
+            }
+            isEnded = applyRecord(record, stgInfo);
+        }
+        this.snapshotSize = buffer.position();
+        if (!this.logFile.exists()) {
+            createLogFile();
+            return stgInfo;
+        }
+        buffer = ByteBuffer.wrap(Files.readAllBytes(this.logFile.toPath()));
+        long logGeneration = -1;
+        if (buffer.remaining() >= FILE_HEADER_LEN) {
+            try {
+                logGeneration = readFileHeader(buffer, LOG_MAGIC, this.logFile);
+            } catch (IOException e) {
+                logger.warn("[File offsets] discard the unrecognized log file {}",
+                        this.logFile.getAbsolutePath(), e);
+            }
+        }
+        if (logGeneration != this.generation) {
+            // the log is left by an interrupted compaction, and already included in the snapshot
+            createLogFile();
+            return stgInfo;
+        }
+        int recordCnt = 0;
+        int validPos = buffer.position();
+        ByteBuffer record;
+        while ((record = readRecord(buffer)) != null) {
+            applyRecord(record, stgInfo);
+            validPos = buffer.position();
+            recordCnt++;
+        }
+        this.logChannel = FileChannel.open(this.logFile.toPath(),
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (validPos < this.logChannel.size()) {
+            logger.warn("[File offsets] truncate the corrupted tail of log file {} from {} to {}",
+                    this.logFile.getAbsolutePath(), this.logChannel.size(), validPos);
+            this.logChannel.truncate(validPos);
+            this.logChannel.force(true);
+        }
+        this.logChannel.position(validPos);
+        logger.info("[File offsets] loaded snapshot of generation {}, replayed {} log records",
+                this.generation, recordCnt);
+        return stgInfo;
+    }
+
+    /**
+     * Append the offsets changed since the last sync to the log.
+     *
+     * @param stgInfo        the current offsets
+     * @return               the appended record count
+     * @throws IOException   exception while writing the log
+     */
+    public synchronized int sync(GroupOffsetStgInfo stgInfo) throws IOException {
+        ByteArrayOutputStream logBuffer = new ByteArrayOutputStream(4096);
+        int recordCnt = 0;
+        Set<String> groups = new HashSet<>();
+        for (String group : this.dirtyGroups) {
+            if (this.dirtyGroups.remove(group)) {
+                groups.add(group);
+            }
+        }
+        for (String group : groups) {
+            writeRmvGroupRecord(logBuffer, group);
+            recordCnt++;
+            Map<String, PartStgInfo> partStgInfos = stgInfo.getOffsetStgInfos(group);
+            if (partStgInfos == null) {
+                continue;
+            }
+            for (PartStgInfo partStgInfo : partStgInfos.values()) {
+                if (partStgInfo == null) {
+                    continue;
+                }
+                writePartRecord(logBuffer, group, partStgInfo);
+                recordCnt++;
+            }
+        }
+        for (String dirtyKey : this.dirtyParts) {
+            if (!this.dirtyParts.remove(dirtyKey)) {
+                continue;
+            }
+            int sepPos = dirtyKey.indexOf(TokenConstants.SEGMENT_SEP);
+            String group = dirtyKey.substring(0, sepPos);
+            String partKey = dirtyKey.substring(sepPos + 1);
+            if (groups.contains(group)) {
+                continue;
+            }
+            Map<String, PartStgInfo> partStgInfos = stgInfo.getOffsetStgInfos(group);
+            PartStgInfo partStgInfo = (partStgInfos == null) ? null : partStgInfos.get(partKey);
+            if (partStgInfo == null) {
+                writeRmvPartRecord(logBuffer, group, partKey);
+            } else {
+                writePartRecord(logBuffer, group, partStgInfo);
+            }
+            recordCnt++;
+        }
+        if (recordCnt == 0) {
+            return 0;
+        }
+        ByteBuffer writeBuffer = ByteBuffer.wrap(logBuffer.toByteArray());
+        while (writeBuffer.hasRemaining()) {
+            this.logChannel.write(writeBuffer);
+        }
+        this.logChannel.force(false);
+        return recordCnt;
+    }
+
+    /**
+     * Whether the log is large enough to compact into a new snapshot.
+     *
+     * @return     whether to compact
+     */
+    public synchronized boolean needCompact() throws IOException {
+        long logSize = getLogSize();
+        return logSize > MIN_COMPACT_LOG_SIZE && logSize > this.snapshotSize;
+    }
+
+    /**
+     * Write all the offsets into a new snapshot, and start a new log.
+     *
+     * @param stgInfo        the current offsets
+     * @throws IOException   exception while writing files
+     */
+    public synchronized void compact(GroupOffsetStgInfo stgInfo) throws IOException {
+        // the following changes are included in the snapshot
+        this.dirtyGroups.clear();
+        this.dirtyParts.clear();
+        final long newGeneration = this.generation + 1;
+        File tmpFile = new File(this.snapshotFile.getAbsolutePath() + TMP_SUFFIX);
+        ByteArrayOutputStream snapshotBuffer = new ByteArrayOutputStream(64 * 1024);
+        writeFileHeader(snapshotBuffer, SNAPSHOT_MAGIC, newGeneration);
+        for (Map.Entry<String, OffsetStgInfo> entry : stgInfo.getGroupOffsetStgInfo().entrySet()) {
+            if (entry == null || entry.getKey() == null || entry.getValue() == null) {
+                continue;
+            }
+            for (PartStgInfo partStgInfo : entry.getValue().getPartOffsetInfo().values()) {
+                if (partStgInfo == null) {
+                    continue;
+                }
+                writePartRecord(snapshotBuffer, entry.getKey(), partStgInfo);
+            }
+        }
+        beginRecord(REC_SNAPSHOT_END);
+        endRecord(snapshotBuffer);
+        try (FileOutputStream out = new FileOutputStream(tmpFile)) {
+            snapshotBuffer.writeTo(out);
+            out.getChannel().force(true);
+        }
+        Files.move(tmpFile.toPath(), this.snapshotFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.generation = newGeneration;
+        this.snapshotSize = snapshotBuffer.size();
+        createLogFile();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.logChannel == null) {
+            return;
+        }
+        try {
+            this.logChannel.close();
+        } catch (IOException e) {
+            logger.warn("[File offsets] close log file {} failure",
+                    this.logFile.getAbsolutePath(), e);
+        }
+        this.logChannel = null;
+    }
+
+    private void createLogFile() throws IOException {
+        close();
+        File tmpFile = new File(this.logFile.getAbsolutePath() + TMP_SUFFIX);
+        ByteArrayOutputStream headerBuffer = new ByteArrayOutputStream(FILE_HEADER_LEN);
+        writeFileHeader(headerBuffer, LOG_MAGIC, this.generation);
+        try (FileOutputStream out = new FileOutputStream(tmpFile)) {
+            headerBuffer.writeTo(out);
+            out.getChannel().force(true);
+        }
+        Files.move(tmpFile.toPath(), this.logFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.logChannel = FileChannel.open(this.logFile.toPath(),
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.logChannel.position(this.logChannel.size());
+    }
+
+    private void writeFileHeader(ByteArrayOutputStream out,
+            int magic, long fileGeneration) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(magic);
+        dataOut.writeInt(FORMAT_VERSION);
+        dataOut.writeInt(this.brokerId);
+        dataOut.writeLong(fileGeneration);
+        dataOut.flush();
+    }
+
+    private long readFileHeader(ByteBuffer buffer, int magic, File file) throws IOException {
+        if (buffer.remaining() < FILE_HEADER_LEN
+                || buffer.getInt() != magic
+                || buffer.getInt() != FORMAT_VERSION) {
+            throw new IOException(new StringBuilder(512)
+                    .append("Unrecognized offset file ")
+                    .append(file.getAbsolutePath()).toString());
+        }
+        int fileBrokerId = buffer.getInt();
+        if (fileBrokerId != this.brokerId) {
+            logger.warn("[File offsets] the broker id {} of file {} is not {}",
+                    fileBrokerId, file.getAbsolutePath(), this.brokerId);
+        }
+        return buffer.getLong();
+    }
+
+    private void writePartRecord(ByteArrayOutputStream out,
+            String group, PartStgInfo partStgInfo) throws IOException {
+        beginRecord(REC_PART_OFFSET);
+        writeString(group);
+        writeString(partStgInfo.getTopic());
+        this.recordOutput.writeInt(partStgInfo.getPartId());
+        this.recordOutput.writeLong(partStgInfo.getLstRstTerm());
+        this.recordOutput.writeLong(partStgInfo.getLstOffset());
+        this.recordOutput.writeLong(partStgInfo.getMsgId());
+        this.recordOutput.writeLong(partStgInfo.getLstUpdTime());
+        this.recordOutput.writeLong(partStgInfo.getCreateOffset());
+        this.recordOutput.writeLong(partStgInfo.getCreateTime());
+        endRecord(out);
+    }
+
+    private void writeRmvPartRecord(ByteArrayOutputStream out,
+            String group, String partKey) throws IOException {
+        beginRecord(REC_RMV_PART);
+        writeString(group);
+        writeString(partKey);
+        endRecord(out);
+    }
+
+    private void writeRmvGroupRecord(ByteArrayOutputStream out, String group) throws IOException {
+        beginRecord(REC_RMV_GROUP);
+        writeString(group);
+        endRecord(out);
+    }
+
+    private void beginRecord(byte recordType) throws IOException {
+        this.recordBuffer.reset();
+        this.recordOutput.writeByte(recordType);
+    }
+
+    private void endRecord(ByteArrayOutputStream out) throws IOException {
+        this.recordOutput.flush();
+        byte[] payload = this.recordBuffer.toByteArray();
+        this.crc32.reset();
+        this.crc32.update(payload, 0, payload.length);
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(payload.length);
+        dataOut.writeInt((int) this.crc32.getValue());
+        dataOut.write(payload);
+        dataOut.flush();
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        this.recordOutput.writeShort(bytes.length);
+        this.recordOutput.write(bytes);
+    }
+
+    /**
+     * Read a complete record with valid crc32.
+     *
+     * @param buffer     the file content
+     * @return           the record payload, null if torn or corrupted
+     */
+    private ByteBuffer readRecord(ByteBuffer buffer) {
+        if (buffer.remaining() < RECORD_HEADER_LEN) {
+            return null;
+        }
+        int startPos = buffer.position();
+        int length = buffer.getInt(startPos);
+        int checksum = buffer.getInt(startPos + 4);
+        if (length <= 0
+                || length > MAX_RECORD_LEN
+                || length > buffer.remaining() - RECORD_HEADER_LEN) {
+            return null;
+        }
+        this.crc32.reset();
+        this.crc32.update(buffer.array(), startPos + RECORD_HEADER_LEN, length);
+        if ((int) this.crc32.getValue() != checksum) {
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.wrap(buffer.array(),
+                startPos + RECORD_HEADER_LEN, length).slice();
+        buffer.position(startPos + RECORD_HEADER_LEN + length);
+        return record;
+    }
+
+    /**
+     * Apply a record to the offsets.
+     *
+     * @param record         the record payload
+     * @param stgInfo        the offsets to update
+     * @return               whether the record is the end of snapshot
+     * @throws IOException   the record is not recognized
+     */
+    private boolean applyRecord(ByteBuffer record, GroupOffsetStgInfo stgInfo) throws IOException {
+        byte recordType = record.get();
+        switch (recordType) {
+            case REC_PART_OFFSET: {
+                String group = readString(record);
+                PartStgInfo partStgInfo = new PartStgInfo(readString(record), record.getInt());
+                long lstRstTerm = record.getLong();
+                long lstOffset = record.getLong();
+                long msgId = record.getLong();
+                long lstUpdTime = record.getLong();
+                long createOffset = record.getLong();
+                long createTime = record.getLong();
+                partStgInfo.updateOffset(lstRstTerm, msgId, true,
+                        createOffset, createTime, lstOffset, lstUpdTime);
+                stgInfo.restorePartStgInfo(group, partStgInfo);
+                return false;
+            }
+            case REC_RMV_PART: {
+                String group = readString(record);
+                stgInfo.rmvPartStgInfo(group, readString(record));
+                return false;
+            }
+            case REC_RMV_GROUP: {
+                stgInfo.getGroupOffsetStgInfo().remove(readString(record));
+                return false;
+            }
+            case REC_SNAPSHOT_END:
+                return true;
+            default:
+                throw new IOException("Unrecognized offset record type " + recordType);
+        }
+    }
+
+    private String readString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getShort() & 0xFFFF];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -88,6 +88,11 @@ public class OffsetStgInfo {
         return isAdded;
     }
 
+    public void restorePartOffsetInfo(PartStgInfo partInfo) {
+        this.partOffsetInfo.put(buildOffsetKey(partInfo.getTopic(), partInfo.getPartId()), partInfo);
+        this.lstCommitTime = Math.max(this.lstCommitTime, partInfo.getLstUpdTime());
+    }
+
     public long getLstCommitTime() {
         return lstCommitTime;
     }
@@ -19,9 +19,11 @@ package org.apache.inlong.tubemq.server.broker.stats;
 
 import org.apache.inlong.tubemq.corebase.TBaseConstants;
 import org.apache.inlong.tubemq.corebase.metric.impl.ESTHistogram;
+import org.apache.inlong.tubemq.corebase.metric.impl.LogBucketHistogram;
 import org.apache.inlong.tubemq.corebase.metric.impl.LongOnlineCounter;
 import org.apache.inlong.tubemq.corebase.metric.impl.LongStatsCounter;
 import org.apache.inlong.tubemq.corebase.metric.impl.SinceTime;
+import org.apache.inlong.tubemq.corebase.metric.impl.StripedLongCounter;
 
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -367,17 +369,17 @@ public class BrokerSrvStatsHolder {
         protected final LongStatsCounter csmTimeoutStats =
                 new LongStatsCounter("consume_timeout_cnt", null);
         // sendMessage process latency statistics
-        protected final ESTHistogram msgPubLatencyStats =
-                new ESTHistogram("msg_put_dlt", null);
+        protected final LogBucketHistogram msgPubLatencyStats =
+                new LogBucketHistogram("msg_put_dlt", null);
         // error sendMessage response distribution statistics
-        protected final LongStatsCounter errPubOverFlowStats =
-                new LongStatsCounter("msg_put_overflow", null);
+        protected final StripedLongCounter errPubOverFlowStats =
+                new StripedLongCounter("msg_put_overflow", null);
         // getMessage process latency statistics
-        protected final ESTHistogram msgSubLatencyStats =
-                new ESTHistogram("msg_get_dlt", null);
+        protected final LogBucketHistogram msgSubLatencyStats =
+                new LogBucketHistogram("msg_get_dlt", null);
         // confirm process latency statistics
-        protected final ESTHistogram msgConfirmLatencyStats =
-                new ESTHistogram("msg_confirm_dlt", null);
+        protected final LogBucketHistogram msgConfirmLatencyStats =
+                new LogBucketHistogram("msg_confirm_dlt", null);
 
         public ServiceStatsSet() {
             resetSinceTime();
@@ -227,6 +227,37 @@ public class MsgStoreStatsHolder {
         }
     }
 
+    /**
+     * Add group commit flush statistic.
+     *
+     * @param flushedMsgCnt      the flushed message count
+     * @param flushedDataSize    the flushed message size
+     * @param isForceMetadata    whether force push metadata
+     * @param flushLagTime       the duration from the flush request to the flush completion
+     * @param isSloMissed        whether the flush lag exceeded the durability target
+     */
+    public void addFileGroupFlushStats(long flushedMsgCnt,
+            long flushedDataSize, boolean isForceMetadata,
+            long flushLagTime, boolean isSloMissed) {
+        if (isClosed) {
+            return;
+        }
+        MsgStoreStatsItemSet tmStatsSet = msgStoreStatsSets[getIndex()];
+        tmStatsSet.fileGroupFlushLagStats.update(flushLagTime);
+        if (flushedDataSize > 0) {
+            tmStatsSet.fileFlushedDataSize.update(flushedDataSize);
+        }
+        if (flushedMsgCnt > 0) {
+            tmStatsSet.fileFlushedMsgCnt.update(flushedMsgCnt);
+        }
+        if (isForceMetadata) {
+            tmStatsSet.fileMetaFlushCnt.incValue();
+        }
+        if (isSloMissed) {
+            tmStatsSet.fileFlushSloMissCnt.incValue();
+        }
+    }
+
     /**
      * Check whether has exceeded the maximum self-statistics period.
      *
@@ -437,6 +468,9 @@ public class MsgStoreStatsHolder {
                 statsSet.fileMsgCountFullCnt.getValue());
         statsMap.put(statsSet.fileCachedTimeFullCnt.getFullName(),
                 statsSet.fileCachedTimeFullCnt.getValue());
+        statsSet.fileGroupFlushLagStats.getValue(statsMap, false);
+        statsMap.put(statsSet.fileFlushSloMissCnt.getFullName(),
+                statsSet.fileFlushSloMissCnt.getValue());
         if (isWriting) {
             statsMap.put(statsSet.snapShotTime.getFullName(),
                     System.currentTimeMillis());
@@ -500,6 +534,10 @@ public class MsgStoreStatsHolder {
                 .append("\":").append(statsSet.fileMsgCountFullCnt.getValue())
                 .append(",\"").append(statsSet.fileCachedTimeFullCnt.getFullName())
                 .append("\":").append(statsSet.fileCachedTimeFullCnt.getValue())
+                .append(",");
+        statsSet.fileGroupFlushLagStats.getValue(strBuff, false);
+        strBuff.append(",\"").append(statsSet.fileFlushSloMissCnt.getFullName())
+                .append("\":").append(statsSet.fileFlushSloMissCnt.getValue())
                 .append(",\"").append(statsSet.snapShotTime.getFullName())
                 .append("\":\"");
         if (isWriting) {
@@ -583,6 +621,12 @@ public class MsgStoreStatsHolder {
         // The cache timeout refresh amount statistics
         protected final LongStatsCounter fileCachedTimeFullCnt =
                 new LongStatsCounter("file_time_full", null);
+        // The lag from the group flush request to the flush completion
+        protected final ESTHistogram fileGroupFlushLagStats =
+                new ESTHistogram("file_group_flush_lag", null);
+        // The count of group flushes exceeding the topic's flush interval
+        protected final LongStatsCounter fileFlushSloMissCnt =
+                new LongStatsCounter("file_flush_slo_miss", null);
         // The snapshot time of statistics set
         protected final SinceTime snapShotTime =
                 new SinceTime("end_time", null);
@@ -610,6 +654,8 @@ public class MsgStoreStatsHolder {
             this.fileMetaFlushCnt.clear();
             this.fileMsgCountFullCnt.clear();
             this.fileCachedTimeFullCnt.clear();
+            this.fileGroupFlushLagStats.clear();
+            this.fileFlushSloMissCnt.clear();
             // for message metric items
             this.msgAppendSizeStats.clear();
             this.msgAppendDurStats.clear();
@@ -19,6 +19,7 @@ package org.apache.inlong.tubemq.server.broker.stats.prometheus;
 
 import org.apache.inlong.tubemq.server.broker.TubeBroker;
 import org.apache.inlong.tubemq.server.broker.msgstore.MessageStore;
+import org.apache.inlong.tubemq.server.broker.msgstore.disk.SegmentBlockCache;
 import org.apache.inlong.tubemq.server.broker.stats.BrokerSrvStatsHolder;
 import org.apache.inlong.tubemq.server.common.fileconfig.PrometheusConfig;
 import org.apache.inlong.tubemq.server.common.webbase.WebCallStatsHolder;
@@ -134,6 +135,35 @@ public class BrokerPromMetricService extends Collector {
             }
         }
         mfs.add(msgStoreCounter);
+        // data block cache metric data
+        SegmentBlockCache blockCache = tubeBroker.getStoreManager().getSegmentBlockCache();
+        if (blockCache != null) {
+            CounterMetricFamily blockCacheCounter =
+                    new CounterMetricFamily(strBuff.append(promConfig.getPromClusterName())
+                            .append("&group=blockCache").toString(),
+                            "The data block cache metrics of TubeMQ-Broker node.",
+                            Arrays.asList("blockCache"));
+            strBuff.delete(0, strBuff.length());
+            statsMap.clear();
+            blockCache.getValue(statsMap);
+            for (Map.Entry<String, Long> entry : statsMap.entrySet()) {
+                blockCacheCounter.addMetric(Arrays.asList(entry.getKey()), entry.getValue());
+            }
+            mfs.add(blockCacheCounter);
+        }
+        // topic configure sync metric data
+        CounterMetricFamily metaSyncCounter =
+                new CounterMetricFamily(strBuff.append(promConfig.getPromClusterName())
+                        .append("&group=metaSync").toString(),
+                        "The topic configure sync metrics of TubeMQ-Broker node.",
+                        Arrays.asList("metaSync"));
+        strBuff.delete(0, strBuff.length());
+        statsMap.clear();
+        tubeBroker.getMetadataManager().getSyncStatsInfo(statsMap);
+        for (Map.Entry<String, Long> entry : statsMap.entrySet()) {
+            metaSyncCounter.addMetric(Arrays.asList(entry.getKey()), entry.getValue());
+        }
+        mfs.add(metaSyncCounter);
         return mfs;
     }
 }
@@ -118,33 +118,51 @@ public class DataStoreUtils {
             HashMap<String, TrafficInfo> countMap,
             String statisKeyBase,
             StringBuilder sBuilder) {
-        if (dataBuffer.array().length < dataTotalSize) {
+        return getTransferMsg(dataBuffer, 0, dataTotalSize, countMap, statisKeyBase, sBuilder);
+    }
+
+    /**
+     * Convert inner message stored at the specified position of a batch read buffer
+     * to protobuf format, the payload is copied only once from the read buffer.
+     *
+     * @param dataBuffer      the raw stored data, may contain multiple messages
+     * @param startPos        the start position of the message in the buffer
+     * @param dataTotalSize   the data size
+     * @param countMap        the statistics map
+     * @param statisKeyBase   the statistics key prefix
+     * @param sBuilder        the string buffer
+     * @return                the converted messages
+     */
+    public static ClientBroker.TransferedMessage getTransferMsg(ByteBuffer dataBuffer,
+            int startPos, int dataTotalSize,
+            HashMap<String, TrafficInfo> countMap,
+            String statisKeyBase,
+            StringBuilder sBuilder) {
+        if (dataBuffer.array().length < startPos + dataTotalSize) {
             return null;
         }
         final int msgLen =
-                dataBuffer.getInt(DataStoreUtils.STORE_HEADER_POS_LENGTH);
+                dataBuffer.getInt(startPos + DataStoreUtils.STORE_HEADER_POS_LENGTH);
         final int msgToken =
-                dataBuffer.getInt(DataStoreUtils.STORE_HEADER_POS_DATATYPE);
+                dataBuffer.getInt(startPos + DataStoreUtils.STORE_HEADER_POS_DATATYPE);
         final int checkSum =
-                dataBuffer.getInt(DataStoreUtils.STORE_HEADER_POS_CHECKSUM);
+                dataBuffer.getInt(startPos + DataStoreUtils.STORE_HEADER_POS_CHECKSUM);
         int payLoadLen = msgLen - DataStoreUtils.STORE_DATA_PREFX_LEN;
-        int payLoadOffset = DataStoreUtils.STORE_DATA_HEADER_LEN;
+        int payLoadOffset = startPos + DataStoreUtils.STORE_DATA_HEADER_LEN;
         if ((msgToken != DataStoreUtils.STORE_DATA_TOKER_BEGIN_VALUE)
                 || (payLoadLen <= 0)
                 || (payLoadLen > dataTotalSize - DataStoreUtils.STORE_DATA_HEADER_LEN)) {
             return null;
         }
-        final long msgId = dataBuffer.getLong(DataStoreUtils.STORE_HEADER_POS_MSGID);
-        final int flag = dataBuffer.getInt(DataStoreUtils.STORE_HEADER_POS_MSGFLAG);
+        final long msgId = dataBuffer.getLong(startPos + DataStoreUtils.STORE_HEADER_POS_MSGID);
+        final int flag = dataBuffer.getInt(startPos + DataStoreUtils.STORE_HEADER_POS_MSGFLAG);
         final int payLoadLen2 = payLoadLen;
-        final byte[] payLoadData = new byte[payLoadLen];
-        System.arraycopy(dataBuffer.array(), payLoadOffset, payLoadData, 0, payLoadLen);
         ClientBroker.TransferedMessage.Builder dataBuilder =
                 ClientBroker.TransferedMessage.newBuilder();
         dataBuilder.setMessageId(msgId);
         dataBuilder.setCheckSum(checkSum);
         dataBuilder.setFlag(flag);
-        dataBuilder.setPayLoadData(ByteString.copyFrom(payLoadData));
+        dataBuilder.setPayLoadData(ByteString.copyFrom(dataBuffer.array(), payLoadOffset, payLoadLen));
         // get statistic data
         int attrLen = 0;
         String attribute = null;
@@ -152,7 +170,7 @@ public class DataStoreUtils {
             if (payLoadLen < 4) {
                 return null;
             }
-            attrLen = dataBuffer.getInt(DataStoreUtils.STORE_DATA_HEADER_LEN);
+            attrLen = dataBuffer.getInt(payLoadOffset);
             payLoadOffset += 4;
             payLoadLen -= 4;
             if (attrLen > payLoadLen) {
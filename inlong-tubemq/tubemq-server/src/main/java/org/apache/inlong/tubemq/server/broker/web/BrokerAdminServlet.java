@@ -56,6 +56,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -1399,7 +1400,8 @@ public class BrokerAdminServlet extends AbstractWebHandler {
     }
 
     /**
-     * Get broker's metric information, include service status statistic and web-api call
+     * Get broker's metric information, include service status statistic, web-api call
+     * and topic configure sync statistic
      *
      * @param req  HttpServletRequest
      * @param sBuffer query result
@@ -1429,7 +1431,17 @@ public class BrokerAdminServlet extends AbstractWebHandler {
             sBuffer.append(",\"webAPI\":");
             WebCallStatsHolder.getValue(sBuffer);
         }
-        sBuffer.append("},\"count\":2}");
+        sBuffer.append(",\"metaSync\":{");
+        Map<String, Long> syncStatsMap = new LinkedHashMap<>();
+        broker.getMetadataManager().getSyncStatsInfo(syncStatsMap);
+        int itemCnt = 0;
+        for (Entry<String, Long> entry : syncStatsMap.entrySet()) {
+            if (itemCnt++ > 0) {
+                sBuffer.append(",");
+            }
+            sBuffer.append("\"").append(entry.getKey()).append("\":").append(entry.getValue());
+        }
+        sBuffer.append("}},\"count\":3}");
         WebParameterUtils.buildSuccessWithDataRetEnd(sBuffer, 1);
     }
 
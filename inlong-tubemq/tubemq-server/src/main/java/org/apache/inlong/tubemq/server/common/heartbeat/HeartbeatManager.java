@@ -19,22 +19,17 @@ package org.apache.inlong.tubemq.server.common.heartbeat;
 
 import org.apache.inlong.tubemq.corebase.TErrCodeConstants;
 import org.apache.inlong.tubemq.corebase.rv.ProcessResult;
-import org.apache.inlong.tubemq.corebase.utils.TStringUtils;
 import org.apache.inlong.tubemq.server.common.exception.HeartbeatException;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 public class HeartbeatManager {
 
-    private static final Logger logger = LoggerFactory.getLogger(HeartbeatManager.class);
+    // the tick duration and bucket count of the timeout wheels
+    private static final long TIMEOUT_WHEEL_TICK_MS = 100L;
+    private static final int TIMEOUT_WHEEL_SIZE = 512;
 
     private final ConcurrentHashMap<String, TimeoutInfo> brokerRegMap =
             new ConcurrentHashMap<>();
@@ -42,11 +37,16 @@ public class HeartbeatManager {
             new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, TimeoutInfo> consumerRegMap =
             new ConcurrentHashMap<>();
+    private final TimeoutWheel brokerTimeoutWheel =
+            new TimeoutWheel("Broker Node", brokerRegMap, TIMEOUT_WHEEL_TICK_MS, TIMEOUT_WHEEL_SIZE);
+    private final TimeoutWheel producerTimeoutWheel =
+            new TimeoutWheel("Producer Node", producerRegMap, TIMEOUT_WHEEL_TICK_MS, TIMEOUT_WHEEL_SIZE);
+    private final TimeoutWheel consumerTimeoutWheel =
+            new TimeoutWheel("Consumer Node", consumerRegMap, TIMEOUT_WHEEL_TICK_MS, TIMEOUT_WHEEL_SIZE);
     private final ExecutorService timeoutScanService = Executors.newCachedThreadPool();
     private long brokerTimeoutDlt = 0;
     private long producerTimeoutDlt = 0;
     private long consumerTimeoutDlt = 0;
-    private boolean isStopped = false;
 
     public HeartbeatManager() {
 
@@ -96,7 +96,7 @@ public class HeartbeatManager {
      */
     public void regBrokerCheckBusiness(final long timeout, final TimeoutListener listener) {
         this.brokerTimeoutDlt = timeout;
-        this.registerCheckBusiness("Broker Node", this.brokerRegMap, listener);
+        this.registerCheckBusiness(this.brokerTimeoutWheel, listener);
     }
 
     /**
@@ -107,7 +107,7 @@ public class HeartbeatManager {
      */
     public void regProducerCheckBusiness(final long timeout, final TimeoutListener listener) {
         this.producerTimeoutDlt = timeout;
-        this.registerCheckBusiness("Producer Node", this.producerRegMap, listener);
+        this.registerCheckBusiness(this.producerTimeoutWheel, listener);
     }
 
     /**
@@ -118,49 +118,29 @@ public class HeartbeatManager {
      */
     public void regConsumerCheckBusiness(final long timeout, final TimeoutListener listener) {
         this.consumerTimeoutDlt = timeout;
-        this.registerCheckBusiness("Consumer Node", this.consumerRegMap, listener);
+        this.registerCheckBusiness(this.consumerTimeoutWheel, listener);
     }
 
-    private void registerCheckBusiness(final String businessType,
-            final Map<String, TimeoutInfo> nodeMap,
+    private void registerCheckBusiness(final TimeoutWheel timeoutWheel,
             final TimeoutListener listener) {
+        timeoutWheel.setListener(listener);
+        timeoutScanService.submit(timeoutWheel);
+    }
 
-        timeoutScanService.submit(new Runnable() {
-
-            @Override
-            public void run() {
-                while (!isStopped) {
-                    try {
-                        long currentTime = System.currentTimeMillis();
-                        Set<String> removedNodeKey = new HashSet<>();
-                        for (Map.Entry<String, TimeoutInfo> entry : nodeMap.entrySet()) {
-                            if (TStringUtils.isBlank(entry.getKey()) || entry.getValue() == null) {
-                                continue;
-                            }
-                            if (currentTime >= entry.getValue().getTimeoutTime()) {
-                                removedNodeKey.add(entry.getKey());
-                            }
-                        }
-                        if (!removedNodeKey.isEmpty()) {
-                            for (String nodeKey : removedNodeKey) {
-                                TimeoutInfo timeoutInfo = nodeMap.get(nodeKey);
-                                if (timeoutInfo == null) {
-                                    continue;
-                                }
-                                if (currentTime >= timeoutInfo.getTimeoutTime()) {
-                                    nodeMap.remove(nodeKey);
-                                    listener.onTimeout(nodeKey, timeoutInfo);
-                                }
-                            }
-                        }
-                        Thread.sleep(1000 * 1);
-                    } catch (Throwable t) {
-                        logger.error(new StringBuilder(256)
-                                .append(businessType).append(" heartbeat scan error!").toString(), t);
-                    }
-                }
-            }
-        });
+    /**
+     * Get the timeout check statistics of all node types in json format
+     *
+     * @param strBuff   the string buffer
+     * @return          the string buffer with statistics
+     */
+    public StringBuilder getTimeoutStatsInfo(StringBuilder strBuff) {
+        strBuff.append("{\"broker\":");
+        brokerTimeoutWheel.getTimeoutStatsInfo(strBuff);
+        strBuff.append(",\"producer\":");
+        producerTimeoutWheel.getTimeoutStatsInfo(strBuff);
+        strBuff.append(",\"consumer\":");
+        consumerTimeoutWheel.getTimeoutStatsInfo(strBuff);
+        return strBuff.append("}");
     }
 
     /**
@@ -171,7 +151,7 @@ public class HeartbeatManager {
      * @return the timeout info for the registered node
      */
     public TimeoutInfo regBrokerNode(String nodeId, String createId) {
-        return this.brokerRegMap.put(nodeId,
+        return regNode(brokerTimeoutWheel, brokerRegMap, nodeId,
                 new TimeoutInfo(createId, this.brokerTimeoutDlt));
     }
 
@@ -182,7 +162,8 @@ public class HeartbeatManager {
      * @return the timeout info of the registered node
      */
     public TimeoutInfo regProducerNode(final String nodeId) {
-        return this.producerRegMap.put(nodeId, new TimeoutInfo(this.producerTimeoutDlt));
+        return regNode(producerTimeoutWheel, producerRegMap,
+                nodeId, new TimeoutInfo(this.producerTimeoutDlt));
     }
 
     /**
@@ -192,7 +173,8 @@ public class HeartbeatManager {
      * @return the timeout info of the registered node
      */
     public TimeoutInfo regConsumerNode(final String nodeId) {
-        return this.consumerRegMap.put(nodeId, new TimeoutInfo(this.consumerTimeoutDlt));
+        return regNode(consumerTimeoutWheel, consumerRegMap,
+                nodeId, new TimeoutInfo(this.consumerTimeoutDlt));
     }
 
     /**
@@ -206,10 +188,18 @@ public class HeartbeatManager {
     public TimeoutInfo regConsumerNode(final String nodeId,
             final String consumerId,
             final String partStr) {
-        return this.consumerRegMap.put(nodeId,
+        return regNode(consumerTimeoutWheel, consumerRegMap, nodeId,
                 new TimeoutInfo(consumerId, partStr, this.consumerTimeoutDlt));
     }
 
+    private TimeoutInfo regNode(TimeoutWheel timeoutWheel,
+            ConcurrentHashMap<String, TimeoutInfo> nodeMap,
+            String nodeId, TimeoutInfo timeoutInfo) {
+        TimeoutInfo oldInfo = nodeMap.put(nodeId, timeoutInfo);
+        timeoutWheel.add(nodeId, timeoutInfo);
+        return oldInfo;
+    }
+
     /**
      * Unregister a node from the broker
      *
@@ -312,7 +302,10 @@ public class HeartbeatManager {
      * Stop the heartbeat.
      */
     public void stop() {
-        isStopped = true;
+        brokerTimeoutWheel.stop();
+        producerTimeoutWheel.stop();
+        consumerTimeoutWheel.stop();
+        timeoutScanService.shutdownNow();
     }
 
     /**
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.common.heartbeat;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A hashed timer wheel that tracks the timeout of the registered nodes.
+ *
+ * The nodes are hashed into the wheel buckets by their timeout time, and the worker
+ * only visits the bucket of the current tick. A heartbeat just refreshes the timeout
+ * time of the node's {@link TimeoutInfo}; when the bucket of a refreshed node is visited,
+ * the node is moved to the bucket of its new timeout time instead of being expired.
+ * Nodes removed or replaced in the node map are dropped from the wheel when visited.
+ */
+public class TimeoutWheel implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimeoutWheel.class);
+    private final String businessType;
+    private final Map<String, TimeoutInfo> nodeMap;
+    private final long tickMs;
+    private final int mask;
+    private final Bucket[] buckets;
+    private final long startTime;
+    // the last visited tick
+    private volatile long lastTick;
+    private volatile TimeoutListener listener;
+    private volatile boolean isStopped = false;
+    // statistics of the timeout check
+    private final AtomicLong lastScanCount = new AtomicLong(0);
+    private final AtomicLong totalScanCount = new AtomicLong(0);
+    private final AtomicLong totalExpiredCount = new AtomicLong(0);
+    private final AtomicLong lastExpiryLagMs = new AtomicLong(0);
+    private final AtomicLong maxExpiryLagMs = new AtomicLong(0);
+
+    /**
+     * Initial a timeout wheel
+     *
+     * @param businessType   the business type of the tracked nodes
+     * @param nodeMap        the map of the node key and the timeout info
+     * @param tickMs         the duration of a tick
+     * @param wheelSize      the bucket count, rounded up to a power of 2
+     */
+    public TimeoutWheel(String businessType, Map<String, TimeoutInfo> nodeMap,
+            long tickMs, int wheelSize) {
+        this.businessType = businessType;
+        this.nodeMap = nodeMap;
+        this.tickMs = Math.max(1, tickMs);
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.mask = size - 1;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.buckets[i] = new Bucket();
+        }
+        this.startTime = System.currentTimeMillis();
+        this.lastTick = 0;
+    }
+
+    /**
+     * Set the listener, the timeout of nodes is checked after the listener is set.
+     *
+     * @param listener   the listener called when a node is timeout
+     */
+    public void setListener(TimeoutListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Track the timeout of a node, the caller must have put the timeout
+     * info into the node map.
+     *
+     * @param nodeKey       the node key
+     * @param timeoutInfo   the timeout info of the node
+     */
+    public void add(String nodeKey, TimeoutInfo timeoutInfo) {
+        schedule(new WheelEntry(nodeKey, timeoutInfo), timeoutInfo.getTimeoutTime());
+    }
+
+    public void stop() {
+        this.isStopped = true;
+    }
+
+    public long getLastScanCount() {
+        return lastScanCount.get();
+    }
+
+    public long getTotalScanCount() {
+        return totalScanCount.get();
+    }
+
+    public long getTotalExpiredCount() {
+        return totalExpiredCount.get();
+    }
+
+    public long getLastExpiryLagMs() {
+        return lastExpiryLagMs.get();
+    }
+
+    public long getMaxExpiryLagMs() {
+        return maxExpiryLagMs.get();
+    }
+
+    /**
+     * Get the timeout check statistics in json format
+     *
+     * @param strBuff   the string buffer
+     * @return          the string buffer with statistics
+     */
+    public StringBuilder getTimeoutStatsInfo(StringBuilder strBuff) {
+        return strBuff.append("{\"businessType\":\"").append(businessType)
+                .append("\",\"nodeCount\":").append(nodeMap.size())
+                .append(",\"lastScanCount\":").append(lastScanCount.get())
+                .append(",\"totalScanCount\":").append(totalScanCount.get())
+                .append(",\"totalExpiredCount\":").append(totalExpiredCount.get())
+                .append(",\"lastExpiryLagMs\":").append(lastExpiryLagMs.get())
+                .append(",\"maxExpiryLagMs\":").append(maxExpiryLagMs.get())
+                .append("}");
+    }
+
+    @Override
+    public void run() {
+        while (!isStopped) {
+            try {
+                long curTick = (System.currentTimeMillis() - startTime) / tickMs;
+                if (listener != null && curTick > lastTick) {
+                    // each bucket needs to be visited once at most
+                    long tick = Math.max(lastTick + 1, curTick - mask);
+                    long scanCount = 0;
+                    for (; tick <= curTick; tick++) {
+                        scanCount += expireTick(tick);
+                        lastTick = tick;
+                    }
+                    lastScanCount.set(scanCount);
+                    totalScanCount.addAndGet(scanCount);
+                }
+                Thread.sleep(tickMs - (System.currentTimeMillis() - startTime) % tickMs);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Throwable t) {
+                logger.error(new StringBuilder(256)
+                        .append(businessType).append(" heartbeat timeout check error!").toString(), t);
+            }
+        }
+    }
+
+    private void schedule(WheelEntry entry, long timeoutTime) {
+        long tick = Math.max((timeoutTime - startTime + tickMs - 1) / tickMs, lastTick + 1);
+        while (true) {
+            Bucket bucket = buckets[(int) (tick & mask)];
+            synchronized (bucket) {
+                // the bucket may have been visited for this tick concurrently
+                if (bucket.visitedTick < tick) {
+                    entry.tick = tick;
+                    bucket.entries.add(entry);
+                    return;
+                }
+            }
+            tick++;
+        }
+    }
+
+    private long expireTick(long tick) {
+        ArrayDeque<WheelEntry> dueEntries;
+        Bucket bucket = buckets[(int) (tick & mask)];
+        synchronized (bucket) {
+            bucket.visitedTick = tick;
+            if (bucket.entries.isEmpty()) {
+                return 0;
+            }
+            dueEntries = bucket.entries;
+            bucket.entries = new ArrayDeque<>();
+            // keep the entries of the later rounds in bucket
+            for (WheelEntry entry : dueEntries) {
+                if (entry.tick > tick) {
+                    bucket.entries.add(entry);
+                }
+            }
+        }
+        long scanCount = 0;
+        long currentTime = System.currentTimeMillis();
+        for (WheelEntry entry : dueEntries) {
+            if (entry.tick > tick) {
+                continue;
+            }
+            scanCount++;
+            // the node has been removed or registered again
+            if (nodeMap.get(entry.nodeKey) != entry.timeoutInfo) {
+                continue;
+            }
+            long timeoutTime = entry.timeoutInfo.getTimeoutTime();
+            if (currentTime < timeoutTime) {
+                schedule(entry, timeoutTime);
+                continue;
+            }
+            if (nodeMap.remove(entry.nodeKey, entry.timeoutInfo)) {
+                long expiryLag = currentTime - timeoutTime;
+                lastExpiryLagMs.set(expiryLag);
+                if (expiryLag > maxExpiryLagMs.get()) {
+                    maxExpiryLagMs.set(expiryLag);
+                }
+                totalExpiredCount.incrementAndGet();
+                try {
+                    listener.onTimeout(entry.nodeKey, entry.timeoutInfo);
+                } catch (Throwable t) {
+                    logger.error(new StringBuilder(256).append(businessType)
+                            .append(" heartbeat timeout process error!").toString(), t);
+                }
+            }
+        }
+        return scanCount;
+    }
+
+    private static class Bucket {
+
+        private ArrayDeque<WheelEntry> entries = new ArrayDeque<>();
+        private long visitedTick = -1;
+    }
+
+    private static class WheelEntry {
+
+        private final String nodeKey;
+        private final TimeoutInfo timeoutInfo;
+        private long tick;
+
+        WheelEntry(String nodeKey, TimeoutInfo timeoutInfo) {
+            this.nodeKey = nodeKey;
+            this.timeoutInfo = timeoutInfo;
+        }
+    }
+}
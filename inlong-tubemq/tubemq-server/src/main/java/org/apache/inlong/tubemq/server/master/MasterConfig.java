@@ -86,6 +86,8 @@ public class MasterConfig extends AbstractFileConfig {
     private long authValidTimeStampPeriodMs = TBaseConstants.CFG_DEFAULT_AUTH_TIMESTAMP_VALID_INTERVAL;
     private int rebalanceParallel = 4;
     private long maxMetaForceUpdatePeriodMs = TBaseConstants.CFG_DEF_META_FORCE_UPDATE_PERIOD;
+    // whether keep the partitions of the consumers as much as possible in server-side balance
+    private boolean enableStickyBalance = false;
 
     /**
      * getters
@@ -275,6 +277,10 @@ public class MasterConfig extends AbstractFileConfig {
         return maxMetaForceUpdatePeriodMs;
     }
 
+    public boolean isEnableStickyBalance() {
+        return enableStickyBalance;
+    }
+
     public boolean isUseBdbStoreMetaData() {
         return useBdbStoreMetaData;
     }
@@ -533,6 +539,9 @@ public class MasterConfig extends AbstractFileConfig {
             }
             this.maxMetaForceUpdatePeriodMs = tmpPeriodMs;
         }
+        if (TStringUtils.isNotBlank(masterConf.get("enableStickyBalance"))) {
+            this.enableStickyBalance = this.getBoolean(masterConf, "enableStickyBalance");
+        }
     }
 
     /**
@@ -837,6 +846,7 @@ public class MasterConfig extends AbstractFileConfig {
                 .append("authValidTimeStampPeriodMs", authValidTimeStampPeriodMs)
                 .append("rebalanceParallel", rebalanceParallel)
                 .append("maxMetaForceUpdatePeriodMs", maxMetaForceUpdatePeriodMs)
+                .append("enableStickyBalance", enableStickyBalance)
                 .toString();
     }
 }
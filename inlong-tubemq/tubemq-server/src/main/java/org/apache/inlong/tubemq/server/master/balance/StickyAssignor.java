@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.master.balance;
+
+import org.apache.inlong.tubemq.corebase.cluster.Partition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Sticky and incremental partition assignor of a consume group.
+ *
+ * Each consumer gets a quota in proportion to its weight, keeps the partitions it
+ * already holds up to the quota, and only the released or unassigned partitions are
+ * moved. When a consumer gives up partitions, it gives up those on the broker it
+ * consumes most from; the moved partitions go to the consumer with the fewest
+ * partitions on the same broker, preferring the consumer on the broker's host.
+ *
+ * The cost is O(P * log(C) + B * C * log(C)) for P partitions, C consumers and B brokers.
+ */
+public class StickyAssignor {
+
+    private StickyAssignor() {
+        // utility class
+    }
+
+    /**
+     * Assign the partitions to the consumers.
+     *
+     * @param partitions        the partitions to assign
+     * @param curAssignment     the current partitions of the consumers
+     * @param consumerWeights   the weights of the consumers, the keys are the consumers to assign to
+     * @param consumerHosts     the host addresses of the consumers, null if unknown
+     * @return                  the partitions of each consumer
+     */
+    public static Map<String, List<Partition>> assign(Collection<Partition> partitions,
+            Map<String, ? extends Collection<Partition>> curAssignment,
+            Map<String, Integer> consumerWeights,
+            Map<String, String> consumerHosts) {
+        Map<String, List<Partition>> result = new TreeMap<>();
+        if (consumerWeights == null || consumerWeights.isEmpty()) {
+            return result;
+        }
+        // sort consumers to get a stable assignment
+        List<ConsumerLoad> consumers = new ArrayList<>(consumerWeights.size());
+        for (Map.Entry<String, Integer> entry : new TreeMap<>(consumerWeights).entrySet()) {
+            String host = (consumerHosts == null) ? null : consumerHosts.get(entry.getKey());
+            ConsumerLoad consumer = new ConsumerLoad(entry.getKey(),
+                    Math.max(1, entry.getValue() == null ? 1 : entry.getValue()), host);
+            consumers.add(consumer);
+            result.put(consumer.consumerId, consumer.assigned);
+        }
+        Map<String, Partition> unassigned = new HashMap<>(partitions.size());
+        for (Partition partition : partitions) {
+            unassigned.put(partition.getPartitionKey(), partition);
+        }
+        calcQuotas(consumers, unassigned.size(), curAssignment);
+        // keep the current partitions up to the quota
+        for (ConsumerLoad consumer : consumers) {
+            Collection<Partition> curParts =
+                    (curAssignment == null) ? null : curAssignment.get(consumer.consumerId);
+            if (curParts == null || curParts.isEmpty()) {
+                continue;
+            }
+            List<Partition> heldParts = new ArrayList<>(curParts.size());
+            for (Partition partition : curParts) {
+                Partition curPart = unassigned.remove(partition.getPartitionKey());
+                if (curPart != null) {
+                    heldParts.add(curPart);
+                }
+            }
+            for (Partition partition : keepWithinQuota(heldParts, consumer.quota, unassigned)) {
+                consumer.add(partition);
+            }
+        }
+        if (unassigned.isEmpty()) {
+            return result;
+        }
+        // assign the rest partitions broker by broker
+        Map<Integer, List<Partition>> brokerParts = new TreeMap<>();
+        for (Partition partition : unassigned.values()) {
+            brokerParts.computeIfAbsent(partition.getBrokerId(), k -> new ArrayList<>()).add(partition);
+        }
+        for (Map.Entry<Integer, List<Partition>> entry : brokerParts.entrySet()) {
+            final int brokerId = entry.getKey();
+            final String brokerHost = entry.getValue().get(0).getHost();
+            PriorityQueue<ConsumerLoad> candidates = new PriorityQueue<>(
+                    Math.max(1, consumers.size()), new Comparator<ConsumerLoad>() {
+
+                        @Override
+                        public int compare(ConsumerLoad o1, ConsumerLoad o2) {
+                            int result = Integer.compare(o1.getBrokerLoad(brokerId), o2.getBrokerLoad(brokerId));
+                            if (result != 0) {
+                                return result;
+                            }
+                            result = Boolean.compare(!o1.isOnHost(brokerHost), !o2.isOnHost(brokerHost));
+                            if (result != 0) {
+                                return result;
+                            }
+                            result = Integer.compare(o2.remaining(), o1.remaining());
+                            if (result != 0) {
+                                return result;
+                            }
+                            return o1.consumerId.compareTo(o2.consumerId);
+                        }
+                    });
+            for (ConsumerLoad consumer : consumers) {
+                if (consumer.remaining() > 0) {
+                    candidates.add(consumer);
+                }
+            }
+            List<Partition> parts = entry.getValue();
+            Collections.sort(parts);
+            for (Partition partition : parts) {
+                ConsumerLoad consumer = candidates.poll();
+                if (consumer == null) {
+                    break;
+                }
+                consumer.add(partition);
+                if (consumer.remaining() > 0) {
+                    candidates.add(consumer);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Count the partitions that move between the assignments.
+     *
+     * @param oldAssignment    the old partitions of the consumers
+     * @param newAssignment    the new partitions of the consumers
+     * @return                 the count of partitions assigned to another consumer
+     */
+    public static int countMoved(Map<String, ? extends Collection<Partition>> oldAssignment,
+            Map<String, ? extends Collection<Partition>> newAssignment) {
+        Map<String, String> oldOwners = new HashMap<>();
+        for (Map.Entry<String, ? extends Collection<Partition>> entry : oldAssignment.entrySet()) {
+            for (Partition partition : entry.getValue()) {
+                oldOwners.put(partition.getPartitionKey(), entry.getKey());
+            }
+        }
+        int movedCnt = 0;
+        for (Map.Entry<String, ? extends Collection<Partition>> entry : newAssignment.entrySet()) {
+            for (Partition partition : entry.getValue()) {
+                String oldOwner = oldOwners.get(partition.getPartitionKey());
+                if (oldOwner != null && !oldOwner.equals(entry.getKey())) {
+                    movedCnt++;
+                }
+            }
+        }
+        return movedCnt;
+    }
+
+    /**
+     * Calculate the quota of each consumer in proportion to its weight, the remainder
+     * goes to the consumers with the largest fractions, then the heaviest current load.
+     */
+    private static void calcQuotas(List<ConsumerLoad> consumers, int partitionCnt,
+            Map<String, ? extends Collection<Partition>> curAssignment) {
+        long totalWeight = 0;
+        for (ConsumerLoad consumer : consumers) {
+            totalWeight += consumer.weight;
+        }
+        int assignedCnt = 0;
+        for (ConsumerLoad consumer : consumers) {
+            long share = (long) partitionCnt * consumer.weight;
+            consumer.quota = (int) (share / totalWeight);
+            consumer.fraction = share % totalWeight;
+            Collection<Partition> curParts =
+                    (curAssignment == null) ? null : curAssignment.get(consumer.consumerId);
+            consumer.curLoad = (curParts == null) ? 0 : curParts.size();
+            assignedCnt += consumer.quota;
+        }
+        List<ConsumerLoad> sortedConsumers = new ArrayList<>(consumers);
+        sortedConsumers.sort(new Comparator<ConsumerLoad>() {
+
+            @Override
+            public int compare(ConsumerLoad o1, ConsumerLoad o2) {
+                int result = Long.compare(o2.fraction, o1.fraction);
+                if (result != 0) {
+                    return result;
+                }
+                result = Integer.compare(o2.curLoad, o1.curLoad);
+                if (result != 0) {
+                    return result;
+                }
+                return o1.consumerId.compareTo(o2.consumerId);
+            }
+        });
+        for (int i = 0; assignedCnt < partitionCnt; i++, assignedCnt++) {
+            sortedConsumers.get(i % sortedConsumers.size()).quota++;
+        }
+    }
+
+    /**
+     * Keep the held partitions up to the quota, the others are released
+     * from the brokers holding the most partitions of the consumer.
+     */
+    private static List<Partition> keepWithinQuota(List<Partition> heldParts,
+            int quota, Map<String, Partition> released) {
+        if (heldParts.size() <= quota) {
+            return heldParts;
+        }
+        Map<Integer, List<Partition>> brokerParts = new TreeMap<>();
+        for (Partition partition : heldParts) {
+            brokerParts.computeIfAbsent(partition.getBrokerId(), k -> new ArrayList<>()).add(partition);
+        }
+        PriorityQueue<List<Partition>> brokerQueue = new PriorityQueue<>(brokerParts.size(),
+                new Comparator<List<Partition>>() {
+
+                    @Override
+                    public int compare(List<Partition> o1, List<Partition> o2) {
+                        int result = Integer.compare(o2.size(), o1.size());
+                        if (result != 0) {
+                            return result;
+                        }
+                        return Integer.compare(o1.get(0).getBrokerId(), o2.get(0).getBrokerId());
+                    }
+                });
+        for (List<Partition> parts : brokerParts.values()) {
+            Collections.sort(parts);
+            brokerQueue.add(parts);
+        }
+        int releaseCnt = heldParts.size() - quota;
+        while (releaseCnt-- > 0) {
+            List<Partition> parts = brokerQueue.poll();
+            Partition partition = parts.remove(parts.size() - 1);
+            released.put(partition.getPartitionKey(), partition);
+            if (!parts.isEmpty()) {
+                brokerQueue.add(parts);
+            }
+        }
+        List<Partition> keptParts = new ArrayList<>(quota);
+        for (List<Partition> parts : brokerQueue) {
+            keptParts.addAll(parts);
+        }
+        return keptParts;
+    }
+
+    private static class ConsumerLoad {
+
+        private final String consumerId;
+        private final int weight;
+        private final String host;
+        private final List<Partition> assigned = new ArrayList<>();
+        private final Map<Integer, int[]> brokerLoads = new HashMap<>();
+        private int quota;
+        private long fraction;
+        private int curLoad;
+
+        ConsumerLoad(String consumerId, int weight, String host) {
+            this.consumerId = consumerId;
+            this.weight = weight;
+            this.host = host;
+        }
+
+        void add(Partition partition) {
+            this.assigned.add(partition);
+            this.brokerLoads.computeIfAbsent(partition.getBrokerId(), k -> new int[1])[0]++;
+        }
+
+        int remaining() {
+            return this.quota - this.assigned.size();
+        }
+
+        int getBrokerLoad(int brokerId) {
+            int[] load = this.brokerLoads.get(brokerId);
+            return (load == null) ? 0 : load[0];
+        }
+
+        boolean isOnHost(String brokerHost) {
+            return this.host != null && this.host.equals(brokerHost);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.master.balance;
+
+import org.apache.inlong.tubemq.corebase.cluster.Partition;
+import org.apache.inlong.tubemq.server.master.metamanage.MetaDataService;
+import org.apache.inlong.tubemq.server.master.nodemanage.nodebroker.BrokerRunManager;
+import org.apache.inlong.tubemq.server.master.nodemanage.nodeconsumer.ConsumeGroupInfo;
+import org.apache.inlong.tubemq.server.master.nodemanage.nodeconsumer.ConsumerInfo;
+import org.apache.inlong.tubemq.server.master.nodemanage.nodeconsumer.ConsumerInfoHolder;
+import org.apache.inlong.tubemq.server.master.nodemanage.nodeconsumer.NodeRebInfo;
+import org.apache.inlong.tubemq.server.master.nodemanage.nodeconsumer.RebProcessInfo;
+
+import org.apache.commons.collections.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/*
+ * Load balance class for server side load balance, keeps the partitions of the
+ * consumers and only moves the partitions required to get balanced again.
+ */
+public class StickyLoadBalancer extends DefaultLoadBalancer {
+
+    public StickyLoadBalancer() {
+        super();
+    }
+
+    /**
+     * Load balance with the sticky assignor. As in the default balancer, the client
+     * balance groups and the bound consume groups not allocated yet are skipped here,
+     * the bound consume groups are allocated by the inherited resetBalanceCluster
+     *
+     * @param clusterState
+     * @param consumerHolder
+     * @param brokerRunManager
+     * @param groupSet
+     * @param defMetaDataService
+     * @param strBuffer
+     * @return
+     */
+    @Override
+    public Map<String, Map<String, List<Partition>>> balanceCluster(
+            Map<String, Map<String, Map<String, Partition>>> clusterState,
+            ConsumerInfoHolder consumerHolder,
+            BrokerRunManager brokerRunManager,
+            List<String> groupSet,
+            MetaDataService defMetaDataService,
+            StringBuilder strBuffer) {
+        Map<String/* consumer */, Map<String/* topic */, List<Partition>>> finalSubInfoMap =
+                new HashMap<>();
+        Map<String, RebProcessInfo> rejGroupClientInfoMap = new HashMap<>();
+        for (String group : groupSet) {
+            if (group == null) {
+                continue;
+            }
+            ConsumeGroupInfo consumeGroupInfo = consumerHolder.getConsumeGroupInfo(group);
+            // the bound consume groups waiting for the reset allocation are not in this part
+            if (consumeGroupInfo == null
+                    || consumeGroupInfo.isClientBalance()
+                    || consumeGroupInfo.isUnReadyServerBalance()) {
+                continue;
+            }
+            List<ConsumerInfo> consumerList = new ArrayList<>();
+            for (ConsumerInfo consumerInfo : consumeGroupInfo.getConsumerInfoList()) {
+                if (consumerInfo != null) {
+                    consumerList.add(consumerInfo);
+                }
+            }
+            if (CollectionUtils.isEmpty(consumerList)) {
+                continue;
+            }
+            Set<String> topicSet = consumeGroupInfo.getTopicSet();
+            if (consumeGroupInfo.needResourceCheck()
+                    && !isConsumeResourceReady(group, consumeGroupInfo, consumerList.size(),
+                            consumerHolder, brokerRunManager, defMetaDataService, strBuffer)) {
+                continue;
+            }
+            RebProcessInfo rebProcessInfo = new RebProcessInfo();
+            if (!consumeGroupInfo.isBalanceMapEmpty()) {
+                rebProcessInfo = consumerHolder.getNeedRebNodeList(group);
+                if (!rebProcessInfo.isProcessInfoEmpty()) {
+                    rejGroupClientInfoMap.put(group, rebProcessInfo);
+                }
+            }
+            Map<String, Partition> partMap =
+                    brokerRunManager.getSubBrokerAcceptSubParts(topicSet);
+            Map<String, NodeRebInfo> rebProcessInfoMap = consumeGroupInfo.getBalanceMap();
+            Map<String, List<Partition>> curAssignment = new HashMap<>();
+            Map<String, Integer> consumerWeights = new HashMap<>();
+            Map<String, String> consumerHosts = new HashMap<>();
+            for (ConsumerInfo consumer : consumerList) {
+                String consumerId = consumer.getConsumerId();
+                Map<String, List<Partition>> partitions = new HashMap<>();
+                finalSubInfoMap.put(consumerId, partitions);
+                List<Partition> curParts = new ArrayList<>();
+                Map<String, Map<String, Partition>> relation = clusterState.get(consumerId);
+                if (relation != null) {
+                    // release the current partitions of topics no longer assigned
+                    for (Entry<String, Map<String, Partition>> entry : relation.entrySet()) {
+                        partitions.put(entry.getKey(), new ArrayList<>());
+                        if (entry.getValue() != null) {
+                            curParts.addAll(entry.getValue().values());
+                        }
+                    }
+                }
+                // the consumers with rebalance requests release all partitions,
+                // only those requiring a re-assignment take part in this round
+                if (rebProcessInfo.needProcessList.contains(consumerId)
+                        || rebProcessInfo.needEscapeList.contains(consumerId)) {
+                    NodeRebInfo tmpNodeRegInfo = rebProcessInfoMap.get(consumerId);
+                    if (tmpNodeRegInfo == null || tmpNodeRegInfo.getReqType() != 0) {
+                        continue;
+                    }
+                    curParts.clear();
+                }
+                curAssignment.put(consumerId, curParts);
+                consumerWeights.put(consumerId, 1);
+                consumerHosts.put(consumerId, consumer.getAddrRcvFrom());
+            }
+            Map<String, List<Partition>> assignment = StickyAssignor.assign(
+                    partMap.values(), curAssignment, consumerWeights, consumerHosts);
+            for (Entry<String, List<Partition>> entry : assignment.entrySet()) {
+                Map<String, List<Partition>> partitions = finalSubInfoMap.get(entry.getKey());
+                for (Partition partition : entry.getValue()) {
+                    partitions.computeIfAbsent(partition.getTopic(), k -> new ArrayList<>()).add(partition);
+                }
+            }
+        }
+        if (!rejGroupClientInfoMap.isEmpty()) {
+            for (Entry<String, RebProcessInfo> entry : rejGroupClientInfoMap.entrySet()) {
+                consumerHolder.setRebNodeProcessed(entry.getKey(),
+                        entry.getValue().needProcessList);
+            }
+        }
+        return finalSubInfoMap;
+    }
+}
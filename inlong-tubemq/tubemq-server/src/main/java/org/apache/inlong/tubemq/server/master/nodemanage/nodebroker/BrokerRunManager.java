@@ -72,8 +72,8 @@ public interface BrokerRunManager {
     void setRegisterDownConfInfo(int brokerId, StringBuilder sBuffer,
             RegisterResponseM2B.Builder builder);
 
-    void setHeatBeatDownConfInfo(int brokerId, StringBuilder sBuffer,
-            HeartResponseM2B.Builder builder);
+    void setHeatBeatDownConfInfo(int brokerId, boolean supportDeltaConf,
+            StringBuilder sBuffer, HeartResponseM2B.Builder builder);
 
     BrokerInfo getBrokerInfo(int brokerId);
 
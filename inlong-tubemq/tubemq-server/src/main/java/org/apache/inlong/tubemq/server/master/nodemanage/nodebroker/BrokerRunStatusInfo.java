@@ -147,6 +147,32 @@ public class BrokerRunStatusInfo {
         return brokerSyncData.getBrokerSyncData();
     }
 
+    /**
+     * Get need sync to broker's topic configure delta
+     *
+     * @return null if no delta available, otherwise
+     *         f0 : the added or changed topic configures
+     *         f1 : the removed topic names
+     */
+    public Tuple2<List<String>, List<String>> getNeedSyncDeltaData() {
+        return brokerSyncData.getBrokerSyncDeltaData();
+    }
+
+    public Tuple3<Long, Integer, String> getNeedSyncVersion() {
+        return brokerSyncData.getSyncDownDataVersion();
+    }
+
+    /**
+     * Get the broker reported configure id and check sum id
+     *
+     * @return f0 : the reported configure id
+     *         f1 : the reported check sum id
+     */
+    public Tuple2<Long, Integer> getReportedConfVersion() {
+        return new Tuple2<>(brokerSyncData.getSyncUpDataConfId(),
+                brokerSyncData.getSyncUpDataChkSumId());
+    }
+
     /**
      * Book broker report info
      *
@@ -24,6 +24,7 @@ import org.apache.inlong.tubemq.corebase.cluster.TopicInfo;
 import org.apache.inlong.tubemq.corebase.utils.CheckSum;
 import org.apache.inlong.tubemq.corebase.utils.TStringUtils;
 import org.apache.inlong.tubemq.corebase.utils.Tuple2;
+import org.apache.inlong.tubemq.corebase.utils.Tuple3;
 import org.apache.inlong.tubemq.corebase.utils.Tuple4;
 import org.apache.inlong.tubemq.server.common.statusdef.ManageStatus;
 
@@ -35,6 +36,9 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -47,6 +51,8 @@ public class BrokerSyncData {
 
     private static final Logger logger =
             LoggerFactory.getLogger(BrokerSyncData.class);
+    // the max count of kept topic configure deltas
+    private static final int MAX_TOPIC_CONF_DELTA_COUNT = 16;
     // current data push id
     private long dataPushId;
     // data need to sync
@@ -58,6 +64,12 @@ public class BrokerSyncData {
     private Map<String, String> syncDownTopicConfInfoMap = new HashMap<>();
     private boolean isStatusChanged = false;
     private boolean isConfChanged = false;
+    // topic configure deltas of the recent configure changes, oldest first
+    private final LinkedList<TopicConfDelta> topicConfDeltas = new LinkedList<>();
+    // statistics of the pushed configure
+    private long fullSyncCount = 0;
+    private long deltaSyncCount = 0;
+    private long lastSyncDataSize = 0;
 
     // report info
     private long syncUpDataConfId = TBaseConstants.META_VALUE_UNDEFINED;
@@ -101,6 +113,10 @@ public class BrokerSyncData {
         }
 
         if (isForceSync || isSyncDataChanged(brokerConfInfo, topicConfInfoMap)) {
+            final long oldDataConfId = this.syncDownDataConfId.get();
+            final int oldDataChkSumId = this.syncDownDataChkSumId;
+            final String oldBrokerConfInfo = this.syncDownBrokerConfInfo;
+            final Map<String, String> oldTopicConfInfoMap = this.syncDownTopicConfInfoMap;
             this.syncDownBrokerConfInfo = brokerConfInfo;
             if (topicConfInfoMap == null) {
                 this.syncDownTopicConfInfoMap = new HashMap<>();
@@ -110,6 +126,16 @@ public class BrokerSyncData {
             this.syncDownDataChkSumId =
                     calculateConfigCrc32Value(syncDownBrokerConfInfo, syncDownTopicConfInfoMap);
             isConfChanged = true;
+            // the deltas only cover the topic configure changes
+            if (isForceSync || !brokerConfInfo.equals(oldBrokerConfInfo)) {
+                this.topicConfDeltas.clear();
+            } else {
+                this.topicConfDeltas.add(new TopicConfDelta(oldDataConfId, oldDataChkSumId,
+                        oldTopicConfInfoMap, this.syncDownTopicConfInfoMap));
+                if (this.topicConfDeltas.size() > MAX_TOPIC_CONF_DELTA_COUNT) {
+                    this.topicConfDeltas.removeFirst();
+                }
+            }
         }
         if (isStatusChanged && isConfChanged) {
             this.syncDownDataConfId.incrementAndGet();
@@ -176,17 +202,90 @@ public class BrokerSyncData {
         if (isConfSynchronized()) {
             return new Tuple4<>(syncDownDataConfId.get(), syncDownDataChkSumId, null, null);
         } else {
+            long dataSize = syncDownBrokerConfInfo.length();
             List<String> topicInfoList = new ArrayList<>();
             for (String topicInfo : syncDownTopicConfInfoMap.values()) {
                 if (topicInfo != null) {
                     topicInfoList.add(topicInfo);
+                    dataSize += topicInfo.length();
                 }
             }
+            this.fullSyncCount++;
+            this.lastSyncDataSize = dataSize;
             return new Tuple4<>(syncDownDataConfId.get(), syncDownDataChkSumId,
                     syncDownBrokerConfInfo, topicInfoList);
         }
     }
 
+    /**
+     * Get the topic configure delta from the broker reported configure
+     * to the current configure
+     *
+     * @return null if the broker is synchronized or the reported configure
+     *         is not covered by the kept deltas, otherwise
+     *         f0 : the added or changed topic configures
+     *         f1 : the removed topic names
+     */
+    public Tuple2<List<String>, List<String>> getBrokerSyncDeltaData() {
+        if (isConfSynchronized() || topicConfDeltas.isEmpty()) {
+            return null;
+        }
+        // find the latest delta based on the broker reported configure
+        int startIndex = -1;
+        int index = 0;
+        for (TopicConfDelta confDelta : topicConfDeltas) {
+            if (confDelta.baseConfId == syncUpDataConfId
+                    && confDelta.baseChkSumId == syncUpDataChkSumId) {
+                startIndex = index;
+            }
+            index++;
+        }
+        if (startIndex < 0) {
+            return null;
+        }
+        // merge the deltas, a null value means the topic is removed
+        Map<String, String> mergedConfs = new LinkedHashMap<>();
+        Iterator<TopicConfDelta> iterator = topicConfDeltas.listIterator(startIndex);
+        while (iterator.hasNext()) {
+            mergedConfs.putAll(iterator.next().changedConfs);
+        }
+        long dataSize = syncDownBrokerConfInfo.length();
+        List<String> changedTopicConfs = new ArrayList<>();
+        List<String> removedTopics = new ArrayList<>();
+        for (Map.Entry<String, String> entry : mergedConfs.entrySet()) {
+            if (entry.getValue() == null) {
+                removedTopics.add(entry.getKey());
+                dataSize += entry.getKey().length();
+            } else {
+                changedTopicConfs.add(entry.getValue());
+                dataSize += entry.getValue().length();
+            }
+        }
+        this.deltaSyncCount++;
+        this.lastSyncDataSize = dataSize;
+        return new Tuple2<>(changedTopicConfs, removedTopics);
+    }
+
+    /**
+     * Get the configure version need sync to broker
+     *
+     * @return f0 : the configure id
+     *         f1 : the check sum id
+     *         f2 : the broker default configure
+     */
+    public Tuple3<Long, Integer, String> getSyncDownDataVersion() {
+        return new Tuple3<>(syncDownDataConfId.get(),
+                syncDownDataChkSumId, syncDownBrokerConfInfo);
+    }
+
+    public long getSyncUpDataConfId() {
+        return syncUpDataConfId;
+    }
+
+    public int getSyncUpDataChkSumId() {
+        return syncUpDataChkSumId;
+    }
+
     /**
      * Get the broker publish info
      * @return need sync data
@@ -239,6 +338,10 @@ public class BrokerSyncData {
                 .append("\",\"syncUpTopicConfInfos\":\"").append(syncUpTopicConfInfos.toString())
                 .append("\",\"syncUpTopicInfoMap\":\"").append(syncUpTopicInfoMap.toString())
                 .append("\",\"lastDataUpTime\":").append(lastDataUpTime)
+                .append(",\"topicConfDeltaCount\":").append(topicConfDeltas.size())
+                .append(",\"fullSyncCount\":").append(fullSyncCount)
+                .append(",\"deltaSyncCount\":").append(deltaSyncCount)
+                .append(",\"lastSyncDataSize\":").append(lastSyncDataSize)
                 .append("}");
         return sBuffer;
     }
@@ -341,4 +444,34 @@ public class BrokerSyncData {
         }
         return CheckSum.crc32(buffer.array());
     }
+
+    /**
+     * The topic configure changes from a base configure to the next configure
+     */
+    private static class TopicConfDelta {
+
+        private final long baseConfId;
+        private final int baseChkSumId;
+        // the changed topic configures, a null value means the topic is removed
+        private final Map<String, String> changedConfs = new HashMap<>();
+
+        TopicConfDelta(long baseConfId, int baseChkSumId,
+                Map<String, String> oldConfInfoMap,
+                Map<String, String> newConfInfoMap) {
+            this.baseConfId = baseConfId;
+            this.baseChkSumId = baseChkSumId;
+            for (Map.Entry<String, String> entry : newConfInfoMap.entrySet()) {
+                if (entry.getValue() != null
+                        && !entry.getValue().equals(oldConfInfoMap.get(entry.getKey()))) {
+                    changedConfs.put(entry.getKey(), entry.getValue());
+                }
+            }
+            for (Map.Entry<String, String> entry : oldConfInfoMap.entrySet()) {
+                if (entry.getValue() != null
+                        && newConfInfoMap.get(entry.getKey()) == null) {
+                    changedConfs.put(entry.getKey(), null);
+                }
+            }
+        }
+    }
 }
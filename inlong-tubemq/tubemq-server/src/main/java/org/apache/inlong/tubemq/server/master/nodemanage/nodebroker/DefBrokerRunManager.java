@@ -384,8 +384,8 @@ public class DefBrokerRunManager implements BrokerRunManager, ConfigObserver {
     }
 
     @Override
-    public void setHeatBeatDownConfInfo(int brokerId, StringBuilder sBuffer,
-            HeartResponseM2B.Builder builder) {
+    public void setHeatBeatDownConfInfo(int brokerId, boolean supportDeltaConf,
+            StringBuilder sBuffer, HeartResponseM2B.Builder builder) {
         BrokerRunStatusInfo runStatusInfo =
                 brokerRunSyncManageMap.get(brokerId);
         if (runStatusInfo == null) {
@@ -395,14 +395,19 @@ public class DefBrokerRunManager implements BrokerRunManager, ConfigObserver {
             sBuffer.delete(0, sBuffer.length());
             return;
         }
-        Tuple4<Long, Integer, String, List<String>> retTuple =
-                runStatusInfo.getNeedSyncData();
-        builder.setCurBrokerConfId(retTuple.getF0());
-        builder.setConfCheckSumId(retTuple.getF1());
         Tuple2<Boolean, Boolean> autoFbdTuple =
                 brokerAbnHolder.getBrokerAutoFbdStatus(brokerId);
         builder.setStopWrite(autoFbdTuple.getF0());
         builder.setStopRead(autoFbdTuple.getF1());
+        // push the topic configure changes only if the broker supports it
+        if (supportDeltaConf && setHeatBeatDownDeltaConfInfo(brokerId,
+                runStatusInfo, sBuffer, builder)) {
+            return;
+        }
+        Tuple4<Long, Integer, String, List<String>> retTuple =
+                runStatusInfo.getNeedSyncData();
+        builder.setCurBrokerConfId(retTuple.getF0());
+        builder.setConfCheckSumId(retTuple.getF1());
         if (retTuple.getF2() == null) {
             builder.setNeedReportData(false);
             builder.setTakeConfInfo(false);
@@ -422,6 +427,39 @@ public class DefBrokerRunManager implements BrokerRunManager, ConfigObserver {
         }
     }
 
+    private boolean setHeatBeatDownDeltaConfInfo(int brokerId,
+            BrokerRunStatusInfo runStatusInfo, StringBuilder sBuffer,
+            HeartResponseM2B.Builder builder) {
+        Tuple2<List<String>, List<String>> deltaTuple =
+                runStatusInfo.getNeedSyncDeltaData();
+        if (deltaTuple == null) {
+            return false;
+        }
+        Tuple3<Long, Integer, String> retTuple = runStatusInfo.getNeedSyncVersion();
+        Tuple2<Long, Integer> baseVersion = runStatusInfo.getReportedConfVersion();
+        builder.setCurBrokerConfId(retTuple.getF0());
+        builder.setConfCheckSumId(retTuple.getF1());
+        builder.setNeedReportData(true);
+        builder.setTakeConfInfo(false);
+        builder.setTakeDeltaConfInfo(true);
+        builder.setBaseBrokerConfId(baseVersion.getF0());
+        builder.setBaseConfCheckSumId(baseVersion.getF1());
+        builder.setBrokerDefaultConfInfo(retTuple.getF2());
+        builder.addAllBrokerTopicSetConfInfo(deltaTuple.getF0());
+        builder.addAllDeltaRemovedTopics(deltaTuple.getF1());
+        logger.info(sBuffer.append("[TMaster sync] heartbeat sync config delta: brokerId = ")
+                .append(brokerId).append(",configureId=").append(retTuple.getF0())
+                .append(",checksumId=").append(retTuple.getF1())
+                .append(",baseConfigureId=").append(baseVersion.getF0())
+                .append(",baseChecksumId=").append(baseVersion.getF1())
+                .append(",stopWrite=").append(builder.getStopWrite())
+                .append(",stopRead=").append(builder.getStopRead())
+                .append(",changed topic configure is ").append(deltaTuple.getF0())
+                .append(",removed topics is ").append(deltaTuple.getF1()).toString());
+        sBuffer.delete(0, sBuffer.length());
+        return true;
+    }
+
     @Override
     public BrokerRunStatusInfo getBrokerRunStatusInfo(int brokerId) {
         return this.brokerRunSyncManageMap.get(brokerId);
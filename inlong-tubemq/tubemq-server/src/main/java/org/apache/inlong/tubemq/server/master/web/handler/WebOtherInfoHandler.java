@@ -350,7 +350,8 @@ public class WebOtherInfoHandler extends AbstractWebHandler {
     }
 
     /**
-     * Get master's metric information
+     * Get master's metric information, include service status statistic, web-api call
+     * and heartbeat timeout check statistic
      *
      * @param req       Http Servlet Request
      * @param sBuffer   string buffer
@@ -382,7 +383,9 @@ public class WebOtherInfoHandler extends AbstractWebHandler {
             sBuffer.append(",\"webAPI\":");
             WebCallStatsHolder.getValue(sBuffer);
         }
-        sBuffer.append("},\"count\":2}");
+        sBuffer.append(",\"heartbeat\":");
+        master.getHeartbeatManager().getTimeoutStatsInfo(sBuffer);
+        sBuffer.append("},\"count\":3}");
         WebParameterUtils.buildSuccessWithDataRetEnd(sBuffer, 1);
         return sBuffer;
     }
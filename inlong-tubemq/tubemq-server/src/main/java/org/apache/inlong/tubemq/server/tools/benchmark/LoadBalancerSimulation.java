@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.tools.benchmark;
+
+import org.apache.inlong.tubemq.corebase.cluster.BrokerInfo;
+import org.apache.inlong.tubemq.corebase.cluster.Partition;
+import org.apache.inlong.tubemq.server.master.balance.DefaultLoadBalancer;
+import org.apache.inlong.tubemq.server.master.balance.StickyAssignor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Simulation of the server-side balance, compare the partitions moved and the time cost
+ * of the round-robin re-assignment and the sticky assignment when the group or cluster changes.
+ */
+public class LoadBalancerSimulation {
+
+    private final int brokerCount;
+    private final int partCntPerBroker;
+    private final int consumerCount;
+
+    /**
+     * Initial a load balance simulation
+     *
+     * @param brokerCount        the broker count
+     * @param partCntPerBroker   the partition count of each broker
+     * @param consumerCount      the consumer count of the group
+     */
+    public LoadBalancerSimulation(int brokerCount, int partCntPerBroker, int consumerCount) {
+        this.brokerCount = brokerCount;
+        this.partCntPerBroker = partCntPerBroker;
+        this.consumerCount = consumerCount;
+    }
+
+    public static void main(String[] args) {
+        new LoadBalancerSimulation(100, 100, 200).start();
+        new LoadBalancerSimulation(200, 250, 500).start();
+    }
+
+    /**
+     * Start the simulation
+     */
+    public void start() {
+        List<Partition> partitions = buildPartitions(brokerCount);
+        List<String> consumers = buildConsumers(consumerCount);
+        Map<String, List<Partition>> stickyBase = StickyAssignor.assign(
+                partitions, null, buildWeights(consumers), null);
+        Map<String, List<Partition>> rrBase =
+                new DefaultLoadBalancer().roundRobinAssignment(partitions, consumers);
+        System.out.println("partitions: " + partitions.size() + ", brokers: "
+                + brokerCount + ", consumers: " + consumerCount);
+        // a consumer joins
+        List<String> joined = buildConsumers(consumerCount + 1);
+        simulate("consumer join", partitions, joined, rrBase, stickyBase);
+        // a consumer leaves
+        List<String> left = buildConsumers(consumerCount - 1);
+        simulate("consumer leave", partitions, left, rrBase, stickyBase);
+        // a broker is added
+        simulate("broker add", buildPartitions(brokerCount + 1), consumers, rrBase, stickyBase);
+    }
+
+    private void simulate(String scenario, List<Partition> partitions, List<String> consumers,
+            Map<String, List<Partition>> rrBase, Map<String, List<Partition>> stickyBase) {
+        long startTime = System.nanoTime();
+        Map<String, List<Partition>> rrAssignment =
+                new DefaultLoadBalancer().roundRobinAssignment(partitions, consumers);
+        long rrCost = System.nanoTime() - startTime;
+        startTime = System.nanoTime();
+        Map<String, List<Partition>> stickyAssignment = StickyAssignor.assign(
+                partitions, stickyBase, buildWeights(consumers), null);
+        long stickyCost = System.nanoTime() - startTime;
+        System.out.println(new StringBuilder(256).append(scenario)
+                .append(": round-robin moved ")
+                .append(StickyAssignor.countMoved(rrBase, rrAssignment))
+                .append(" in ").append(rrCost / 1000000).append("ms, sticky moved ")
+                .append(StickyAssignor.countMoved(stickyBase, stickyAssignment))
+                .append(" in ").append(stickyCost / 1000000).append("ms").toString());
+    }
+
+    private List<Partition> buildPartitions(int brokerCnt) {
+        List<Partition> partitions = new ArrayList<>(brokerCnt * partCntPerBroker);
+        for (int brokerId = 1; brokerId <= brokerCnt; brokerId++) {
+            BrokerInfo brokerInfo = new BrokerInfo(brokerId, "10.0." + (brokerId / 250) + "." + (brokerId % 250), 8123);
+            for (int partId = 0; partId < partCntPerBroker; partId++) {
+                partitions.add(new Partition(brokerInfo, "topic-" + (partId % 10), partId));
+            }
+        }
+        return partitions;
+    }
+
+    private List<String> buildConsumers(int consumerCnt) {
+        List<String> consumers = new ArrayList<>(consumerCnt);
+        for (int i = 0; i < consumerCnt; i++) {
+            consumers.add("consumer-" + i);
+        }
+        return consumers;
+    }
+
+    private Map<String, Integer> buildWeights(List<String> consumers) {
+        Map<String, Integer> weights = new HashMap<>(consumers.size());
+        for (String consumer : consumers) {
+            weights.put(consumer, 1);
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.tools.benchmark;
+
+import org.apache.inlong.tubemq.server.broker.msgstore.mem.MsgMemStore;
+import org.apache.inlong.tubemq.server.broker.stats.MsgStoreStatsHolder;
+import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
+import org.apache.inlong.tubemq.server.common.utils.AppendResult;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark of the memory cache append, compare the locked append path
+ * with the lock-free append path under different writer thread counts.
+ */
+public class MemStoreAppendBenchmark {
+
+    private static final int[] WRITER_THREAD_COUNTS = {1, 4, 16, 64};
+    private final int maxCacheSize;
+    private final int maxMsgCount;
+    private final int msgSize;
+    private final int roundCount;
+
+    /**
+     * Initial a memory cache append benchmark
+     *
+     * @param maxCacheSize   the memory cache size
+     * @param maxMsgCount    the max message count in cache
+     * @param msgSize        the message payload size
+     * @param roundCount     the fill rounds of each test case
+     */
+    public MemStoreAppendBenchmark(int maxCacheSize, int maxMsgCount,
+            int msgSize, int roundCount) {
+        this.maxCacheSize = maxCacheSize;
+        this.maxMsgCount = maxMsgCount;
+        this.msgSize = msgSize;
+        this.roundCount = roundCount;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new MemStoreAppendBenchmark(64 * 1024 * 1024, 200000, 200, 20).start();
+    }
+
+    /**
+     * Start benchmark test
+     *
+     * @throws Exception the exception
+     */
+    public void start() throws Exception {
+        for (int threadCnt : WRITER_THREAD_COUNTS) {
+            // warm up
+            runCase(false, threadCnt, 2);
+            runCase(true, threadCnt, 2);
+            long lockedCost = runCase(false, threadCnt, roundCount);
+            long lockFreeCost = runCase(true, threadCnt, roundCount);
+            long totalMsgCnt = (long) maxMsgCount * roundCount;
+            System.out.println(new StringBuilder(512)
+                    .append("writer threads=").append(threadCnt)
+                    .append(", messages=").append(totalMsgCnt)
+                    .append(", locked=").append(totalMsgCnt * 1000L / Math.max(lockedCost, 1L))
+                    .append(" msgs/s, lock-free=")
+                    .append(totalMsgCnt * 1000L / Math.max(lockFreeCost, 1L))
+                    .append(" msgs/s").toString());
+        }
+    }
+
+    private long runCase(boolean lockFree, int threadCnt, int rounds) throws Exception {
+        final MsgMemStore msgMemStore =
+                new MsgMemStore(maxCacheSize, maxMsgCount, 0L, 0L, lockFree);
+        final MsgStoreStatsHolder statsHolder = new MsgStoreStatsHolder();
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCnt);
+        final AtomicLong costTime = new AtomicLong(0);
+        try {
+            for (int round = 0; round < rounds; round++) {
+                msgMemStore.resetMemStoreStatus(0L, 0L);
+                final CountDownLatch latch = new CountDownLatch(threadCnt);
+                final int perThreadCnt = maxMsgCount / threadCnt;
+                final long startTime = System.nanoTime();
+                for (int i = 0; i < threadCnt; i++) {
+                    final int partitionId = i;
+                    executor.submit(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            try {
+                                byte[] payLoad = new byte[msgSize];
+                                for (int j = 0; j < perThreadCnt; j++) {
+                                    ByteBuffer dataBuffer = buildDataBuffer(partitionId, payLoad);
+                                    ByteBuffer indexBuffer =
+                                            buildIndexBuffer(partitionId, dataBuffer.limit());
+                                    msgMemStore.appendMsg(statsHolder, partitionId, partitionId,
+                                            System.currentTimeMillis(), indexBuffer,
+                                            dataBuffer.limit(), dataBuffer, new AppendResult());
+                                }
+                            } finally {
+                                latch.countDown();
+                            }
+                        }
+                    });
+                }
+                latch.await();
+                costTime.addAndGet(System.nanoTime() - startTime);
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            msgMemStore.close();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(costTime.get());
+    }
+
+    private ByteBuffer buildDataBuffer(int partitionId, byte[] payLoad) {
+        final ByteBuffer dataBuffer =
+                ByteBuffer.allocate(DataStoreUtils.STORE_DATA_HEADER_LEN + payLoad.length);
+        dataBuffer.putInt(DataStoreUtils.STORE_DATA_PREFX_LEN + payLoad.length);
+        dataBuffer.putInt(DataStoreUtils.STORE_DATA_TOKER_BEGIN_VALUE);
+        dataBuffer.putInt(0);
+        dataBuffer.putInt(partitionId);
+        dataBuffer.putLong(-1L);
+        dataBuffer.putLong(System.currentTimeMillis());
+        dataBuffer.putInt(0);
+        dataBuffer.putInt(partitionId);
+        dataBuffer.putLong(0L);
+        dataBuffer.putInt(0);
+        dataBuffer.put(payLoad);
+        dataBuffer.flip();
+        return dataBuffer;
+    }
+
+    private ByteBuffer buildIndexBuffer(int partitionId, int dataSize) {
+        final ByteBuffer indexBuffer =
+                ByteBuffer.allocate(DataStoreUtils.STORE_INDEX_HEAD_LEN);
+        indexBuffer.putInt(partitionId);
+        indexBuffer.putLong(-1L);
+        indexBuffer.putInt(dataSize);
+        indexBuffer.putInt(partitionId);
+        indexBuffer.putLong(System.currentTimeMillis());
+        indexBuffer.flip();
+        return indexBuffer;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.tools.benchmark;
+
+import org.apache.inlong.tubemq.server.broker.BrokerConfig;
+import org.apache.inlong.tubemq.server.broker.offset.offsetfile.FileOffsetStorage;
+import org.apache.inlong.tubemq.server.broker.offset.offsetfile.GroupOffsetStgInfo;
+import org.apache.inlong.tubemq.server.broker.offset.offsetfile.OffsetBinaryLog;
+import org.apache.inlong.tubemq.server.broker.offset.offsetfile.OffsetStgInfo;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * Benchmark of the group offset sync, compare the json file rewriting with
+ * the binary delta log appending and compaction under different partition counts.
+ */
+public class OffsetStorageSyncBenchmark {
+
+    private static final int[] GROUP_COUNTS = {1000, 10000, 50000};
+    private final int partCntPerGroup;
+    private final int changedPercent;
+    private final int roundCount;
+    private final long syncDurWarnMs;
+
+    /**
+     * Initial an offset sync benchmark
+     *
+     * @param partCntPerGroup   the partition count of each group
+     * @param changedPercent    the percent of partitions changed between syncs
+     * @param roundCount        the sync rounds of each test case
+     * @param syncDurWarnMs     the sync duration warning value
+     */
+    public OffsetStorageSyncBenchmark(int partCntPerGroup, int changedPercent,
+            int roundCount, long syncDurWarnMs) {
+        this.partCntPerGroup = partCntPerGroup;
+        this.changedPercent = changedPercent;
+        this.roundCount = roundCount;
+        this.syncDurWarnMs = syncDurWarnMs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new OffsetStorageSyncBenchmark(4, 1, 10,
+                new BrokerConfig().getOffsetStgSyncDurWarnMs()).start();
+    }
+
+    /**
+     * Start benchmark test
+     *
+     * @throws Exception the exception
+     */
+    public void start() throws Exception {
+        File baseDir = Files.createTempDirectory("offsetBenchmark").toFile();
+        try {
+            for (int groupCnt : GROUP_COUNTS) {
+                String fileNameBase = new File(baseDir, "offsets" + groupCnt).getAbsolutePath();
+                GroupOffsetStgInfo stgInfo = buildStgInfo(groupCnt);
+                OffsetBinaryLog binaryLog = new OffsetBinaryLog(1, fileNameBase);
+                // warm up
+                FileOffsetStorage.storeOffsetStgInfoToFile(stgInfo, fileNameBase);
+                binaryLog.compact(stgInfo);
+                long jsonCost = 0;
+                long compactCost = 0;
+                long deltaCost = 0;
+                for (int round = 0; round < roundCount; round++) {
+                    updateOffsets(stgInfo, binaryLog, groupCnt, round);
+                    long startTime = System.nanoTime();
+                    FileOffsetStorage.storeOffsetStgInfoToFile(stgInfo, fileNameBase);
+                    jsonCost += System.nanoTime() - startTime;
+                    startTime = System.nanoTime();
+                    binaryLog.sync(stgInfo);
+                    deltaCost += System.nanoTime() - startTime;
+                    startTime = System.nanoTime();
+                    binaryLog.compact(stgInfo);
+                    compactCost += System.nanoTime() - startTime;
+                }
+                binaryLog.close();
+                System.out.println(new StringBuilder(512)
+                        .append("partitions=").append((long) groupCnt * partCntPerGroup)
+                        .append(", changed=").append(changedPercent).append("%")
+                        .append(", json sync=").append(jsonCost / roundCount / 1000L)
+                        .append("us, binary delta sync=").append(deltaCost / roundCount / 1000L)
+                        .append("us, binary compaction=").append(compactCost / roundCount / 1000L)
+                        .append("us, warnMs=").append(syncDurWarnMs).toString());
+            }
+        } finally {
+            FileUtils.deleteQuietly(baseDir);
+        }
+    }
+
+    private GroupOffsetStgInfo buildStgInfo(int groupCnt) {
+        GroupOffsetStgInfo stgInfo = new GroupOffsetStgInfo(1);
+        for (int i = 0; i < groupCnt; i++) {
+            for (int j = 0; j < partCntPerGroup; j++) {
+                stgInfo.addOffsetStgInfo("group_" + i, "topic_" + (i % 100), j, 0L, 0L);
+            }
+        }
+        return stgInfo;
+    }
+
+    private void updateOffsets(GroupOffsetStgInfo stgInfo,
+            OffsetBinaryLog binaryLog, int groupCnt, int round) {
+        int changedGroupCnt = Math.max(1, groupCnt * changedPercent / 100);
+        for (int i = 0; i < changedGroupCnt; i++) {
+            int groupIndex = (round * changedGroupCnt + i) % groupCnt;
+            String group = "group_" + groupIndex;
+            String topic = "topic_" + (groupIndex % 100);
+            for (int j = 0; j < partCntPerGroup; j++) {
+                stgInfo.addOffsetStgInfo(group, topic, j, (round + 1) * 28L, round);
+                binaryLog.markPartUpdated(group, OffsetStgInfo.buildOffsetKey(topic, j));
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker;
+
+import org.apache.inlong.tubemq.corebase.TErrCodeConstants;
+import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.BatchMessageItem;
+import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.BatchMessageResult;
+import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.SendBatchMessageRequestP2B;
+import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker.SendBatchMessageResponseB2P;
+import org.apache.inlong.tubemq.corebase.rv.ProcessResult;
+import org.apache.inlong.tubemq.corebase.utils.CheckSum;
+import org.apache.inlong.tubemq.corerpc.RpcServiceFactory;
+import org.apache.inlong.tubemq.server.broker.metadata.BrokerMetadataManager;
+import org.apache.inlong.tubemq.server.broker.msgstore.MessageStore;
+import org.apache.inlong.tubemq.server.broker.msgstore.MessageStoreManager;
+import org.apache.inlong.tubemq.server.common.aaaserver.CertifiedInfo;
+import org.apache.inlong.tubemq.server.common.aaaserver.SimpleCertificateBrokerHandler;
+import org.apache.inlong.tubemq.server.common.utils.AppendResult;
+
+import com.google.protobuf.ByteString;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test for {@link BrokerServiceServer}
+ */
+public class BrokerServiceServerTest {
+
+    private static final String TOPIC_NAME = "topic1";
+    private static final String FORBIDDEN_MSG_TYPE = "forbidden";
+
+    private BrokerServiceServer brokerServiceServer;
+    private BrokerMetadataManager metadataManager;
+    // the message data appended to the store
+    private final List<byte[]> appendedDatas = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Throwable {
+        metadataManager = new BrokerMetadataManager(2000L);
+        List<String> topicMetaConfInfoList = new ArrayList<>();
+        topicMetaConfInfoList.add(TOPIC_NAME
+                + ":2:true:true:1000:10000:0,0,6:delete,168h:1:0:1024:1000:1000:1");
+        metadataManager.updateBrokerTopicConfigMap(1L, 10,
+                "1:true:true:1000:10000:0,0,6:delete,168h:1:1000:1024:1000:1000",
+                topicMetaConfInfoList, true, new StringBuilder());
+        // the store appends all messages and records their data
+        MessageStore msgStore = mock(MessageStore.class);
+        doAnswer(invocation -> {
+            AppendResult[] appendResults = invocation.getArgument(0);
+            int msgCount = invocation.getArgument(1);
+            byte[][] datas = invocation.getArgument(3);
+            for (int i = 0; i < msgCount; i++) {
+                appendedDatas.add(datas[i]);
+                appendResults[i].putReceivedInfo(i + 1, System.currentTimeMillis());
+                appendResults[i].putAppendResult(i * 28L, 0L);
+            }
+            return true;
+        }).when(msgStore).appendMsgs(any(), anyInt(), any(), any(), any(), any(), anyInt(), anyInt());
+        MessageStoreManager storeManager = mock(MessageStoreManager.class);
+        when(storeManager.getOrCreateMessageStore(eq(TOPIC_NAME), anyInt())).thenReturn(msgStore);
+        // the messages with the forbidden msgType are not authorized
+        SimpleCertificateBrokerHandler authHandler = mock(SimpleCertificateBrokerHandler.class);
+        when(authHandler.identityValidUserInfo(any(), anyBoolean(), any())).thenAnswer(invocation -> {
+            ProcessResult result = invocation.getArgument(2);
+            result.setSuccResult(new CertifiedInfo("user", ""));
+            return true;
+        });
+        when(authHandler.validProduceAuthorizeInfo(anyString(), anyString(),
+                any(), anyString(), any())).thenAnswer(invocation -> {
+                    ProcessResult result = invocation.getArgument(4);
+                    if (FORBIDDEN_MSG_TYPE.equals(invocation.getArgument(2))) {
+                        result.setFailResult(TErrCodeConstants.FORBIDDEN, "not authorized");
+                        return false;
+                    }
+                    result.setSuccResult(null);
+                    return true;
+                });
+        TubeBroker tubeBroker = mock(TubeBroker.class);
+        when(tubeBroker.getMetadataManager()).thenReturn(metadataManager);
+        when(tubeBroker.getStoreManager()).thenReturn(storeManager);
+        when(tubeBroker.getServerAuthHandler()).thenReturn(authHandler);
+        when(tubeBroker.getRpcServiceFactory()).thenReturn(mock(RpcServiceFactory.class));
+        brokerServiceServer = new BrokerServiceServer(tubeBroker, new BrokerConfig());
+        brokerServiceServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        brokerServiceServer.stop();
+    }
+
+    @Test
+    public void sendBatchMessageWithRejectedItems() throws Throwable {
+        byte[] validData1 = "valid-message-1".getBytes();
+        byte[] validData2 = "valid-message-2".getBytes();
+        byte[] overSizeData =
+                new byte[metadataManager.getTopicMetadata(TOPIC_NAME).getMaxMsgSize() + 1];
+        byte[] badCheckSumData = "bad-checksum".getBytes();
+        byte[] forbiddenData = "forbidden-message".getBytes();
+        SendBatchMessageRequestP2B request = SendBatchMessageRequestP2B.newBuilder()
+                .setClientId("producer-1")
+                .setTopicName(TOPIC_NAME)
+                .setPartitionId(0)
+                .setSentAddr(0)
+                .addMessages(buildItem(validData1, CheckSum.crc32(validData1), null))
+                .addMessages(buildItem(overSizeData, -1, null))
+                .addMessages(buildItem(badCheckSumData, CheckSum.crc32(badCheckSumData) + 1, null))
+                .addMessages(buildItem(forbiddenData, -1, FORBIDDEN_MSG_TYPE))
+                .addMessages(buildItem(validData2, -1, null))
+                .build();
+        SendBatchMessageResponseB2P response =
+                brokerServiceServer.sendBatchMessageP2B(request, "127.0.0.1", false);
+        Assert.assertTrue(response.getErrMsg(), response.getSuccess());
+        Assert.assertEquals(5, response.getResultsCount());
+        // the results keep the order of the request messages
+        BatchMessageResult result = response.getResults(0);
+        Assert.assertTrue(result.getSuccess());
+        Assert.assertEquals(1L, result.getMessageId());
+        result = response.getResults(1);
+        Assert.assertFalse(result.getSuccess());
+        Assert.assertEquals(TErrCodeConstants.BAD_REQUEST, result.getErrCode());
+        result = response.getResults(2);
+        Assert.assertFalse(result.getSuccess());
+        Assert.assertEquals(TErrCodeConstants.FORBIDDEN, result.getErrCode());
+        Assert.assertTrue(result.getErrMsg().startsWith("Checksum msg data failure"));
+        result = response.getResults(3);
+        Assert.assertFalse(result.getSuccess());
+        Assert.assertEquals("not authorized", result.getErrMsg());
+        result = response.getResults(4);
+        Assert.assertTrue(result.getSuccess());
+        Assert.assertEquals(2L, result.getMessageId());
+        Assert.assertEquals(28L, result.getAppendOffset());
+        // only the valid messages are appended to the store
+        Assert.assertEquals(2, appendedDatas.size());
+        Assert.assertArrayEquals(validData1, appendedDatas.get(0));
+        Assert.assertArrayEquals(validData2, appendedDatas.get(1));
+    }
+
+    @Test
+    public void sendBatchMessageWithoutValidItems() throws Throwable {
+        byte[] badCheckSumData = "bad-checksum".getBytes();
+        SendBatchMessageRequestP2B request = SendBatchMessageRequestP2B.newBuilder()
+                .setClientId("producer-1")
+                .setTopicName(TOPIC_NAME)
+                .setPartitionId(0)
+                .setSentAddr(0)
+                .addMessages(buildItem(badCheckSumData, CheckSum.crc32(badCheckSumData) + 1, null))
+                .addMessages(buildItem(new byte[0], -1, null))
+                .build();
+        SendBatchMessageResponseB2P response =
+                brokerServiceServer.sendBatchMessageP2B(request, "127.0.0.1", false);
+        Assert.assertTrue(response.getErrMsg(), response.getSuccess());
+        Assert.assertEquals(2, response.getResultsCount());
+        Assert.assertFalse(response.getResults(0).getSuccess());
+        Assert.assertFalse(response.getResults(1).getSuccess());
+        Assert.assertEquals(TErrCodeConstants.BAD_REQUEST, response.getResults(1).getErrCode());
+        Assert.assertTrue(appendedDatas.isEmpty());
+    }
+
+    private BatchMessageItem buildItem(byte[] data, int checkSum, String msgType) {
+        BatchMessageItem.Builder builder = BatchMessageItem.newBuilder()
+                .setData(ByteString.copyFrom(data))
+                .setFlag(0)
+                .setCheckSum(checkSum)
+                .setMsgTime("202601011200");
+        if (msgType != null) {
+            builder.setMsgType(msgType);
+        }
+        return builder.build();
+    }
+}
@@ -17,9 +17,12 @@
 
 package org.apache.inlong.tubemq.server.broker.metadata;
 
+import org.apache.inlong.tubemq.server.common.TServerConstants;
+
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -54,6 +57,46 @@ public class BrokerMetadataManagerTest {
         Assert.assertEquals(count, 6);
     }
 
+    @Test
+    public void updateBrokerTopicConfigDelta() {
+        brokerMetadataManager = new BrokerMetadataManager(2000L);
+        String newBrokerDefMetaConfInfo = "1:true:true:1000:10000:0,0,6:delete,168h:1:1000:1024:1000:1000";
+        List<String> newTopicMetaConfInfoList = new LinkedList<>();
+        newTopicMetaConfInfoList.add("topic1:2:true:true:1000:10000:0,0,6:delete,168h:1:1000:1024:1000:1000:1");
+        newTopicMetaConfInfoList.add("topic2:4:true:true:1000:10000:0,0,6:delete,168h:1:1000:1024:1000:1000:1");
+        brokerMetadataManager.updateBrokerTopicConfigMap(1L, 10,
+                newBrokerDefMetaConfInfo, newTopicMetaConfInfoList, true, new StringBuilder());
+        Assert.assertEquals(1, brokerMetadataManager.getFullSyncCount());
+        // apply the delta based on the current configure
+        List<String> changedTopics = new LinkedList<>();
+        changedTopics.add("topic2:8:true:true:1000:10000:0,0,6:delete,168h:1:1000:1024:1000:1000:1");
+        changedTopics.add("topic3:6:true:true:1000:10000:0,0,6:delete,168h:1:1000:1024:1000:1000:1");
+        List<String> removedTopics = new LinkedList<>();
+        removedTopics.add("topic1");
+        Assert.assertTrue(brokerMetadataManager.updateBrokerTopicConfigDelta(2L, 20, 1L, 10,
+                newBrokerDefMetaConfInfo, changedTopics, removedTopics, new StringBuilder()));
+        Assert.assertEquals(2L, brokerMetadataManager.getBrokerMetadataConfId());
+        Assert.assertEquals(20, brokerMetadataManager.getBrokerConfCheckSumId());
+        Assert.assertEquals(8, brokerMetadataManager.getNumPartitions("topic2"));
+        Assert.assertEquals(6, brokerMetadataManager.getNumPartitions("topic3"));
+        Assert.assertFalse(brokerMetadataManager.isTopicExisted("topic1"));
+        Assert.assertTrue(brokerMetadataManager.isTopicExisted(TServerConstants.OFFSET_HISTORY_NAME));
+        Assert.assertEquals(2, brokerMetadataManager.getTopicMetaConfInfoLst().size());
+        Assert.assertEquals(1, brokerMetadataManager.getDeltaSyncCount());
+        // the delta based on another configure is ignored
+        Assert.assertFalse(brokerMetadataManager.updateBrokerTopicConfigDelta(3L, 30, 1L, 10,
+                newBrokerDefMetaConfInfo, changedTopics, removedTopics, new StringBuilder()));
+        Assert.assertEquals(2L, brokerMetadataManager.getBrokerMetadataConfId());
+        Assert.assertEquals(1, brokerMetadataManager.getDeltaSyncCount());
+        // the sync statistics are published through the stats map
+        Map<String, Long> statsMap = new HashMap<>();
+        brokerMetadataManager.getSyncStatsInfo(statsMap);
+        Assert.assertEquals(1L, statsMap.get("meta_full_sync_count").longValue());
+        Assert.assertEquals(1L, statsMap.get("meta_delta_sync_count").longValue());
+        Assert.assertEquals(brokerMetadataManager.getLastSyncDataSize(),
+                statsMap.get("meta_last_sync_data_size").longValue());
+    }
+
     @Test
     public void updateBrokerRemoveTopicMap() {
         long grpOffsetExpMs = 1 * 60 * 60 * 1000L;
@@ -17,9 +17,16 @@
 
 package org.apache.inlong.tubemq.server.broker.msgstore.disk;
 
+import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
+
+import org.junit.Assert;
+
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * FileSegment test.
@@ -83,4 +90,153 @@ public class FileSegmentTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @org.junit.Test
+    public void searchIndexRecords() throws IOException {
+        long start = 280;
+        File file = null;
+        FileSegment indexSegment = null;
+        try {
+            file = File.createTempFile("testindex", null);
+            indexSegment = new FileSegment(start, file, true, SegmentType.INDEX);
+            // append 10 records, the data offset step is 100, the time step is 10
+            for (int i = 0; i < 10; i++) {
+                ByteBuffer record = ByteBuffer.allocate(DataStoreUtils.STORE_INDEX_HEAD_LEN);
+                record.putInt(0);
+                record.putLong(1000L + i * 100L);
+                record.putInt(100);
+                record.putInt(0);
+                record.putLong(5000L + i * 10L);
+                record.flip();
+                indexSegment.append(record, 5000L, 5000L + i * 10L);
+            }
+            indexSegment.flush(true);
+            // search with positional reads
+            verifyIndexSearch(indexSegment, start);
+            Assert.assertFalse(indexSegment.mapReadOnly());
+            indexSegment.setMutable(false);
+            Assert.assertTrue(indexSegment.mapReadOnly());
+            Assert.assertTrue(indexSegment.isMapped());
+            // search through the read-only mapping
+            verifyIndexSearch(indexSegment, start);
+            ByteBuffer readBuffer = ByteBuffer.allocate(DataStoreUtils.STORE_INDEX_HEAD_LEN);
+            indexSegment.read(readBuffer, start + 2 * DataStoreUtils.STORE_INDEX_HEAD_LEN);
+            readBuffer.flip();
+            Assert.assertEquals(1200L, readBuffer.getLong(DataStoreUtils.INDEX_POS_DATAOFFSET));
+            // the mapping is released with the segment, the later reads fail on the closed channel
+            indexSegment.close();
+            Assert.assertFalse(indexSegment.isMapped());
+            Assert.assertFalse(indexSegment.mapReadOnly());
+            try {
+                readBuffer.clear();
+                indexSegment.read(readBuffer, start);
+                Assert.fail();
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            if (indexSegment != null) {
+                indexSegment.close();
+            }
+            if (file != null) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    @org.junit.Test
+    public void skipUnmatchedRecords() throws IOException {
+        long start = 560;
+        File file = null;
+        FileSegment indexSegment = null;
+        FileSegment loadedSegment = null;
+        try {
+            file = File.createTempFile("testindex", null);
+            indexSegment = new FileSegment(start, file, true, SegmentType.INDEX);
+            indexSegment.enableKeyFilter();
+            // the keyCodes of the blocks are 1, 2, 2, 1, and a partial block of 3
+            int[] blockKeyCodes = {1, 2, 2, 1};
+            for (int keyCode : blockKeyCodes) {
+                appendIndexRecords(indexSegment, IndexKeyFilter.BLOCK_RECORD_CNT, keyCode);
+            }
+            appendIndexRecords(indexSegment, 10, 3);
+            final long blockSize = IndexKeyFilter.BLOCK_INDEX_SIZE;
+            final long maxOffset = indexSegment.getLast();
+            // the unflushed records are not skipped
+            Assert.assertEquals(start, indexSegment.skipUnmatchedRecords(start, maxOffset, keySet(2)));
+            indexSegment.flush(true);
+            verifyRecordSkip(indexSegment, start, maxOffset);
+            // the immutable segment builds the filter at the first use
+            indexSegment.close();
+            loadedSegment = new FileSegment(start, file, false, SegmentType.INDEX);
+            Assert.assertEquals(start + blockSize,
+                    loadedSegment.skipUnmatchedRecords(start + blockSize, maxOffset, keySet(2)));
+            loadedSegment.enableKeyFilter();
+            verifyRecordSkip(loadedSegment, start, maxOffset);
+        } finally {
+            if (indexSegment != null) {
+                indexSegment.close();
+            }
+            if (loadedSegment != null) {
+                loadedSegment.close();
+            }
+            if (file != null) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    private void verifyRecordSkip(FileSegment indexSegment,
+            long start, long maxOffset) throws IOException {
+        final long blockSize = IndexKeyFilter.BLOCK_INDEX_SIZE;
+        final int recLen = DataStoreUtils.STORE_INDEX_HEAD_LEN;
+        Assert.assertEquals(start + blockSize,
+                indexSegment.skipUnmatchedRecords(start, maxOffset, keySet(2)));
+        Assert.assertEquals(start + 3 * blockSize,
+                indexSegment.skipUnmatchedRecords(start + blockSize + recLen, maxOffset, keySet(1)));
+        Assert.assertEquals(start + 4 * blockSize,
+                indexSegment.skipUnmatchedRecords(start, maxOffset, keySet(3)));
+        Assert.assertEquals(start, indexSegment.skipUnmatchedRecords(start, maxOffset, keySet(1, 3)));
+        // never skip beyond the max offset
+        Assert.assertEquals(maxOffset,
+                indexSegment.skipUnmatchedRecords(start, maxOffset, keySet(4)));
+        Assert.assertEquals(start + 2 * blockSize,
+                indexSegment.skipUnmatchedRecords(start, start + 2 * blockSize, keySet(4)));
+        Assert.assertEquals(start,
+                indexSegment.skipUnmatchedRecords(start, maxOffset, Collections.<Integer>emptySet()));
+    }
+
+    private void appendIndexRecords(FileSegment indexSegment,
+            int recordCnt, int keyCode) throws IOException {
+        ByteBuffer records =
+                ByteBuffer.allocate(recordCnt * DataStoreUtils.STORE_INDEX_HEAD_LEN);
+        for (int i = 0; i < recordCnt; i++) {
+            records.putInt(0);
+            records.putLong(0L);
+            records.putInt(100);
+            records.putInt(keyCode);
+            records.putLong(5000L);
+        }
+        records.flip();
+        indexSegment.append(records, 5000L, 5000L);
+    }
+
+    private Set<Integer> keySet(Integer... keyCodes) {
+        Set<Integer> keySet = new HashSet<>();
+        Collections.addAll(keySet, keyCodes);
+        return keySet;
+    }
+
+    private void verifyIndexSearch(FileSegment indexSegment, long start) throws IOException {
+        final int recLen = DataStoreUtils.STORE_INDEX_HEAD_LEN;
+        Assert.assertEquals(start + 3 * recLen, indexSegment.getStartOffsetByTimeStamp(5030L, 0));
+        Assert.assertEquals(start + 3 * recLen, indexSegment.getStartOffsetByTimeStamp(5035L, 0));
+        Assert.assertEquals(start, indexSegment.getStartOffsetByTimeStamp(1000L, 0));
+        Assert.assertEquals(start + 9 * recLen, indexSegment.getStartOffsetByTimeStamp(9000L, 0));
+        Assert.assertEquals(5040L, indexSegment.getRecordTime(start + 4 * recLen));
+        Assert.assertEquals(start + 4 * recLen, indexSegment.getIndexOffsetByDataOffset(1400L));
+        Assert.assertEquals(start + 5 * recLen, indexSegment.getIndexOffsetByDataOffset(1401L));
+        Assert.assertEquals(start, indexSegment.getIndexOffsetByDataOffset(0L));
+        Assert.assertEquals(start + 10 * recLen, indexSegment.getIndexOffsetByDataOffset(5000L));
+    }
+}
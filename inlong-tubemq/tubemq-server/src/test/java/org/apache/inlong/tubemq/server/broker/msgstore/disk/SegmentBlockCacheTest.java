@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.msgstore.disk;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SegmentBlockCache test.
+ */
+public class SegmentBlockCacheTest {
+
+    private static final int BLOCK_SIZE = SegmentBlockCache.CACHE_BLOCK_SIZE;
+
+    @Test
+    public void readThroughCache() throws Exception {
+        long start = 1000;
+        File file = File.createTempFile("testdata", null);
+        FileSegment fileSegment = new FileSegment(start, file, true, SegmentType.DATA);
+        SegmentBlockCache blockCache = new SegmentBlockCache(3L * BLOCK_SIZE, 0);
+        try {
+            // append 4 blocks and a half
+            byte[] bytes = new byte[BLOCK_SIZE * 4 + BLOCK_SIZE / 2];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) (i % 251);
+            }
+            long appendTime = System.currentTimeMillis();
+            fileSegment.append(ByteBuffer.wrap(bytes), appendTime, appendTime);
+            // the uncommitted content is not visible
+            ByteBuffer readBuf = ByteBuffer.allocate(100);
+            blockCache.read("test-0", fileSegment, readBuf, start);
+            Assert.assertEquals(0, readBuf.position());
+            fileSegment.flush(true);
+            // read across the block boundary
+            readBuf = ByteBuffer.allocate(200);
+            blockCache.read("test-0", fileSegment, readBuf, start + BLOCK_SIZE - 100);
+            Assert.assertFalse(readBuf.hasRemaining());
+            for (int i = 0; i < readBuf.capacity(); i++) {
+                Assert.assertEquals(bytes[BLOCK_SIZE - 100 + i], readBuf.get(i));
+            }
+            Map<String, Long> statsMap = new HashMap<>();
+            blockCache.getValue(statsMap);
+            Assert.assertEquals(0, statsMap.get("block_cache_hit").longValue());
+            Assert.assertEquals(2, statsMap.get("block_cache_miss").longValue());
+            // hit block 1, then it is protected
+            readBuf.clear();
+            blockCache.read("test-0", fileSegment, readBuf, start + BLOCK_SIZE + 10);
+            Assert.assertEquals(bytes[BLOCK_SIZE + 10], readBuf.get(0));
+            // scan block 2 and 3, the probation blocks are evicted
+            readBuf = ByteBuffer.allocate(BLOCK_SIZE * 2);
+            blockCache.read("test-0", fileSegment, readBuf, start + BLOCK_SIZE * 2);
+            Assert.assertFalse(readBuf.hasRemaining());
+            // the tail block of a mutable segment is not cached
+            readBuf = ByteBuffer.allocate(BLOCK_SIZE);
+            blockCache.read("test-0", fileSegment, readBuf, start + BLOCK_SIZE * 4);
+            Assert.assertEquals(BLOCK_SIZE / 2, readBuf.position());
+            statsMap.clear();
+            blockCache.getValue(statsMap);
+            Assert.assertEquals(1, statsMap.get("block_cache_hit").longValue());
+            Assert.assertEquals(4, statsMap.get("block_cache_miss").longValue());
+            Assert.assertEquals(1, statsMap.get("block_cache_evict").longValue());
+            // the hit block survives the scan
+            readBuf = ByteBuffer.allocate(10);
+            blockCache.read("test-0", fileSegment, readBuf, start + BLOCK_SIZE);
+            statsMap.clear();
+            blockCache.getValue(statsMap);
+            Assert.assertEquals(2, statsMap.get("block_cache_hit").longValue());
+            // invalidate the store blocks
+            blockCache.invalidate("test-0");
+            statsMap.clear();
+            blockCache.getValue(statsMap);
+            Assert.assertEquals(0, statsMap.get("block_cache_used_bytes").longValue());
+        } finally {
+            blockCache.close();
+            fileSegment.close();
+            file.deleteOnExit();
+        }
+    }
+
+    @Test
+    public void invalidateWhileLoading() throws Exception {
+        long start = 0;
+        File file = File.createTempFile("testdata", null);
+        final SegmentBlockCache blockCache = new SegmentBlockCache(3L * BLOCK_SIZE, 0);
+        // the store is invalidated after the block content is read from the file
+        FileSegment fileSegment = new FileSegment(start, file, true, SegmentType.DATA) {
+
+            @Override
+            public void relRead(ByteBuffer bf, long relOffset) throws IOException {
+                super.relRead(bf, relOffset);
+                blockCache.invalidate("test-0");
+            }
+        };
+        try {
+            byte[] bytes = new byte[BLOCK_SIZE * 2];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) (i % 251);
+            }
+            long appendTime = System.currentTimeMillis();
+            fileSegment.append(ByteBuffer.wrap(bytes), appendTime, appendTime);
+            fileSegment.flush(true);
+            // the content is read, but the stale block is not cached
+            ByteBuffer readBuf = ByteBuffer.allocate(100);
+            blockCache.read("test-0", fileSegment, readBuf, start + 10);
+            Assert.assertFalse(readBuf.hasRemaining());
+            for (int i = 0; i < readBuf.capacity(); i++) {
+                Assert.assertEquals(bytes[10 + i], readBuf.get(i));
+            }
+            Map<String, Long> statsMap = new HashMap<>();
+            blockCache.getValue(statsMap);
+            Assert.assertEquals(0, statsMap.get("block_cache_used_bytes").longValue());
+            // the released block is reusable
+            readBuf.clear();
+            blockCache.read("test-1", fileSegment, readBuf, start + 10);
+            statsMap.clear();
+            blockCache.getValue(statsMap);
+            Assert.assertEquals(BLOCK_SIZE, statsMap.get("block_cache_used_bytes").longValue());
+        } finally {
+            blockCache.close();
+            fileSegment.close();
+            file.deleteOnExit();
+        }
+    }
+}
@@ -21,9 +21,13 @@ import org.apache.inlong.tubemq.server.broker.stats.MsgStoreStatsHolder;
 import org.apache.inlong.tubemq.server.broker.utils.DataStoreUtils;
 import org.apache.inlong.tubemq.server.common.utils.AppendResult;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * MsgMemStore test.
@@ -105,4 +109,141 @@ public class MsgMemStoreTest {
         // get messages
         GetCacheMsgResult getCacheMsgResult = msgMemStore.getMessages(0, 2, 1024, 1000, 0, false, false, null, 0);
     }
+
+    @Test
+    public void appendMsgLockFree() throws Exception {
+        final int threadCnt = 8;
+        final int msgCntPerThread = 500;
+        final MsgMemStore msgMemStore =
+                new MsgMemStore(4 * 1024 * 1024, threadCnt * msgCntPerThread, 1000, 2000, true);
+        final MsgStoreStatsHolder memStatsHolder = new MsgStoreStatsHolder();
+        final CountDownLatch latch = new CountDownLatch(threadCnt);
+        for (int i = 0; i < threadCnt; i++) {
+            final int partitionId = i;
+            new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < msgCntPerThread; j++) {
+                            byte[] testData = ("message-" + partitionId + "-" + j).getBytes();
+                            ByteBuffer dataBuffer = buildDataBuffer(partitionId, testData);
+                            ByteBuffer indexBuffer = buildIndexBuffer(partitionId, dataBuffer.limit());
+                            Assert.assertTrue(msgMemStore.appendMsg(memStatsHolder, partitionId,
+                                    partitionId, System.currentTimeMillis(), indexBuffer,
+                                    dataBuffer.limit(), dataBuffer, new AppendResult()));
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }).start();
+        }
+        latch.await();
+        Assert.assertEquals(threadCnt * msgCntPerThread, msgMemStore.getCurMsgCount());
+        Assert.assertEquals(2000 + threadCnt * msgCntPerThread * DataStoreUtils.STORE_INDEX_HEAD_LEN,
+                msgMemStore.getIndexLastWritePos());
+        // the cache is full
+        ByteBuffer dataBuffer = buildDataBuffer(0, "full".getBytes());
+        Assert.assertFalse(msgMemStore.appendMsg(memStatsHolder, 0, 0,
+                System.currentTimeMillis(), buildIndexBuffer(0, dataBuffer.limit()),
+                dataBuffer.limit(), dataBuffer, new AppendResult()));
+        // read back all messages of one partition in order
+        GetCacheMsgResult result = msgMemStore.getMessages(1000, 2000,
+                Integer.MAX_VALUE, threadCnt * msgCntPerThread, 3, false, false, null, 0);
+        Assert.assertTrue(result.isSuccess);
+        Assert.assertEquals(msgCntPerThread, result.cacheMsgList.size());
+        Set<Long> indexOffsets = new HashSet<>();
+        for (int j = 0; j < msgCntPerThread; j++) {
+            ByteBuffer message = result.cacheMsgList.get(j);
+            indexOffsets.add(message.getLong(DataStoreUtils.STORE_HEADER_POS_QUEUE_LOGICOFF));
+            byte[] payLoad = new byte[message.limit() - DataStoreUtils.STORE_DATA_HEADER_LEN];
+            message.position(DataStoreUtils.STORE_DATA_HEADER_LEN);
+            message.get(payLoad);
+            Assert.assertEquals("message-3-" + j, new String(payLoad));
+        }
+        Assert.assertEquals(msgCntPerThread, indexOffsets.size());
+        msgMemStore.close();
+    }
+
+    @Test
+    public void appendMsgs() {
+        final int batchSize = 10;
+        for (boolean lockFree : new boolean[]{false, true}) {
+            final MsgMemStore msgMemStore =
+                    new MsgMemStore(64 * 1024, 3 * batchSize, 1000, 2000, lockFree);
+            final MsgStoreStatsHolder memStatsHolder = new MsgStoreStatsHolder();
+            for (int batch = 0; batch < 3; batch++) {
+                int totalDataLength = 0;
+                ByteBuffer[] dataBuffers = new ByteBuffer[batchSize];
+                ByteBuffer[] indexBuffers = new ByteBuffer[batchSize];
+                AppendResult[] appendResults = new AppendResult[batchSize];
+                for (int j = 0; j < batchSize; j++) {
+                    dataBuffers[j] = buildDataBuffer(1, ("batch-" + batch + "-" + j).getBytes());
+                    indexBuffers[j] = buildIndexBuffer(1, dataBuffers[j].limit());
+                    appendResults[j] = new AppendResult();
+                    totalDataLength += dataBuffers[j].limit();
+                }
+                Assert.assertTrue(msgMemStore.canHoldMsgs(batchSize, totalDataLength));
+                Assert.assertTrue(msgMemStore.appendMsgs(memStatsHolder, 1, System.currentTimeMillis(),
+                        batchSize, indexBuffers, dataBuffers, totalDataLength, appendResults));
+                for (int j = 0; j < batchSize; j++) {
+                    Assert.assertTrue(appendResults[j].isSuccess());
+                    Assert.assertEquals(2000 + (batch * batchSize + j) * DataStoreUtils.STORE_INDEX_HEAD_LEN,
+                            appendResults[j].getAppendIndexOffset());
+                }
+            }
+            Assert.assertEquals(3 * batchSize, msgMemStore.getCurMsgCount());
+            // the batch is all-or-nothing while the cache is full
+            ByteBuffer dataBuffer = buildDataBuffer(1, "full".getBytes());
+            Assert.assertFalse(msgMemStore.appendMsgs(memStatsHolder, 1, System.currentTimeMillis(),
+                    1, new ByteBuffer[]{buildIndexBuffer(1, dataBuffer.limit())},
+                    new ByteBuffer[]{dataBuffer}, dataBuffer.limit(), new AppendResult[]{new AppendResult()}));
+            Assert.assertEquals(3 * batchSize, msgMemStore.getCurMsgCount());
+            Assert.assertFalse(msgMemStore.canHoldMsgs(3 * batchSize + 1, 0));
+            // read back all messages in order
+            GetCacheMsgResult result = msgMemStore.getMessages(1000, 2000,
+                    Integer.MAX_VALUE, 3 * batchSize, 1, false, false, null, 0);
+            Assert.assertTrue(result.isSuccess);
+            Assert.assertEquals(3 * batchSize, result.cacheMsgList.size());
+            for (int i = 0; i < 3 * batchSize; i++) {
+                ByteBuffer message = result.cacheMsgList.get(i);
+                byte[] payLoad = new byte[message.limit() - DataStoreUtils.STORE_DATA_HEADER_LEN];
+                message.position(DataStoreUtils.STORE_DATA_HEADER_LEN);
+                message.get(payLoad);
+                Assert.assertEquals("batch-" + (i / batchSize) + "-" + (i % batchSize), new String(payLoad));
+            }
+            msgMemStore.close();
+        }
+    }
+
+    private ByteBuffer buildDataBuffer(int partitionId, byte[] testData) {
+        final ByteBuffer dataBuffer =
+                ByteBuffer.allocate(DataStoreUtils.STORE_DATA_HEADER_LEN + testData.length);
+        dataBuffer.putInt(DataStoreUtils.STORE_DATA_PREFX_LEN + testData.length);
+        dataBuffer.putInt(DataStoreUtils.STORE_DATA_TOKER_BEGIN_VALUE);
+        dataBuffer.putInt(33);
+        dataBuffer.putInt(partitionId);
+        dataBuffer.putLong(-1L);
+        dataBuffer.putLong(2222L);
+        dataBuffer.putInt(255555);
+        dataBuffer.putInt(partitionId);
+        dataBuffer.putLong(222L);
+        dataBuffer.putInt(1);
+        dataBuffer.put(testData);
+        dataBuffer.flip();
+        return dataBuffer;
+    }
+
+    private ByteBuffer buildIndexBuffer(int partitionId, int dataSize) {
+        ByteBuffer indexBuffer =
+                ByteBuffer.allocate(DataStoreUtils.STORE_INDEX_HEAD_LEN);
+        indexBuffer.putInt(partitionId);
+        indexBuffer.putLong(-1L);
+        indexBuffer.putInt(dataSize);
+        indexBuffer.putInt(partitionId);
+        indexBuffer.putLong(System.currentTimeMillis());
+        indexBuffer.flip();
+        return indexBuffer;
+    }
 }
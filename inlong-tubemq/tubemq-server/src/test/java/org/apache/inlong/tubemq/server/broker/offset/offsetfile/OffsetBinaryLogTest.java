@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.broker.offset.offsetfile;
+
+import org.apache.inlong.tubemq.server.broker.offset.OffsetStorageInfo;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * OffsetBinaryLog test.
+ */
+public class OffsetBinaryLogTest {
+
+    private File baseDir;
+    private String fileNameBase;
+
+    @Before
+    public void setUp() throws Exception {
+        baseDir = Files.createTempDirectory("offsetStg").toFile();
+        fileNameBase = baseDir.getAbsolutePath() + File.separator + "offsets";
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(baseDir);
+    }
+
+    @Test
+    public void testSyncAndReload() throws Exception {
+        GroupOffsetStgInfo stgInfo = new GroupOffsetStgInfo(1);
+        stgInfo.addOffsetStgInfo("group1", "topic1", 0, 100L, 10L);
+        stgInfo.addOffsetStgInfo("group1", "topic1", 1, 200L, 20L);
+        stgInfo.addOffsetStgInfo("group2", "topic2", 0, 300L, 30L);
+        OffsetBinaryLog binaryLog = new OffsetBinaryLog(1, fileNameBase);
+        Assert.assertFalse(binaryLog.isStgFileExist());
+        binaryLog.compact(stgInfo);
+        Assert.assertTrue(binaryLog.isStgFileExist());
+        Assert.assertEquals(0, binaryLog.sync(stgInfo));
+        // only the changed offsets are appended
+        stgInfo.addOffsetStgInfo("group1", "topic1", 1, 250L, 25L);
+        binaryLog.markPartUpdated("group1", OffsetStgInfo.buildOffsetKey("topic1", 1));
+        stgInfo.rmvGroupOffsetInfo("group2", Collections.singleton("topic2"));
+        binaryLog.markGroupUpdated("group2");
+        Assert.assertEquals(2, binaryLog.sync(stgInfo));
+        binaryLog.close();
+        GroupOffsetStgInfo loadedInfo = new OffsetBinaryLog(1, fileNameBase).load();
+        Assert.assertEquals(100L, loadedInfo.getOffsetStgInfo("group1", "topic1", 0).getLstOffset());
+        Assert.assertEquals(250L, loadedInfo.getOffsetStgInfo("group1", "topic1", 1).getLstOffset());
+        Assert.assertEquals(25L, loadedInfo.getOffsetStgInfo("group1", "topic1", 1).getMsgId());
+        Assert.assertNull(loadedInfo.getOffsetStgInfos("group2"));
+    }
+
+    @Test
+    public void testRecoverCorruptedLog() throws Exception {
+        GroupOffsetStgInfo stgInfo = new GroupOffsetStgInfo(1);
+        stgInfo.addOffsetStgInfo("group1", "topic1", 0, 100L, 10L);
+        OffsetBinaryLog binaryLog = new OffsetBinaryLog(1, fileNameBase);
+        binaryLog.compact(stgInfo);
+        String partKey = OffsetStgInfo.buildOffsetKey("topic1", 0);
+        stgInfo.addOffsetStgInfo("group1", "topic1", 0, 110L, 11L);
+        binaryLog.markPartUpdated("group1", partKey);
+        binaryLog.sync(stgInfo);
+        long validLogSize = binaryLog.getLogSize();
+        stgInfo.addOffsetStgInfo("group1", "topic1", 0, 120L, 12L);
+        binaryLog.markPartUpdated("group1", partKey);
+        binaryLog.sync(stgInfo);
+        binaryLog.close();
+        // corrupt the last record
+        File logFile = new File(fileNameBase + OffsetBinaryLog.LOG_SUFFIX);
+        try (RandomAccessFile randFile = new RandomAccessFile(logFile, "rw")) {
+            randFile.seek(randFile.length() - 1);
+            randFile.write(0xFF);
+        }
+        binaryLog = new OffsetBinaryLog(1, fileNameBase);
+        GroupOffsetStgInfo loadedInfo = binaryLog.load();
+        Assert.assertEquals(110L, loadedInfo.getOffsetStgInfo("group1", "topic1", 0).getLstOffset());
+        Assert.assertEquals(validLogSize, logFile.length());
+        // the log of the previous generation is not replayed on the new snapshot
+        File oldLog = new File(baseDir, "old.log");
+        Files.copy(logFile.toPath(), oldLog.toPath());
+        stgInfo.addOffsetStgInfo("group1", "topic1", 0, 130L, 13L);
+        binaryLog.compact(stgInfo);
+        binaryLog.close();
+        Files.copy(oldLog.toPath(), logFile.toPath(),
+                java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        loadedInfo = new OffsetBinaryLog(1, fileNameBase).load();
+        Assert.assertEquals(130L, loadedInfo.getOffsetStgInfo("group1", "topic1", 0).getLstOffset());
+    }
+
+    @Test
+    public void testMigrateFromJsonFile() throws Exception {
+        GroupOffsetStgInfo stgInfo = new GroupOffsetStgInfo(1);
+        stgInfo.addOffsetStgInfo("group1", "topic1", 0, 112L, 10L);
+        File offsetDir = new File(baseDir, "offsetDir");
+        Assert.assertTrue(offsetDir.mkdirs());
+        String jsonFileBase = offsetDir.getAbsolutePath() + File.separator + "offsets";
+        Assert.assertTrue(FileOffsetStorage.storeOffsetStgInfoToFile(stgInfo, jsonFileBase).isSuccess());
+        FileOffsetStorage offsetStorage =
+                new FileOffsetStorage(1, baseDir.getAbsolutePath(), 60000L, 20000L, true);
+        offsetStorage.start();
+        Assert.assertEquals(112L, offsetStorage.loadOffset("group1", "topic1", 0).getOffset());
+        OffsetStorageInfo info = new OffsetStorageInfo("topic1", 1, 0, 0L, 168L, 15L, true, 0L);
+        Assert.assertTrue(offsetStorage.commitOffset("group1", Collections.singletonList(info), false));
+        offsetStorage.close();
+        Assert.assertTrue(new File(jsonFileBase + OffsetBinaryLog.SNAPSHOT_SUFFIX).exists());
+        Assert.assertFalse(new File(jsonFileBase + ".meta").exists());
+        offsetStorage = new FileOffsetStorage(1, baseDir.getAbsolutePath(), 60000L, 20000L, true);
+        Assert.assertFalse(offsetStorage.isFistUseFileStg());
+        offsetStorage.start();
+        Assert.assertEquals(168L, offsetStorage.loadOffset("group1", "topic1", 0).getOffset());
+        Map<String, Map<String, Set<Integer>>> rmvParts = new HashMap<>();
+        rmvParts.put("group1", Collections.singletonMap("topic1", new HashSet<>(Collections.singleton(0))));
+        offsetStorage.deleteGroupOffsetInfo(rmvParts);
+        offsetStorage.close();
+        offsetStorage = new FileOffsetStorage(1, baseDir.getAbsolutePath(), 60000L, 20000L, true);
+        offsetStorage.start();
+        Assert.assertNull(offsetStorage.loadOffset("group1", "topic1", 0));
+        offsetStorage.close();
+    }
+}
@@ -207,4 +207,30 @@ public class MsgStoreStatsHolderTest {
         // System.out.println(strBuff.toString());
         strBuff.delete(0, strBuff.length());
     }
+
+    @Test
+    public void testFileGroupFlushStats() {
+        MsgStoreStatsHolder msgStoreStatsHolder = new MsgStoreStatsHolder();
+        // case 1, not started
+        msgStoreStatsHolder.addFileGroupFlushStats(1, 10, true, 50, true);
+        Map<String, Long> retMap = new LinkedHashMap<>();
+        msgStoreStatsHolder.getValue(retMap);
+        Assert.assertEquals(0, retMap.get("file_group_flush_lag_count").longValue());
+        Assert.assertEquals(0, retMap.get("file_flush_slo_miss").longValue());
+        Assert.assertEquals(0, retMap.get("file_meta_flush").longValue());
+        retMap.clear();
+        // case 2, started
+        msgStoreStatsHolder.addFileGroupFlushStats(3, 30, false, 20, false);
+        msgStoreStatsHolder.addFileGroupFlushStats(2, 20, true, 800, true);
+        msgStoreStatsHolder.getValue(retMap);
+        Assert.assertEquals(2, retMap.get("file_group_flush_lag_count").longValue());
+        Assert.assertEquals(20, retMap.get("file_group_flush_lag_min").longValue());
+        Assert.assertEquals(800, retMap.get("file_group_flush_lag_max").longValue());
+        Assert.assertEquals(1, retMap.get("file_flush_slo_miss").longValue());
+        Assert.assertEquals(1, retMap.get("file_meta_flush").longValue());
+        Assert.assertEquals(2, retMap.get("file_flush_data_size_count").longValue());
+        Assert.assertEquals(30, retMap.get("file_flush_data_size_max").longValue());
+        Assert.assertEquals(2, retMap.get("file_flush_msg_cnt_min").longValue());
+        Assert.assertEquals(0, retMap.get("file_time_full").longValue());
+    }
 }
@@ -17,10 +17,14 @@
 
 package org.apache.inlong.tubemq.server.broker.utils;
 
+import org.apache.inlong.tubemq.corebase.protobuf.generated.ClientBroker;
+import org.apache.inlong.tubemq.server.broker.stats.TrafficInfo;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
+import java.util.HashMap;
 
 /**
  * DataStoreUtils test.
@@ -37,4 +41,52 @@ public class DataStoreUtilsTest {
         // get int by DataStoreUtils
         Assert.assertEquals(val, 123);
     }
+
+    @Test
+    public void getTransferMsgFromBatchBuffer() {
+        byte[] payLoad1 = "test-message-1".getBytes();
+        byte[] payLoad2 = "message-2".getBytes();
+        ByteBuffer batchBuffer = ByteBuffer.allocate(2 * DataStoreUtils.STORE_DATA_HEADER_LEN
+                + payLoad1.length + payLoad2.length);
+        putStoreMsg(batchBuffer, 1L, payLoad1);
+        putStoreMsg(batchBuffer, 2L, payLoad2);
+        batchBuffer.flip();
+        HashMap<String, TrafficInfo> countMap = new HashMap<>();
+        StringBuilder sBuilder = new StringBuilder(512);
+        // read the second message from the batch buffer
+        int startPos = DataStoreUtils.STORE_DATA_HEADER_LEN + payLoad1.length;
+        ClientBroker.TransferedMessage message =
+                DataStoreUtils.getTransferMsg(batchBuffer, startPos,
+                        DataStoreUtils.STORE_DATA_HEADER_LEN + payLoad2.length,
+                        countMap, "test", sBuilder);
+        Assert.assertNotNull(message);
+        Assert.assertEquals(2L, message.getMessageId());
+        Assert.assertEquals("message-2", message.getPayLoadData().toStringUtf8());
+        // read the first message
+        message = DataStoreUtils.getTransferMsg(batchBuffer,
+                DataStoreUtils.STORE_DATA_HEADER_LEN + payLoad1.length,
+                countMap, "test", sBuilder);
+        Assert.assertNotNull(message);
+        Assert.assertEquals(1L, message.getMessageId());
+        Assert.assertEquals("test-message-1", message.getPayLoadData().toStringUtf8());
+        Assert.assertEquals(2L, countMap.get("test#").getMsgCount());
+        // out of buffer range
+        Assert.assertNull(DataStoreUtils.getTransferMsg(batchBuffer, startPos + 1,
+                DataStoreUtils.STORE_DATA_HEADER_LEN + payLoad2.length,
+                countMap, "test", sBuilder));
+    }
+
+    private void putStoreMsg(ByteBuffer buffer, long msgId, byte[] payLoad) {
+        buffer.putInt(DataStoreUtils.STORE_DATA_PREFX_LEN + payLoad.length);
+        buffer.putInt(DataStoreUtils.STORE_DATA_TOKER_BEGIN_VALUE);
+        buffer.putInt(0);
+        buffer.putInt(0);
+        buffer.putLong(0L);
+        buffer.putLong(System.currentTimeMillis());
+        buffer.putInt(0);
+        buffer.putInt(0);
+        buffer.putLong(msgId);
+        buffer.putInt(0);
+        buffer.put(payLoad);
+    }
 }
@@ -28,6 +28,10 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 public class HeartbeatManagerTest {
 
     private static final Logger logger = LoggerFactory.getLogger(HeartbeatManager.class);
@@ -90,4 +94,40 @@ public class HeartbeatManagerTest {
         Assert.assertTrue(
                 heartbeatManager.getProducerRegMap().get("node1").getTimeoutTime() > System.currentTimeMillis());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTimeoutExpiryAndRefresh() throws Exception {
+        HeartbeatManager manager = new HeartbeatManager();
+        final ConcurrentHashMap<String, Long> expiredNodes = new ConcurrentHashMap<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        manager.regProducerCheckBusiness(300,
+                new TimeoutListener() {
+
+                    @Override
+                    public void onTimeout(final String nodeId, TimeoutInfo nodeInfo) throws Exception {
+                        expiredNodes.put(nodeId, System.currentTimeMillis() - nodeInfo.getTimeoutTime());
+                        latch.countDown();
+                    }
+                });
+        manager.regProducerNode("node1");
+        manager.regProducerNode("node2");
+        manager.regProducerNode("node3");
+        manager.unRegProducerNode("node3");
+        // keep node2 alive by heartbeats
+        long startTime = System.currentTimeMillis();
+        while (System.currentTimeMillis() - startTime < 1000) {
+            manager.updProducerNode("node2");
+            Thread.sleep(50);
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, expiredNodes.size());
+        Assert.assertTrue(expiredNodes.containsKey("node1"));
+        // the expiry lag is within a few ticks
+        Assert.assertTrue(expiredNodes.get("node1") < 1000);
+        Assert.assertNull(manager.getProducerRegMap().get("node1"));
+        Assert.assertNotNull(manager.getProducerRegMap().get("node2"));
+        Assert.assertTrue(manager.getTimeoutStatsInfo(new StringBuilder(512))
+                .toString().contains("\"totalExpiredCount\":1"));
+        manager.stop();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.master.balance;
+
+import org.apache.inlong.tubemq.corebase.cluster.BrokerInfo;
+import org.apache.inlong.tubemq.corebase.cluster.Partition;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * StickyAssignor test.
+ */
+public class StickyAssignorTest {
+
+    @Test
+    public void assignBalanced() {
+        List<Partition> partitions = buildPartitions(5, 20);
+        Map<String, List<Partition>> assignment = StickyAssignor.assign(partitions,
+                null, buildWeights(7), null);
+        Assert.assertEquals(7, assignment.size());
+        checkAssignment(partitions, assignment);
+        for (List<Partition> parts : assignment.values()) {
+            Assert.assertTrue(parts.size() == 14 || parts.size() == 15);
+        }
+    }
+
+    @Test
+    public void assignIncremental() {
+        List<Partition> partitions = buildPartitions(4, 25);
+        Map<String, List<Partition>> oldAssignment = StickyAssignor.assign(partitions,
+                null, buildWeights(4), null);
+        // a new consumer joins, only its share moves
+        Map<String, List<Partition>> newAssignment = StickyAssignor.assign(partitions,
+                oldAssignment, buildWeights(5), null);
+        checkAssignment(partitions, newAssignment);
+        Assert.assertEquals(20, newAssignment.get("consumer-4").size());
+        Assert.assertEquals(20, StickyAssignor.countMoved(oldAssignment, newAssignment));
+        // the consumer leaves, only its partitions move
+        Map<String, List<Partition>> leftAssignment = StickyAssignor.assign(partitions,
+                newAssignment, buildWeights(4), null);
+        checkAssignment(partitions, leftAssignment);
+        Assert.assertEquals(20, StickyAssignor.countMoved(newAssignment, leftAssignment));
+        // nothing changed, nothing moves
+        Map<String, List<Partition>> sameAssignment = StickyAssignor.assign(partitions,
+                leftAssignment, buildWeights(4), null);
+        Assert.assertEquals(0, StickyAssignor.countMoved(leftAssignment, sameAssignment));
+    }
+
+    @Test
+    public void assignWeightedAndLocal() {
+        List<Partition> partitions = buildPartitions(2, 6);
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("consumer-0", 1);
+        weights.put("consumer-1", 2);
+        Map<String, String> hosts = new HashMap<>();
+        hosts.put("consumer-0", "127.0.0.1");
+        hosts.put("consumer-1", "127.0.0.2");
+        Map<String, List<Partition>> assignment =
+                StickyAssignor.assign(partitions, null, weights, hosts);
+        checkAssignment(partitions, assignment);
+        Assert.assertEquals(4, assignment.get("consumer-0").size());
+        Assert.assertEquals(8, assignment.get("consumer-1").size());
+        // the consumer takes the partitions on its own host first
+        int localCnt = 0;
+        for (Partition partition : assignment.get("consumer-0")) {
+            if ("127.0.0.1".equals(partition.getHost())) {
+                localCnt++;
+            }
+        }
+        Assert.assertTrue(localCnt >= 2);
+    }
+
+    private List<Partition> buildPartitions(int brokerCnt, int partCntPerBroker) {
+        List<Partition> partitions = new ArrayList<>();
+        for (int brokerId = 1; brokerId <= brokerCnt; brokerId++) {
+            BrokerInfo brokerInfo = new BrokerInfo(brokerId, "127.0.0." + brokerId, 8123);
+            for (int partId = 0; partId < partCntPerBroker; partId++) {
+                partitions.add(new Partition(brokerInfo, "topic-" + (partId % 3), partId));
+            }
+        }
+        return partitions;
+    }
+
+    private Map<String, Integer> buildWeights(int consumerCnt) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (int i = 0; i < consumerCnt; i++) {
+            weights.put("consumer-" + i, 1);
+        }
+        return weights;
+    }
+
+    private void checkAssignment(List<Partition> partitions,
+            Map<String, List<Partition>> assignment) {
+        Set<String> assigned = new HashSet<>();
+        for (List<Partition> parts : assignment.values()) {
+            for (Partition partition : parts) {
+                Assert.assertTrue(assigned.add(partition.getPartitionKey()));
+            }
+        }
+        Assert.assertEquals(partitions.size(), assigned.size());
+    }
+}
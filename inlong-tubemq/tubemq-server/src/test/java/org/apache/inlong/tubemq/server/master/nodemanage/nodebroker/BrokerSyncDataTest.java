@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.inlong.tubemq.server.master.nodemanage.nodebroker;
+
+import org.apache.inlong.tubemq.corebase.utils.Tuple2;
+import org.apache.inlong.tubemq.corebase.utils.Tuple3;
+import org.apache.inlong.tubemq.server.common.statusdef.ManageStatus;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test for {@link BrokerSyncData}
+ */
+public class BrokerSyncDataTest {
+
+    private static final String BROKER_CONF =
+            "1:true:true:1000:10000:0,0,6:delete,168h:1:1000:1024:1000:1000";
+
+    @Test
+    public void testBrokerSyncDeltaData() {
+        BrokerSyncData syncData = new BrokerSyncData();
+        Map<String, String> topicConfMap = new HashMap<>();
+        topicConfMap.put("topic1", "topic1:2:true:true:1000:10000:0,0,6:delete,168h:1:1000:1024:1000:1000:1");
+        topicConfMap.put("topic2", "topic2:4:true:true:1000:10000:0,0,6:delete,168h:1:1000:1024:1000:1000:1");
+        syncData.updBrokerSyncData(true, 1L,
+                ManageStatus.STATUS_MANAGE_ONLINE, BROKER_CONF, topicConfMap);
+        Tuple3<Long, Integer, String> baseVersion = syncData.getSyncDownDataVersion();
+        syncData.bookBrokerReportInfo(null, baseVersion.getF0(),
+                baseVersion.getF1(), false, null, null);
+        // the broker is synchronized, no delta need to push
+        Assert.assertTrue(syncData.isConfSynchronized());
+        Assert.assertNull(syncData.getBrokerSyncDeltaData());
+        // change topic2, add topic3 and remove topic1
+        Map<String, String> newTopicConfMap = new HashMap<>();
+        newTopicConfMap.put("topic2", "topic2:8:true:true:1000:10000:0,0,6:delete,168h:1:1000:1024:1000:1000:1");
+        newTopicConfMap.put("topic3", "topic3:6:true:true:1000:10000:0,0,6:delete,168h:1:1000:1024:1000:1000:1");
+        syncData.updBrokerSyncData(false, 2L,
+                ManageStatus.STATUS_MANAGE_ONLINE, BROKER_CONF, newTopicConfMap);
+        Tuple2<List<String>, List<String>> deltaData = syncData.getBrokerSyncDeltaData();
+        Assert.assertNotNull(deltaData);
+        Assert.assertEquals(2, deltaData.getF0().size());
+        Assert.assertTrue(deltaData.getF0().contains(newTopicConfMap.get("topic2")));
+        Assert.assertTrue(deltaData.getF0().contains(newTopicConfMap.get("topic3")));
+        Assert.assertEquals(1, deltaData.getF1().size());
+        Assert.assertEquals("topic1", deltaData.getF1().get(0));
+        // the broker reported configure is unknown, need full sync
+        syncData.bookBrokerReportInfo(null, baseVersion.getF0(),
+                baseVersion.getF1() + 1, false, null, null);
+        Assert.assertNull(syncData.getBrokerSyncDeltaData());
+        // the broker configure changed, the deltas are discarded
+        syncData.bookBrokerReportInfo(null, baseVersion.getF0(),
+                baseVersion.getF1(), false, null, null);
+        syncData.updBrokerSyncData(false, 3L, ManageStatus.STATUS_MANAGE_ONLINE,
+                "2:true:true:1000:10000:0,0,6:delete,168h:1:1000:1024:1000:1000", newTopicConfMap);
+        Assert.assertNull(syncData.getBrokerSyncDeltaData());
+    }
+}